@@ -0,0 +1,110 @@
+package com.chenjimou.swimmingfishdemo;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import com.chenjimou.swimmingfishdemo.core.FishPose;
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按鱼的数量比较矢量绘制与精灵图集绘制一帧的耗时，画到软件Canvas上，排除GPU的影响：
+ * ./gradlew :app:connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.chenjimou.swimmingfishdemo.FishRenderBenchmark
+ */
+@RunWith(Parameterized.class)
+public class FishRenderBenchmark {
+
+    private static final FishSpecies SPECIES = FishSpecies.KOI;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    @Parameterized.Parameters(name = "fishCount={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{{1}, {10}, {50}});
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final int fishCount;
+    private Bitmap bitmap;
+    private Canvas canvas;
+    private FishPainter painter;
+    private FishSpriteAtlas atlas;
+    private float[] keyX;
+    private float[] keyY;
+    private float[] angle;
+    private float[] poses;
+
+    public FishRenderBenchmark(int fishCount) {
+        this.fishCount = fishCount;
+    }
+
+    @Before
+    public void setUp() {
+        bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(bitmap);
+        painter = new FishPainter(SPECIES);
+        // 矢量绘制第一次画躯干时会修改画笔的透明度，先画一次使画笔进入稳定状态
+        FishPose pose = new FishPose(SPECIES);
+        pose.update(WIDTH / 2f, HEIGHT / 2f, 90, 0);
+        painter.draw(canvas, pose.points, 0);
+
+        atlas = new FishSpriteAtlas();
+        atlas.buildNow(SPECIES, painter.getPaint());
+        assertTrue(atlas.isReady(SPECIES, painter.getPaint()));
+
+        Random random = new Random(42);
+        keyX = new float[fishCount];
+        keyY = new float[fishCount];
+        angle = new float[fishCount];
+        poses = new float[fishCount * FishPose.FLOATS_PER_POSE];
+        for (int i = 0; i < fishCount; i++) {
+            keyX[i] = random.nextFloat() * WIDTH;
+            keyY[i] = random.nextFloat() * HEIGHT;
+            angle[i] = random.nextFloat() * 360;
+            pose.compute(poses, i * FishPose.FLOATS_PER_POSE, keyX[i], keyY[i], angle[i], i * 37);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        atlas.release();
+        bitmap.recycle();
+    }
+
+    @Test
+    public void vector() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (int i = 0; i < fishCount; i++) {
+                painter.draw(canvas, poses, i * FishPose.FLOATS_PER_POSE);
+            }
+        }
+    }
+
+    @Test
+    public void atlas() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (int i = 0; i < fishCount; i++) {
+                atlas.draw(canvas, keyX[i], keyY[i], angle[i], i * 37, SPECIES, painter.getPaint(), 255);
+            }
+        }
+    }
+}
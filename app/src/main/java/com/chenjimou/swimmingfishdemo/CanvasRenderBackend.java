@@ -0,0 +1,130 @@
+package com.chenjimou.swimmingfishdemo;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.os.Build;
+
+import com.chenjimou.swimmingfishdemo.core.RenderBackend;
+
+/**
+ * 画到Android Canvas上的绘图后端。画笔和保留的Path都属于这个后端，Canvas在每次绘制前通过{@link #setCanvas}设置。
+ * 保留的Path绘制时只通过Matrix变换，Path本身不变，硬件加速时可以复用已经生成的网格。
+ */
+public class CanvasRenderBackend implements RenderBackend {
+
+    private final Paint mPaint;
+    // 画三角形时的画笔：颜色由顶点给出，画笔保持不透明，不影响顶点的透明度
+    private final Paint mVertexPaint = new Paint();
+    // 逐帧生成的路径
+    private final Path mPath = new Path();
+    private final Matrix mMatrix = new Matrix();
+    // 保留的路径，按编号存放
+    private Path[] mRetainedPaths = new Path[8];
+    private int mRetainedCount;
+    private Canvas mCanvas;
+
+    public CanvasRenderBackend() {
+        mPaint = new Paint();
+        mPaint.setStyle(Paint.Style.FILL);
+    }
+
+    /**
+     * 画布是否支持{@link #drawTriangles}：硬件加速的画布在Android 10之前不支持drawVertices
+     */
+    public static boolean supportsTriangles(Canvas canvas) {
+        return !canvas.isHardwareAccelerated() || Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q;
+    }
+
+    public Paint getPaint() {
+        return mPaint;
+    }
+
+    /**
+     * 设置之后绘制的目标
+     */
+    public void setCanvas(Canvas canvas) {
+        mCanvas = canvas;
+    }
+
+    @Override
+    public void setColor(int argb) {
+        mPaint.setColor(argb);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mPaint.setAlpha(alpha);
+    }
+
+    @Override
+    public void setAntiAlias(boolean antiAlias) {
+        mPaint.setAntiAlias(antiAlias);
+    }
+
+    @Override
+    public void setDither(boolean dither) {
+        mPaint.setDither(dither);
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius) {
+        mCanvas.drawCircle(cx, cy, radius, mPaint);
+    }
+
+    @Override
+    public void beginPath() {
+        mPath.reset();
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+        mPath.moveTo(x, y);
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        mPath.lineTo(x, y);
+    }
+
+    @Override
+    public void quadTo(float controlX, float controlY, float x, float y) {
+        mPath.quadTo(controlX, controlY, x, y);
+    }
+
+    @Override
+    public void fillPath() {
+        mCanvas.drawPath(mPath, mPaint);
+    }
+
+    @Override
+    public int retainPath() {
+        if (mRetainedCount == mRetainedPaths.length) {
+            Path[] paths = new Path[mRetainedCount * 2];
+            System.arraycopy(mRetainedPaths, 0, paths, 0, mRetainedCount);
+            mRetainedPaths = paths;
+        }
+        mRetainedPaths[mRetainedCount] = new Path(mPath);
+        mPath.reset();
+        return mRetainedCount++;
+    }
+
+    @Override
+    public void fillRetainedPath(int path, float cos, float sin, float originX, float originY) {
+        // setSinCos(-sin, cos)即[cos, sin; -sin, cos]，与局部坐标系的变换相同
+        mMatrix.setSinCos(-sin, cos);
+        mMatrix.postTranslate(originX, originY);
+        int saveCount = mCanvas.save();
+        mCanvas.concat(mMatrix);
+        mCanvas.drawPath(mRetainedPaths[path], mPaint);
+        mCanvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    public void drawTriangles(float[] vertices, int[] colors, int vertexCount) {
+        // drawVertices的顶点数是坐标数组中的值的个数，每个顶点两个
+        mCanvas.drawVertices(Canvas.VertexMode.TRIANGLES, vertexCount * 2, vertices, 0, null, 0,
+                colors, 0, null, 0, 0, mVertexPaint);
+    }
+}
@@ -1,326 +1,276 @@
 package com.chenjimou.swimmingfishdemo;
 
-import android.animation.ValueAnimator;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.PixelFormat;
 import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
-import android.view.animation.LinearInterpolator;
 
-import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
+import com.chenjimou.swimmingfishdemo.core.FishLod;
+import com.chenjimou.swimmingfishdemo.core.FishMetrics;
+import com.chenjimou.swimmingfishdemo.core.FishPose;
+import com.chenjimou.swimmingfishdemo.core.FishPoseCache;
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+import com.chenjimou.swimmingfishdemo.core.FixedTimestep;
+import com.chenjimou.swimmingfishdemo.core.Interpolation;
+import com.chenjimou.swimmingfishdemo.core.PoseBounds;
 
 /**
  * 这里的所有点坐标都是相对于以Drawable的左上顶点为原点的Android坐标系（Y轴以270°为正方向）
  */
-public class FishDrawable extends Drawable {
-
-    private Paint mPaint;
-    private Path mPath;
+public class FishDrawable extends Drawable implements Animatable {
+
+    // 鱼的大小、颜色和摆动周期，同一种鱼的所有Drawable共用
+    private final FishSpecies species;
+    // 根据姿态画鱼，同一种鱼的所有Drawable共用
+    private FishPainter fishPainter;
+    // 这个Drawable的透明度和颜色过滤器，共用的画笔在每次绘制前设置
+    private int alpha = 255;
+    private ColorFilter colorFilter;
     // 鱼的重心，即鱼躯干的中心
     private PointF keyPoint;
     // 鱼头的圆心
     private PointF fishHeadPoint;
-    // 鱼尾中圆的圆心
-    private PointF fishTailMiddlePoint;
-    // 鱼尾小圆的圆心
-    private PointF fishTailSmallPoint;
+    // 每一帧复用的姿态缓冲区
+    private FishPose fishPose;
+    // 原地摆动时的姿态缓存，为空时每一帧直接计算姿态
+    private FishPoseCache poseCache;
+    // 预先画好的精灵图集，为空时每一帧按矢量绘制
+    private FishSpriteAtlas spriteAtlas;
+    // 姿态是否需要按当前的相位和朝向重新计算
+    private boolean poseStale = true;
+    // 当前姿态的包围盒，以及上一次绘制时的包围盒（相对于Drawable的坐标）
+    private final float[] poseBounds = new float[PoseBounds.SIZE];
+    private final float[] drawnBounds = new float[PoseBounds.SIZE];
+    private boolean hasDrawnBounds;
+    private final Rect dirtyBounds = new Rect();
+    // 按鱼的大小选择的细节等级，以及帧预算要求的最低细节等级
+    private int sizeLevelOfDetail = FishLod.FULL;
+    private int minimumLevelOfDetail = FishLod.FULL;
     // 鱼头在未播放动画时的朝向角度（以鱼的重心建立坐标系，鱼头圆心与重心之间连线与x轴正方向的夹角角度）
     private float fishHeadAngle = 90;
-    // 鱼头的半径，鱼其他部位的大小都依据鱼头的半径决定
-    private float HEAD_RADIUS = 40;
-    // 鱼身的长度
-    private float BODY_LENGTH = 3.2f * HEAD_RADIUS;
-    // 鱼尾大圆的半径
-    private float TAIL_BIG_CIRCLE_RADIUS = 0.7f * HEAD_RADIUS;
-    // 鱼尾中圆的半径
-    private float TAIL_MIDDLE_CIRCLE_RADIUS = 0.42f * HEAD_RADIUS;
-    // 鱼尾小圆半径
-    private float TAIL_SMALL_CIRCLE_RADIUS = 0.168f * HEAD_RADIUS;
-    // 属性动画当前的值
-    private float currentValue = 0;
+    // 摆动的相位（0~360）按固定步长、以当前的频率累加，与屏幕的刷新率无关，频率变化时相位连续
+    private final FixedTimestep swingTimestep = new FixedTimestep();
+    private float phase;
+    private float previousPhase;
+    // 绘制用的相位：在上一步与最新一步的相位之间插值
+    private float drawPhase;
     // 鱼游动时摆动频率的变化值
     private float frequence = 1f;
-
-    @IntDef(flag = true, value = {SIDE_LEFT, SIDE_RIGHT})
-    @Retention(RetentionPolicy.SOURCE)
-    public @interface Side { }
-
-    private static final int SIDE_LEFT = 0;
-    private static final int SIDE_RIGHT = 1;
+    // 上一帧的时间，为0表示还没有收到过帧回调
+    private long lastFrameTimeNanos;
+    // 是否希望播放摆动动画（Animatable的start/stop）
+    private boolean started = true;
+    // 是否已经绘制过，第一次绘制之前不需要推进动画
+    private boolean drawn;
+    // 是否已注册到共用的动画时钟
+    private boolean running;
+    private final FishFrameClock.FrameListener frameListener = new FishFrameClock.FrameListener() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            if (lastFrameTimeNanos != 0) {
+                // 按固定步长推进，频率为1时效果与时长1000ms、线性插值、无限重复的属性动画相同
+                float stepSeconds = swingTimestep.getStepSeconds();
+                for (int i = swingTimestep.advance(frameTimeNanos - lastFrameTimeNanos); i > 0; i--) {
+                    previousPhase = phase;
+                    phase = (phase + species.swingDelta(frequence, stepSeconds)) % 360f;
+                }
+                drawPhase = Interpolation.lerpDegrees(previousPhase, phase, swingTimestep.getAlpha());
+                poseStale = true;
+            }
+            lastFrameTimeNanos = frameTimeNanos;
+            invalidateSelf();
+        }
+    };
 
     public FishDrawable() {
+        this(FishSpecies.KOI);
+    }
+
+    public FishDrawable(FishSpecies species) {
+        this.species = species;
         init();
     }
 
     private void init() {
         // 初始化
-        mPath = new Path();
-        mPaint = new Paint();
-        mPaint.setStyle(Paint.Style.FILL);
-        mPaint.setAntiAlias(true);
-        mPaint.setDither(true);
-        mPaint.setARGB(110, 244, 92, 71);
+        fishPainter = FishSpeciesResources.of(species).getPainter();
         // 鱼的重心也是用鱼头半径表示
-        keyPoint = new PointF(5.324f * HEAD_RADIUS, 5.324f * HEAD_RADIUS);
-
-        // 使用属性动画来实现鱼在原地不断摆动
-        ValueAnimator valueAnimator = ValueAnimator.ofFloat(0, 360);
-        // 设置播放时间
-        valueAnimator.setDuration(1000);
-        // 设置重复次数（无限次）
-        valueAnimator.setRepeatCount(ValueAnimator.INFINITE);
-        // 设置重复模式
-        // RESTART：重新开始重复，REVERSE：反转重复
-        valueAnimator.setRepeatMode(ValueAnimator.RESTART);
-        // 设置插值器（线性）
-        valueAnimator.setInterpolator(new LinearInterpolator());
-        valueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                currentValue = (float) animation.getAnimatedValue();
-                invalidateSelf();
-            }
-        });
-        // 开始播放
-        valueAnimator.start();
+        keyPoint = new PointF(species.getKeyOffset(), species.getKeyOffset());
+        fishHeadPoint = new PointF();
+        fishPose = new FishPose(species);
+        // 先算出初始姿态，保证首次绘制前鱼头的圆心也是有效的
+        updatePose();
     }
 
     /**
-     * 设置Drawable的宽度
+     * 按当前的相位和朝向计算姿态、鱼头的圆心以及包围盒，没有变化时不重复计算
      */
-    @Override
-    public int getIntrinsicWidth() {
-        return (int) (10.648f * HEAD_RADIUS);
+    private void updatePose() {
+        if (!poseStale) {
+            return;
+        }
+        poseStale = false;
+        // 所有顶点写入预先分配的数组，不创建新的对象
+        float[] pose = fishPose.points;
+        if (poseCache != null) {
+            poseCache.get(pose, 0, keyPoint.x, keyPoint.y, fishHeadAngle, drawPhase);
+        } else {
+            fishPose.update(keyPoint.x, keyPoint.y, fishHeadAngle, drawPhase);
+        }
+        // 鱼头的圆心坐标
+        fishHeadPoint.set(FishPose.x(pose, 0, FishPose.HEAD), FishPose.y(pose, 0, FishPose.HEAD));
+        // 多留1像素给抗锯齿的边缘
+        PoseBounds.compute(pose, 0, species.getHeadRadius(), 1, poseBounds);
     }
 
     /**
-     * 设置Drawable的高度
+     * 开始原地摆动。Drawable可见并且已经绘制过时才会注册到共用的动画时钟
      */
     @Override
-    public int getIntrinsicHeight() {
-        return (int) (10.648f * HEAD_RADIUS);
+    public void start() {
+        started = true;
+        updateRunning();
     }
 
+    /**
+     * 停止原地摆动，从共用的动画时钟中取消注册，不再消耗CPU
+     */
     @Override
-    public void draw(@NonNull Canvas canvas) {
-
-        // 鱼头的朝向角度随属性动画的值变化 --> 摆动方向：先左后右
-        float headAngle = (float) (fishHeadAngle + Math.sin(Math.toRadians(currentValue * frequence)) * 10);
-
-        // 鱼头的圆心坐标
-        fishHeadPoint = calculatePoint(keyPoint, BODY_LENGTH / 2, headAngle);
-
-        // 绘画鱼头
-        canvas.drawCircle(fishHeadPoint.x, fishHeadPoint.y, HEAD_RADIUS, mPaint);
-
-        // 画右鱼鳍
-        PointF rightFinsPoint = calculatePoint(fishHeadPoint, 0.9f * HEAD_RADIUS, headAngle - 110);
-        makeFins(canvas, rightFinsPoint, headAngle, SIDE_RIGHT);
-
-        // 画左鱼鳍
-        PointF leftFinsPoint = calculatePoint(fishHeadPoint, 0.9f * HEAD_RADIUS, headAngle + 110);
-        makeFins(canvas, leftFinsPoint, headAngle, SIDE_LEFT);
-
-        // 鱼尾大圆的圆心，也是躯干连接尾部的圆心
-        PointF bodyBottomCenterPoint = calculatePoint(fishHeadPoint, BODY_LENGTH, headAngle - 180);
-
-        // 画鱼的躯干
-        makeBody(canvas, fishHeadPoint, bodyBottomCenterPoint, headAngle);
-
-        // 鱼尾上部分的朝向角度随鱼头的朝向角度变化 --> 摆动方向：先右后左
-        float tailUpperAngle = (float) (headAngle + Math.cos(Math.toRadians(currentValue * frequence)) * 15);
-
-        // 画鱼尾的上部分
-        makeSegment(canvas, bodyBottomCenterPoint, TAIL_BIG_CIRCLE_RADIUS, TAIL_MIDDLE_CIRCLE_RADIUS,
-                tailUpperAngle, true);
-
-        // 鱼尾下部分的朝向角度随鱼头的朝向角度变化 --> 摆动方向：先左后右
-        float tailBottomAngle = (float) (headAngle + Math.sin(Math.toRadians(currentValue * frequence)) * 25);
-
-        // 画鱼尾的下部分
-        makeSegment(canvas, fishTailMiddlePoint, TAIL_MIDDLE_CIRCLE_RADIUS, TAIL_SMALL_CIRCLE_RADIUS,
-                tailBottomAngle, false);
-
-        // 鱼尾三角形底边的半长随属性动画的值变化
-        float tailTriangleLength = (float) Math.abs(Math.sin(Math.toRadians(currentValue * frequence)) * TAIL_BIG_CIRCLE_RADIUS);
-
-        // 鱼尾三角形的朝向角度随鱼尾下部分的朝向角度变化 --> 摆动方向：先左后右
-        float tailTriangleAngle = (float) (headAngle + Math.sin(Math.toRadians(currentValue * frequence)) * 35);
+    public void stop() {
+        started = false;
+        updateRunning();
+    }
 
-        // 画鱼尾的三角形
-        makeTriangle(canvas, fishTailSmallPoint, TAIL_MIDDLE_CIRCLE_RADIUS * 2.7f,
-                tailTriangleLength, tailTriangleAngle);
-        makeTriangle(canvas, fishTailSmallPoint, TAIL_MIDDLE_CIRCLE_RADIUS * 2.7f - 10,
-                tailTriangleLength - 20, tailTriangleAngle);
+    /**
+     * 不可见时（例如所在的View被移除或者窗口被隐藏）暂停摆动，重新可见时从暂停时的相位继续
+     * @param restart 为true时从相位0重新开始摆动
+     */
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        boolean changed = super.setVisible(visible, restart);
+        if (visible && restart) {
+            phase = 0;
+            previousPhase = 0;
+            drawPhase = 0;
+            poseStale = true;
+        }
+        updateRunning();
+        return changed;
     }
 
     /**
-     * 使用二阶贝塞尔曲线绘制鱼的躯干
-     * @param bodyUpperCenterPoint 躯干连接头部的圆心，也就是鱼头的圆心
-     * @param bodyBottomCenterPoint 躯干连接尾部的圆心，也就是鱼尾大圆的圆心
-     * @param angle 鱼头的朝向角度
+     * 根据播放意图、可见性以及是否已经绘制过，决定是否注册到共用的动画时钟
      */
-    private void makeBody(Canvas canvas, PointF bodyUpperCenterPoint, PointF bodyBottomCenterPoint, float angle) {
-
-        // 躯干的四个顶点
-        PointF topLeftPoint = calculatePoint(bodyUpperCenterPoint, HEAD_RADIUS, angle + 90);
-        PointF topRightPoint = calculatePoint(bodyUpperCenterPoint, HEAD_RADIUS, angle - 90);
-        PointF bottomLeftPoint = calculatePoint(bodyBottomCenterPoint, TAIL_BIG_CIRCLE_RADIUS,
-                angle + 90);
-        PointF bottomRightPoint = calculatePoint(bodyBottomCenterPoint, TAIL_BIG_CIRCLE_RADIUS,
-                angle - 90);
-
-        // 二阶贝塞尔曲线的控制点 --- 决定鱼的胖瘦
-        PointF controlLeft = calculatePoint(bodyUpperCenterPoint, BODY_LENGTH * 0.56f,
-                angle + 130);
-        PointF controlRight = calculatePoint(bodyUpperCenterPoint, BODY_LENGTH * 0.56f,
-                angle - 130);
-
-        // 绘制躯干
-        mPath.reset();
-        mPath.moveTo(topLeftPoint.x, topLeftPoint.y);
-        mPath.quadTo(controlLeft.x, controlLeft.y, bottomLeftPoint.x, bottomLeftPoint.y);
-        mPath.lineTo(bottomRightPoint.x, bottomRightPoint.y);
-        mPath.quadTo(controlRight.x, controlRight.y, topRightPoint.x, topRightPoint.y);
-
-        // 设置躯干的透明度
-        mPaint.setAlpha(160);
-
-        canvas.drawPath(mPath, mPaint);
+    private void updateRunning() {
+        boolean shouldRun = started && drawn && isVisible();
+        if (shouldRun == running) {
+            return;
+        }
+        running = shouldRun;
+        if (shouldRun) {
+            // 重新开始计时，恢复时从暂停时的相位继续摆动
+            lastFrameTimeNanos = 0;
+            swingTimestep.reset();
+            FishFrameClock.getInstance().register(frameListener);
+        } else {
+            FishFrameClock.getInstance().unregister(frameListener);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
     }
 
     /**
-     * 绘制鱼尾的三角形
-     * @param topPoint 三角形的上顶点
-     * @param findCenterLength 上顶点到底边的距离
-     * @param findEdgeLength 底边中心点到左右两顶点的距离
-     * @param angle 鱼头的朝向角度
+     * 设置Drawable的宽度
      */
-    private void makeTriangle(Canvas canvas, PointF topPoint, float findCenterLength,
-                              float findEdgeLength, float angle) {
-        // 三角形底边的中心点
-        PointF centerPoint = calculatePoint(topPoint, findCenterLength, angle - 180);
-
-        // 三角形底边的左右顶点
-        PointF leftPoint = calculatePoint(centerPoint, findEdgeLength, angle + 90);
-        PointF rightPoint = calculatePoint(centerPoint, findEdgeLength, angle - 90);
-
-        // 画三角形，连接三角形的各顶点
-        mPath.reset();
-        mPath.moveTo(topPoint.x, topPoint.y);
-        mPath.lineTo(leftPoint.x, leftPoint.y);
-        mPath.lineTo(rightPoint.x, rightPoint.y);
-
-        canvas.drawPath(mPath, mPaint);
+    @Override
+    public int getIntrinsicWidth() {
+        return species.getBoundsSize();
     }
 
     /**
-     * 绘制鱼尾部分（绘制梯形）
-     * @param bottomCenterPoint 梯形下底圆的圆心
-     * @param bigRadius 大圆的半径
-     * @param smallRadius 小圆的半径
-     * @param angle 鱼头的朝向角度
-     * @param hasBigCircle 是否要绘制大圆（鱼尾分为两部分，只有上部分需要绘画大圆）
+     * 设置Drawable的高度
      */
-    private void makeSegment(Canvas canvas, PointF bottomCenterPoint, float bigRadius,
-                             float smallRadius, float angle, boolean hasBigCircle) {
-        // 梯形上底圆的计算距离
-        float upperCenterPointDistance;
-        if (hasBigCircle){
-            upperCenterPointDistance = TAIL_BIG_CIRCLE_RADIUS * (0.6f + 1);
-        } else {
-            upperCenterPointDistance = TAIL_MIDDLE_CIRCLE_RADIUS * (0.4f + 2.7f);
-        }
+    @Override
+    public int getIntrinsicHeight() {
+        return species.getBoundsSize();
+    }
 
-        // 梯形上底圆的圆心
-        PointF upperCenterPoint = calculatePoint(bottomCenterPoint,
-                upperCenterPointDistance,
-                angle - 180);
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        boolean metrics = FishMetrics.isEnabled();
+        long metricsStartNanos = metrics ? System.nanoTime() : 0;
 
-        if (hasBigCircle){
-            fishTailMiddlePoint = upperCenterPoint;
-        } else {
-            fishTailSmallPoint = upperCenterPoint;
+        // 第一次绘制时才开始推进动画
+        if (!drawn) {
+            drawn = true;
+            updateRunning();
         }
 
-        // 梯形的四个顶点
-        PointF bottomLeftPoint = calculatePoint(bottomCenterPoint, bigRadius, angle + 90);
-        PointF bottomRightPoint = calculatePoint(bottomCenterPoint, bigRadius, angle - 90);
-        PointF upperLeftPoint = calculatePoint(upperCenterPoint, smallRadius, angle + 90);
-        PointF upperRightPoint = calculatePoint(upperCenterPoint, smallRadius, angle - 90);
-
-        if (hasBigCircle) {
-            // 画大圆 --- 只在绘画上部分鱼尾的时候才绘画
-            canvas.drawCircle(bottomCenterPoint.x, bottomCenterPoint.y, bigRadius, mPaint);
+        // 计算这一帧的姿态
+        updatePose();
+        float[] pose = fishPose.points;
+        System.arraycopy(poseBounds, 0, drawnBounds, 0, PoseBounds.SIZE);
+        hasDrawnBounds = true;
+
+        // 画笔被同一种鱼的Drawable共用，先换成这个Drawable的透明度和颜色过滤器
+        Paint paint = fishPainter.getPaint();
+        paint.setColorFilter(colorFilter);
+        fishPainter.setAlpha(alpha);
+
+        // 画鱼：有图集时贴一次图，图集还在生成时按矢量绘制
+        if (spriteAtlas == null || !spriteAtlas.draw(canvas, keyPoint.x, keyPoint.y, fishHeadAngle,
+                drawPhase, species, paint, alpha)) {
+            // Drawable自身不缩放，鱼头在屏幕上的半径就是鱼头的半径
+            sizeLevelOfDetail = FishLod.tierForRadius(species.getHeadRadius(), sizeLevelOfDetail);
+            fishPainter.setLevelOfDetail(FishLod.combine(sizeLevelOfDetail, minimumLevelOfDetail));
+            fishPainter.draw(canvas, pose, 0);
         }
-        // 画小圆
-        canvas.drawCircle(upperCenterPoint.x, upperCenterPoint.y, smallRadius, mPaint);
-
-        // 画梯形，连接梯形的四个顶点
-        mPath.reset();
-        mPath.moveTo(upperLeftPoint.x, upperLeftPoint.y);
-        mPath.lineTo(upperRightPoint.x, upperRightPoint.y);
-        mPath.lineTo(bottomRightPoint.x, bottomRightPoint.y);
-        mPath.lineTo(bottomLeftPoint.x, bottomLeftPoint.y);
-
-        canvas.drawPath(mPath, mPaint);
-    }
 
-    /**
-     * 使用二阶贝塞尔曲线绘画鱼鳍
-     * @param startPoint 贝塞尔曲线的起始点
-     * @param angle 鱼头的朝向角度
-     * @param side 绘画的是哪边鱼鳍
-     */
-    private void makeFins(Canvas canvas, PointF startPoint, float angle, @Side int side) {
-        // 控制点的角度
-        float controlAngle = 115;
-        // 鱼鳍的终点 --- 二阶贝塞尔曲线的终点
-        PointF endPoint = calculatePoint(startPoint, 1.3f * HEAD_RADIUS, angle - 180);
-        // 计算控制点
-        PointF controlPoint = calculatePoint(startPoint, 1.3f * HEAD_RADIUS * 1.8f,
-                side == 1 ? angle - controlAngle : angle + controlAngle);
-        // 绘制
-        mPath.reset();
-        // 将画笔移动到起始点
-        mPath.moveTo(startPoint.x, startPoint.y);
-        // 二阶贝塞尔曲线
-        mPath.quadTo(controlPoint.x, controlPoint.y, endPoint.x, endPoint.y);
-        canvas.drawPath(mPath, mPaint);
+        if (metrics) {
+            FishMetrics.getInstance().recordSection(FishMetrics.SECTION_DRAW_FISH, System.nanoTime() - metricsStartNanos);
+        }
     }
 
     /**
-     * 算法：以参照点为原点建立Android坐标系，根据距离和角度，计算出目标点
-     * @param referencePoint 参照点
-     * @param distance 目标点与参照点的距离
-     * @param angle 以参照点建立坐标系，目标点与参照点之间连线与x轴正方向的夹角角度
-     * @return 目标点
+     * 需要重绘的区域：上一次绘制的鱼与即将绘制的鱼的包围盒的并集，而不是整个Drawable。
+     * View.invalidateDrawable从API 21开始按这个区域刷新，ImageView等自己决定刷新范围的宿主会忽略它
      */
-    public PointF calculatePoint(PointF referencePoint, float distance, float angle){
-        // 根据cos函数计算出目标点的x坐标
-        float deltaX = (float) (Math.cos(Math.toRadians(angle)) * distance);
-        // 根据sin函数计算出目标点的y坐标
-        // （因为JDK中三角函数坐标系的y轴与Android屏幕坐标轴的y轴相反，所以角度需要减180）
-        float deltaY = (float) (Math.sin(Math.toRadians(angle - 180)) * distance);
-        return new PointF(referencePoint.x + deltaX, referencePoint.y + deltaY);
+    @NonNull
+    @Override
+    public Rect getDirtyBounds() {
+        Rect bounds = getBounds();
+        if (!hasDrawnBounds) {
+            return bounds;
+        }
+        updatePose();
+        dirtyBounds.set(
+                bounds.left + (int) Math.floor(Math.min(drawnBounds[PoseBounds.LEFT], poseBounds[PoseBounds.LEFT])),
+                bounds.top + (int) Math.floor(Math.min(drawnBounds[PoseBounds.TOP], poseBounds[PoseBounds.TOP])),
+                bounds.left + (int) Math.ceil(Math.max(drawnBounds[PoseBounds.RIGHT], poseBounds[PoseBounds.RIGHT])),
+                bounds.top + (int) Math.ceil(Math.max(drawnBounds[PoseBounds.BOTTOM], poseBounds[PoseBounds.BOTTOM])));
+        return dirtyBounds;
     }
 
     @Override
     public void setAlpha(int alpha) {
-        mPaint.setAlpha(alpha);
+        this.alpha = alpha;
+        invalidateSelf();
     }
 
     @Override
     public void setColorFilter(@Nullable ColorFilter colorFilter) {
-        mPaint.setColorFilter(colorFilter);
+        this.colorFilter = colorFilter;
+        invalidateSelf();
     }
 
     @Override
@@ -333,22 +283,86 @@ public class FishDrawable extends Drawable {
     }
 
     public PointF getFishHeadPoint() {
+        updatePose();
         return fishHeadPoint;
     }
 
     public float getHEAD_RADIUS() {
-        return HEAD_RADIUS;
+        return species.getHeadRadius();
+    }
+
+    public FishSpecies getSpecies() {
+        return species;
     }
 
     public float getFrequence() {
         return frequence;
     }
 
+    /**
+     * 设置摆动频率，从下一步开始按新的频率累加相位，不会使姿态跳变
+     */
     public void setFrequence(float frequence) {
         this.frequence = frequence;
     }
 
+    public float getFishHeadAngle() {
+        return fishHeadAngle;
+    }
+
     public void setFishHeadAngle(float fishHeadAngle) {
         this.fishHeadAngle = fishHeadAngle;
+        poseStale = true;
+    }
+
+    /**
+     * 最近一次收到帧回调的时间（纳秒），还没有收到过或者重新开始计时后为0
+     */
+    public long getLastFrameTimeNanos() {
+        return lastFrameTimeNanos;
+    }
+
+    public FishPoseCache getPoseCache() {
+        return poseCache;
+    }
+
+    /**
+     * 设置姿态缓存，同一个缓存可以被同一种鱼的多条鱼共用（见{@link FishSpeciesResources#getPoseCache()}）。
+     * 姿态还取决于摆动幅度，只有鱼头半径相同的另一种鱼不能共用
+     * @param poseCache 为空时关闭缓存
+     */
+    public void setPoseCache(@Nullable FishPoseCache poseCache) {
+        if (poseCache != null && poseCache.getSpecies() != species) {
+            throw new IllegalArgumentException("pose cache species does not match this drawable");
+        }
+        this.poseCache = poseCache;
+    }
+
+    public int getMinimumLevelOfDetail() {
+        return minimumLevelOfDetail;
+    }
+
+    /**
+     * 设置最低细节等级（见{@link FishLod}），通常由帧预算调节器决定，鱼较小时实际等级可能更低
+     */
+    public void setMinimumLevelOfDetail(int minimumLevelOfDetail) {
+        if (this.minimumLevelOfDetail == minimumLevelOfDetail) {
+            return;
+        }
+        this.minimumLevelOfDetail = minimumLevelOfDetail;
+        invalidateSelf();
+    }
+
+    public FishSpriteAtlas getSpriteAtlas() {
+        return spriteAtlas;
+    }
+
+    /**
+     * 设置精灵图集，同一个图集可以被同一种、颜色也相同的多条鱼共用
+     * @param spriteAtlas 为空时按矢量绘制
+     */
+    public void setSpriteAtlas(@Nullable FishSpriteAtlas spriteAtlas) {
+        this.spriteAtlas = spriteAtlas;
+        invalidateSelf();
     }
 }
@@ -0,0 +1,134 @@
+package com.chenjimou.swimmingfishdemo;
+
+import android.content.Context;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+import androidx.annotation.MainThread;
+
+import com.chenjimou.swimmingfishdemo.core.FishMetrics;
+
+import java.util.ArrayList;
+
+/**
+ * 所有鱼共用的动画时钟：每一帧只向Choreographer注册一次回调，在回调中依次推进所有已注册的鱼的动画。
+ * 同一帧回调内发起的刷新请求会被合并到同一次绘制中，因此无论注册了多少条鱼，每一帧都只有一次刷新。
+ * 没有注册者时不会再向Choreographer注册回调，CPU开销只与正在播放动画的鱼的数量有关。
+ * 注册者在重新注册时各自清空上一帧的时间，停下期间的间隔不会被当成一帧的时长。
+ * <p>
+ * 只能在主线程中使用。
+ */
+@MainThread
+public class FishFrameClock implements Choreographer.FrameCallback {
+
+    /**
+     * 帧回调
+     */
+    public interface FrameListener {
+        /**
+         * @param frameTimeNanos 这一帧的开始时间（纳秒），与{@link System#nanoTime()}同一时基
+         */
+        void onFrame(long frameTimeNanos);
+    }
+
+    private static FishFrameClock sInstance;
+
+    private final ArrayList<FrameListener> listeners = new ArrayList<>();
+    // 分发时使用的快照，只在注册者发生变化后重新生成，避免在回调中增删注册者时影响遍历
+    private FrameListener[] dispatchListeners = new FrameListener[0];
+    private boolean listenersChanged;
+    // 是否已经向Choreographer注册了下一帧的回调
+    private boolean scheduled;
+
+    /**
+     * 屏幕刷新一帧的间隔（纳秒），取不到刷新率时按60Hz计算
+     */
+    public static long getFrameIntervalNanos(Context context) {
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        float refreshRate = windowManager == null ? 0 : windowManager.getDefaultDisplay().getRefreshRate();
+        if (refreshRate < 1) {
+            refreshRate = 60;
+        }
+        return (long) (1e9 / refreshRate);
+    }
+
+    public static FishFrameClock getInstance() {
+        if (sInstance == null) {
+            sInstance = new FishFrameClock();
+        }
+        return sInstance;
+    }
+
+    /**
+     * 注册帧回调，重复注册不会生效
+     */
+    public void register(FrameListener listener) {
+        if (listeners.contains(listener)) {
+            return;
+        }
+        listeners.add(listener);
+        listenersChanged = true;
+        scheduleIfNeeded();
+    }
+
+    /**
+     * 取消注册，当前帧如果还没有分发到该注册者，它将不会再收到回调
+     */
+    public void unregister(FrameListener listener) {
+        if (listeners.remove(listener)) {
+            listenersChanged = true;
+        }
+        if (listeners.isEmpty()) {
+            cancelSchedule();
+        }
+    }
+
+    public boolean isRegistered(FrameListener listener) {
+        return listeners.contains(listener);
+    }
+
+    public int getListenerCount() {
+        return listeners.size();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled = false;
+        if (FishMetrics.isEnabled()) {
+            FishMetrics.getInstance().onFrame(frameTimeNanos, listeners.size());
+        }
+        if (listenersChanged) {
+            dispatchListeners = listeners.toArray(dispatchListeners.length == listeners.size()
+                    ? dispatchListeners : new FrameListener[listeners.size()]);
+            listenersChanged = false;
+        }
+        FrameListener[] snapshot = dispatchListeners;
+        for (int i = 0; i < snapshot.length; i++) {
+            FrameListener listener = snapshot[i];
+            // 分发过程中被取消注册的不再回调
+            if (listenersChanged && !listeners.contains(listener)) {
+                continue;
+            }
+            listener.onFrame(frameTimeNanos);
+        }
+        scheduleIfNeeded();
+    }
+
+    private void scheduleIfNeeded() {
+        if (!scheduled && !listeners.isEmpty()) {
+            Choreographer.getInstance().postFrameCallback(this);
+            scheduled = true;
+        }
+    }
+
+    private void cancelSchedule() {
+        if (scheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            scheduled = false;
+            // 时钟停下之后再开始的第一帧与之前的帧之间的间隔不算卡顿
+            if (FishMetrics.isEnabled()) {
+                FishMetrics.getInstance().breakFrameSequence();
+            }
+        }
+    }
+}
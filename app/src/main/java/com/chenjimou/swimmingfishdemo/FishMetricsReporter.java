@@ -0,0 +1,154 @@
+package com.chenjimou.swimmingfishdemo;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.chenjimou.swimmingfishdemo.core.FishMetrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打开{@link FishMetrics}并定期把统计结果输出到logcat，也可以同时追加到文件中（在后台线程中写入）。
+ * 同时统计主线程每一帧的内存分配次数（Debug.getThreadAllocCount）。
+ * <p>
+ * 只能在主线程中使用。
+ */
+@MainThread
+public class FishMetricsReporter {
+
+    private static final String TAG = "FishMetrics";
+
+    private static Executor sFileExecutor;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final long frameIntervalNanos;
+    private final long intervalMillis;
+    @Nullable
+    private final File file;
+    private boolean running;
+
+    private final FishMetrics.AllocationCounter allocationCounter = new FishMetrics.AllocationCounter() {
+        @Override
+        public long getAllocationCount() {
+            return Debug.getThreadAllocCount();
+        }
+    };
+
+    private final Runnable dumpRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dump();
+            mainHandler.postDelayed(this, intervalMillis);
+        }
+    };
+
+    /**
+     * @param intervalMillis 输出的间隔（毫秒）
+     * @param file 同时追加到这个文件中，为空时只输出到logcat
+     */
+    public FishMetricsReporter(Context context, long intervalMillis, @Nullable File file) {
+        this.frameIntervalNanos = FishFrameClock.getFrameIntervalNanos(context);
+        this.intervalMillis = intervalMillis;
+        this.file = file;
+    }
+
+    /**
+     * 打开统计并开始定期输出
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        FishMetrics metrics = FishMetrics.getInstance();
+        metrics.setFrameIntervalNanos(frameIntervalNanos);
+        Debug.startAllocCounting();
+        metrics.setAllocationCounter(allocationCounter);
+        FishMetrics.setEnabled(true);
+        mainHandler.postDelayed(dumpRunnable, intervalMillis);
+    }
+
+    /**
+     * 输出最后一次结果后关闭统计，关闭后记录的地方只剩一次判断
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        mainHandler.removeCallbacks(dumpRunnable);
+        dump();
+        FishMetrics.setEnabled(false);
+        FishMetrics.getInstance().setAllocationCounter(null);
+        Debug.stopAllocCounting();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 立即输出一次当前的统计结果
+     */
+    public void dump() {
+        final String report = FishMetrics.getInstance().report();
+        Log.i(TAG, report);
+        if (file == null) {
+            return;
+        }
+        final File target = file;
+        final long timeMillis = System.currentTimeMillis();
+        fileExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                Writer writer = null;
+                try {
+                    writer = new FileWriter(target, true);
+                    writer.write("--- " + timeMillis + "\n");
+                    writer.write(report);
+                } catch (IOException e) {
+                    Log.w(TAG, "failed to write " + target, e);
+                } finally {
+                    if (writer != null) {
+                        try {
+                            writer.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private static synchronized Executor fileExecutor() {
+        if (sFileExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull Runnable runnable) {
+                            Thread thread = new Thread(runnable, "fish-metrics");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            sFileExecutor = executor;
+        }
+        return sFileExecutor;
+    }
+}
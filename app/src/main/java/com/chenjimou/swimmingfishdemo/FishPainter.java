@@ -0,0 +1,94 @@
+package com.chenjimou.swimmingfishdemo;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import com.chenjimou.swimmingfishdemo.core.FishLod;
+import com.chenjimou.swimmingfishdemo.core.FishMeshRenderer;
+import com.chenjimou.swimmingfishdemo.core.FishPose;
+import com.chenjimou.swimmingfishdemo.core.FishRenderer;
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+
+/**
+ * 根据姿态把鱼画到Canvas上，FishDrawable与鱼群共用。
+ * 姿态可以是数组中的任意一段，这样鱼群中所有鱼的姿态可以存放在同一个数组中依次绘制。
+ * <p>
+ * 画哪些部位、怎样连接顶点由与Android无关的{@link FishRenderer}决定（JVM上可以用同样的代码画到BufferedImage中），
+ * 这里只是把它接到{@link CanvasRenderBackend}上。
+ * <p>
+ * 细节等级（{@link FishLod}）较低时少画一些部位，并关闭抗锯齿或抖动，画鱼群时所有鱼共用同一个等级。
+ * 画鱼群时所有鱼合并成一个三角形网格（{@link FishMeshRenderer}），一次drawVertices画完。
+ * <p>
+ * 主线程上同一种鱼共用一个FishPainter（见{@link FishSpeciesResources}），其他线程各自创建。
+ */
+public class FishPainter {
+
+    private final CanvasRenderBackend mBackend;
+    private final FishRenderer mRenderer;
+    // 第一次画鱼群时才创建
+    private FishMeshRenderer mMeshRenderer;
+
+    public FishPainter(FishSpecies species) {
+        mBackend = new CanvasRenderBackend();
+        mRenderer = new FishRenderer(species, mBackend);
+    }
+
+    public Paint getPaint() {
+        return mBackend.getPaint();
+    }
+
+    public int getLevelOfDetail() {
+        return mRenderer.getLevelOfDetail();
+    }
+
+    public int getAlpha() {
+        return mRenderer.getAlpha();
+    }
+
+    /**
+     * 设置之后绘制的整条鱼的透明度（0~255），各部位按这个比例变淡，画鱼群时同样有效
+     */
+    public void setAlpha(int alpha) {
+        mRenderer.setAlpha(alpha);
+    }
+
+    /**
+     * 设置之后绘制的细节等级，等级变化时才修改画笔的抗锯齿和抖动
+     */
+    public void setLevelOfDetail(int levelOfDetail) {
+        mRenderer.setLevelOfDetail(levelOfDetail);
+    }
+
+    /**
+     * 画一条鱼
+     * @param pose 姿态数组
+     * @param offset 这条鱼的姿态在数组中的起始下标
+     */
+    public void draw(Canvas canvas, float[] pose, int offset) {
+        mBackend.setCanvas(canvas);
+        mRenderer.draw(pose, offset);
+        mBackend.setCanvas(null);
+    }
+
+    /**
+     * 画整个鱼群：所有鱼合并为一次drawVertices，画布不支持时逐条绘制
+     * @param poses 姿态数组，每条鱼的姿态连续存放
+     * @param count 鱼的数量
+     */
+    public void drawSchool(Canvas canvas, float[] poses, int count) {
+        mBackend.setCanvas(canvas);
+        if (CanvasRenderBackend.supportsTriangles(canvas)) {
+            if (mMeshRenderer == null) {
+                mMeshRenderer = new FishMeshRenderer(mRenderer.getSpecies(), FishMeshRenderer.DEFAULT_TOLERANCE,
+                        count, mBackend);
+            }
+            mMeshRenderer.setLevelOfDetail(mRenderer.getLevelOfDetail());
+            mMeshRenderer.draw(poses, count, FishPose.FLOATS_PER_POSE, mRenderer.getBodyAlpha());
+        } else {
+            for (int i = 0; i < count; i++) {
+                mRenderer.draw(poses, i * FishPose.FLOATS_PER_POSE);
+            }
+        }
+        mBackend.setCanvas(null);
+    }
+}
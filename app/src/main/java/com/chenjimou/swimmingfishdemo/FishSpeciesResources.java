@@ -0,0 +1,61 @@
+package com.chenjimou.swimmingfishdemo;
+
+import androidx.annotation.MainThread;
+
+import com.chenjimou.swimmingfishdemo.core.FishPoseCache;
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+
+import java.util.HashMap;
+
+/**
+ * 同一种鱼在主线程上共用的绘制资源：画笔、Path、Matrix和保留的部位路径（都在{@link FishPainter}的后端中），
+ * 以及原地摆动时的姿态缓存。原先每个FishDrawable各自创建一份，同一种鱼的Drawable越多，重复的对象就越多。
+ * <p>
+ * 按{@link FishSpecies}对象区分，应当使用共用的种类（例如{@link FishSpecies#KOI}），而不是每次新建。
+ * 共用的画笔只保存最近一次绘制的状态，每条鱼绘制前自己设置透明度、颜色过滤器和细节等级。
+ * <p>
+ * 只能在主线程中使用，渲染线程需要自己创建FishPainter。
+ */
+@MainThread
+public final class FishSpeciesResources {
+
+    private static final HashMap<FishSpecies, FishSpeciesResources> sResources =
+            new HashMap<FishSpecies, FishSpeciesResources>();
+
+    private final FishSpecies species;
+    private final FishPainter painter;
+    // 第一次需要时才创建
+    private FishPoseCache poseCache;
+
+    private FishSpeciesResources(FishSpecies species) {
+        this.species = species;
+        this.painter = new FishPainter(species);
+    }
+
+    /**
+     * 这种鱼共用的资源，第一次调用时创建
+     */
+    public static FishSpeciesResources of(FishSpecies species) {
+        FishSpeciesResources resources = sResources.get(species);
+        if (resources == null) {
+            resources = new FishSpeciesResources(species);
+            sResources.put(species, resources);
+        }
+        return resources;
+    }
+
+    public FishSpecies getSpecies() {
+        return species;
+    }
+
+    public FishPainter getPainter() {
+        return painter;
+    }
+
+    public FishPoseCache getPoseCache() {
+        if (poseCache == null) {
+            poseCache = new FishPoseCache(species);
+        }
+        return poseCache;
+    }
+}
@@ -0,0 +1,317 @@
+package com.chenjimou.swimmingfishdemo;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.chenjimou.swimmingfishdemo.core.FishPose;
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 鱼的精灵图集：把鱼头朝向0°时一个摆动周期内的K个相位预先画到同一张Bitmap中，
+ * 绘制时只需要选出最接近的相位，旋转到鱼头的朝向后贴一次图，不需要每一帧重新光栅化圆、贝塞尔曲线和三角形。
+ * <p>
+ * 姿态中所有的点都是以重心为原点、按鱼头朝向角度旋转得到的，因此任意朝向的鱼都可以由0°的图旋转得到。
+ * 图集在第一次需要时于后台线程中生成，生成完成之前返回false，由调用者照常按矢量绘制；
+ * 鱼的种类（大小和摆动幅度）、画笔颜色或者颜色过滤器改变后会重新生成。画笔的透明度在绘制每个部位时都会被改变，不作为图集的参数；
+ * 整条鱼的透明度（Drawable.setAlpha）在贴图时作用于整张图。
+ * 图集占用的内存不超过maxBytes，放不下K个相位时减少相位的数量，一个相位都放不下时不使用图集。
+ * <p>
+ * 只能在主线程中使用，同一种、颜色也相同的多条鱼可以共用同一个图集。
+ */
+@MainThread
+public class FishSpriteAtlas {
+
+    // 默认的相位数量
+    public static final int DEFAULT_PHASE_COUNT = 16;
+    // 默认的内存预算，鱼头半径为40时每个相位约700KB
+    public static final int DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+    // 每个像素占用的字节数（ARGB_8888）
+    private static final int BYTES_PER_PIXEL = 4;
+    // 鱼相对于重心的范围与FishDrawable的大小相同，四周各留1像素给抗锯齿的边缘
+    private static final float SPRITE_SIZE_PER_RADIUS = 10.648f;
+    private static final int SPRITE_PADDING = 1;
+
+    private static Executor sBuildExecutor;
+
+    private final int requestedPhaseCount;
+    private final int maxBytes;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect srcRect = new Rect();
+    private final RectF dstRect = new RectF();
+
+    // 当前可以使用的图集
+    private Sprites sprites;
+    // 正在后台生成的图集的参数，没有时为空
+    private Spec pending;
+
+    public FishSpriteAtlas() {
+        this(DEFAULT_PHASE_COUNT, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param phaseCount 一个摆动周期预先画多少个相位
+     * @param maxBytes 图集占用内存的上限
+     */
+    public FishSpriteAtlas(int phaseCount, int maxBytes) {
+        if (phaseCount < 1) {
+            throw new IllegalArgumentException("phaseCount must be positive: " + phaseCount);
+        }
+        this.requestedPhaseCount = phaseCount;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 按给定的鱼头半径，在预算内能容纳多少个相位
+     */
+    public int phaseCountFor(float headRadius) {
+        return phaseCountFor(headRadius, requestedPhaseCount, maxBytes);
+    }
+
+    /**
+     * 图集按接近正方形的网格排列，最后一行可能有空的格子，这些格子同样占用内存，
+     * 因此按整张图的大小（而不只是相位的数量）与预算比较
+     */
+    static int phaseCountFor(float headRadius, int requestedPhaseCount, int maxBytes) {
+        int spriteSize = spriteSize(headRadius);
+        long bytesPerPhase = (long) spriteSize * spriteSize * BYTES_PER_PIXEL;
+        int phaseCount = (int) Math.min(requestedPhaseCount, maxBytes / bytesPerPhase);
+        while (phaseCount > 0 && byteCountFor(headRadius, phaseCount) > maxBytes) {
+            phaseCount--;
+        }
+        return phaseCount;
+    }
+
+    /**
+     * 按给定的鱼头半径和相位数量生成的整张图集占用的字节数，包括最后一行空的格子
+     */
+    static long byteCountFor(float headRadius, int phaseCount) {
+        int spriteSize = spriteSize(headRadius);
+        int columns = columnsFor(phaseCount);
+        int rows = rowsFor(phaseCount, columns);
+        return (long) columns * spriteSize * rows * spriteSize * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * 当前图集占用的内存，还没有生成时为0
+     */
+    public int getByteCount() {
+        return sprites == null ? 0 : sprites.bitmap.getByteCount();
+    }
+
+    /**
+     * 当前图集是否可以按给定的参数绘制
+     */
+    public boolean isReady(@NonNull FishSpecies species, @NonNull Paint paint) {
+        return sprites != null && sprites.spec.matches(species, paint);
+    }
+
+    /**
+     * 用图集画一条鱼，图集还没有生成或者参数不一致时返回false并在后台开始生成
+     * @param phase 摆动相位（角度），即属性动画当前的值乘以摆动频率
+     * @param paint 矢量绘制时使用的画笔，图集按它的颜色生成
+     * @param alpha 整条鱼的透明度（0~255），与矢量绘制时的{@link FishPainter#setAlpha(int)}相同
+     */
+    public boolean draw(Canvas canvas, float keyX, float keyY, float fishHeadAngle, float phase,
+                        @NonNull FishSpecies species, @NonNull Paint paint, int alpha) {
+        Sprites current = sprites;
+        if (current == null || !current.spec.matches(species, paint)) {
+            requestBuild(species, paint);
+            return false;
+        }
+        int frame = Math.round(normalizePhase(phase) / 360f * current.frameCount) % current.frameCount;
+        int size = current.spriteSize;
+        int left = (frame % current.columns) * size;
+        int top = (frame / current.columns) * size;
+        srcRect.set(left, top, left + size, top + size);
+        float half = size / 2f;
+        dstRect.set(-half, -half, half, half);
+
+        int saveCount = canvas.save();
+        canvas.translate(keyX, keyY);
+        // 姿态的角度以逆时针为正，Canvas的旋转以顺时针为正
+        canvas.rotate(-fishHeadAngle);
+        bitmapPaint.setAlpha(alpha);
+        canvas.drawBitmap(current.bitmap, srcRect, dstRect, bitmapPaint);
+        canvas.restoreToCount(saveCount);
+        return true;
+    }
+
+    /**
+     * 立即在当前线程中生成图集，用于测试和性能测试
+     */
+    public void buildNow(@NonNull FishSpecies species, @NonNull Paint paint) {
+        Spec spec = new Spec(species, paint, phaseCountFor(species.getHeadRadius()));
+        pending = null;
+        install(spec.frameCount > 0 ? build(spec) : null);
+    }
+
+    /**
+     * 释放图集的内存，下次绘制时重新生成
+     */
+    public void release() {
+        pending = null;
+        install(null);
+    }
+
+    private void requestBuild(FishSpecies species, Paint paint) {
+        if (pending != null && pending.matches(species, paint)) {
+            return;
+        }
+        final Spec spec = new Spec(species, paint, phaseCountFor(species.getHeadRadius()));
+        if (spec.frameCount == 0) {
+            // 预算内连一个相位都放不下，一直按矢量绘制
+            return;
+        }
+        pending = spec;
+        buildExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final Sprites built = build(spec);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (pending == spec) {
+                            pending = null;
+                            install(built);
+                        } else {
+                            // 生成期间参数又变了，这次的结果已经没用了
+                            built.bitmap.recycle();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void install(@Nullable Sprites built) {
+        // 旧的图集只在主线程中绘制，替换之后就可以回收
+        if (sprites != null) {
+            sprites.bitmap.recycle();
+        }
+        sprites = built;
+    }
+
+    @WorkerThread
+    private static Sprites build(Spec spec) {
+        int size = spriteSize(spec.species.getHeadRadius());
+        int columns = columnsFor(spec.frameCount);
+        int rows = rowsFor(spec.frameCount, columns);
+        Bitmap bitmap = Bitmap.createBitmap(columns * size, rows * size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        // 在后台线程中生成，不能使用主线程上共用的FishPainter
+        FishPainter painter = new FishPainter(spec.species);
+        painter.getPaint().setColor(spec.color);
+        painter.getPaint().setColorFilter(spec.colorFilter);
+        FishPose pose = new FishPose(spec.species);
+        float center = size / 2f;
+        for (int frame = 0; frame < spec.frameCount; frame++) {
+            float left = (frame % columns) * size;
+            float top = (frame / columns) * size;
+            pose.update(left + center, top + center, 0, frame * 360f / spec.frameCount);
+            painter.draw(canvas, pose.points, 0);
+        }
+        bitmap.prepareToDraw();
+        return new Sprites(spec, bitmap, size, columns);
+    }
+
+    private static int columnsFor(int phaseCount) {
+        return (int) Math.ceil(Math.sqrt(phaseCount));
+    }
+
+    private static int rowsFor(int phaseCount, int columns) {
+        return (phaseCount + columns - 1) / columns;
+    }
+
+    private static int spriteSize(float headRadius) {
+        return (int) Math.ceil(SPRITE_SIZE_PER_RADIUS * headRadius) + SPRITE_PADDING * 2;
+    }
+
+    private static float normalizePhase(float phase) {
+        float normalized = phase % 360f;
+        return normalized < 0 ? normalized + 360f : normalized;
+    }
+
+    private static synchronized Executor buildExecutor() {
+        if (sBuildExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull Runnable runnable) {
+                            Thread thread = new Thread(runnable, "fish-atlas");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            sBuildExecutor = executor;
+        }
+        return sBuildExecutor;
+    }
+
+    /**
+     * 生成图集的参数
+     */
+    private static final class Spec {
+        final FishSpecies species;
+        final int color;
+        final ColorFilter colorFilter;
+        final int frameCount;
+
+        Spec(FishSpecies species, Paint paint, int frameCount) {
+            this.species = species;
+            this.color = opaqueColor(paint);
+            this.colorFilter = paint.getColorFilter();
+            this.frameCount = frameCount;
+        }
+
+        boolean matches(FishSpecies species, Paint paint) {
+            return this.species == species && color == opaqueColor(paint)
+                    && colorFilter == paint.getColorFilter();
+        }
+
+        /**
+         * 画笔的颜色去掉透明度，FishRenderer画鱼身时会把透明度改成BODY_ALPHA
+         */
+        private static int opaqueColor(Paint paint) {
+            return paint.getColor() | 0xFF000000;
+        }
+    }
+
+    /**
+     * 生成好的图集：frameCount个相位按行依次排列，每个相位占spriteSize * spriteSize，重心位于中心
+     */
+    private static final class Sprites {
+        final Spec spec;
+        final Bitmap bitmap;
+        final int spriteSize;
+        final int columns;
+        final int frameCount;
+
+        Sprites(Spec spec, Bitmap bitmap, int spriteSize, int columns) {
+            this.spec = spec;
+            this.bitmap = bitmap;
+            this.spriteSize = spriteSize;
+            this.columns = columns;
+            this.frameCount = spec.frameCount;
+        }
+    }
+}
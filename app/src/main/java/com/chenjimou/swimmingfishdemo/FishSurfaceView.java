@@ -0,0 +1,355 @@
+package com.chenjimou.swimmingfishdemo;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import androidx.annotation.NonNull;
+
+import com.chenjimou.swimmingfishdemo.core.AsyncSchoolSimulation;
+import com.chenjimou.swimmingfishdemo.core.FishLod;
+import com.chenjimou.swimmingfishdemo.core.FishSchool;
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+import com.chenjimou.swimmingfishdemo.core.FixedTimestep;
+import com.chenjimou.swimmingfishdemo.core.Flocking;
+import com.chenjimou.swimmingfishdemo.core.FrameBudgetGovernor;
+import com.chenjimou.swimmingfishdemo.core.ParallelSchoolStepper;
+import com.chenjimou.swimmingfishdemo.core.PoseBounds;
+import com.chenjimou.swimmingfishdemo.core.RipplePool;
+import com.chenjimou.swimmingfishdemo.core.SwimmingFish;
+import com.chenjimou.swimmingfishdemo.core.TouchQueue;
+
+/**
+ * FishSwimLayout的渲染线程版本：鱼、波纹和鱼群都在专门的渲染线程中推进并画到Surface上，
+ * 主线程只负责把触摸事件放进无锁队列，不做任何逐帧的工作，因此应用中其它布局或者输入处理造成的卡顿不会影响鱼的动画。
+ * <p>
+ * 渲染线程在Surface创建时启动、销毁时结束，每一帧由渲染线程自己的Choreographer驱动。
+ * 鱼群仍然在后台线程中并行推进，渲染线程只画已经完成的姿态快照。
+ * <p>
+ * 没有鱼群时每一帧只锁定并重画鱼和波纹在上一帧与这一帧覆盖的范围，Surface的其余部分保持不变。
+ * <p>
+ * 渲染线程统计每一帧的耗时，超出预算时降低鱼和鱼群的细节等级（见{@link FrameBudgetGovernor}）。
+ */
+public class FishSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+
+    // 鱼的种类，与FishDrawable相同
+    private static final FishSpecies SPECIES = FishSpecies.KOI;
+    private static final float HEAD_RADIUS = SPECIES.getHeadRadius();
+    // 鱼的重心在FishDrawable中的位置（Drawable大小的一半），FishSwimLayout中鱼的初始位置为布局的左上角
+    private static final float INITIAL_KEY = SPECIES.getKeyOffset();
+    // 鱼群游向触摸点的时长，与单条鱼游动的时长相同
+    private static final long SCHOOL_TARGET_NANOS = (long) (SwimmingFish.DEFAULT_SWIM_DURATION_SECONDS * 1e9);
+    // 鱼群中每条鱼的鱼头半径以及游动的速度（像素/秒），与FishSwimLayout相同
+    private static final float SCHOOL_HEAD_RADIUS = FishSpecies.SMALL_KOI.getHeadRadius();
+    private static final float SCHOOL_SPEED = 80;
+
+    // 主线程写入、渲染线程读取的触摸事件
+    private final TouchQueue touchQueue = new TouchQueue(64);
+    private RenderThread renderThread;
+    // 鱼群的数量，由主线程设置，渲染线程在下一帧重新生成鱼群
+    private volatile int schoolSize;
+    private volatile int backgroundColor = Color.WHITE;
+
+    public FishSurfaceView(Context context) {
+        this(context, null);
+    }
+
+    public FishSurfaceView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        getHolder().addCallback(this);
+    }
+
+    /**
+     * 设置鱼群的数量，鱼会随机分布在画面中游动
+     * @param count 为0时关闭鱼群模式
+     */
+    public void setSchoolSize(int count) {
+        schoolSize = count;
+    }
+
+    public int getSchoolSize() {
+        return schoolSize;
+    }
+
+    /**
+     * 设置画面的背景颜色，Surface不透明，每一帧先用它清空画面
+     */
+    public void setSceneBackgroundColor(int color) {
+        backgroundColor = color;
+    }
+
+    @Override
+    public void surfaceCreated(@NonNull SurfaceHolder holder) {
+        renderThread = new RenderThread(holder, FishFrameClock.getFrameIntervalNanos(getContext()));
+        renderThread.start();
+    }
+
+    @Override
+    public void surfaceChanged(@NonNull SurfaceHolder holder, int format, int width, int height) {
+        renderThread.setSize(width, height);
+    }
+
+    @Override
+    public void surfaceDestroyed(@NonNull SurfaceHolder holder) {
+        // 返回之后Surface就不能再使用了，必须等渲染线程结束
+        renderThread.quitAndJoin();
+        renderThread = null;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            // 队列满时说明渲染线程已经落后很多，丢弃这次点击
+            touchQueue.offer(event.getX(), event.getY(), System.nanoTime());
+        }
+        return super.onTouchEvent(event);
+    }
+
+    /**
+     * 渲染线程：处理触摸事件、推进动画并绘制，除了尺寸以外的状态都只在这个线程中访问
+     */
+    private final class RenderThread extends HandlerThread implements Choreographer.FrameCallback {
+
+        private final SurfaceHolder holder;
+        private volatile int width;
+        private volatile int height;
+        private Choreographer choreographer;
+        private long lastFrameTimeNanos;
+
+        private final SwimmingFish fish = new SwimmingFish(HEAD_RADIUS, INITIAL_KEY, INITIAL_KEY);
+        // 鱼按固定步长推进，与屏幕的刷新率无关，绘制时在最近两步之间插值
+        private final FixedTimestep fishTimestep = new FixedTimestep();
+        private final FishPainter fishPainter = new FishPainter(SPECIES);
+
+        // 波纹
+        private final Paint ripplePaint;
+        private final RipplePool ripples = new RipplePool(RipplePool.DEFAULT_CAPACITY);
+
+        // 每一帧需要重画的范围：上一帧与这一帧的鱼和波纹的包围盒的并集
+        private final float[] fishBounds = new float[PoseBounds.SIZE];
+        private final float[] lastFishBounds = new float[PoseBounds.SIZE];
+        private final float[] rippleBounds = new float[PoseBounds.SIZE];
+        private final float[] lastRippleBounds = new float[PoseBounds.SIZE];
+        private boolean hasLastRipple;
+        private final float[] damage = new float[PoseBounds.SIZE];
+        private final Rect dirty = new Rect();
+        // Surface的内容是否需要整个重画（第一帧以及尺寸变化之后）
+        private boolean fullRedraw = true;
+        private int drawnWidth;
+        private int drawnHeight;
+
+        // 细节等级：按大小选择的等级与帧预算要求的最低等级
+        private final FrameBudgetGovernor lodGovernor;
+        private int fishSizeLevelOfDetail = FishLod.FULL;
+        private int schoolSizeLevelOfDetail = FishLod.FULL;
+
+        // 鱼群
+        private AsyncSchoolSimulation schoolSimulation;
+        private FishPainter schoolPainter;
+        private int currentSchoolSize;
+        private int schoolWidth;
+        private int schoolHeight;
+        private boolean schoolHasTarget;
+        private long schoolTargetUntilNanos;
+
+        RenderThread(SurfaceHolder holder, long frameIntervalNanos) {
+            super("fish-render", Process.THREAD_PRIORITY_DISPLAY);
+            this.holder = holder;
+            this.lodGovernor = new FrameBudgetGovernor(frameIntervalNanos);
+            ripplePaint = new Paint();
+            ripplePaint.setAntiAlias(true);
+            ripplePaint.setDither(true);
+            ripplePaint.setStyle(Paint.Style.STROKE);
+            ripplePaint.setStrokeWidth(8);
+        }
+
+        void setSize(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        void quitAndJoin() {
+            quit();
+            boolean interrupted = false;
+            while (isAlive()) {
+                try {
+                    join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        protected void onLooperPrepared() {
+            // 在渲染线程中取得的是这个线程自己的Choreographer
+            choreographer = Choreographer.getInstance();
+            choreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            long workStartNanos = System.nanoTime();
+            long deltaNanos = lastFrameTimeNanos == 0 ? 0 : frameTimeNanos - lastFrameTimeNanos;
+            float deltaSeconds = deltaNanos / 1e9f;
+            lastFrameTimeNanos = frameTimeNanos;
+
+            // 一帧内的多次点击合并为最后一次，每一帧最多改变一次游动的目标；每次点击仍各有一个波纹
+            boolean touched = false;
+            while (touchQueue.poll()) {
+                touched = true;
+                ripples.add(touchQueue.getPolledX(), touchQueue.getPolledY());
+            }
+            if (touched) {
+                onTouch(touchQueue.getPolledX(), touchQueue.getPolledY(), touchQueue.getPolledTimeNanos());
+            }
+            for (int i = fishTimestep.advance(deltaNanos); i > 0; i--) {
+                fish.step(fishTimestep.getStepSeconds());
+            }
+            fish.interpolate(fishTimestep.getAlpha());
+            ripples.advance(deltaSeconds);
+            updateSchool(frameTimeNanos, deltaSeconds);
+
+            Canvas canvas;
+            if (computeDamage()) {
+                canvas = holder.lockCanvas();
+            } else {
+                // 系统可能会扩大dirty，重画时以锁定后的裁剪范围为准
+                canvas = holder.lockCanvas(dirty);
+            }
+            if (canvas != null) {
+                try {
+                    drawScene(canvas);
+                    fullRedraw = false;
+                } finally {
+                    holder.unlockCanvasAndPost(canvas);
+                }
+            }
+            // 渲染线程这一帧的耗时，包括等待Surface的缓冲区
+            lodGovernor.addFrame(System.nanoTime() - workStartNanos);
+            choreographer.postFrameCallback(this);
+        }
+
+        /**
+         * 计算这一帧需要重画的范围，写入dirty
+         * @return 是否需要整个重画
+         */
+        private boolean computeDamage() {
+            int w = width;
+            int h = height;
+            if (w != drawnWidth || h != drawnHeight) {
+                drawnWidth = w;
+                drawnHeight = h;
+                fullRedraw = true;
+            }
+            PoseBounds.compute(fish.getPose(), 0, HEAD_RADIUS, 1, fishBounds);
+            System.arraycopy(fishBounds, 0, damage, 0, PoseBounds.SIZE);
+            PoseBounds.union(damage, lastFishBounds);
+            System.arraycopy(fishBounds, 0, lastFishBounds, 0, PoseBounds.SIZE);
+            boolean rippling = ripples.computeBounds(ripplePaint.getStrokeWidth() / 2 + 1, rippleBounds);
+            if (rippling) {
+                PoseBounds.union(damage, rippleBounds);
+            }
+            if (hasLastRipple) {
+                PoseBounds.union(damage, lastRippleBounds);
+            }
+            hasLastRipple = rippling;
+            System.arraycopy(rippleBounds, 0, lastRippleBounds, 0, PoseBounds.SIZE);
+            dirty.set((int) Math.floor(damage[PoseBounds.LEFT]), (int) Math.floor(damage[PoseBounds.TOP]),
+                    (int) Math.ceil(damage[PoseBounds.RIGHT]), (int) Math.ceil(damage[PoseBounds.BOTTOM]));
+            // 鱼群遍布整个画面，每一帧都需要整个重画
+            return fullRedraw || schoolSimulation != null;
+        }
+
+        private void onTouch(float x, float y, long timeNanos) {
+            fish.swimTo(x, y);
+            if (schoolSimulation != null) {
+                schoolSimulation.setTarget(x, y);
+                schoolHasTarget = true;
+                schoolTargetUntilNanos = timeNanos + SCHOOL_TARGET_NANOS;
+            }
+        }
+
+        private void updateSchool(long frameTimeNanos, float deltaSeconds) {
+            int size = schoolSize;
+            int w = width;
+            int h = height;
+            if (size != currentSchoolSize || w != schoolWidth || h != schoolHeight) {
+                rebuildSchool(size, w, h);
+            }
+            if (schoolSimulation == null) {
+                return;
+            }
+            if (schoolHasTarget && frameTimeNanos > schoolTargetUntilNanos) {
+                schoolSimulation.clearTarget();
+                schoolHasTarget = false;
+            }
+            schoolSimulation.requestStep(deltaSeconds);
+        }
+
+        private void rebuildSchool(int size, int w, int h) {
+            if (size == currentSchoolSize && schoolSimulation != null) {
+                // 只是尺寸变化，保留原来的鱼群
+                schoolSimulation.setBounds(w, h);
+                schoolWidth = w;
+                schoolHeight = h;
+                return;
+            }
+            schoolSimulation = null;
+            schoolHasTarget = false;
+            currentSchoolSize = size;
+            // 鱼群的数量变化后重新统计，先恢复全部细节
+            lodGovernor.reset();
+            schoolWidth = w;
+            schoolHeight = h;
+            if (size <= 0 || w == 0 || h == 0) {
+                return;
+            }
+            FishSchool fishSchool = new FishSchool(FishSpecies.SMALL_KOI, size);
+            fishSchool.setBounds(w, h);
+            fishSchool.spawnRandom(size, w, h, SCHOOL_SPEED, System.nanoTime());
+            Flocking flocking = new Flocking(size, SCHOOL_HEAD_RADIUS * 5);
+            flocking.setSpeedRange(SCHOOL_SPEED / 2, SCHOOL_SPEED * 1.5f);
+            schoolSimulation = new AsyncSchoolSimulation(fishSchool, flocking,
+                    new ParallelSchoolStepper(SchoolExecutors.workers(), SchoolExecutors.parallelism()),
+                    SchoolExecutors.coordinator());
+            if (schoolPainter == null) {
+                schoolPainter = new FishPainter(FishSpecies.SMALL_KOI);
+            }
+        }
+
+        /**
+         * 画的顺序与FishSwimLayout相同：鱼群和波纹在下，鱼在上
+         */
+        private void drawScene(Canvas canvas) {
+            canvas.drawColor(backgroundColor);
+            int minimumLevelOfDetail = lodGovernor.getTier();
+            if (schoolSimulation != null) {
+                schoolSizeLevelOfDetail = FishLod.tierForRadius(SCHOOL_HEAD_RADIUS, schoolSizeLevelOfDetail);
+                schoolPainter.setLevelOfDetail(FishLod.combine(schoolSizeLevelOfDetail, minimumLevelOfDetail));
+                float[] poses = schoolSimulation.acquireSnapshot();
+                // 与FishSwimLayout相同，整个鱼群合并为一个三角形网格一次画完
+                schoolPainter.drawSchool(canvas, poses, schoolSimulation.getSnapshotCount());
+            }
+            for (int i = 0, size = ripples.size(); i < size; i++) {
+                ripplePaint.setAlpha(ripples.getAlpha(i));
+                canvas.drawCircle(ripples.getX(i), ripples.getY(i), ripples.getRadius(i), ripplePaint);
+            }
+            fishSizeLevelOfDetail = FishLod.tierForRadius(HEAD_RADIUS, fishSizeLevelOfDetail);
+            fishPainter.setLevelOfDetail(FishLod.combine(fishSizeLevelOfDetail, minimumLevelOfDetail));
+            fishPainter.draw(canvas, fish.getPose(), 0);
+        }
+    }
+}
@@ -1,36 +1,126 @@
 package com.chenjimou.swimmingfishdemo;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.PathMeasure;
 import android.graphics.PointF;
-import android.os.Build;
+import android.graphics.Rect;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
+import android.view.View;
 import android.widget.ImageView;
 import android.widget.RelativeLayout;
 
-import androidx.annotation.RequiresApi;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.chenjimou.swimmingfishdemo.core.AsyncSchoolSimulation;
+import com.chenjimou.swimmingfishdemo.core.FishLod;
+import com.chenjimou.swimmingfishdemo.core.FishMetrics;
+import com.chenjimou.swimmingfishdemo.core.FishSchool;
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+import com.chenjimou.swimmingfishdemo.core.FixedTimestep;
+import com.chenjimou.swimmingfishdemo.core.Flocking;
+import com.chenjimou.swimmingfishdemo.core.FrameBudgetGovernor;
+import com.chenjimou.swimmingfishdemo.core.Interpolation;
+import com.chenjimou.swimmingfishdemo.core.ObstacleField;
+import com.chenjimou.swimmingfishdemo.core.ParallelSchoolStepper;
+import com.chenjimou.swimmingfishdemo.core.PoseBounds;
+import com.chenjimou.swimmingfishdemo.core.RipplePool;
+import com.chenjimou.swimmingfishdemo.core.SwimController;
+import com.chenjimou.swimmingfishdemo.core.SwimPlanner;
+import com.chenjimou.swimmingfishdemo.core.TouchCoalescer;
 
 public class FishSwimLayout extends RelativeLayout {
 
+    // 鱼游到触摸点的时长（毫秒）
+    private static final long SWIM_DURATION = 2000;
+    // 游动时的摆动频率
+    private static final float SWIM_FREQUENCE = 3f;
+
     private Paint mPaint;
     private ImageView ivFish;
     private FishDrawable fishDrawable;
-    // 手指触摸点的坐标
-    private float touchX;
-    private float touchY;
-    // 点击屏幕后的波纹效果的大小变化值
-    private float ripple;
-    // 点击屏幕后的波纹效果的透明度变化值
-    private int alpha;
+    // 一帧内收到的触摸事件合并为一个，每一帧最多改变一次游动的目标
+    private final TouchCoalescer touchCoalescer = new TouchCoalescer();
+    // 唯一的游动控制器，游动途中再次点击时从当前位置平滑地改变目标，不会再开始新的动画
+    private SwimController swimController;
+    // 布局的边界和子View组成的障碍物，只在布局变化时增量更新
+    private ObstacleField obstacleField;
+    private long swimLastFrameTimeNanos;
+    // 游动按固定步长推进，与屏幕的刷新率无关，移动鱼时在上一步与最新一步的位置和朝向之间插值（相对于布局的坐标）
+    private final FixedTimestep swimTimestep = new FixedTimestep();
+    private float swimKeyX;
+    private float swimKeyY;
+    private float swimHeadAngle;
+    private float swimPreviousKeyX;
+    private float swimPreviousKeyY;
+    private float swimPreviousHeadAngle;
+    // 游动已经结束，但是鱼还没有移动到最新一步的位置
+    private boolean swimInterpolating;
+    // 点击屏幕后的波纹，所有波纹在同一个帧回调中推进，在onDraw中一次画完
+    private final RipplePool ripples = new RipplePool(RipplePool.DEFAULT_CAPACITY);
+    private long rippleLastFrameTimeNanos;
+    // 这一帧所有波纹的包围盒
+    private final float[] rippleBounds = new float[PoseBounds.SIZE];
+    // 上一次绘制的波纹的范围，以及这一次需要刷新的范围（两次波纹的并集）
+    private final Rect lastRippleBounds = new Rect();
+    private final Rect rippleDirty = new Rect();
+    // 是否已添加到窗口
+    private boolean attached;
+    // 动画当前是否处于可见（播放）状态
+    private boolean animationVisible = true;
+
+    // 鱼群中每条鱼的鱼头半径
+    private static final float SCHOOL_HEAD_RADIUS = FishSpecies.SMALL_KOI.getHeadRadius();
+    // 鱼群游动的速度（像素/秒）
+    private static final float SCHOOL_SPEED = 80;
+    // 鱼群模式：所有鱼的状态存放在FishSchool的数组中，在后台线程中并行推进（点击后鱼群一起游向触摸点），
+    // 主线程只在onDraw中一次画完已经完成的姿态快照，不为每条鱼创建View
+    private AsyncSchoolSimulation schoolSimulation;
+    private FishPainter schoolPainter;
+    // 鱼群是否正在游向触摸点，以及截止时间，与单条鱼游动的时长相同
+    private boolean schoolHasTarget;
+    private long schoolTargetUntilNanos;
+    // 鱼群的数量，为0时关闭鱼群模式
+    private int schoolSize;
+    private long schoolLastFrameTimeNanos;
+    // 根据每一帧主线程的耗时调节鱼群和鱼的最低细节等级，鱼群较小时还会按大小进一步降低
+    private FrameBudgetGovernor lodGovernor;
+    private int schoolSizeLevelOfDetail = FishLod.FULL;
+    // 最近一帧的开始时间，由布局的每个帧回调（鱼群、游动、波纹）记下，鱼的原地摆动由FishDrawable记下；
+    // 画完之后用来计算主线程这一帧的耗时，每一帧只统计一次
+    private long frameStartNanos;
+    private long governedFrameStartNanos;
+    private final FishFrameClock.FrameListener schoolFrameListener = new FishFrameClock.FrameListener() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            if (schoolHasTarget && frameTimeNanos > schoolTargetUntilNanos) {
+                schoolSimulation.clearTarget();
+                schoolHasTarget = false;
+            }
+            if (schoolLastFrameTimeNanos != 0) {
+                // 上一步还没算完时不等待，时间累积到下一步
+                schoolSimulation.requestStep((frameTimeNanos - schoolLastFrameTimeNanos) / 1e9f);
+            }
+            schoolLastFrameTimeNanos = frameTimeNanos;
+            frameStartNanos = frameTimeNanos;
+            invalidate();
+        }
+    };
+
+    // 记录触摸事件和每一帧的时间，为空时不记录
+    @Nullable
+    private FishTraceRecorder traceRecorder;
+    private final FishFrameClock.FrameListener traceFrameListener = new FishFrameClock.FrameListener() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            if (traceRecorder != null) {
+                traceRecorder.recordFrame(frameTimeNanos);
+            }
+        }
+    };
 
     public FishSwimLayout(Context context) {
         this(context, null);
@@ -61,141 +151,432 @@ public class FishSwimLayout extends RelativeLayout {
         LayoutParams layoutParams = new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
         ivFish.setLayoutParams(layoutParams);
         fishDrawable = new FishDrawable();
+        // 原地摆动时使用姿态缓存，游动时鱼头角度不断变化，缓存会自动退回到直接计算
+        fishDrawable.setPoseCache(FishSpeciesResources.of(fishDrawable.getSpecies()).getPoseCache());
         ivFish.setImageDrawable(fishDrawable);
         addView(ivFish);
+
+        swimController = new SwimController(fishDrawable.getHEAD_RADIUS());
+        swimController.setDuration(SWIM_DURATION / 1000f);
+        // 格子的边长为鱼头的半径，鱼的重心与障碍物之间至少留出两个鱼头半径
+        float headRadius = fishDrawable.getHEAD_RADIUS();
+        float clearance = headRadius * SwimPlanner.DEFAULT_CLEARANCE_RATIO;
+        obstacleField = new ObstacleField(headRadius, SwimPlanner.fieldMaxDistance(headRadius, clearance));
+        swimController.setPlanner(new SwimPlanner(obstacleField, headRadius, clearance));
+
+        lodGovernor = new FrameBudgetGovernor(FishFrameClock.getFrameIntervalNanos(context));
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        attached = true;
+        updateAnimationVisibility();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        attached = false;
+        updateAnimationVisibility();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateAnimationVisibility();
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateAnimationVisibility();
+    }
+
+    /**
+     * 布局不可见时（被移除、窗口隐藏、自身或父布局隐藏）暂停鱼的摆动、游动以及波纹动画，
+     * 重新可见时从暂停的位置继续，不会出现跳变
+     */
+    private void updateAnimationVisibility() {
+        boolean visible = attached && getWindowVisibility() == VISIBLE && isShown();
+        if (visible == animationVisible) {
+            return;
+        }
+        animationVisible = visible;
+        fishDrawable.setVisible(visible, false);
+        updateSchoolRunning();
+        updateSwimRunning();
+        updateRippleRunning();
+        updateTraceRunning();
+    }
+
+    /**
+     * 设置记录触摸事件和帧时间的记录器，布局可见时每一帧都记录一次帧的时间，
+     * 重放时用这些时间推进模拟
+     * @param recorder 为空时停止记录
+     */
+    public void setTraceRecorder(@Nullable FishTraceRecorder recorder) {
+        traceRecorder = recorder;
+        if (recorder != null && getWidth() > 0 && getHeight() > 0) {
+            recorder.recordSize(getWidth(), getHeight());
+        }
+        updateTraceRunning();
+    }
+
+    private void updateTraceRunning() {
+        FishFrameClock clock = FishFrameClock.getInstance();
+        if (traceRecorder != null && animationVisible) {
+            if (!clock.isRegistered(traceFrameListener)) {
+                clock.register(traceFrameListener);
+            }
+        } else {
+            clock.unregister(traceFrameListener);
+        }
+    }
+
+    /**
+     * 是否用预先画好的精灵图集绘制鱼，图集在后台生成，生成完成之前仍按矢量绘制
+     */
+    public void setSpriteAtlasEnabled(boolean enabled) {
+        FishSpriteAtlas atlas = fishDrawable.getSpriteAtlas();
+        if (enabled == (atlas != null)) {
+            return;
+        }
+        if (atlas != null) {
+            atlas.release();
+        }
+        fishDrawable.setSpriteAtlas(enabled ? new FishSpriteAtlas() : null);
+    }
+
+    /**
+     * 设置鱼群的数量，鱼会随机分布在布局中游动
+     * @param count 为0时关闭鱼群模式
+     */
+    public void setSchoolSize(int count) {
+        schoolSize = count;
+        // 旧的鱼群如果还有一步没算完，会在后台线程中算完后被丢弃
+        schoolSimulation = null;
+        schoolHasTarget = false;
+        // 鱼群的数量变化后重新统计，先恢复全部细节
+        lodGovernor.reset();
+        fishDrawable.setMinimumLevelOfDetail(FishLod.FULL);
+        ensureSchool();
+        updateSchoolRunning();
+        invalidate();
+    }
+
+    public int getSchoolSize() {
+        return schoolSize;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (traceRecorder != null) {
+            traceRecorder.recordSize(w, h);
+        }
+        if (schoolSimulation != null) {
+            schoolSimulation.setBounds(w, h);
+        }
+        obstacleField.setBounds(w, h);
+        ensureSchool();
+        updateSchoolRunning();
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        updateObstacles();
+    }
+
+    /**
+     * 把鱼以外的可见子View作为障碍物，位置没有变化的子View不会引起距离场的重新计算
+     */
+    private void updateObstacles() {
+        int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            View child = getChildAt(i);
+            if (child == ivFish || child.getVisibility() != VISIBLE) {
+                obstacleField.removeObstacle(i);
+            } else {
+                obstacleField.setObstacle(i, child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+            }
+        }
+        obstacleField.removeObstaclesFrom(childCount);
+    }
+
+    /**
+     * 布局有了大小之后才能把鱼群随机分布在布局中
+     */
+    private void ensureSchool() {
+        if (schoolSize <= 0 || schoolSimulation != null || getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
+        FishSchool fishSchool = new FishSchool(FishSpecies.SMALL_KOI, schoolSize);
+        fishSchool.setBounds(getWidth(), getHeight());
+        fishSchool.spawnRandom(schoolSize, getWidth(), getHeight(), SCHOOL_SPEED, System.nanoTime());
+        // 邻居范围约为半条鱼的长度
+        Flocking flocking = new Flocking(schoolSize, SCHOOL_HEAD_RADIUS * 5);
+        flocking.setSpeedRange(SCHOOL_SPEED / 2, SCHOOL_SPEED * 1.5f);
+        // 主线程不参与鱼群的计算，coordinator所在的线程与workers一起分担
+        schoolSimulation = new AsyncSchoolSimulation(fishSchool, flocking,
+                new ParallelSchoolStepper(SchoolExecutors.workers(), SchoolExecutors.parallelism()),
+                SchoolExecutors.coordinator());
+        if (schoolPainter == null) {
+            schoolPainter = FishSpeciesResources.of(FishSpecies.SMALL_KOI).getPainter();
+        }
+    }
+
+    /**
+     * 鱼群存在并且布局可见时才推进鱼群
+     */
+    private void updateSchoolRunning() {
+        FishFrameClock clock = FishFrameClock.getInstance();
+        if (schoolSimulation != null && animationVisible) {
+            if (!clock.isRegistered(schoolFrameListener)) {
+                schoolLastFrameTimeNanos = 0;
+                clock.register(schoolFrameListener);
+            }
+        } else {
+            clock.unregister(schoolFrameListener);
+        }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        // 设置透明度，实现波纹渐变消失
-        mPaint.setAlpha(alpha);
-        // 画波纹
-        canvas.drawCircle(touchX, touchY, ripple * 100, mPaint);
+        boolean metrics = FishMetrics.isEnabled();
+        long metricsStartNanos = metrics ? System.nanoTime() : 0;
+        // 画鱼群
+        if (schoolSimulation != null) {
+            schoolSizeLevelOfDetail = FishLod.tierForRadius(SCHOOL_HEAD_RADIUS, schoolSizeLevelOfDetail);
+            schoolPainter.setLevelOfDetail(FishLod.combine(schoolSizeLevelOfDetail, lodGovernor.getTier()));
+            float[] poses = schoolSimulation.acquireSnapshot();
+            // 整个鱼群一次画完
+            schoolPainter.drawSchool(canvas, poses, schoolSimulation.getSnapshotCount());
+            if (metrics) {
+                long now = System.nanoTime();
+                FishMetrics.getInstance().recordSection(FishMetrics.SECTION_DRAW_SCHOOL, now - metricsStartNanos);
+                metricsStartNanos = now;
+            }
+        }
+        // 画所有波纹，透明度随波纹扩大渐变消失
+        for (int i = 0, size = ripples.size(); i < size; i++) {
+            mPaint.setAlpha(ripples.getAlpha(i));
+            canvas.drawCircle(ripples.getX(i), ripples.getY(i), ripples.getRadius(i), mPaint);
+        }
+        if (metrics) {
+            FishMetrics.getInstance().recordSection(FishMetrics.SECTION_DRAW_RIPPLE, System.nanoTime() - metricsStartNanos);
+        }
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
     @Override
-    public boolean onTouchEvent(MotionEvent event) {
-
-        // 获取触摸点的坐标
-        touchX = event.getX();
-        touchY = event.getY();
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        // 只要有动画在播放（包括没有鱼群时鱼的原地摆动）就统计，不是由帧回调引起的重绘不统计
+        long frameStart = Math.max(frameStartNanos, fishDrawable.getLastFrameTimeNanos());
+        if (frameStart > governedFrameStartNanos) {
+            governedFrameStartNanos = frameStart;
+            // 从这一帧开始到鱼群和鱼都画完的耗时，包括输入、动画、布局和绘制
+            if (lodGovernor.addFrame(System.nanoTime() - frameStart)) {
+                fishDrawable.setMinimumLevelOfDetail(lodGovernor.getTier());
+            }
+        }
+        if (traceRecorder != null) {
+            traceRecorder.recordDrawEnd(System.nanoTime());
+        }
+    }
 
-        // 设置透明度为100
-        mPaint.setAlpha(100);
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (traceRecorder != null) {
+            traceRecorder.recordTouch(event);
+        }
+        int action = event.getActionMasked();
+        if (action != MotionEvent.ACTION_DOWN && action != MotionEvent.ACTION_MOVE) {
+            return super.onTouchEvent(event);
+        }
+        // 只记下触摸点，下一帧统一处理，一帧内的多个事件只会改变一次游动的目标
+        touchCoalescer.offer(event.getX(), event.getY(), action == MotionEvent.ACTION_DOWN);
+        updateSwimRunning();
+        // 接收按下之后的整个手势，拖动时鱼跟着手指游动
+        return true;
+    }
 
-        // 使用属性动画改变波纹变化值
-        ObjectAnimator.ofFloat(this, "ripple", 0, 1f)
-                .setDuration(1000)
-                .start();
+    /**
+     * 处理一帧内合并后的触摸点：按下时显示波纹，鱼（以及鱼群）游向触摸点
+     * @param down 合并的事件中是否有按下事件
+     */
+    private void onCoalescedTouch(float x, float y, boolean down) {
+        if (down) {
+            // 在触摸点添加一个波纹，之前的波纹继续播放，已满时覆盖最早的一个
+            boolean recycled = ripples.add(x, y);
+            if (FishMetrics.isEnabled()) {
+                if (recycled) {
+                    FishMetrics.getInstance().animatorEnded();
+                }
+                FishMetrics.getInstance().animatorStarted();
+            }
+            updateRippleRunning();
+        }
 
         // 让鱼转向游动到触摸点
-        fishSwimming();
+        fishSwimming(x, y);
 
-        return super.onTouchEvent(event);
+        // 鱼群也一起游向触摸点
+        if (schoolSimulation != null) {
+            schoolSimulation.setTarget(x, y);
+            schoolHasTarget = true;
+            schoolTargetUntilNanos = System.nanoTime() + SWIM_DURATION * 1_000_000L;
+        }
     }
 
     /**
-     * 使用三阶贝塞尔曲线绘制鱼的游动
+     * 使用三阶贝塞尔曲线绘制鱼的游动，正在游动时从当前的位置、朝向和速度平滑地改变目标。
+     * 路线绕开布局的边界和子View，触摸点在障碍物中或离得太近时游到附近可以到达的位置
      */
-    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
-    private void fishSwimming() {
+    private void fishSwimming(float targetX, float targetY) {
 
         // 鱼的重心：相对于Drawable的坐标
         PointF fishInsideKeyPoint = fishDrawable.getKeyPoint();
+        PointF fishHeadPoint = fishDrawable.getFishHeadPoint();
 
-        // 鱼的重心：相对于布局的坐标（绝对坐标）
-        PointF fishOutsideKeyPoint = new PointF(ivFish.getX() + fishInsideKeyPoint.x, ivFish.getY() + fishInsideKeyPoint.y);
+        if (!swimController.isSwimming() && !swimInterpolating) {
+            // 静止时模拟的状态就是鱼当前在布局中的位置
+            swimKeyX = ivFish.getX() + fishInsideKeyPoint.x;
+            swimKeyY = ivFish.getY() + fishInsideKeyPoint.y;
+            swimHeadAngle = fishDrawable.getFishHeadAngle();
+            swimPreviousKeyX = swimKeyX;
+            swimPreviousKeyY = swimKeyY;
+            swimPreviousHeadAngle = swimHeadAngle;
+        }
 
-        // 鱼头圆心的坐标：相对于布局的坐标（控制点1）
-        final PointF fishOutsideHeadPoint = new PointF(ivFish.getX() + fishDrawable.getFishHeadPoint().x,
-                ivFish.getY() + fishDrawable.getFishHeadPoint().y);
+        // 计算鱼游动路线：起点为鱼的重心，控制点1为鱼头圆心，终点为触摸点（均为相对于布局的坐标）。
+        // 从模拟的最新状态出发，而不是从插值后落后不到一步的位置出发；正在游动时控制点1改为沿当前路线的切线方向，不受鱼头摆动的影响
+        swimController.swimTo(swimKeyX, swimKeyY, swimKeyX + fishHeadPoint.x - fishInsideKeyPoint.x,
+                swimKeyY + fishHeadPoint.y - fishInsideKeyPoint.y, targetX, targetY);
 
-        // 点击坐标（结束点）
-        PointF touchPoint = new PointF(touchX, touchY);
+        // 设置鱼游动时摆动频率加快
+        fishDrawable.setFrequence(SWIM_FREQUENCE);
+    }
 
-        float angle = includeAngle(fishOutsideKeyPoint, fishOutsideHeadPoint, touchPoint) / 2;
-        float delta = includeAngle(fishOutsideKeyPoint, new PointF(fishOutsideKeyPoint.x + 1, fishOutsideKeyPoint.y), fishOutsideHeadPoint);
+    /**
+     * 有待处理的触摸点或者正在游动，并且布局可见时，才在每一帧推进游动
+     */
+    private void updateSwimRunning() {
+        FishFrameClock clock = FishFrameClock.getInstance();
+        if (animationVisible && (touchCoalescer.hasPending() || swimController.isSwimming() || swimInterpolating)) {
+            if (!clock.isRegistered(swimFrameListener)) {
+                swimLastFrameTimeNanos = 0;
+                swimTimestep.reset();
+                clock.register(swimFrameListener);
+            }
+        } else {
+            clock.unregister(swimFrameListener);
+        }
+    }
 
-        // 控制点2的坐标
-        PointF controlPoint = fishDrawable.calculatePoint(fishOutsideKeyPoint,
-                fishDrawable.getHEAD_RADIUS() * 1.6f, angle + delta);
+    private final FishFrameClock.FrameListener swimFrameListener = new FishFrameClock.FrameListener() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            boolean metrics = FishMetrics.isEnabled();
+            long metricsStartNanos = metrics ? System.nanoTime() : 0;
+            long deltaNanos = swimLastFrameTimeNanos == 0 ? 0 : frameTimeNanos - swimLastFrameTimeNanos;
+            swimLastFrameTimeNanos = frameTimeNanos;
+            frameStartNanos = frameTimeNanos;
 
-        // 计算出鱼游动路线的三阶贝塞尔曲线
-        // 因为属性动画是作用在ivFish上，所以坐标需要减去相对于Drawable的坐标值
-        Path path = new Path();
-        path.moveTo(fishOutsideKeyPoint.x - fishInsideKeyPoint.x, fishOutsideKeyPoint.y - fishInsideKeyPoint.y);
-        path.cubicTo(fishOutsideHeadPoint.x - fishInsideKeyPoint.x, fishOutsideHeadPoint.y - fishInsideKeyPoint.y,
-                controlPoint.x - fishInsideKeyPoint.x, controlPoint.y - fishInsideKeyPoint.y,
-                touchX - fishInsideKeyPoint.x, touchY - fishInsideKeyPoint.y);
+            if (touchCoalescer.poll()) {
+                onCoalescedTouch(touchCoalescer.getPolledX(), touchCoalescer.getPolledY(),
+                        touchCoalescer.isPolledDown());
+            }
+            if (swimController.isSwimming() || swimInterpolating) {
+                stepSwim(swimTimestep.advance(deltaNanos));
+                float alpha = swimTimestep.getAlpha();
+                // 因为移动的是ivFish，所以坐标需要减去相对于Drawable的坐标值
+                PointF fishInsideKeyPoint = fishDrawable.getKeyPoint();
+                ivFish.setX(Interpolation.lerp(swimPreviousKeyX, swimKeyX, alpha) - fishInsideKeyPoint.x);
+                ivFish.setY(Interpolation.lerp(swimPreviousKeyY, swimKeyY, alpha) - fishInsideKeyPoint.y);
+                fishDrawable.setFishHeadAngle(Interpolation.lerpDegrees(swimPreviousHeadAngle, swimHeadAngle, alpha));
+            }
+            updateSwimRunning();
+            if (metrics) {
+                FishMetrics.getInstance().recordSection(FishMetrics.SECTION_SWIM_UPDATE, System.nanoTime() - metricsStartNanos);
+            }
+        }
+    };
 
-        // 使用属性动画绘制鱼游动
-        ObjectAnimator objectAnimator = ObjectAnimator.ofFloat(ivFish, "x", "y", path);
-        objectAnimator.setDuration(2000);
-        // 设置鱼游动时摆动频率加快
-        objectAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                super.onAnimationEnd(animation);
-                fishDrawable.setFrequence(1f);
-            }
-
-            @Override
-            public void onAnimationStart(Animator animation) {
-                super.onAnimationStart(animation);
-                fishDrawable.setFrequence(3f);
-            }
-        });
-        // 设置鱼头的转向
-        final PathMeasure pathMeasure = new PathMeasure(path, false);
-        final float[] tan = new float[2];
-        objectAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                // 执行了整个周期的百分之多少
-                float fraction = animation.getAnimatedFraction();
-                pathMeasure.getPosTan(pathMeasure.getLength() * fraction, null, tan);
-                float angle = (float) Math.toDegrees(Math.atan2(-tan[1], tan[0]));
-                fishDrawable.setFishHeadAngle(angle);
-            }
-        });
-        objectAnimator.start();
+    /**
+     * 按固定步长推进游动，游动结束时恢复原来的摆动频率
+     * @param steps 这一帧需要推进的步数
+     */
+    private void stepSwim(int steps) {
+        float stepSeconds = swimTimestep.getStepSeconds();
+        for (int i = 0; i < steps; i++) {
+            swimPreviousKeyX = swimKeyX;
+            swimPreviousKeyY = swimKeyY;
+            swimPreviousHeadAngle = swimHeadAngle;
+            if (swimController.isSwimming()) {
+                boolean swimming = swimController.advance(stepSeconds);
+                swimKeyX = swimController.getKeyX();
+                swimKeyY = swimController.getKeyY();
+                swimHeadAngle = swimController.getHeadAngle();
+                if (!swimming) {
+                    fishDrawable.setFrequence(1f);
+                }
+            }
+        }
+        swimInterpolating = swimPreviousKeyX != swimKeyX || swimPreviousKeyY != swimKeyY
+                || swimPreviousHeadAngle != swimHeadAngle;
     }
 
     /**
-     * 算法：以O点为原点建立Android坐标系，知道O、A、B三点，计算出夹角AOB的角度
-     * @return 夹角AOB的角度
+     * 有波纹并且布局可见时才在每一帧推进波纹
      */
-    private float includeAngle(PointF O, PointF A, PointF B) {
-        float AOB = (A.x - O.x) * (B.x - O.x) + (A.y - O.y) * (B.y - O.y);
-        float OALength = (float) Math.sqrt((A.x - O.x) * (A.x - O.x) + (A.y - O.y) * (A.y - O.y));
-        float OBLength = (float) Math.sqrt((B.x - O.x) * (B.x - O.x) + (B.y - O.y) * (B.y - O.y));
-        float cosAOB = AOB / (OALength * OBLength);
-        float angleAOB = (float) Math.toDegrees(Math.acos(cosAOB));
-        float direction = (A.y - B.y) / (A.x - B.x) - (O.y - B.y) / (O.x - B.x);
-        if (direction == 0) {
-            if (AOB >= 0) {
-                return 0;
-            } else {
-                return 180;
+    private void updateRippleRunning() {
+        FishFrameClock clock = FishFrameClock.getInstance();
+        if (animationVisible && ripples.size() > 0) {
+            if (!clock.isRegistered(rippleFrameListener)) {
+                rippleLastFrameTimeNanos = 0;
+                clock.register(rippleFrameListener);
             }
         } else {
-            if (direction > 0) {
-                return -angleAOB;
-            } else {
-                return angleAOB;
-            }
+            clock.unregister(rippleFrameListener);
         }
     }
 
-    public float getRipple() {
-        return ripple;
-    }
+    private final FishFrameClock.FrameListener rippleFrameListener = new FishFrameClock.FrameListener() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            float deltaSeconds = rippleLastFrameTimeNanos == 0 ? 0 : (frameTimeNanos - rippleLastFrameTimeNanos) / 1e9f;
+            rippleLastFrameTimeNanos = frameTimeNanos;
+            frameStartNanos = frameTimeNanos;
+            int finished = ripples.advance(deltaSeconds);
+            if (FishMetrics.isEnabled()) {
+                for (int i = 0; i < finished; i++) {
+                    FishMetrics.getInstance().animatorEnded();
+                }
+            }
+            invalidateRipples();
+            updateRippleRunning();
+        }
+    };
 
-    public void setRipple(float ripple) {
-        alpha = (int) (100 * (1 - ripple));
-        this.ripple = ripple;
-        invalidate();
+    /**
+     * 只刷新上一帧和这一帧波纹覆盖的范围，而不是整个布局（union会忽略空的范围）
+     */
+    private void invalidateRipples() {
+        rippleDirty.set(lastRippleBounds);
+        if (ripples.computeBounds(mPaint.getStrokeWidth() / 2 + 1, rippleBounds)) {
+            lastRippleBounds.set((int) Math.floor(rippleBounds[PoseBounds.LEFT]),
+                    (int) Math.floor(rippleBounds[PoseBounds.TOP]),
+                    (int) Math.ceil(rippleBounds[PoseBounds.RIGHT]),
+                    (int) Math.ceil(rippleBounds[PoseBounds.BOTTOM]));
+            rippleDirty.union(lastRippleBounds);
+        } else {
+            lastRippleBounds.setEmpty();
+        }
+        if (!rippleDirty.isEmpty()) {
+            invalidate(rippleDirty);
+        }
     }
 }
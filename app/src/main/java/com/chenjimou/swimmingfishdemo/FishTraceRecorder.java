@@ -0,0 +1,195 @@
+package com.chenjimou.swimmingfishdemo;
+
+import android.util.Log;
+import android.view.MotionEvent;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import com.chenjimou.swimmingfishdemo.core.InputTrace;
+import com.chenjimou.swimmingfishdemo.core.TraceRecorder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把{@link FishSwimLayout}收到的触摸事件和每一帧的时间记录到文件中，格式见{@link InputTrace}，
+ * 记录的文件可以取到电脑上用TraceReplayer重放（见fish-benchmark中的TraceReplayBenchmark）。
+ * <p>
+ * 记录只写入{@link TraceRecorder}预先分配好的缓冲区，缓冲区快满时才取出一块，在后台线程中追加到文件。
+ * <p>
+ * 只能在主线程中使用。
+ */
+@MainThread
+public class FishTraceRecorder {
+
+    private static final String TAG = "FishTrace";
+
+    private static Executor sFileExecutor;
+
+    private final TraceRecorder recorder = new TraceRecorder();
+    private final File file;
+    private boolean running;
+
+    /**
+     * @param file 记录写入的文件，每次开始时清空
+     */
+    public FishTraceRecorder(@NonNull File file) {
+        this.file = file;
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        recorder.reset();
+        final File target = file;
+        fileExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                // 清空上一次的记录，之后的每一块都追加在后面
+                write(target, new byte[0], false);
+            }
+        });
+    }
+
+    /**
+     * 写出缓冲区中剩余的记录
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flush();
+        if (recorder.getDroppedCount() > 0) {
+            Log.w(TAG, "dropped " + recorder.getDroppedCount() + " records");
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 只记录按下、移动和抬起，坐标相对于接收事件的布局
+     */
+    public void recordTouch(MotionEvent event) {
+        if (!running) {
+            return;
+        }
+        byte type;
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                type = InputTrace.TOUCH_DOWN;
+                break;
+            case MotionEvent.ACTION_MOVE:
+                type = InputTrace.TOUCH_MOVE;
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                type = InputTrace.TOUCH_UP;
+                break;
+            default:
+                return;
+        }
+        // 事件时间是uptimeMillis，与帧的时间同一个时钟
+        recorder.recordTouch(type, event.getEventTime() * 1_000_000L, event.getX(), event.getY());
+        flushIfNeeded();
+    }
+
+    public void recordFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        recorder.recordFrame(frameTimeNanos);
+        flushIfNeeded();
+    }
+
+    public void recordDrawEnd(long timeNanos) {
+        if (!running) {
+            return;
+        }
+        recorder.recordDrawEnd(timeNanos);
+        flushIfNeeded();
+    }
+
+    public void recordSize(int width, int height) {
+        if (!running) {
+            return;
+        }
+        recorder.recordSize(width, height);
+        flushIfNeeded();
+    }
+
+    private void flushIfNeeded() {
+        if (recorder.needsFlush()) {
+            flush();
+        }
+    }
+
+    /**
+     * 取出缓冲区中的记录，在后台线程中追加到文件
+     */
+    private void flush() {
+        if (recorder.pendingBytes() == 0) {
+            return;
+        }
+        final byte[] bytes = recorder.drain();
+        final File target = file;
+        fileExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                write(target, bytes, true);
+            }
+        });
+    }
+
+    private static void write(File target, byte[] bytes, boolean append) {
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(target, append);
+            out.write(bytes);
+        } catch (IOException e) {
+            Log.w(TAG, "failed to write " + target, e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    private static synchronized Executor fileExecutor() {
+        if (sFileExecutor == null) {
+            // 只有一个线程，各块按取出的顺序写入
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull Runnable runnable) {
+                            Thread thread = new Thread(runnable, "fish-trace");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            sFileExecutor = executor;
+        }
+        return sFileExecutor;
+    }
+}
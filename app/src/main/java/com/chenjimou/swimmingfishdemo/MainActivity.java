@@ -5,11 +5,51 @@ import androidx.appcompat.app.AppCompatActivity;
 import android.os.Bundle;
 import android.widget.ImageView;
 
+import java.io.File;
+
 public class MainActivity extends AppCompatActivity {
 
+    // 每隔多久把性能统计输出到logcat（毫秒）
+    private static final long METRICS_INTERVAL = 10_000;
+
+    // 只在debug包中打开性能统计，正式包中统计的代码只剩一次判断
+    private FishMetricsReporter metricsReporter;
+    // 同样只在debug包中记录触摸事件和帧时间，用于在电脑上重放
+    private FishTraceRecorder traceRecorder;
+    private FishSwimLayout fishSwimLayout;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        fishSwimLayout = findViewById(R.id.fish_swim_layout);
+        if (BuildConfig.DEBUG) {
+            metricsReporter = new FishMetricsReporter(this, METRICS_INTERVAL, null);
+            traceRecorder = new FishTraceRecorder(new File(getFilesDir(), "fish-trace.bin"));
+        }
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (metricsReporter != null) {
+            metricsReporter.start();
+        }
+        if (traceRecorder != null) {
+            traceRecorder.start();
+            fishSwimLayout.setTraceRecorder(traceRecorder);
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        if (traceRecorder != null) {
+            fishSwimLayout.setTraceRecorder(null);
+            traceRecorder.stop();
+        }
+        if (metricsReporter != null) {
+            metricsReporter.stop();
+        }
+        super.onStop();
     }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.chenjimou.swimmingfishdemo;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 推进鱼群所用的线程，所有鱼群共用：coordinator负责每一步，workers分担每一步中的分段计算。
+ * 空闲的线程在{@link #KEEP_ALIVE_SECONDS}秒后自动退出，鱼群暂停后不会一直占着线程，也不需要手动关闭。
+ * <p>
+ * ForkJoinPool从API 21开始才有，这里使用普通的线程池。
+ */
+final class SchoolExecutors {
+
+    private static final long KEEP_ALIVE_SECONDS = 1;
+
+    private static Executor sCoordinator;
+    private static Executor sWorkers;
+
+    private SchoolExecutors() {
+    }
+
+    /**
+     * 参与鱼群计算的线程数（coordinator所在的线程加上workers）
+     */
+    static int parallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    static synchronized Executor coordinator() {
+        if (sCoordinator == null) {
+            sCoordinator = newExecutor(1, "fish-school");
+        }
+        return sCoordinator;
+    }
+
+    static synchronized Executor workers() {
+        if (sWorkers == null) {
+            sWorkers = newExecutor(Math.max(1, parallelism() - 1), "fish-school-worker");
+        }
+        return sWorkers;
+    }
+
+    private static Executor newExecutor(int threads, final String name) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,34 @@
+package com.chenjimou.swimmingfishdemo;
+
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FishSpriteAtlasTest {
+
+    @Test
+    public void defaultBudget_holdsWholeSheetForKoi() {
+        float headRadius = FishSpecies.KOI.getHeadRadius();
+        int phaseCount = FishSpriteAtlas.phaseCountFor(headRadius, FishSpriteAtlas.DEFAULT_PHASE_COUNT,
+                FishSpriteAtlas.DEFAULT_MAX_BYTES);
+        // 每个相位428x428像素约732KB，11个相位排成4x3的网格会超出8MB，3x3的网格正好放下
+        assertEquals(9, phaseCount);
+        assertEquals(428L * 428 * 4 * 9, FishSpriteAtlas.byteCountFor(headRadius, phaseCount));
+        assertTrue(FishSpriteAtlas.byteCountFor(headRadius, phaseCount) <= FishSpriteAtlas.DEFAULT_MAX_BYTES);
+        assertTrue(FishSpriteAtlas.byteCountFor(headRadius, phaseCount + 1) > FishSpriteAtlas.DEFAULT_MAX_BYTES);
+    }
+
+    @Test
+    public void smallFish_keepRequestedPhaseCount() {
+        float headRadius = FishSpecies.SMALL_KOI.getHeadRadius();
+        assertEquals(FishSpriteAtlas.DEFAULT_PHASE_COUNT, FishSpriteAtlas.phaseCountFor(headRadius,
+                FishSpriteAtlas.DEFAULT_PHASE_COUNT, FishSpriteAtlas.DEFAULT_MAX_BYTES));
+    }
+
+    @Test
+    public void budgetBelowOneSprite_disablesAtlas() {
+        assertEquals(0, FishSpriteAtlas.phaseCountFor(FishSpecies.KOI.getHeadRadius(), 16, 1024));
+    }
+}
@@ -0,0 +1,123 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.FastMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FastMath}与java.lang.Math的对比，每次操作为一个输入的计算（在1024个随机输入上取平均，避免常量折叠）。
+ * mathXxx为原先的写法：先转换成弧度、按double计算再转回float。
+ * xxxInvSqrt对比倒数平方根：位运算加两次牛顿迭代（相对误差约5e-6）并不比1 / Math.sqrt快，所以没有放进FastMath。
+ * 整条鱼的姿态计算见{@link FishPoseBenchmark}。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastMathBenchmark {
+
+    private static final int COUNT = 1024;
+
+    private final float[] degrees = new float[COUNT];
+    private final float[] xs = new float[COUNT];
+    private final float[] ys = new float[COUNT];
+    private final float[] squares = new float[COUNT];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < COUNT; i++) {
+            // 与姿态计算中的角度范围相同：朝向±180度，相位0~1080度
+            degrees[i] = random.nextFloat() * 1260 - 180;
+            xs[i] = (float) random.nextGaussian() * 100;
+            ys[i] = (float) random.nextGaussian() * 100;
+            squares[i] = xs[i] * xs[i] + ys[i] * ys[i];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public float mathSinCos() {
+        float sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            double radians = Math.toRadians(degrees[i]);
+            sum += (float) Math.sin(radians) + (float) Math.cos(radians);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public float fastSinCos() {
+        float sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += FastMath.sinDeg(degrees[i]) + FastMath.cosDeg(degrees[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public float mathAtan2() {
+        float sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += (float) Math.toDegrees(Math.atan2(ys[i], xs[i]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public float fastAtan2() {
+        float sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += FastMath.atan2Deg(ys[i], xs[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public float mathInvSqrt() {
+        float sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += 1 / (float) Math.sqrt(squares[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public float approximateInvSqrt() {
+        float sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += invSqrt(squares[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * 位运算给出初值，再做两次牛顿迭代
+     */
+    private static float invSqrt(float x) {
+        float half = 0.5f * x;
+        float y = Float.intBitsToFloat(0x5f375a86 - (Float.floatToRawIntBits(x) >> 1));
+        y = y * (1.5f - half * y * y);
+        return y * (1.5f - half * y * y);
+    }
+}
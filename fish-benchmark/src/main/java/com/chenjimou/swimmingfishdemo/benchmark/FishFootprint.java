@@ -0,0 +1,87 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.FishPool;
+import com.chenjimou.swimmingfishdemo.core.FishPose;
+import com.chenjimou.swimmingfishdemo.core.FishSchool;
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 统计每条鱼占用的堆内存：创建大量对象时当前线程分配的字节数除以数量（HotSpot的ThreadMXBean），
+ * 包括对象头和对齐，不包括共用的FishSpecies。
+ * <p>
+ * ./gradlew :fish-benchmark:footprint
+ */
+public final class FishFootprint {
+
+    private static final int COUNT = 100_000;
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private FishFootprint() {
+    }
+
+    public static void main(String[] args) {
+        // 预热，避免把类加载和解释执行时的分配算进去
+        for (int i = 0; i < 3; i++) {
+            measureAll(1000, false);
+        }
+        measureAll(COUNT, true);
+    }
+
+    private static void measureAll(int count, boolean print) {
+        final FishSpecies species = FishSpecies.SMALL_KOI;
+        final int n = count;
+
+        long pooledFish = measure(n, new Runnable() {
+            @Override
+            public void run() {
+                new FishPool(n);
+            }
+        });
+        long schoolSlot = measure(n, new Runnable() {
+            @Override
+            public void run() {
+                new FishSchool(species, n);
+            }
+        });
+        long speciesBytes = measure(1, new Runnable() {
+            @Override
+            public void run() {
+                new FishSpecies(12);
+            }
+        });
+        long sharedPose = measure(1, new Runnable() {
+            @Override
+            public void run() {
+                new FishPose(species);
+            }
+        });
+        long ownPose = measure(1, new Runnable() {
+            @Override
+            public void run() {
+                new FishPose(12);
+            }
+        });
+        if (!print) {
+            return;
+        }
+        System.out.println("Fish (pooled, shared species):        " + pooledFish + " bytes/fish");
+        System.out.println("FishSchool slot (state + pose floats): " + schoolSlot + " bytes/fish");
+        System.out.println("FishSpecies (shared, once per kind):  " + speciesBytes + " bytes");
+        System.out.println("FishPose with shared species:         " + sharedPose + " bytes");
+        System.out.println("FishPose with its own species:        " + ownPose + " bytes");
+    }
+
+    /**
+     * @return 执行一次task平均每个对象分配的字节数
+     */
+    private static long measure(int count, Runnable task) {
+        long threadId = Thread.currentThread().getId();
+        long before = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+        task.run();
+        return (THREAD_BEAN.getThreadAllocatedBytes(threadId) - before) / count;
+    }
+}
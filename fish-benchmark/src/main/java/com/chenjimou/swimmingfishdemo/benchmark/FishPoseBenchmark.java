@@ -0,0 +1,72 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.FishPose;
+import com.chenjimou.swimmingfishdemo.core.FishPoseCache;
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每一帧姿态计算的开销：原先逐点创建对象的方式、写入预分配数组的方式以及姿态缓存
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FishPoseBenchmark {
+
+    private static final float HEAD_RADIUS = 40;
+    private static final float KEY = 5.324f * HEAD_RADIUS;
+
+    private final LegacyFishPose.Point keyPoint = new LegacyFishPose.Point(KEY, KEY);
+    private FishPose fishPose;
+    private FishPoseCache poseCache;
+    private float[] out;
+    // 模拟属性动画的值逐帧推进
+    private float currentValue;
+
+    @Setup
+    public void setUp() {
+        fishPose = new FishPose(HEAD_RADIUS);
+        poseCache = new FishPoseCache(FishSpecies.KOI);
+        out = new float[FishPose.FLOATS_PER_POSE];
+    }
+
+    private float nextValue() {
+        currentValue += 6f;
+        if (currentValue >= 360f) {
+            currentValue -= 360f;
+        }
+        return currentValue;
+    }
+
+    @Benchmark
+    public LegacyFishPose.Point[] legacyPointPerVertex() {
+        return LegacyFishPose.compute(keyPoint, 90, nextValue(), 1f);
+    }
+
+    @Benchmark
+    public float[] preallocatedBuffer() {
+        fishPose.update(KEY, KEY, 90, nextValue());
+        return fishPose.points;
+    }
+
+    @Benchmark
+    public float[] poseCache() {
+        poseCache.get(out, 0, KEY, KEY, 90, nextValue());
+        return out;
+    }
+}
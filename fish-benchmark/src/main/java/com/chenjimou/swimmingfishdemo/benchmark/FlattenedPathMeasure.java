@@ -0,0 +1,99 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+/**
+ * 在JVM上模拟android.graphics.PathMeasure对一条三阶贝塞尔曲线的处理方式，作为性能测试的对照组：
+ * 与Skia的SkContourMeasure一样，把曲线递归细分，直到每一小段的控制点与弦的偏差小于0.5像素，
+ * 记录每一段的累计长度；getPosTan时二分查找所在的段，在段内线性插值出曲线参数后再对曲线求值。
+ */
+final class FlattenedPathMeasure {
+
+    private static final float TOLERANCE = 0.5f;
+    // 最大细分深度，对应Skia中tspan的10位精度
+    private static final int MAX_DEPTH = 10;
+
+    private final float[] p = new float[8];
+    // 每一段结束时的累计长度与曲线参数，细分时按需扩容
+    private float[] distances = new float[16];
+    private float[] parameters = new float[16];
+    private int segmentCount;
+    private float length;
+
+    FlattenedPathMeasure(float[] points) {
+        System.arraycopy(points, 0, p, 0, 8);
+        segmentCount = 0;
+        length = buildSegments(p[0], p[1], p[2], p[3], p[4], p[5], p[6], p[7], 0, 1, 0, 0);
+    }
+
+    private float buildSegments(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3,
+                                float startT, float endT, float distance, int depth) {
+        if (depth < MAX_DEPTH && exceedsTolerance(x0, y0, x1, y1, x2, y2, x3, y3)) {
+            // de Casteljau 在 t = 0.5 处一分为二
+            float x01 = (x0 + x1) / 2, y01 = (y0 + y1) / 2;
+            float x12 = (x1 + x2) / 2, y12 = (y1 + y2) / 2;
+            float x23 = (x2 + x3) / 2, y23 = (y2 + y3) / 2;
+            float x012 = (x01 + x12) / 2, y012 = (y01 + y12) / 2;
+            float x123 = (x12 + x23) / 2, y123 = (y12 + y23) / 2;
+            float xm = (x012 + x123) / 2, ym = (y012 + y123) / 2;
+            float middleT = (startT + endT) / 2;
+            distance = buildSegments(x0, y0, x01, y01, x012, y012, xm, ym, startT, middleT, distance, depth + 1);
+            return buildSegments(xm, ym, x123, y123, x23, y23, x3, y3, middleT, endT, distance, depth + 1);
+        }
+        distance += (float) Math.hypot(x3 - x0, y3 - y0);
+        if (segmentCount == distances.length) {
+            distances = java.util.Arrays.copyOf(distances, segmentCount * 2);
+            parameters = java.util.Arrays.copyOf(parameters, segmentCount * 2);
+        }
+        distances[segmentCount] = distance;
+        parameters[segmentCount] = endT;
+        segmentCount++;
+        return distance;
+    }
+
+    private static boolean exceedsTolerance(float x0, float y0, float x1, float y1,
+                                            float x2, float y2, float x3, float y3) {
+        // 与Skia的cheap_dist_exceeds_limit相同：控制点到弦上三等分点的曼哈顿距离
+        return cheapDistance(x1, y1, x0 + (x3 - x0) / 3, y0 + (y3 - y0) / 3) > TOLERANCE
+                || cheapDistance(x2, y2, x0 + (x3 - x0) * 2 / 3, y0 + (y3 - y0) * 2 / 3) > TOLERANCE;
+    }
+
+    private static float cheapDistance(float ax, float ay, float bx, float by) {
+        float dx = Math.abs(ax - bx);
+        float dy = Math.abs(ay - by);
+        return Math.max(dx, dy) + Math.min(dx, dy) / 2;
+    }
+
+    float getLength() {
+        return length;
+    }
+
+    void getPosTan(float distance, float[] pos, float[] tan) {
+        distance = Math.max(0, Math.min(length, distance));
+        int low = 0;
+        int high = segmentCount - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (distances[middle] < distance) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        float startDistance = low == 0 ? 0 : distances[low - 1];
+        float startT = low == 0 ? 0 : parameters[low - 1];
+        float segmentLength = distances[low] - startDistance;
+        float fraction = segmentLength > 0 ? (distance - startDistance) / segmentLength : 0;
+        float t = startT + (parameters[low] - startT) * fraction;
+        float u = 1 - t;
+        if (pos != null) {
+            pos[0] = u * u * u * p[0] + 3 * u * u * t * p[2] + 3 * u * t * t * p[4] + t * t * t * p[6];
+            pos[1] = u * u * u * p[1] + 3 * u * u * t * p[3] + 3 * u * t * t * p[5] + t * t * t * p[7];
+        }
+        if (tan != null) {
+            float dx = 3 * u * u * (p[2] - p[0]) + 6 * u * t * (p[4] - p[2]) + 3 * t * t * (p[6] - p[4]);
+            float dy = 3 * u * u * (p[3] - p[1]) + 6 * u * t * (p[5] - p[3]) + 3 * t * t * (p[7] - p[5]);
+            float d = (float) Math.sqrt(dx * dx + dy * dy);
+            tan[0] = d > 0 ? dx / d : 1;
+            tan[1] = d > 0 ? dy / d : 0;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.FishLod;
+import com.chenjimou.swimmingfishdemo.core.FishPose;
+import com.chenjimou.swimmingfishdemo.headless.HeadlessFishRenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用Java2D后端在JVM上渲染一帧鱼群的耗时：各细节等级下FishRenderer的绘制路径在服务器上的相对开销，
+ * 以及合并成一个三角形网格（FishMeshRenderer）之后的开销，绝对值与设备上的Canvas没有可比性
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class HeadlessRenderBenchmark {
+
+    private static final int WIDTH = 720;
+    private static final int HEIGHT = 1280;
+    private static final float HEAD_RADIUS = 12;
+
+    @Param({"100"})
+    public int fishCount;
+
+    @Param({"0", "1", "2"})
+    public int levelOfDetail;
+
+    private HeadlessFishRenderer renderer;
+    private float[] poses;
+    private FishPose fishPose;
+    private float[] phases;
+    private float[] keys;
+    private float[] angles;
+
+    @Setup
+    public void setUp() {
+        renderer = new HeadlessFishRenderer(WIDTH, HEIGHT, HEAD_RADIUS);
+        renderer.getFishRenderer().setLevelOfDetail(FishLod.clamp(levelOfDetail));
+        poses = new float[fishCount * FishPose.FLOATS_PER_POSE];
+        fishPose = new FishPose(HEAD_RADIUS);
+        phases = new float[fishCount];
+        keys = new float[fishCount * 2];
+        angles = new float[fishCount];
+        Random random = new Random(3);
+        for (int i = 0; i < fishCount; i++) {
+            keys[i * 2] = random.nextFloat() * WIDTH;
+            keys[i * 2 + 1] = random.nextFloat() * HEIGHT;
+            angles[i] = random.nextFloat() * 360;
+            phases[i] = random.nextFloat() * 360;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        renderer.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage renderFrame() {
+        computePoses();
+        return renderer.render(poses, fishCount, FishPose.FLOATS_PER_POSE);
+    }
+
+    @Benchmark
+    public BufferedImage renderFrameMesh() {
+        computePoses();
+        return renderer.renderMesh(poses, fishCount, FishPose.FLOATS_PER_POSE);
+    }
+
+    private void computePoses() {
+        for (int i = 0; i < fishCount; i++) {
+            phases[i] = (phases[i] + 6) % 360;
+            fishPose.compute(poses, i * FishPose.FLOATS_PER_POSE, keys[i * 2], keys[i * 2 + 1], angles[i], phases[i]);
+        }
+    }
+}
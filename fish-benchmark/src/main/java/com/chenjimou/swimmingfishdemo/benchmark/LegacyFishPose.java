@@ -0,0 +1,88 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+/**
+ * 原先FishDrawable.draw()中的姿态计算方式：每个点都通过calculatePoint单独计算并创建一个新的点对象，
+ * 作为性能测试的对照组
+ */
+final class LegacyFishPose {
+
+    static final class Point {
+        final float x;
+        final float y;
+
+        Point(float x, float y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static final float HEAD_RADIUS = 40;
+    private static final float BODY_LENGTH = 3.2f * HEAD_RADIUS;
+    private static final float TAIL_BIG_CIRCLE_RADIUS = 0.7f * HEAD_RADIUS;
+    private static final float TAIL_MIDDLE_CIRCLE_RADIUS = 0.42f * HEAD_RADIUS;
+    private static final float TAIL_SMALL_CIRCLE_RADIUS = 0.168f * HEAD_RADIUS;
+
+    private LegacyFishPose() {
+    }
+
+    /**
+     * @return 所有计算出的点，避免被JIT当作无用代码消除
+     */
+    static Point[] compute(Point keyPoint, float fishHeadAngle, float currentValue, float frequence) {
+        Point[] out = new Point[28];
+        int i = 0;
+        float headAngle = (float) (fishHeadAngle + Math.sin(Math.toRadians(currentValue * frequence)) * 10);
+        Point head = calculatePoint(keyPoint, BODY_LENGTH / 2, headAngle);
+        out[i++] = head;
+
+        Point rightFins = calculatePoint(head, 0.9f * HEAD_RADIUS, headAngle - 110);
+        out[i++] = rightFins;
+        out[i++] = calculatePoint(rightFins, 1.3f * HEAD_RADIUS, headAngle - 180);
+        out[i++] = calculatePoint(rightFins, 1.3f * HEAD_RADIUS * 1.8f, headAngle - 115);
+        Point leftFins = calculatePoint(head, 0.9f * HEAD_RADIUS, headAngle + 110);
+        out[i++] = leftFins;
+        out[i++] = calculatePoint(leftFins, 1.3f * HEAD_RADIUS, headAngle - 180);
+        out[i++] = calculatePoint(leftFins, 1.3f * HEAD_RADIUS * 1.8f, headAngle + 115);
+
+        Point bodyBottom = calculatePoint(head, BODY_LENGTH, headAngle - 180);
+        out[i++] = bodyBottom;
+        out[i++] = calculatePoint(head, HEAD_RADIUS, headAngle + 90);
+        out[i++] = calculatePoint(head, HEAD_RADIUS, headAngle - 90);
+        out[i++] = calculatePoint(bodyBottom, TAIL_BIG_CIRCLE_RADIUS, headAngle + 90);
+        out[i++] = calculatePoint(bodyBottom, TAIL_BIG_CIRCLE_RADIUS, headAngle - 90);
+        out[i++] = calculatePoint(head, BODY_LENGTH * 0.56f, headAngle + 130);
+        out[i++] = calculatePoint(head, BODY_LENGTH * 0.56f, headAngle - 130);
+
+        float tailUpperAngle = (float) (headAngle + Math.cos(Math.toRadians(currentValue * frequence)) * 15);
+        Point middle = calculatePoint(bodyBottom, TAIL_BIG_CIRCLE_RADIUS * (0.6f + 1), tailUpperAngle - 180);
+        out[i++] = middle;
+        out[i++] = calculatePoint(bodyBottom, TAIL_BIG_CIRCLE_RADIUS, tailUpperAngle + 90);
+        out[i++] = calculatePoint(bodyBottom, TAIL_BIG_CIRCLE_RADIUS, tailUpperAngle - 90);
+        out[i++] = calculatePoint(middle, TAIL_MIDDLE_CIRCLE_RADIUS, tailUpperAngle + 90);
+        out[i++] = calculatePoint(middle, TAIL_MIDDLE_CIRCLE_RADIUS, tailUpperAngle - 90);
+
+        float tailBottomAngle = (float) (headAngle + Math.sin(Math.toRadians(currentValue * frequence)) * 25);
+        Point small = calculatePoint(middle, TAIL_MIDDLE_CIRCLE_RADIUS * (0.4f + 2.7f), tailBottomAngle - 180);
+        out[i++] = small;
+        out[i++] = calculatePoint(middle, TAIL_MIDDLE_CIRCLE_RADIUS, tailBottomAngle + 90);
+        out[i++] = calculatePoint(middle, TAIL_MIDDLE_CIRCLE_RADIUS, tailBottomAngle - 90);
+        out[i++] = calculatePoint(small, TAIL_SMALL_CIRCLE_RADIUS, tailBottomAngle + 90);
+        out[i++] = calculatePoint(small, TAIL_SMALL_CIRCLE_RADIUS, tailBottomAngle - 90);
+
+        float triangleLength = (float) Math.abs(Math.sin(Math.toRadians(currentValue * frequence)) * TAIL_BIG_CIRCLE_RADIUS);
+        float triangleAngle = (float) (headAngle + Math.sin(Math.toRadians(currentValue * frequence)) * 35);
+        Point bigCenter = calculatePoint(small, TAIL_MIDDLE_CIRCLE_RADIUS * 2.7f, triangleAngle - 180);
+        out[i++] = calculatePoint(bigCenter, triangleLength, triangleAngle + 90);
+        out[i++] = calculatePoint(bigCenter, triangleLength, triangleAngle - 90);
+        Point smallCenter = calculatePoint(small, TAIL_MIDDLE_CIRCLE_RADIUS * 2.7f - 10, triangleAngle - 180);
+        out[i++] = calculatePoint(smallCenter, triangleLength - 20, triangleAngle + 90);
+        out[i] = calculatePoint(smallCenter, triangleLength - 20, triangleAngle - 90);
+        return out;
+    }
+
+    static Point calculatePoint(Point referencePoint, float distance, float angle) {
+        float deltaX = (float) (Math.cos(Math.toRadians(angle)) * distance);
+        float deltaY = (float) (Math.sin(Math.toRadians(angle - 180)) * distance);
+        return new Point(referencePoint.x + deltaX, referencePoint.y + deltaY);
+    }
+}
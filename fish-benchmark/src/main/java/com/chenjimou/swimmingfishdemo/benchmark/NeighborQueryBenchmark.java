@@ -0,0 +1,73 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.FishSchool;
+import com.chenjimou.swimmingfishdemo.core.Flocking;
+import com.chenjimou.swimmingfishdemo.core.SpatialGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 邻居查询的吞吐量：每次操作为所有鱼各查询一次邻居（queryAll），或者完整推进一帧集群行为（flockingStep）。
+ * 鱼群的范围随数量增大，使每条鱼周围的平均邻居数量保持不变。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighborQueryBenchmark {
+
+    private static final float NEIGHBOR_RADIUS = 60;
+    // 平均每条鱼占据的面积（像素²）
+    private static final float AREA_PER_FISH = 100 * 100;
+
+    @Param({"1000", "10000", "50000"})
+    public int fishCount;
+
+    private FishSchool school;
+    private SpatialGrid grid;
+    private Flocking flocking;
+    private final int[] neighbors = new int[Flocking.MAX_NEIGHBORS];
+
+    @Setup
+    public void setUp() {
+        float side = (float) Math.sqrt(fishCount * AREA_PER_FISH);
+        school = new FishSchool(12, fishCount);
+        school.setBounds(side, side);
+        school.spawnRandom(fishCount, side, side, 80, 42);
+        grid = new SpatialGrid(NEIGHBOR_RADIUS, fishCount);
+        grid.updateAll(school.keyX, school.keyY, 0, fishCount);
+        flocking = new Flocking(fishCount, NEIGHBOR_RADIUS);
+        flocking.setTarget(side / 2, side / 2);
+    }
+
+    @Benchmark
+    public int queryAll() {
+        float[] xs = school.keyX;
+        float[] ys = school.keyY;
+        int total = 0;
+        for (int i = 0; i < fishCount; i++) {
+            total += grid.query(xs[i], ys[i], NEIGHBOR_RADIUS, xs, ys, i, neighbors);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public float[] flockingStep() {
+        flocking.step(school, 1 / 60f);
+        return school.poses;
+    }
+}
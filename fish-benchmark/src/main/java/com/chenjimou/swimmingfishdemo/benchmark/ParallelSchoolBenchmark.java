@@ -0,0 +1,74 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.FishSchool;
+import com.chenjimou.swimmingfishdemo.core.Flocking;
+import com.chenjimou.swimmingfishdemo.core.ParallelSchoolStepper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并行推进鱼群的扩展性：每次操作推进一帧集群行为，threads为参与计算的线程数（包括调用线程），
+ * 与{@link NeighborQueryBenchmark#flockingStep()}的单线程结果对比即可得到加速比。
+ * 超过机器核数的线程数没有意义，可以通过-Pjmh.params=threads=1,2,4指定。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSchoolBenchmark {
+
+    private static final float NEIGHBOR_RADIUS = 60;
+    // 平均每条鱼占据的面积（像素²），与NeighborQueryBenchmark相同
+    private static final float AREA_PER_FISH = 100 * 100;
+
+    @Param({"10000", "50000"})
+    public int fishCount;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private FishSchool school;
+    private Flocking flocking;
+    private ForkJoinPool pool;
+    private ParallelSchoolStepper stepper;
+
+    @Setup
+    public void setUp() {
+        float side = (float) Math.sqrt(fishCount * AREA_PER_FISH);
+        school = new FishSchool(12, fishCount);
+        school.setBounds(side, side);
+        school.spawnRandom(fishCount, side, side, 80, 42);
+        flocking = new Flocking(fishCount, NEIGHBOR_RADIUS);
+        flocking.setTarget(side / 2, side / 2);
+        // 调用线程也参与计算，线程池只需要threads - 1个线程
+        pool = new ForkJoinPool(Math.max(1, threads - 1));
+        stepper = new ParallelSchoolStepper(pool, threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public float[] parallelStep() {
+        stepper.step(school, flocking, 1 / 60f);
+        return school.poses;
+    }
+}
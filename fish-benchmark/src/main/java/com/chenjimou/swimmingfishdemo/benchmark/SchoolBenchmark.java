@@ -0,0 +1,49 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.FishSchool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 鱼群每一帧的开销（推进状态+计算所有鱼的姿态）随鱼的数量的变化，不包括Canvas绘制
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchoolBenchmark {
+
+    private static final float FRAME_SECONDS = 1 / 60f;
+
+    @Param({"100", "1000", "10000"})
+    public int fishCount;
+
+    private FishSchool school;
+
+    @Setup
+    public void setUp() {
+        school = new FishSchool(12, fishCount);
+        school.setBounds(1080, 1920);
+        school.spawnRandom(fishCount, 1080, 1920, 80, 42);
+    }
+
+    @Benchmark
+    public float[] frame() {
+        school.step(FRAME_SECONDS);
+        return school.poses;
+    }
+}
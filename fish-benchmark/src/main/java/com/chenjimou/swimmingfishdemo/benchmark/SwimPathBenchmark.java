@@ -0,0 +1,45 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.SwimPath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次点击时计算游动路线的开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwimPathBenchmark {
+
+    private static final float HEAD_RADIUS = 40;
+
+    private final SwimPath swimPath = new SwimPath();
+    // 轮流使用一组不同方位的触摸点
+    private final float[] touches = {
+            900, 1600, 100, 200, 540, 60, 1000, 900, 30, 1800, 700, 700
+    };
+    private int touchIndex;
+
+    @Benchmark
+    public float[] swimPathSetup() {
+        float touchX = touches[touchIndex];
+        float touchY = touches[touchIndex + 1];
+        touchIndex = (touchIndex + 2) % touches.length;
+        swimPath.set(500, 800, 500, 736, touchX, touchY, HEAD_RADIUS);
+        return swimPath.points;
+    }
+}
@@ -0,0 +1,77 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.ObstacleField;
+import com.chenjimou.swimmingfishdemo.core.SplineTrajectory;
+import com.chenjimou.swimmingfishdemo.core.SwimPlanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 避开障碍物的路线规划：plan为一次规划（从屏幕上方游到被一堵墙挡住的下方，需要绕行），
+ * 规划的开销只与路线经过的格子数有关，改变obstacles（墙之外另外散布的小障碍物数量）不应该明显变化；
+ * moveObstacle为移动一个障碍物时距离场的增量更新。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwimPlannerBenchmark {
+
+    private static final float WIDTH = 1080;
+    private static final float HEIGHT = 1920;
+    private static final float HEAD_RADIUS = 40;
+    private static final float CLEARANCE = HEAD_RADIUS * 2;
+
+    @Param({"0", "8", "64"})
+    public int obstacles;
+
+    private ObstacleField field;
+    private SwimPlanner planner;
+    private final SplineTrajectory trajectory = new SplineTrajectory();
+    private int frame;
+
+    @Setup
+    public void setUp() {
+        field = new ObstacleField(HEAD_RADIUS, CLEARANCE + HEAD_RADIUS * 2);
+        field.setBounds(WIDTH, HEIGHT);
+        field.setObstacle(0, 0, 900, 800, 1000);
+        // 其余的障碍物放在路线之外的右下角
+        Random random = new Random(42);
+        for (int i = 1; i <= obstacles; i++) {
+            float x = 900 + random.nextFloat() * 120;
+            float y = 1300 + random.nextFloat() * 500;
+            field.setObstacle(i, x, y, x + 20, y + 20);
+        }
+        planner = new SwimPlanner(field, HEAD_RADIUS, CLEARANCE);
+    }
+
+    @Benchmark
+    public float plan() {
+        frame = (frame + 1) & 255;
+        float x = 200 + frame;
+        planner.plan(x, 300, x, 364, 400, 1500, trajectory);
+        return trajectory.getLength();
+    }
+
+    @Benchmark
+    public long moveObstacle() {
+        frame = (frame + 1) & 255;
+        field.setObstacle(0, frame, 900, 800 + frame, 1000);
+        return field.getUpdatedCells();
+    }
+}
@@ -0,0 +1,88 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.InputTrace;
+import com.chenjimou.swimmingfishdemo.core.TraceReplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 重放一段触摸与帧的记录的开销：合并触摸点、游动、波纹和包围盒，与FishSwimLayout每一帧做的事情相同。
+ * traceFile为debug包录下的记录文件（adb pull取到电脑上），为空时使用一段合成的记录：
+ * 60Hz下一分钟，在靠近屏幕边缘的地方快速连续点击
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceReplayBenchmark {
+
+    // 与FishDrawable相同
+    private static final float HEAD_RADIUS = 40;
+    private static final int SYNTHETIC_FRAMES = 3600;
+    private static final long FRAME_NANOS = 16_666_667;
+
+    @Param({""})
+    public String traceFile;
+
+    private InputTrace trace;
+    private final TraceReplayer replayer = new TraceReplayer(HEAD_RADIUS);
+
+    @Setup
+    public void setUp() throws IOException {
+        if (traceFile.isEmpty()) {
+            trace = edgeTaps(new Random(42), SYNTHETIC_FRAMES);
+            return;
+        }
+        InputStream in = new BufferedInputStream(new FileInputStream(traceFile));
+        try {
+            trace = InputTrace.read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public long replay() {
+        return replayer.replay(trace);
+    }
+
+    /**
+     * 平均每6帧点击一次屏幕左右边缘附近，点击后拖动一帧
+     */
+    private static InputTrace edgeTaps(Random random, int frames) {
+        InputTrace trace = new InputTrace(frames * 3);
+        trace.add(InputTrace.SIZE, 0, 1080, 1920);
+        long time = 1_000_000_000L;
+        for (int frame = 0; frame < frames; frame++) {
+            if (random.nextInt(6) == 0) {
+                float x = random.nextBoolean() ? random.nextFloat() * 20 : 1060 + random.nextFloat() * 20;
+                float y = random.nextFloat() * 1920;
+                trace.add(InputTrace.TOUCH_DOWN, time - 2_000_000, x, y);
+                trace.add(InputTrace.TOUCH_MOVE, time - 1_000_000, x + 3, y + 3);
+            }
+            trace.add(InputTrace.FRAME, time, 0, 0);
+            trace.add(InputTrace.DRAW_END, time + 4_000_000, 0, 0);
+            time += FRAME_NANOS;
+        }
+        return trace;
+    }
+}
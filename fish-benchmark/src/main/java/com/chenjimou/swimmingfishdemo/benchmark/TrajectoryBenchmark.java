@@ -0,0 +1,89 @@
+package com.chenjimou.swimmingfishdemo.benchmark;
+
+import com.chenjimou.swimmingfishdemo.core.CubicTrajectory;
+import com.chenjimou.swimmingfishdemo.core.SwimPath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 游动轨迹的开销：弧长表+多项式求值，对比模拟PathMeasure的折线方式。
+ * xxxSwim为一次完整游动的开销（建立一次+2000ms内60Hz共120帧的位置与朝向），xxxFrame为单帧的开销。
+ * 原先每次游动还会被ObjectAnimator再拆分一次折线，这里没有计入。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrajectoryBenchmark {
+
+    private static final int FRAMES_PER_SWIM = 120;
+
+    private final float[] points = new float[8];
+    private final float[] pos = new float[2];
+    private final float[] tan = new float[2];
+    private CubicTrajectory trajectory;
+    private FlattenedPathMeasure pathMeasure;
+    private int frame;
+
+    @Setup
+    public void setUp() {
+        SwimPath swimPath = new SwimPath();
+        swimPath.set(500, 800, 500, 736, 900, 1600, 40);
+        System.arraycopy(swimPath.points, 0, points, 0, 8);
+        trajectory = new CubicTrajectory();
+        trajectory.set(points);
+        pathMeasure = new FlattenedPathMeasure(points);
+    }
+
+    private float nextFraction() {
+        frame = (frame + 1) % (FRAMES_PER_SWIM + 1);
+        return (float) frame / FRAMES_PER_SWIM;
+    }
+
+    @Benchmark
+    public float analyticFrame() {
+        trajectory.getPosTan(nextFraction(), pos, tan);
+        return (float) Math.toDegrees(Math.atan2(-tan[1], tan[0])) + pos[0];
+    }
+
+    @Benchmark
+    public float pathMeasureFrame() {
+        pathMeasure.getPosTan(pathMeasure.getLength() * nextFraction(), pos, tan);
+        return (float) Math.toDegrees(Math.atan2(-tan[1], tan[0])) + pos[0];
+    }
+
+    @Benchmark
+    public float analyticSwim() {
+        trajectory.set(points);
+        float sum = 0;
+        for (int i = 0; i <= FRAMES_PER_SWIM; i++) {
+            trajectory.getPosTan((float) i / FRAMES_PER_SWIM, pos, tan);
+            sum += pos[0] + (float) Math.toDegrees(Math.atan2(-tan[1], tan[0]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float pathMeasureSwim() {
+        FlattenedPathMeasure measure = new FlattenedPathMeasure(points);
+        float sum = 0;
+        for (int i = 0; i <= FRAMES_PER_SWIM; i++) {
+            measure.getPosTan(measure.getLength() * i / FRAMES_PER_SWIM, pos, tan);
+            sum += pos[0] + (float) Math.toDegrees(Math.atan2(-tan[1], tan[0]));
+        }
+        return sum;
+    }
+}
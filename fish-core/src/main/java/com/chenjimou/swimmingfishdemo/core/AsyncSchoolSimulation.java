@@ -0,0 +1,148 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 在后台线程中推进鱼群，绘制线程只读取已经完成的姿态快照。
+ * <p>
+ * 绘制线程每一帧调用{@link #requestStep}，如果上一步还没有完成就把时间累积到下一步，绘制线程从不等待模拟；
+ * 模拟线程通过{@link ParallelSchoolStepper}把计算分发到多个线程，姿态直接写入{@link PoseSnapshotBuffer}的后台缓冲区，
+ * 完成后发布，绘制线程通过{@link #acquireSnapshot()}取得最新的快照。
+ * <p>
+ * 鱼群和集群行为的参数只在模拟线程中读写，目标点和范围由绘制线程提交，在下一步开始前生效。
+ */
+public class AsyncSchoolSimulation {
+
+    private final FishSchool school;
+    private final Flocking flocking;
+    private final ParallelSchoolStepper stepper;
+    private final PoseSnapshotBuffer snapshots;
+    private final Executor coordinator;
+    // 是否有一步正在模拟线程中执行
+    private final AtomicBoolean stepping = new AtomicBoolean();
+    // 还没有交给模拟线程的时间，只由绘制线程访问
+    private float pendingDelta;
+    private volatile float stepDelta;
+
+    // 绘制线程提交的修改，由pendingLock保护
+    private final Object pendingLock = new Object();
+    private boolean targetChanged;
+    private boolean hasTarget;
+    private float targetX;
+    private float targetY;
+    private boolean boundsChanged;
+    private float boundsWidth;
+    private float boundsHeight;
+
+    private final Runnable stepTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                applyPendingChanges();
+                stepper.step(school, flocking, stepDelta, snapshots.beginWrite());
+                snapshots.publish(school.size());
+            } finally {
+                stepping.set(false);
+            }
+        }
+    };
+
+    /**
+     * @param school 鱼群，交给本类之后只能在模拟线程中修改
+     * @param flocking 集群行为
+     * @param stepper 并行推进鱼群
+     * @param coordinator 执行每一步的线程，必须与stepper使用的线程池不同，否则stepper等待分段任务时可能占满线程池
+     */
+    public AsyncSchoolSimulation(FishSchool school, Flocking flocking, ParallelSchoolStepper stepper,
+                                 Executor coordinator) {
+        this.school = school;
+        this.flocking = flocking;
+        this.stepper = stepper;
+        this.coordinator = coordinator;
+        this.snapshots = new PoseSnapshotBuffer(school.capacity());
+        // 第一帧就能画出鱼群的初始状态
+        school.computePoses(0, school.size(), snapshots.beginWrite());
+        snapshots.publish(school.size());
+    }
+
+    /**
+     * 请求推进一步，只能在绘制线程中调用
+     * @param deltaSeconds 距离上一次请求经过的时间（秒）
+     * @return 是否交给了模拟线程，上一步还没有完成时返回false，时间累积到下一步
+     */
+    public boolean requestStep(float deltaSeconds) {
+        pendingDelta += deltaSeconds;
+        if (!stepping.compareAndSet(false, true)) {
+            return false;
+        }
+        stepDelta = pendingDelta;
+        pendingDelta = 0;
+        coordinator.execute(stepTask);
+        return true;
+    }
+
+    /**
+     * 是否有一步正在模拟线程中执行
+     */
+    public boolean isStepping() {
+        return stepping.get();
+    }
+
+    /**
+     * 取得最新完成的姿态快照，只能在绘制线程中调用
+     * @return 前台缓冲区，之后通过{@link #getSnapshotCount()}取得其中鱼的数量
+     */
+    public float[] acquireSnapshot() {
+        snapshots.acquire();
+        return snapshots.front();
+    }
+
+    /**
+     * 最近一次{@link #acquireSnapshot()}得到的快照中鱼的数量
+     */
+    public int getSnapshotCount() {
+        return snapshots.frontCount();
+    }
+
+    public void setTarget(float x, float y) {
+        synchronized (pendingLock) {
+            targetChanged = true;
+            hasTarget = true;
+            targetX = x;
+            targetY = y;
+        }
+    }
+
+    public void clearTarget() {
+        synchronized (pendingLock) {
+            targetChanged = true;
+            hasTarget = false;
+        }
+    }
+
+    public void setBounds(float width, float height) {
+        synchronized (pendingLock) {
+            boundsChanged = true;
+            boundsWidth = width;
+            boundsHeight = height;
+        }
+    }
+
+    private void applyPendingChanges() {
+        synchronized (pendingLock) {
+            if (targetChanged) {
+                if (hasTarget) {
+                    flocking.setTarget(targetX, targetY);
+                } else {
+                    flocking.clearTarget();
+                }
+                targetChanged = false;
+            }
+            if (boundsChanged) {
+                school.setBounds(boundsWidth, boundsHeight);
+                boundsChanged = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.util.Arrays;
+
+/**
+ * 固定桶的直方图，用于统计每一帧的耗时（纳秒）或者分配次数等非负整数。
+ * <p>
+ * 0~7各占一个桶，之后每个2的幂次区间平均分为8个桶，因此任何值所在的桶的宽度都不超过它的1/8，
+ * 分位数的相对误差不超过12.5%。桶的数量固定（覆盖long的全部范围），记录一个值只需要几次位运算和一次自增，不分配内存。
+ * <p>
+ * 不是线程安全的，记录和查询需要在同一个线程中进行。
+ */
+public class BucketHistogram {
+
+    // 每个2的幂次区间分成的桶数
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 最大的值（最高位为62）所在的桶的下标加1
+    static final int BUCKET_COUNT = (62 - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long total;
+    private long max;
+
+    /**
+     * 记录一个值，小于0的值按0记录
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucketOf(value)]++;
+        count++;
+        total += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * 分位数，返回所在桶的上界（不超过记录过的最大值），没有记录时返回0
+     * @param percentile 0~100，例如50、95、99
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        // 第rank个（从1开始）值所在的桶
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * 把另一个直方图的数据累加到这个直方图中
+     */
+    public void add(BucketHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,167 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 鱼的游动轨迹：一条三阶贝塞尔曲线，按弧长参数化。
+ * <p>
+ * 每次设置曲线时建立一张弧长表（曲线参数t等分后每一段的累计长度，每一段用三点高斯-勒让德积分求长度），
+ * 之后每一帧只需要在表中查找弧长对应的参数t，再对多项式求一次值即可得到位置和切线方向，
+ * 不需要像PathMeasure那样先把曲线拆成折线。
+ */
+public class CubicTrajectory {
+
+    public static final int DEFAULT_TABLE_SIZE = 64;
+
+    // 三点高斯-勒让德积分的节点（映射到[0, 1]）与权重
+    private static final float GAUSS_NODE_0 = 0.5f - 0.5f * (float) Math.sqrt(0.6);
+    private static final float GAUSS_NODE_1 = 0.5f;
+    private static final float GAUSS_NODE_2 = 0.5f + 0.5f * (float) Math.sqrt(0.6);
+    private static final float GAUSS_WEIGHT_0 = 5f / 18f;
+    private static final float GAUSS_WEIGHT_1 = 8f / 18f;
+    private static final float GAUSS_WEIGHT_2 = 5f / 18f;
+
+    private final int tableSize;
+    // arcLengths[i]为参数t从0到i / tableSize的曲线长度
+    private final float[] arcLengths;
+    private float length;
+
+    // 多项式形式的系数：B(t) = a * t^3 + b * t^2 + c * t + d
+    private float ax, bx, cx, dx;
+    private float ay, by, cy, dy;
+
+    public CubicTrajectory() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * @param tableSize 弧长表的段数
+     */
+    public CubicTrajectory(int tableSize) {
+        if (tableSize < 1) {
+            throw new IllegalArgumentException("tableSize must be positive: " + tableSize);
+        }
+        this.tableSize = tableSize;
+        this.arcLengths = new float[tableSize + 1];
+    }
+
+    /**
+     * 设置曲线的起点、两个控制点和终点，并重新建立弧长表
+     */
+    public void set(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3) {
+        cx = 3 * (x1 - x0);
+        bx = 3 * (x2 - x1) - cx;
+        ax = x3 - x0 - cx - bx;
+        dx = x0;
+        cy = 3 * (y1 - y0);
+        by = 3 * (y2 - y1) - cy;
+        ay = y3 - y0 - cy - by;
+        dy = y0;
+
+        arcLengths[0] = 0;
+        float step = 1f / tableSize;
+        for (int i = 0; i < tableSize; i++) {
+            float t = i * step;
+            float segment = GAUSS_WEIGHT_0 * speed(t + GAUSS_NODE_0 * step)
+                    + GAUSS_WEIGHT_1 * speed(t + GAUSS_NODE_1 * step)
+                    + GAUSS_WEIGHT_2 * speed(t + GAUSS_NODE_2 * step);
+            arcLengths[i + 1] = arcLengths[i] + segment * step;
+        }
+        length = arcLengths[tableSize];
+    }
+
+    /**
+     * 设置曲线，points中依次存放起点、控制点1、控制点2、终点，与{@link SwimPath#points}的排列相同
+     */
+    public void set(float[] points) {
+        set(points[0], points[1], points[2], points[3], points[4], points[5], points[6], points[7]);
+    }
+
+    /**
+     * 曲线在参数t处的速度（导数的长度）
+     */
+    private float speed(float t) {
+        float derivativeX = (3 * ax * t + 2 * bx) * t + cx;
+        float derivativeY = (3 * ay * t + 2 * by) * t + cy;
+        return (float) Math.sqrt(derivativeX * derivativeX + derivativeY * derivativeY);
+    }
+
+    public float getLength() {
+        return length;
+    }
+
+    /**
+     * 根据走过的弧长占总长度的比例，查表得到曲线参数t
+     * @param fraction 0~1
+     */
+    public float parameterAt(float fraction) {
+        if (fraction <= 0) {
+            return 0;
+        }
+        if (fraction >= 1) {
+            return 1;
+        }
+        if (length <= 0) {
+            return fraction;
+        }
+        float distance = fraction * length;
+        // 二分查找distance所在的区间
+        int low = 0;
+        int high = tableSize;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (arcLengths[middle] < distance) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        float segmentLength = arcLengths[high] - arcLengths[low];
+        float segmentFraction = segmentLength > 0 ? (distance - arcLengths[low]) / segmentLength : 0;
+        return (low + segmentFraction) / tableSize;
+    }
+
+    /**
+     * 与PathMeasure.getPosTan相同：根据走过的弧长比例，计算位置和单位切线向量
+     * @param fraction 0~1
+     * @param pos 位置，可以为空
+     * @param tan 单位切线向量，可以为空
+     */
+    public void getPosTan(float fraction, float[] pos, float[] tan) {
+        float t = parameterAt(fraction);
+        if (pos != null) {
+            pos[0] = ((ax * t + bx) * t + cx) * t + dx;
+            pos[1] = ((ay * t + by) * t + cy) * t + dy;
+        }
+        if (tan != null) {
+            float derivativeX = (3 * ax * t + 2 * bx) * t + cx;
+            float derivativeY = (3 * ay * t + 2 * by) * t + cy;
+            float derivativeLength = (float) Math.sqrt(derivativeX * derivativeX + derivativeY * derivativeY);
+            if (derivativeLength < 1e-6f) {
+                // 控制点与端点重合时导数为0，改用二阶导数的方向
+                derivativeX = 6 * ax * t + 2 * bx;
+                derivativeY = 6 * ay * t + 2 * by;
+                if (t > 0.5f) {
+                    derivativeX = -derivativeX;
+                    derivativeY = -derivativeY;
+                }
+                derivativeLength = (float) Math.sqrt(derivativeX * derivativeX + derivativeY * derivativeY);
+            }
+            if (derivativeLength > 0) {
+                tan[0] = derivativeX / derivativeLength;
+                tan[1] = derivativeY / derivativeLength;
+            } else {
+                tan[0] = 1;
+                tan[1] = 0;
+            }
+        }
+    }
+
+    /**
+     * 根据走过的弧长比例计算鱼头的朝向角度（Android坐标系，y轴朝下，所以切线的y分量取反）
+     * @param fraction 0~1
+     * @param tan 用于计算的临时数组，长度至少为2
+     */
+    public float headingAt(float fraction, float[] tan) {
+        getPosTan(fraction, null, tan);
+        return FastMath.atan2Deg(-tan[1], tan[0]);
+    }
+}
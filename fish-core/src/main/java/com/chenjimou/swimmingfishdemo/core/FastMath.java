@@ -0,0 +1,88 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 姿态和角度计算使用的单精度三角函数，代替{@link Math}中先转换成弧度、再按double计算的版本。
+ * 角度均以度为单位，误差上限由{@code FastMathTest}在整个输入范围内逐点校验：
+ * <ul>
+ * <li>{@link #sinDeg}/{@link #cosDeg}：查表（{@value #SIN_TABLE_SIZE}个点覆盖一周）加线性插值，
+ * 绝对误差不超过{@link #MAX_SIN_ERROR}（|角度| ≤ {@value #MAX_ACCURATE_DEGREES}时，覆盖频率为3时的摆动相位；
+ * 角度更大时误差随float本身的精度变大，3600度时约为5e-6）；</li>
+ * <li>{@link #atan2Deg}：把参数化到[0, 1]后用11阶多项式逼近atan，误差不超过{@link #MAX_ATAN2_ERROR_DEGREES}度；</li>
+ * </ul>
+ * 开平方没有对应的近似版本：JIT会把Math.sqrt编译成一条指令，位运算加牛顿迭代的倒数平方根反而更慢（见FastMathBenchmark）。
+ * 鱼的各部位到重心的距离不超过几百像素，这些误差在屏幕上远小于一个像素。
+ * 表在类加载时生成（8KB），之后所有函数都不分配内存，可以在任意线程中调用。
+ */
+public final class FastMath {
+
+    // 表的大小，必须是2的幂
+    public static final int SIN_TABLE_SIZE = 2048;
+    public static final float MAX_SIN_ERROR = 2e-6f;
+    public static final float MAX_ACCURATE_DEGREES = 1440;
+    public static final float MAX_ATAN2_ERROR_DEGREES = 2e-4f;
+
+    private static final int SIN_MASK = SIN_TABLE_SIZE - 1;
+    private static final int QUARTER = SIN_TABLE_SIZE / 4;
+    private static final float INDEX_PER_DEGREE = SIN_TABLE_SIZE / 360f;
+    private static final float DEGREES_PER_RADIAN = (float) (180 / Math.PI);
+    // 多出的一个点使插值时不需要对下一个下标取模
+    private static final float[] SIN = new float[SIN_TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= SIN_TABLE_SIZE; i++) {
+            SIN[i] = (float) Math.sin(Math.PI * 2 * i / SIN_TABLE_SIZE);
+        }
+    }
+
+    private FastMath() {
+    }
+
+    public static float sinDeg(float degrees) {
+        float index = degrees * INDEX_PER_DEGREE;
+        int floor = (int) index;
+        if (index < floor) {
+            floor--;
+        }
+        return lerp(floor & SIN_MASK, index - floor);
+    }
+
+    /**
+     * 与{@link #sinDeg}使用同一张表，下标偏移四分之一周
+     */
+    public static float cosDeg(float degrees) {
+        float index = degrees * INDEX_PER_DEGREE;
+        int floor = (int) index;
+        if (index < floor) {
+            floor--;
+        }
+        return lerp((floor + QUARTER) & SIN_MASK, index - floor);
+    }
+
+    private static float lerp(int index, float fraction) {
+        float from = SIN[index];
+        return from + (SIN[index + 1] - from) * fraction;
+    }
+
+    /**
+     * 与Math.toDegrees(Math.atan2(y, x))相同，结果在[-180, 180]之间，(0, 0)时为0
+     */
+    public static float atan2Deg(float y, float x) {
+        float absX = Math.abs(x);
+        float absY = Math.abs(y);
+        float max = Math.max(absX, absY);
+        if (max == 0) {
+            return 0;
+        }
+        float a = Math.min(absX, absY) / max;
+        float s = a * a;
+        float degrees = a * (0.99997726f + s * (-0.33262347f + s * (0.19354346f + s * (-0.11643287f
+                + s * (0.05265332f + s * -0.01172120f))))) * DEGREES_PER_RADIAN;
+        if (absY > absX) {
+            degrees = 90 - degrees;
+        }
+        if (x < 0) {
+            degrees = 180 - degrees;
+        }
+        return y < 0 ? -degrees : degrees;
+    }
+}
@@ -0,0 +1,67 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 一条独立的鱼：只保存自己的位置、朝向、相位等几个基本类型的状态，
+ * 大小、颜色和摆动周期等不变的参数都引用共用的{@link FishSpecies}。
+ * <p>
+ * 通过{@link FishPool}获取和回收，回收之后不能再使用。不是线程安全的。
+ */
+public final class Fish {
+
+    private FishSpecies species;
+    // 鱼的重心
+    public float keyX;
+    public float keyY;
+    // 鱼头的朝向角度
+    public float headAngle;
+    // 摆动的相位（0~360）
+    public float phase;
+    // 摆动频率
+    public float frequence;
+    // 速度（像素/秒）
+    public float velocityX;
+    public float velocityY;
+
+    // 在池中时指向下一条空闲的鱼
+    Fish nextFree;
+    boolean pooled;
+
+    Fish() {
+    }
+
+    /**
+     * 从池中取出时重新设置所有状态，之前的状态不会保留
+     */
+    void reset(FishSpecies species, float keyX, float keyY, float headAngle) {
+        this.species = species;
+        this.keyX = keyX;
+        this.keyY = keyY;
+        this.headAngle = headAngle;
+        phase = 0;
+        frequence = 1f;
+        velocityX = 0;
+        velocityY = 0;
+    }
+
+    public FishSpecies getSpecies() {
+        return species;
+    }
+
+    /**
+     * 按速度移动并推进摆动的相位
+     */
+    public void advance(float deltaSeconds) {
+        keyX += velocityX * deltaSeconds;
+        keyY += velocityY * deltaSeconds;
+        float p = phase + species.swingDelta(frequence, deltaSeconds);
+        phase = p >= 360f ? p % 360f : p;
+    }
+
+    /**
+     * 计算姿态并写入out中从offset开始的位置
+     * @param pose 同一种鱼共用的姿态计算
+     */
+    public void computePose(FishPose pose, float[] out, int offset) {
+        pose.compute(out, offset, keyX, keyY, headAngle, phase);
+    }
+}
@@ -0,0 +1,54 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 与Android无关的几何算法，坐标系均为Android坐标系（Y轴以270°为正方向）
+ */
+public final class FishGeometry {
+
+    private FishGeometry() {
+    }
+
+    /**
+     * 算法：以参照点为原点建立Android坐标系，根据距离和角度，计算出目标点
+     * @param referenceX 参照点的x坐标
+     * @param referenceY 参照点的y坐标
+     * @param distance 目标点与参照点的距离
+     * @param angle 以参照点建立坐标系，目标点与参照点之间连线与x轴正方向的夹角角度
+     * @param out 目标点写入out[offset]和out[offset + 1]
+     */
+    public static void calculatePoint(float referenceX, float referenceY, float distance, float angle,
+                                      float[] out, int offset) {
+        // 根据cos函数计算出目标点的x坐标
+        float deltaX = FastMath.cosDeg(angle) * distance;
+        // 根据sin函数计算出目标点的y坐标
+        // （因为JDK中三角函数坐标系的y轴与Android屏幕坐标轴的y轴相反，所以取反，即sin(angle - 180)）
+        float deltaY = -FastMath.sinDeg(angle) * distance;
+        out[offset] = referenceX + deltaX;
+        out[offset + 1] = referenceY + deltaY;
+    }
+
+    /**
+     * 算法：以O点为原点建立Android坐标系，知道O、A、B三点，计算出夹角AOB的角度
+     * @return 夹角AOB的角度
+     */
+    public static float includeAngle(float ox, float oy, float ax, float ay, float bx, float by) {
+        float AOB = (ax - ox) * (bx - ox) + (ay - oy) * (by - oy);
+        // 夹角的大小 = atan2(|OA × OB|, OA · OB)，与acos(cosAOB)相同，但不需要求两条边的长度
+        float cross = (ax - ox) * (by - oy) - (ay - oy) * (bx - ox);
+        float angleAOB = FastMath.atan2Deg(Math.abs(cross), AOB);
+        float direction = (ay - by) / (ax - bx) - (oy - by) / (ox - bx);
+        if (direction == 0) {
+            if (AOB >= 0) {
+                return 0;
+            } else {
+                return 180;
+            }
+        } else {
+            if (direction > 0) {
+                return -angleAOB;
+            } else {
+                return angleAOB;
+            }
+        }
+    }
+}
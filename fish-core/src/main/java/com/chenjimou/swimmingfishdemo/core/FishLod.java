@@ -0,0 +1,64 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 鱼的细节等级（LOD）：鱼在屏幕上越小，能看清的细节越少，可以少画一些部位并关闭抗锯齿和抖动。
+ * <ul>
+ *     <li>{@link #FULL}：全部部位，开启抗锯齿和抖动</li>
+ *     <li>{@link #REDUCED}：去掉鱼鳍，鱼尾两段梯形合并为一段，只保留大圆和大三角形，关闭抖动</li>
+ *     <li>{@link #MINIMAL}：只画鱼头、躯干和合并后的鱼尾，关闭抗锯齿和抖动</li>
+ * </ul>
+ * 等级按鱼头在屏幕上的半径选择，阈值两侧留有回差，半径在阈值附近来回变化时等级不会反复切换。
+ */
+public final class FishLod {
+
+    public static final int FULL = 0;
+    public static final int REDUCED = 1;
+    public static final int MINIMAL = 2;
+    public static final int TIER_COUNT = 3;
+
+    // 鱼头半径（像素）小于这个值时至少为REDUCED
+    public static final float REDUCED_BELOW_RADIUS = 16f;
+    // 鱼头半径（像素）小于这个值时为MINIMAL
+    public static final float MINIMAL_BELOW_RADIUS = 6f;
+    // 回差：半径需要比阈值小15%才降低等级，比阈值大15%才恢复
+    public static final float HYSTERESIS = 0.15f;
+
+    private FishLod() {
+    }
+
+    /**
+     * 根据鱼头在屏幕上的半径选择等级
+     * @param radius 鱼头在屏幕上的半径（像素）
+     * @param previousTier 上一次的等级，半径落在回差范围内时保持不变
+     */
+    public static int tierForRadius(float radius, int previousTier) {
+        int tier = clamp(previousTier);
+        // 变大时需要明显超过阈值才恢复细节
+        while (tier > FULL && radius >= thresholdOf(tier) * (1 + HYSTERESIS)) {
+            tier--;
+        }
+        // 变小时需要明显低于阈值才减少细节
+        while (tier < MINIMAL && radius < thresholdOf(tier + 1) * (1 - HYSTERESIS)) {
+            tier++;
+        }
+        return tier;
+    }
+
+    /**
+     * 同时满足按大小选择的等级和帧预算要求的最低等级，取细节较少的一个
+     */
+    public static int combine(int sizeTier, int minimumTier) {
+        return clamp(Math.max(sizeTier, minimumTier));
+    }
+
+    public static int clamp(int tier) {
+        return tier < FULL ? FULL : tier > MINIMAL ? MINIMAL : tier;
+    }
+
+    /**
+     * 半径小于这个值时等级至少为tier
+     */
+    private static float thresholdOf(int tier) {
+        return tier == REDUCED ? REDUCED_BELOW_RADIUS : MINIMAL_BELOW_RADIUS;
+    }
+}
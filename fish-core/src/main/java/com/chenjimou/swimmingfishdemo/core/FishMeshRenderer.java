@@ -0,0 +1,417 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.util.Arrays;
+
+/**
+ * 把一群鱼剖分成三角形，合并到同一个顶点数组中，通过{@link RenderBackend#drawTriangles}一次画完。
+ * {@link FishRenderer}画一条鱼需要十次左右的绘制（四个圆和六条路径），鱼群的绘制次数与鱼的数量成正比，
+ * 每条路径还要在绘制时重新剖分；合并之后每一帧只有一次绘制。
+ * <p>
+ * 圆按固定的边数画成扇形，边数由半径和容差决定，构造时算好；鱼鳍、躯干和鱼尾的两段梯形不会变形，
+ * 在局部坐标系（见{@link FishPartTemplates}）中把贝塞尔曲线按容差展开成折线并剖分一次，
+ * 每条鱼只需要把这些三角形变换到姿态所在的位置和朝向。鱼尾三角形直接取姿态中的顶点。
+ * 所有部位都是凸多边形，从第一个顶点出发剖分成扇形。
+ * <p>
+ * 每条鱼的透明度放在顶点颜色中，同一群鱼可以有不同的透明度。三角形不做抗锯齿，
+ * 画出的边缘与{@link FishRenderer}相差不到一个像素。
+ * <p>
+ * 不是线程安全的。
+ */
+public class FishMeshRenderer {
+
+    // 默认的容差（像素）：圆的边、展开的曲线与真实形状的最大距离
+    public static final float DEFAULT_TOLERANCE = 0.25f;
+    // 圆至少的边数
+    public static final int MIN_CIRCLE_SEGMENTS = 6;
+
+    // 圆：鱼头、鱼尾大圆、鱼尾中圆、鱼尾小圆
+    private static final int HEAD_CIRCLE = 0;
+    private static final int BIG_CIRCLE = 1;
+    private static final int MIDDLE_CIRCLE = 2;
+    private static final int SMALL_CIRCLE = 3;
+    private static final int CIRCLE_COUNT = 4;
+    private static final int[] CIRCLE_CENTER = {
+            FishPose.HEAD, FishPose.BODY_BOTTOM, FishPose.TAIL_MIDDLE, FishPose.TAIL_SMALL};
+
+    private final RenderBackend backend;
+    private final FishSpecies species;
+    private final float tolerance;
+    // 每个圆的圆周上各点相对圆心的偏移（首尾相同）
+    private final float[][] circleRim = new float[CIRCLE_COUNT][];
+    // 不会变形的部位剖分后的三角形，按局部坐标依次存放每个顶点的u、v
+    private final float[][] partTriangles = new float[FishPartTemplates.PART_COUNT][];
+    private final float[] frame = new float[FishPartTemplates.FRAME_SIZE];
+    // 每个细节等级下一条鱼的顶点数
+    private final int[] verticesPerFish = new int[FishLod.TIER_COUNT];
+
+    private int levelOfDetail = FishLod.FULL;
+    // 鱼的颜色，不包括透明度
+    private int rgb;
+    // 合并后的顶点，依次存放x、y，以及每个顶点的颜色
+    private float[] vertices;
+    private int[] colors;
+    private int vertexCount;
+    // 正在添加的鱼的颜色
+    private int fishColor;
+
+    public FishMeshRenderer(FishSpecies species, RenderBackend backend) {
+        this(species, DEFAULT_TOLERANCE, 16, backend);
+    }
+
+    /**
+     * @param species 鱼的大小和颜色，不会变形的部位使用这种鱼共用的{@link FishSpecies#getPartTemplates()}
+     * @param tolerance 容差（像素），越小三角形越多
+     * @param initialFishCapacity 顶点数组最初能放下的鱼的数量，不够时扩大
+     * @param backend 绘图后端
+     */
+    public FishMeshRenderer(FishSpecies species, float tolerance, int initialFishCapacity, RenderBackend backend) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("tolerance must be positive: " + tolerance);
+        }
+        this.backend = backend;
+        this.species = species;
+        this.tolerance = tolerance;
+        this.rgb = species.getColor() & 0x00FFFFFF;
+        float[] circleRadius = {species.getHeadRadius(), species.getTailBigCircleRadius(),
+                species.getTailMiddleCircleRadius(), species.getTailSmallCircleRadius()};
+        for (int circle = 0; circle < CIRCLE_COUNT; circle++) {
+            circleRim[circle] = circleRim(circleRadius[circle], tolerance);
+        }
+        FishPartTemplates templates = species.getPartTemplates();
+        for (int part = 0; part < FishPartTemplates.PART_COUNT; part++) {
+            partTriangles[part] = fan(outline(templates, part, tolerance));
+        }
+        for (int tier = 0; tier < FishLod.TIER_COUNT; tier++) {
+            verticesPerFish[tier] = countVertices(tier);
+        }
+        vertices = new float[Math.max(1, initialFishCapacity) * verticesPerFish[FishLod.FULL] * 2];
+        colors = new int[vertices.length / 2];
+    }
+
+    public RenderBackend getBackend() {
+        return backend;
+    }
+
+    public FishSpecies getSpecies() {
+        return species;
+    }
+
+    public float getHeadRadius() {
+        return species.getHeadRadius();
+    }
+
+    public float getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * @param argb 鱼的颜色，默认为这种鱼的颜色，透明度被忽略，由{@link #add(float[], int, int)}给出
+     */
+    public void setColor(int argb) {
+        rgb = argb & 0x00FFFFFF;
+    }
+
+    public int getLevelOfDetail() {
+        return levelOfDetail;
+    }
+
+    /**
+     * 之后添加的鱼的细节等级，部位的取舍与{@link FishRenderer}相同（网格本来就没有抗锯齿）
+     */
+    public void setLevelOfDetail(int levelOfDetail) {
+        this.levelOfDetail = FishLod.clamp(levelOfDetail);
+    }
+
+    /**
+     * 当前细节等级下一条鱼的顶点数
+     */
+    public int getVerticesPerFish() {
+        return verticesPerFish[levelOfDetail];
+    }
+
+    /**
+     * 清空已经添加的鱼
+     */
+    public void begin() {
+        vertexCount = 0;
+    }
+
+    /**
+     * 按{@link FishRenderer#BODY_ALPHA}的透明度添加一条鱼
+     */
+    public void add(float[] pose, int offset) {
+        add(pose, offset, FishRenderer.BODY_ALPHA);
+    }
+
+    /**
+     * 把一条鱼的三角形追加到顶点数组中
+     * @param pose 姿态数组
+     * @param offset 这条鱼的姿态在数组中的起始下标
+     * @param alpha 这条鱼的透明度（0~255）
+     */
+    public void add(float[] pose, int offset, int alpha) {
+        ensureCapacity(vertexCount + verticesPerFish[levelOfDetail]);
+        fishColor = (alpha & 0xFF) << 24 | rgb;
+
+        addCircle(pose, offset, HEAD_CIRCLE);
+        if (levelOfDetail != FishLod.FULL) {
+            addReduced(pose, offset);
+            return;
+        }
+        addPart(pose, offset, FishPartTemplates.RIGHT_FIN);
+        addPart(pose, offset, FishPartTemplates.LEFT_FIN);
+        addPart(pose, offset, FishPartTemplates.BODY);
+        addCircle(pose, offset, BIG_CIRCLE);
+        addCircle(pose, offset, MIDDLE_CIRCLE);
+        addPart(pose, offset, FishPartTemplates.UPPER_SEGMENT);
+        addCircle(pose, offset, SMALL_CIRCLE);
+        addPart(pose, offset, FishPartTemplates.LOWER_SEGMENT);
+        addTriangle(pose, offset, FishPose.TAIL_SMALL, FishPose.BIG_TRIANGLE_LEFT, FishPose.BIG_TRIANGLE_RIGHT);
+        addTriangle(pose, offset, FishPose.TAIL_SMALL, FishPose.SMALL_TRIANGLE_LEFT, FishPose.SMALL_TRIANGLE_RIGHT);
+    }
+
+    /**
+     * 与{@link FishRenderer}较低的细节等级相同：不画鱼鳍，鱼尾的两段梯形合并为一段，
+     * REDUCED保留大圆和大三角形
+     */
+    private void addReduced(float[] pose, int offset) {
+        addPart(pose, offset, FishPartTemplates.BODY);
+        boolean reduced = levelOfDetail == FishLod.REDUCED;
+        if (reduced) {
+            addCircle(pose, offset, BIG_CIRCLE);
+        }
+        // 合并后的鱼尾：下部分梯形的上底连到上部分梯形的下底
+        addTriangle(pose, offset, FishPose.LOWER_SEGMENT_UPPER_LEFT, FishPose.LOWER_SEGMENT_UPPER_RIGHT,
+                FishPose.UPPER_SEGMENT_BOTTOM_RIGHT);
+        addTriangle(pose, offset, FishPose.LOWER_SEGMENT_UPPER_LEFT, FishPose.UPPER_SEGMENT_BOTTOM_RIGHT,
+                FishPose.UPPER_SEGMENT_BOTTOM_LEFT);
+        if (reduced) {
+            addTriangle(pose, offset, FishPose.TAIL_SMALL, FishPose.BIG_TRIANGLE_LEFT, FishPose.BIG_TRIANGLE_RIGHT);
+        }
+    }
+
+    /**
+     * 把已经添加的鱼一次画出
+     */
+    public void flush() {
+        if (vertexCount > 0) {
+            backend.drawTriangles(vertices, colors, vertexCount);
+        }
+    }
+
+    /**
+     * 依次添加count条鱼并一次画出，姿态在数组中连续存放
+     */
+    public void draw(float[] poses, int count, int floatsPerPose) {
+        draw(poses, count, floatsPerPose, FishRenderer.BODY_ALPHA);
+    }
+
+    /**
+     * 依次按同一个透明度添加count条鱼并一次画出
+     * @param alpha 每条鱼的透明度（0~255），见{@link FishRenderer#getBodyAlpha()}
+     */
+    public void draw(float[] poses, int count, int floatsPerPose, int alpha) {
+        begin();
+        for (int i = 0; i < count; i++) {
+            add(poses, i * floatsPerPose, alpha);
+        }
+        flush();
+    }
+
+    public float[] getVertices() {
+        return vertices;
+    }
+
+    public int[] getColors() {
+        return colors;
+    }
+
+    /**
+     * 已经添加的顶点数，每3个顶点一个三角形
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    private void addCircle(float[] pose, int offset, int circle) {
+        float cx = FishPose.x(pose, offset, CIRCLE_CENTER[circle]);
+        float cy = FishPose.y(pose, offset, CIRCLE_CENTER[circle]);
+        float[] rim = circleRim[circle];
+        for (int i = 0; i + 2 < rim.length; i += 2) {
+            addVertex(cx, cy);
+            addVertex(cx + rim[i], cy + rim[i + 1]);
+            addVertex(cx + rim[i + 2], cy + rim[i + 3]);
+        }
+    }
+
+    private void addPart(float[] pose, int offset, int part) {
+        FishPartTemplates.frame(pose, offset, part, frame);
+        float originX = frame[FishPartTemplates.FRAME_ORIGIN_X];
+        float originY = frame[FishPartTemplates.FRAME_ORIGIN_Y];
+        float cos = frame[FishPartTemplates.FRAME_COS];
+        float sin = frame[FishPartTemplates.FRAME_SIN];
+        float[] triangles = partTriangles[part];
+        for (int i = 0; i < triangles.length; i += 2) {
+            float u = triangles[i];
+            float v = triangles[i + 1];
+            addVertex(originX + u * cos + v * sin, originY - u * sin + v * cos);
+        }
+    }
+
+    private void addTriangle(float[] pose, int offset, int a, int b, int c) {
+        addVertex(FishPose.x(pose, offset, a), FishPose.y(pose, offset, a));
+        addVertex(FishPose.x(pose, offset, b), FishPose.y(pose, offset, b));
+        addVertex(FishPose.x(pose, offset, c), FishPose.y(pose, offset, c));
+    }
+
+    private void addVertex(float x, float y) {
+        vertices[vertexCount * 2] = x;
+        vertices[vertexCount * 2 + 1] = y;
+        colors[vertexCount] = fishColor;
+        vertexCount++;
+    }
+
+    private void ensureCapacity(int vertexCapacity) {
+        if (vertexCapacity <= colors.length) {
+            return;
+        }
+        int capacity = Math.max(vertexCapacity, colors.length * 2);
+        vertices = Arrays.copyOf(vertices, capacity * 2);
+        colors = Arrays.copyOf(colors, capacity);
+    }
+
+    private int countVertices(int tier) {
+        int circleTriangles = 0;
+        int partTriangleCount = partTriangles[FishPartTemplates.BODY].length / 6;
+        if (tier == FishLod.FULL) {
+            for (int circle = 0; circle < CIRCLE_COUNT; circle++) {
+                circleTriangles += circleRim[circle].length / 2 - 1;
+            }
+            partTriangleCount += (partTriangles[FishPartTemplates.RIGHT_FIN].length
+                    + partTriangles[FishPartTemplates.LEFT_FIN].length
+                    + partTriangles[FishPartTemplates.UPPER_SEGMENT].length
+                    + partTriangles[FishPartTemplates.LOWER_SEGMENT].length) / 6;
+            // 两个鱼尾三角形
+            return (circleTriangles + partTriangleCount + 2) * 3;
+        }
+        circleTriangles = circleRim[HEAD_CIRCLE].length / 2 - 1;
+        // 合并后的鱼尾
+        int tailTriangles = 2;
+        if (tier == FishLod.REDUCED) {
+            circleTriangles += circleRim[BIG_CIRCLE].length / 2 - 1;
+            tailTriangles++;
+        }
+        return (circleTriangles + partTriangleCount + tailTriangles) * 3;
+    }
+
+    /**
+     * 圆的边数：每条边与圆弧的最大距离（弓形高）r * (1 - cos(π / n))不超过容差
+     */
+    public static int circleSegments(float radius, float tolerance) {
+        if (tolerance >= radius) {
+            return MIN_CIRCLE_SEGMENTS;
+        }
+        int segments = (int) Math.ceil(Math.PI / Math.acos(1 - tolerance / radius));
+        return Math.max(MIN_CIRCLE_SEGMENTS, segments);
+    }
+
+    /**
+     * 二阶贝塞尔曲线展开成折线的段数：按参数均分时每一段与曲线的最大距离为|P0 - 2P1 + P2| / (4n²)
+     */
+    public static int quadSegments(float x0, float y0, float x1, float y1, float x2, float y2, float tolerance) {
+        float dx = x0 - 2 * x1 + x2;
+        float dy = y0 - 2 * y1 + y2;
+        float d = (float) Math.sqrt(dx * dx + dy * dy);
+        return Math.max(1, (int) Math.ceil(Math.sqrt(d / (4 * tolerance))));
+    }
+
+    private static float[] circleRim(float radius, float tolerance) {
+        int segments = circleSegments(radius, tolerance);
+        float[] rim = new float[(segments + 1) * 2];
+        for (int i = 0; i <= segments; i++) {
+            double angle = 2 * Math.PI * (i % segments) / segments;
+            rim[i * 2] = (float) (radius * Math.cos(angle));
+            rim[i * 2 + 1] = (float) (radius * Math.sin(angle));
+        }
+        return rim;
+    }
+
+    /**
+     * 部位在局部坐标系中的轮廓，连接顶点的方式与{@link FishRenderer}保留的路径相同，依次存放每个顶点的u、v
+     */
+    private static float[] outline(FishPartTemplates templates, int part, float tolerance) {
+        int first = FishPartTemplates.firstPoint(part);
+        switch (part) {
+            case FishPartTemplates.RIGHT_FIN:
+            case FishPartTemplates.LEFT_FIN:
+                // 鱼鳍：起点、控制点、终点组成的二阶贝塞尔曲线，终点连回起点
+                return flattenQuad(point(new float[0], templates, first), templates,
+                        first, first + 1, first + 2, tolerance);
+            case FishPartTemplates.BODY:
+                // 躯干：左侧曲线、底边、右侧曲线
+                float[] points = point(new float[0], templates, FishPose.BODY_TOP_LEFT);
+                points = flattenQuad(points, templates, FishPose.BODY_TOP_LEFT, FishPose.BODY_CONTROL_LEFT,
+                        FishPose.BODY_BOTTOM_LEFT, tolerance);
+                points = point(points, templates, FishPose.BODY_BOTTOM_RIGHT);
+                return flattenQuad(points, templates, FishPose.BODY_BOTTOM_RIGHT, FishPose.BODY_CONTROL_RIGHT,
+                        FishPose.BODY_TOP_RIGHT, tolerance);
+            default:
+                // 鱼尾的梯形：依次连接四个顶点
+                float[] corners = new float[0];
+                for (int i = 0; i < FishPartTemplates.pointCount(part); i++) {
+                    corners = point(corners, templates, first + i);
+                }
+                return corners;
+        }
+    }
+
+    private static float[] point(float[] points, FishPartTemplates templates, int point) {
+        return append(points, templates.localX(point), templates.localY(point));
+    }
+
+    private static float[] append(float[] points, float x, float y) {
+        float[] result = Arrays.copyOf(points, points.length + 2);
+        result[points.length] = x;
+        result[points.length + 1] = y;
+        return result;
+    }
+
+    /**
+     * 把从start经过control到end的曲线展开成折线，追加到points后面（不包括起点）
+     */
+    private static float[] flattenQuad(float[] points, FishPartTemplates templates,
+                                       int start, int control, int end, float tolerance) {
+        float x0 = templates.localX(start);
+        float y0 = templates.localY(start);
+        float x1 = templates.localX(control);
+        float y1 = templates.localY(control);
+        float x2 = templates.localX(end);
+        float y2 = templates.localY(end);
+        int segments = quadSegments(x0, y0, x1, y1, x2, y2, tolerance);
+        for (int i = 1; i <= segments; i++) {
+            float t = (float) i / segments;
+            float mt = 1 - t;
+            points = append(points, mt * mt * x0 + 2 * mt * t * x1 + t * t * x2,
+                    mt * mt * y0 + 2 * mt * t * y1 + t * t * y2);
+        }
+        return points;
+    }
+
+    /**
+     * 从第一个顶点出发把凸多边形剖分成扇形
+     */
+    private static float[] fan(float[] outline) {
+        int count = outline.length / 2;
+        float[] triangles = new float[(count - 2) * 6];
+        for (int i = 1; i + 1 < count; i++) {
+            int t = (i - 1) * 6;
+            triangles[t] = outline[0];
+            triangles[t + 1] = outline[1];
+            triangles[t + 2] = outline[i * 2];
+            triangles[t + 3] = outline[i * 2 + 1];
+            triangles[t + 4] = outline[i * 2 + 2];
+            triangles[t + 5] = outline[i * 2 + 3];
+        }
+        return triangles;
+    }
+}
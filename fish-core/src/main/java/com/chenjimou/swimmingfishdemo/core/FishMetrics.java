@@ -0,0 +1,275 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.util.Locale;
+
+/**
+ * 鱼的动画与绘制的性能统计：各个环节每次的耗时、每一帧的总耗时、帧间隔与卡顿次数、
+ * 正在运行的动画数量以及每一帧的内存分配次数，都记录在{@link BucketHistogram}中，可以随时查询或者输出报告。
+ * <p>
+ * 默认关闭。关闭时记录的地方只需要判断一次{@link #isEnabled()}，不计时也不创建统计对象，可以保留在正式版本中：
+ * <pre>
+ * boolean metrics = FishMetrics.isEnabled();
+ * long start = metrics ? System.nanoTime() : 0;
+ * ...
+ * if (metrics) {
+ *     FishMetrics.getInstance().recordSection(FishMetrics.SECTION_DRAW_FISH, System.nanoTime() - start);
+ * }
+ * </pre>
+ * 不是线程安全的，记录和查询都需要在同一个线程中进行（应用中为主线程）。
+ */
+public final class FishMetrics {
+
+    // 统计耗时的环节
+    public static final int SECTION_DRAW_FISH = 0;
+    public static final int SECTION_DRAW_SCHOOL = 1;
+    public static final int SECTION_DRAW_RIPPLE = 2;
+    public static final int SECTION_SWIM_UPDATE = 3;
+    public static final int SECTION_COUNT = 4;
+    private static final String[] SECTION_NAMES = {"draw fish", "draw school", "draw ripple", "swim update"};
+
+    // 帧间隔超过刷新间隔的这个倍数时算作一次卡顿
+    public static final float JANK_RATIO = 1.5f;
+    public static final long DEFAULT_FRAME_INTERVAL_NANOS = 16_666_667L;
+
+    /**
+     * 内存分配次数的来源，例如Android的Debug.getThreadAllocCount()
+     */
+    public interface AllocationCounter {
+        /**
+         * @return 到目前为止的累计分配次数
+         */
+        long getAllocationCount();
+    }
+
+    private static boolean sEnabled;
+    private static FishMetrics sInstance;
+
+    private final BucketHistogram[] sections = new BucketHistogram[SECTION_COUNT];
+    // 每一帧中各个环节的耗时之和
+    private final BucketHistogram frameWork = new BucketHistogram();
+    // 相邻两帧的间隔
+    private final BucketHistogram frameIntervals = new BucketHistogram();
+    // 每一帧的内存分配次数
+    private final BucketHistogram frameAllocations = new BucketHistogram();
+    private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private long jankCount;
+    private long droppedFrameCount;
+    private int liveAnimatorCount;
+    private int peakAnimatorCount;
+    private int clockListenerCount;
+
+    private AllocationCounter allocationCounter;
+    private long lastAllocationCount = -1;
+    // 上一帧的时间，为0表示帧序列中断（例如时钟暂停），下一帧不统计间隔
+    private long lastFrameTimeNanos;
+    // 当前帧中已经记录的耗时
+    private long currentFrameWorkNanos;
+    private boolean currentFrameHasWork;
+
+    private FishMetrics() {
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sections[i] = new BucketHistogram();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * 打开或关闭统计，重新打开时保留之前的数据，帧间隔从下一帧重新开始统计
+     */
+    public static void setEnabled(boolean enabled) {
+        if (enabled && !sEnabled) {
+            getInstance().breakFrameSequence();
+        }
+        sEnabled = enabled;
+    }
+
+    public static FishMetrics getInstance() {
+        if (sInstance == null) {
+            sInstance = new FishMetrics();
+        }
+        return sInstance;
+    }
+
+    /**
+     * 记录一个环节的一次耗时，同时计入当前帧的总耗时
+     */
+    public void recordSection(int section, long nanos) {
+        sections[section].record(nanos);
+        currentFrameWorkNanos += nanos;
+        currentFrameHasWork = true;
+    }
+
+    /**
+     * 新的一帧开始，结束上一帧的统计
+     * @param frameTimeNanos 这一帧的开始时间
+     * @param clockListeners 这一帧需要推进的帧回调数量（例如正在摆动的鱼）
+     */
+    public void onFrame(long frameTimeNanos, int clockListeners) {
+        finishFrame();
+        clockListenerCount = clockListeners;
+        if (lastFrameTimeNanos != 0) {
+            long interval = frameTimeNanos - lastFrameTimeNanos;
+            frameIntervals.record(interval);
+            if (interval > frameIntervalNanos * JANK_RATIO) {
+                jankCount++;
+                droppedFrameCount += Math.round((double) interval / frameIntervalNanos) - 1;
+            }
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+    }
+
+    /**
+     * 帧序列中断（时钟暂停或者停止），下一帧与上一帧之间的间隔不算卡顿
+     */
+    public void breakFrameSequence() {
+        finishFrame();
+        lastFrameTimeNanos = 0;
+        lastAllocationCount = -1;
+    }
+
+    private void finishFrame() {
+        if (currentFrameHasWork) {
+            frameWork.record(currentFrameWorkNanos);
+            currentFrameWorkNanos = 0;
+            currentFrameHasWork = false;
+        }
+        if (allocationCounter != null) {
+            long allocations = allocationCounter.getAllocationCount();
+            if (lastAllocationCount >= 0) {
+                frameAllocations.record(allocations - lastAllocationCount);
+            }
+            lastAllocationCount = allocations;
+        }
+    }
+
+    /**
+     * 开始一个动画，每个正在播放的波纹也算作一个动画
+     */
+    public void animatorStarted() {
+        liveAnimatorCount++;
+        if (liveAnimatorCount > peakAnimatorCount) {
+            peakAnimatorCount = liveAnimatorCount;
+        }
+    }
+
+    /**
+     * 动画结束或者取消，统计打开之前启动的动画不会使数量变为负数
+     */
+    public void animatorEnded() {
+        if (liveAnimatorCount > 0) {
+            liveAnimatorCount--;
+        }
+    }
+
+    public void setFrameIntervalNanos(long frameIntervalNanos) {
+        this.frameIntervalNanos = frameIntervalNanos > 0 ? frameIntervalNanos : DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+
+    public long getFrameIntervalNanos() {
+        return frameIntervalNanos;
+    }
+
+    /**
+     * @param allocationCounter 为空时不统计内存分配
+     */
+    public void setAllocationCounter(AllocationCounter allocationCounter) {
+        this.allocationCounter = allocationCounter;
+        lastAllocationCount = -1;
+    }
+
+    public BucketHistogram getSection(int section) {
+        return sections[section];
+    }
+
+    public static String getSectionName(int section) {
+        return SECTION_NAMES[section];
+    }
+
+    public BucketHistogram getFrameWork() {
+        return frameWork;
+    }
+
+    public BucketHistogram getFrameIntervals() {
+        return frameIntervals;
+    }
+
+    public BucketHistogram getFrameAllocations() {
+        return frameAllocations;
+    }
+
+    public long getFrameCount() {
+        return frameIntervals.getCount();
+    }
+
+    public long getJankCount() {
+        return jankCount;
+    }
+
+    public long getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
+    public int getLiveAnimatorCount() {
+        return liveAnimatorCount;
+    }
+
+    public int getPeakAnimatorCount() {
+        return peakAnimatorCount;
+    }
+
+    public int getClockListenerCount() {
+        return clockListenerCount;
+    }
+
+    /**
+     * 清空所有统计，正在运行的动画数量保留
+     */
+    public void reset() {
+        for (BucketHistogram section : sections) {
+            section.reset();
+        }
+        frameWork.reset();
+        frameIntervals.reset();
+        frameAllocations.reset();
+        jankCount = 0;
+        droppedFrameCount = 0;
+        peakAnimatorCount = liveAnimatorCount;
+        currentFrameWorkNanos = 0;
+        currentFrameHasWork = false;
+    }
+
+    /**
+     * 把统计结果以文本的形式追加到out中，每项一行
+     */
+    public void report(StringBuilder out) {
+        out.append(String.format(Locale.US, "frames=%d jank=%d dropped=%d animators=%d (peak %d) clock listeners=%d%n",
+                getFrameCount(), jankCount, droppedFrameCount, liveAnimatorCount, peakAnimatorCount,
+                clockListenerCount));
+        appendTimes(out, "frame work", frameWork);
+        appendTimes(out, "frame interval", frameIntervals);
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            appendTimes(out, SECTION_NAMES[i], sections[i]);
+        }
+        if (allocationCounter != null) {
+            out.append(String.format(Locale.US, "allocations/frame: n=%d p50=%d p95=%d p99=%d max=%d%n",
+                    frameAllocations.getCount(), frameAllocations.getPercentile(50),
+                    frameAllocations.getPercentile(95), frameAllocations.getPercentile(99),
+                    frameAllocations.getMax()));
+        }
+    }
+
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        report(out);
+        return out.toString();
+    }
+
+    private static void appendTimes(StringBuilder out, String name, BucketHistogram histogram) {
+        out.append(String.format(Locale.US, "%s: n=%d p50=%.3fms p95=%.3fms p99=%.3fms max=%.3fms%n",
+                name, histogram.getCount(), histogram.getPercentile(50) / 1e6, histogram.getPercentile(95) / 1e6,
+                histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6));
+    }
+}
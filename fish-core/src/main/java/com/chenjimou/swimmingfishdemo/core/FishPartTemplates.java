@@ -0,0 +1,124 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 鱼身上不会变形的部位在各自局部坐标系中的形状。
+ * <p>
+ * 鱼鳍和躯干只随鱼头平移和旋转，鱼尾的两段梯形只随各自的大圆圆心平移和旋转，
+ * 因此它们的顶点在局部坐标系中是常量，只需要计算一次，每一帧通过{@link #frame}求出局部坐标系的原点和朝向即可。
+ * 只有鱼尾三角形底边的半长随相位变化，需要每一帧重新生成。
+ * <p>
+ * 局部坐标系的x轴指向部位的朝向（鱼头方向），y轴与Android坐标系一样朝下；
+ * 局部坐标(u, v)对应的绝对坐标为(originX + u * cos + v * sin, originY - u * sin + v * cos)。
+ * 局部坐标由{@link FishPose}计算出的姿态反算得到，与逐帧计算的结果一致。
+ * <p>
+ * 只取决于鱼的种类，构造之后不再改变，同一种鱼的所有绘制共用{@link FishSpecies#getPartTemplates()}。
+ */
+public class FishPartTemplates {
+
+    // 部位
+    public static final int RIGHT_FIN = 0;
+    public static final int LEFT_FIN = 1;
+    public static final int BODY = 2;
+    public static final int UPPER_SEGMENT = 3;
+    public static final int LOWER_SEGMENT = 4;
+    public static final int PART_COUNT = 5;
+
+    // frame输出的排列
+    public static final int FRAME_ORIGIN_X = 0;
+    public static final int FRAME_ORIGIN_Y = 1;
+    public static final int FRAME_COS = 2;
+    public static final int FRAME_SIN = 3;
+    public static final int FRAME_SIZE = 4;
+
+    // 每个部位的第一个顶点和顶点数量，顶点的顺序与FishPose相同
+    private static final int[] FIRST_POINT = {
+            FishPose.RIGHT_FIN_START, FishPose.LEFT_FIN_START, FishPose.BODY_TOP_LEFT,
+            FishPose.UPPER_SEGMENT_UPPER_LEFT, FishPose.LOWER_SEGMENT_UPPER_LEFT};
+    private static final int[] POINT_COUNT = {3, 3, 6, 4, 4};
+    // 每个部位的局部坐标系：原点以及朝向（从back指向origin）
+    private static final int[] ORIGIN = {
+            FishPose.HEAD, FishPose.HEAD, FishPose.HEAD, FishPose.BODY_BOTTOM, FishPose.TAIL_MIDDLE};
+    private static final int[] BACK = {
+            FishPose.BODY_BOTTOM, FishPose.BODY_BOTTOM, FishPose.BODY_BOTTOM, FishPose.TAIL_MIDDLE, FishPose.TAIL_SMALL};
+
+    private final FishSpecies species;
+    // 与姿态数组的排列相同，只有属于各个部位的顶点有意义
+    private final float[] local = new float[FishPose.FLOATS_PER_POSE];
+
+    /**
+     * @param species 鱼的大小和摆动幅度
+     */
+    public FishPartTemplates(FishSpecies species) {
+        this.species = species;
+        FishPose pose = new FishPose(species);
+        pose.update(0, 0, 0, 0);
+        float[] points = pose.points;
+        float[] frame = new float[FRAME_SIZE];
+        for (int part = 0; part < PART_COUNT; part++) {
+            frame(points, 0, part, frame);
+            float originX = frame[FRAME_ORIGIN_X];
+            float originY = frame[FRAME_ORIGIN_Y];
+            float cos = frame[FRAME_COS];
+            float sin = frame[FRAME_SIN];
+            for (int i = 0; i < POINT_COUNT[part]; i++) {
+                int point = FIRST_POINT[part] + i;
+                float dx = FishPose.x(points, 0, point) - originX;
+                float dy = FishPose.y(points, 0, point) - originY;
+                local[point * 2] = dx * cos - dy * sin;
+                local[point * 2 + 1] = dx * sin + dy * cos;
+            }
+        }
+    }
+
+    public FishSpecies getSpecies() {
+        return species;
+    }
+
+    public float getHeadRadius() {
+        return species.getHeadRadius();
+    }
+
+    /**
+     * 部位的第一个顶点，顶点的顺序与{@link FishPose}相同
+     */
+    public static int firstPoint(int part) {
+        return FIRST_POINT[part];
+    }
+
+    public static int pointCount(int part) {
+        return POINT_COUNT[part];
+    }
+
+    /**
+     * 顶点在所属部位的局部坐标系中的x坐标
+     */
+    public float localX(int point) {
+        return local[point * 2];
+    }
+
+    public float localY(int point) {
+        return local[point * 2 + 1];
+    }
+
+    /**
+     * 根据姿态计算部位的局部坐标系
+     * @param out 依次写入原点的x、y坐标以及朝向角度的cos、sin
+     */
+    public static void frame(float[] pose, int offset, int part, float[] out) {
+        float originX = FishPose.x(pose, offset, ORIGIN[part]);
+        float originY = FishPose.y(pose, offset, ORIGIN[part]);
+        float dx = originX - FishPose.x(pose, offset, BACK[part]);
+        float dy = originY - FishPose.y(pose, offset, BACK[part]);
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        out[FRAME_ORIGIN_X] = originX;
+        out[FRAME_ORIGIN_Y] = originY;
+        if (length > 0) {
+            out[FRAME_COS] = dx / length;
+            // Android坐标系的y轴朝下，角度以逆时针为正
+            out[FRAME_SIN] = -dy / length;
+        } else {
+            out[FRAME_COS] = 1;
+            out[FRAME_SIN] = 0;
+        }
+    }
+}
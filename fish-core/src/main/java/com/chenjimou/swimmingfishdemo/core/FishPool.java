@@ -0,0 +1,79 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * {@link Fish}的对象池：移除的鱼放回池中，添加鱼时优先取出池中的鱼，
+ * 只有池空时才创建新的对象。空闲的鱼通过自身的字段串成链表，池本身不需要额外的数组。
+ * <p>
+ * 鱼的数量稳定之后（同时存在的鱼不超过曾经创建的数量），反复添加和移除鱼不会分配内存。
+ * 不是线程安全的。
+ */
+public class FishPool {
+
+    private Fish firstFree;
+    private int freeCount;
+    private int createdCount;
+
+    public FishPool() {
+    }
+
+    /**
+     * @param preallocate 预先创建的鱼的数量
+     */
+    public FishPool(int preallocate) {
+        for (int i = 0; i < preallocate; i++) {
+            push(new Fish());
+        }
+        createdCount = preallocate;
+    }
+
+    /**
+     * 取出一条鱼，所有状态都重新设置，相位为0、频率为1、速度为0
+     * @param species 鱼的种类，同一种鱼共用同一个对象
+     */
+    public Fish obtain(FishSpecies species, float keyX, float keyY, float headAngle) {
+        Fish fish = firstFree;
+        if (fish != null) {
+            firstFree = fish.nextFree;
+            fish.nextFree = null;
+            fish.pooled = false;
+            freeCount--;
+        } else {
+            fish = new Fish();
+            createdCount++;
+        }
+        fish.reset(species, keyX, keyY, headAngle);
+        return fish;
+    }
+
+    /**
+     * 把鱼放回池中，之后不能再使用
+     * @throws IllegalStateException 鱼已经在池中
+     */
+    public void recycle(Fish fish) {
+        if (fish.pooled) {
+            throw new IllegalStateException("fish already recycled");
+        }
+        push(fish);
+    }
+
+    private void push(Fish fish) {
+        fish.pooled = true;
+        fish.nextFree = firstFree;
+        firstFree = fish;
+        freeCount++;
+    }
+
+    /**
+     * 池中空闲的鱼的数量
+     */
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    /**
+     * 池创建过的鱼的数量，稳定之后不再增加
+     */
+    public int getCreatedCount() {
+        return createdCount;
+    }
+}
@@ -0,0 +1,271 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 鱼的姿态计算：把一帧内绘制鱼所需的全部顶点写入预先分配好的float数组，计算过程中不创建任何对象。
+ * 坐标系与FishDrawable一致（Android坐标系，Y轴以270°为正方向），
+ * 每个点在数组中占两个float：x在前，y在后。
+ * <p>
+ * 三角函数使用{@link FastMath}的查表版本，每个姿态计算五对sin/cos（摆动相位、鱼头、鱼尾的三个部分），
+ * 与按double计算的结果相差不到0.001像素。
+ */
+public class FishPose {
+
+    // 鱼头的圆心
+    public static final int HEAD = 0;
+    // 鱼尾大圆的圆心，也是躯干连接尾部的圆心
+    public static final int BODY_BOTTOM = 1;
+    // 鱼尾中圆的圆心
+    public static final int TAIL_MIDDLE = 2;
+    // 鱼尾小圆的圆心，也是鱼尾三角形的上顶点
+    public static final int TAIL_SMALL = 3;
+    // 右鱼鳍：起点、控制点、终点
+    public static final int RIGHT_FIN_START = 4;
+    public static final int RIGHT_FIN_CONTROL = 5;
+    public static final int RIGHT_FIN_END = 6;
+    // 左鱼鳍：起点、控制点、终点
+    public static final int LEFT_FIN_START = 7;
+    public static final int LEFT_FIN_CONTROL = 8;
+    public static final int LEFT_FIN_END = 9;
+    // 躯干：按绘制顺序排列的四个顶点与两个控制点
+    public static final int BODY_TOP_LEFT = 10;
+    public static final int BODY_CONTROL_LEFT = 11;
+    public static final int BODY_BOTTOM_LEFT = 12;
+    public static final int BODY_BOTTOM_RIGHT = 13;
+    public static final int BODY_CONTROL_RIGHT = 14;
+    public static final int BODY_TOP_RIGHT = 15;
+    // 鱼尾上部分的梯形：按绘制顺序排列的四个顶点
+    public static final int UPPER_SEGMENT_UPPER_LEFT = 16;
+    public static final int UPPER_SEGMENT_UPPER_RIGHT = 17;
+    public static final int UPPER_SEGMENT_BOTTOM_RIGHT = 18;
+    public static final int UPPER_SEGMENT_BOTTOM_LEFT = 19;
+    // 鱼尾下部分的梯形：按绘制顺序排列的四个顶点
+    public static final int LOWER_SEGMENT_UPPER_LEFT = 20;
+    public static final int LOWER_SEGMENT_UPPER_RIGHT = 21;
+    public static final int LOWER_SEGMENT_BOTTOM_RIGHT = 22;
+    public static final int LOWER_SEGMENT_BOTTOM_LEFT = 23;
+    // 鱼尾大三角形底边的左右顶点
+    public static final int BIG_TRIANGLE_LEFT = 24;
+    public static final int BIG_TRIANGLE_RIGHT = 25;
+    // 鱼尾小三角形底边的左右顶点
+    public static final int SMALL_TRIANGLE_LEFT = 26;
+    public static final int SMALL_TRIANGLE_RIGHT = 27;
+
+    // 一个姿态包含的点数
+    public static final int POINT_COUNT = 28;
+    // 一个姿态在数组中占用的float个数
+    public static final int FLOATS_PER_POSE = POINT_COUNT * 2;
+
+    // 鱼鳍、躯干控制点相对于鱼头朝向的固定偏转角度，对应的三角函数值只需计算一次
+    private static final float COS_110 = (float) Math.cos(Math.toRadians(110));
+    private static final float SIN_110 = (float) Math.sin(Math.toRadians(110));
+    private static final float COS_115 = (float) Math.cos(Math.toRadians(115));
+    private static final float SIN_115 = (float) Math.sin(Math.toRadians(115));
+    private static final float COS_130 = (float) Math.cos(Math.toRadians(130));
+    private static final float SIN_130 = (float) Math.sin(Math.toRadians(130));
+
+    // 鱼的各部位的大小和摆动幅度，同一种鱼共用
+    private final FishSpecies species;
+
+    // 最近一次update计算出的姿态
+    public final float[] points = new float[FLOATS_PER_POSE];
+
+    public FishPose(float headRadius) {
+        this(new FishSpecies(headRadius));
+    }
+
+    public FishPose(FishSpecies species) {
+        this.species = species;
+    }
+
+    /**
+     * 计算姿态并写入{@link #points}
+     * @param keyX 鱼的重心x坐标
+     * @param keyY 鱼的重心y坐标
+     * @param fishHeadAngle 鱼头在未播放动画时的朝向角度
+     * @param phase 摆动相位（角度），即属性动画当前的值乘以摆动频率
+     */
+    public void update(float keyX, float keyY, float fishHeadAngle, float phase) {
+        compute(points, 0, keyX, keyY, fishHeadAngle, phase);
+    }
+
+    /**
+     * 计算姿态并写入out数组中从offset开始的{@link #FLOATS_PER_POSE}个位置
+     * @param out 输出数组
+     * @param offset 写入的起始下标
+     * @param keyX 鱼的重心x坐标
+     * @param keyY 鱼的重心y坐标
+     * @param fishHeadAngle 鱼头在未播放动画时的朝向角度
+     * @param phase 摆动相位（角度），即属性动画当前的值乘以摆动频率
+     */
+    public void compute(float[] out, int offset, float keyX, float keyY, float fishHeadAngle, float phase) {
+        FishSpecies species = this.species;
+        float bodyLength = species.getBodyLength();
+        // 所有摆动都由同一个相位驱动，sin和cos各计算一次即可
+        float phaseSin = FastMath.sinDeg(phase);
+        float phaseCos = FastMath.cosDeg(phase);
+
+        // 鱼头的朝向角度 --> 摆动方向：先左后右
+        float headAngle = fishHeadAngle + phaseSin * species.getHeadSwingDegrees();
+        float headCos = FastMath.cosDeg(headAngle);
+        float headSin = FastMath.sinDeg(headAngle);
+
+        // 鱼头的圆心
+        float headX = keyX + headCos * (bodyLength / 2);
+        float headY = keyY - headSin * (bodyLength / 2);
+        set(out, offset, HEAD, headX, headY);
+
+        // 鱼鳍
+        makeFins(out, offset, headX, headY, headCos, headSin);
+
+        // 鱼尾大圆的圆心
+        float bodyBottomX = headX - headCos * bodyLength;
+        float bodyBottomY = headY + headSin * bodyLength;
+        set(out, offset, BODY_BOTTOM, bodyBottomX, bodyBottomY);
+
+        // 躯干
+        makeBody(out, offset, headX, headY, bodyBottomX, bodyBottomY, headCos, headSin);
+
+        // 鱼尾上部分 --> 摆动方向：先右后左
+        float tailBigCircleRadius = species.getTailBigCircleRadius();
+        float tailMiddleCircleRadius = species.getTailMiddleCircleRadius();
+        float tailUpperAngle = headAngle + phaseCos * species.getUpperTailSwingDegrees();
+        makeSegment(out, offset, bodyBottomX, bodyBottomY, tailBigCircleRadius, tailMiddleCircleRadius,
+                species.getUpperSegmentLength(),
+                FastMath.cosDeg(tailUpperAngle), FastMath.sinDeg(tailUpperAngle),
+                TAIL_MIDDLE, UPPER_SEGMENT_UPPER_LEFT);
+
+        // 鱼尾下部分 --> 摆动方向：先左后右
+        float tailBottomAngle = headAngle + phaseSin * species.getLowerTailSwingDegrees();
+        makeSegment(out, offset, x(out, offset, TAIL_MIDDLE), y(out, offset, TAIL_MIDDLE),
+                tailMiddleCircleRadius, species.getTailSmallCircleRadius(),
+                species.getLowerSegmentLength(),
+                FastMath.cosDeg(tailBottomAngle), FastMath.sinDeg(tailBottomAngle),
+                TAIL_SMALL, LOWER_SEGMENT_UPPER_LEFT);
+
+        // 鱼尾三角形底边的半长与朝向角度
+        float tailTriangleLength = Math.abs(phaseSin * tailBigCircleRadius);
+        float tailTriangleAngle = headAngle + phaseSin * species.getTriangleSwingDegrees();
+        float triangleCos = FastMath.cosDeg(tailTriangleAngle);
+        float triangleSin = FastMath.sinDeg(tailTriangleAngle);
+        float tailSmallX = x(out, offset, TAIL_SMALL);
+        float tailSmallY = y(out, offset, TAIL_SMALL);
+        float triangleDistance = species.getTriangleDistance();
+        makeTriangle(out, offset, tailSmallX, tailSmallY, triangleDistance,
+                tailTriangleLength, triangleCos, triangleSin, BIG_TRIANGLE_LEFT);
+        makeTriangle(out, offset, tailSmallX, tailSmallY, triangleDistance - 10,
+                tailTriangleLength - 20, triangleCos, triangleSin, SMALL_TRIANGLE_LEFT);
+    }
+
+    /**
+     * 鱼鳍：起点在鱼头圆周上，终点沿鱼头反方向，控制点决定鱼鳍的弧度
+     */
+    private void makeFins(float[] out, int offset, float headX, float headY, float cos, float sin) {
+        float finsDistance = species.getFinsDistance();
+        float finsLength = species.getFinsLength();
+        float controlLength = species.getFinsControlLength();
+
+        // 右鱼鳍：起点角度为 angle - 110，控制点角度为 angle - 115
+        float rightX = headX + rotateCos(cos, sin, COS_110, -SIN_110) * finsDistance;
+        float rightY = headY - rotateSin(cos, sin, COS_110, -SIN_110) * finsDistance;
+        set(out, offset, RIGHT_FIN_START, rightX, rightY);
+        set(out, offset, RIGHT_FIN_CONTROL,
+                rightX + rotateCos(cos, sin, COS_115, -SIN_115) * controlLength,
+                rightY - rotateSin(cos, sin, COS_115, -SIN_115) * controlLength);
+        set(out, offset, RIGHT_FIN_END, rightX - cos * finsLength, rightY + sin * finsLength);
+
+        // 左鱼鳍：起点角度为 angle + 110，控制点角度为 angle + 115
+        float leftX = headX + rotateCos(cos, sin, COS_110, SIN_110) * finsDistance;
+        float leftY = headY - rotateSin(cos, sin, COS_110, SIN_110) * finsDistance;
+        set(out, offset, LEFT_FIN_START, leftX, leftY);
+        set(out, offset, LEFT_FIN_CONTROL,
+                leftX + rotateCos(cos, sin, COS_115, SIN_115) * controlLength,
+                leftY - rotateSin(cos, sin, COS_115, SIN_115) * controlLength);
+        set(out, offset, LEFT_FIN_END, leftX - cos * finsLength, leftY + sin * finsLength);
+    }
+
+    /**
+     * 躯干：两侧为二阶贝塞尔曲线，控制点角度为 angle ± 130
+     */
+    private void makeBody(float[] out, int offset, float upperX, float upperY,
+                          float bottomX, float bottomY, float cos, float sin) {
+        // angle + 90 方向的单位向量为 (-sin, -cos)，angle - 90 方向为 (sin, cos)
+        float headRadius = species.getHeadRadius();
+        float tailBigCircleRadius = species.getTailBigCircleRadius();
+        set(out, offset, BODY_TOP_LEFT, upperX - sin * headRadius, upperY - cos * headRadius);
+        set(out, offset, BODY_TOP_RIGHT, upperX + sin * headRadius, upperY + cos * headRadius);
+        set(out, offset, BODY_BOTTOM_LEFT, bottomX - sin * tailBigCircleRadius,
+                bottomY - cos * tailBigCircleRadius);
+        set(out, offset, BODY_BOTTOM_RIGHT, bottomX + sin * tailBigCircleRadius,
+                bottomY + cos * tailBigCircleRadius);
+
+        float controlLength = species.getBodyControlLength();
+        set(out, offset, BODY_CONTROL_LEFT,
+                upperX + rotateCos(cos, sin, COS_130, SIN_130) * controlLength,
+                upperY - rotateSin(cos, sin, COS_130, SIN_130) * controlLength);
+        set(out, offset, BODY_CONTROL_RIGHT,
+                upperX + rotateCos(cos, sin, COS_130, -SIN_130) * controlLength,
+                upperY - rotateSin(cos, sin, COS_130, -SIN_130) * controlLength);
+    }
+
+    /**
+     * 鱼尾的一部分（梯形），上底圆的圆心写入centerPoint，四个顶点从firstVertex开始依次写入
+     */
+    private void makeSegment(float[] out, int offset, float bottomX, float bottomY,
+                             float bigRadius, float smallRadius, float upperCenterDistance,
+                             float cos, float sin, int centerPoint, int firstVertex) {
+        float upperX = bottomX - cos * upperCenterDistance;
+        float upperY = bottomY + sin * upperCenterDistance;
+        set(out, offset, centerPoint, upperX, upperY);
+
+        set(out, offset, firstVertex, upperX - sin * smallRadius, upperY - cos * smallRadius);
+        set(out, offset, firstVertex + 1, upperX + sin * smallRadius, upperY + cos * smallRadius);
+        set(out, offset, firstVertex + 2, bottomX + sin * bigRadius, bottomY + cos * bigRadius);
+        set(out, offset, firstVertex + 3, bottomX - sin * bigRadius, bottomY - cos * bigRadius);
+    }
+
+    /**
+     * 鱼尾的三角形，底边左右顶点从firstVertex开始依次写入
+     */
+    private void makeTriangle(float[] out, int offset, float topX, float topY, float findCenterLength,
+                              float findEdgeLength, float cos, float sin, int firstVertex) {
+        float centerX = topX - cos * findCenterLength;
+        float centerY = topY + sin * findCenterLength;
+        set(out, offset, firstVertex, centerX - sin * findEdgeLength, centerY - cos * findEdgeLength);
+        set(out, offset, firstVertex + 1, centerX + sin * findEdgeLength, centerY + cos * findEdgeLength);
+    }
+
+    /**
+     * cos(a + b) = cos(a)cos(b) - sin(a)sin(b)
+     */
+    private static float rotateCos(float cosA, float sinA, float cosB, float sinB) {
+        return cosA * cosB - sinA * sinB;
+    }
+
+    /**
+     * sin(a + b) = sin(a)cos(b) + cos(a)sin(b)
+     */
+    private static float rotateSin(float cosA, float sinA, float cosB, float sinB) {
+        return sinA * cosB + cosA * sinB;
+    }
+
+    private static void set(float[] out, int offset, int point, float x, float y) {
+        out[offset + point * 2] = x;
+        out[offset + point * 2 + 1] = y;
+    }
+
+    public static float x(float[] pose, int offset, int point) {
+        return pose[offset + point * 2];
+    }
+
+    public static float y(float[] pose, int offset, int point) {
+        return pose[offset + point * 2 + 1];
+    }
+
+    public float getHeadRadius() {
+        return species.getHeadRadius();
+    }
+
+    public FishSpecies getSpecies() {
+        return species;
+    }
+}
@@ -0,0 +1,207 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 鱼在原地摆动时的姿态缓存。
+ * <p>
+ * 原地摆动是严格周期性的：姿态中所有的角度都来自同一个相位（属性动画当前的值乘以摆动频率）的sin/cos，
+ * 因此对于某个鱼头朝向角度，可以预先把一个周期量化成N个相位，计算出每个相位下相对于重心的全部顶点，
+ * 之后每一帧只需要在相邻两个相位之间做线性插值，再加上重心坐标即可。
+ * <p>
+ * 缓存按鱼头朝向角度分桶，桶的数量由内存预算决定，超出时淘汰最久未使用的桶。
+ * 摆动频率只会改变相位的推进速度，不会改变某个相位下的姿态，所以同一个桶可以被不同频率共用。
+ * 游动时鱼头朝向角度每一帧都在变化，为了避免反复建表，只有同一个角度被连续请求多次后才会为它建表，
+ * 在此之前直接计算姿态。
+ * <p>
+ * 姿态取决于鱼的大小和摆动幅度，一个缓存只能用于同一种鱼（{@link FishSpecies}），可以被这种鱼的多条鱼共用。
+ */
+public class FishPoseCache {
+
+    // 默认把一个周期量化为128个相位，插值误差约为0.05像素（鱼头半径为40时）
+    public static final int DEFAULT_PHASE_STEPS = 128;
+    // 默认内存预算
+    public static final int DEFAULT_MAX_BYTES = 256 * 1024;
+    // 同一个角度被连续请求多少次后为它建表
+    private static final int BUILD_THRESHOLD = 2;
+
+    private final FishPose fishPose;
+    private final int phaseSteps;
+    private final int bucketCount;
+    // 每个桶对应的鱼头朝向角度（以float的二进制表示作为键，精确匹配）
+    private final int[] bucketKeys;
+    // 每个桶最近一次被使用的时刻，用于LRU淘汰
+    private final long[] bucketLastUsed;
+    // 每个桶的姿态表，按相位依次存放，长度为phaseSteps * FishPose.FLOATS_PER_POSE
+    private final float[][] bucketTables;
+    private int usedBuckets;
+    private long clock;
+
+    // 正在等待建表的角度以及它被连续请求的次数
+    private int candidateKey;
+    private int candidateCount;
+
+    private long hitCount;
+    private long missCount;
+    private long buildCount;
+    private long evictionCount;
+
+    public FishPoseCache(FishSpecies species) {
+        this(species, DEFAULT_PHASE_STEPS, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param species 鱼的种类
+     * @param phaseSteps 一个周期量化成多少个相位
+     * @param maxBytes 姿态表占用内存的上限，至少能容纳一个桶
+     */
+    public FishPoseCache(FishSpecies species, int phaseSteps, int maxBytes) {
+        if (phaseSteps < 2) {
+            throw new IllegalArgumentException("phaseSteps must be at least 2: " + phaseSteps);
+        }
+        this.fishPose = new FishPose(species);
+        this.phaseSteps = phaseSteps;
+        this.bucketCount = Math.max(1, maxBytes / bytesPerBucket(phaseSteps));
+        this.bucketKeys = new int[bucketCount];
+        this.bucketLastUsed = new long[bucketCount];
+        this.bucketTables = new float[bucketCount][];
+    }
+
+    /**
+     * 一个桶占用的字节数
+     */
+    public static int bytesPerBucket(int phaseSteps) {
+        return phaseSteps * FishPose.FLOATS_PER_POSE * 4;
+    }
+
+    /**
+     * 取出姿态并写入out数组中从offset开始的{@link FishPose#FLOATS_PER_POSE}个位置，结果与{@link FishPose#compute}一致
+     * @param keyX 鱼的重心x坐标
+     * @param keyY 鱼的重心y坐标
+     * @param fishHeadAngle 鱼头在未播放动画时的朝向角度
+     * @param phase 摆动相位（角度），即属性动画当前的值乘以摆动频率
+     */
+    public void get(float[] out, int offset, float keyX, float keyY, float fishHeadAngle, float phase) {
+        int key = Float.floatToIntBits(fishHeadAngle);
+        int bucket = findBucket(key);
+        if (bucket < 0) {
+            missCount++;
+            if (key == candidateKey && candidateCount > 0) {
+                candidateCount++;
+            } else {
+                candidateKey = key;
+                candidateCount = 1;
+            }
+            if (candidateCount < BUILD_THRESHOLD) {
+                fishPose.compute(out, offset, keyX, keyY, fishHeadAngle, phase);
+                return;
+            }
+            candidateCount = 0;
+            bucket = buildBucket(key, fishHeadAngle);
+        } else {
+            hitCount++;
+        }
+        bucketLastUsed[bucket] = ++clock;
+        interpolate(bucketTables[bucket], out, offset, keyX, keyY, phase);
+    }
+
+    private int findBucket(int key) {
+        for (int i = 0; i < usedBuckets; i++) {
+            if (bucketKeys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 为某个鱼头朝向角度建表，桶已满时淘汰最久未使用的桶并复用它的数组
+     */
+    private int buildBucket(int key, float fishHeadAngle) {
+        int bucket;
+        if (usedBuckets < bucketCount) {
+            bucket = usedBuckets++;
+            bucketTables[bucket] = new float[phaseSteps * FishPose.FLOATS_PER_POSE];
+        } else {
+            bucket = 0;
+            for (int i = 1; i < bucketCount; i++) {
+                if (bucketLastUsed[i] < bucketLastUsed[bucket]) {
+                    bucket = i;
+                }
+            }
+            evictionCount++;
+        }
+        bucketKeys[bucket] = key;
+        float[] table = bucketTables[bucket];
+        float step = 360f / phaseSteps;
+        for (int i = 0; i < phaseSteps; i++) {
+            // 以重心为原点计算，取用时再平移
+            fishPose.compute(table, i * FishPose.FLOATS_PER_POSE, 0, 0, fishHeadAngle, i * step);
+        }
+        buildCount++;
+        return bucket;
+    }
+
+    private void interpolate(float[] table, float[] out, int offset, float keyX, float keyY, float phase) {
+        float position = phase / 360f * phaseSteps;
+        float floor = (float) Math.floor(position);
+        float fraction = position - floor;
+        int index = (int) floor % phaseSteps;
+        if (index < 0) {
+            index += phaseSteps;
+        }
+        int from = index * FishPose.FLOATS_PER_POSE;
+        int to = ((index + 1) % phaseSteps) * FishPose.FLOATS_PER_POSE;
+        for (int i = 0; i < FishPose.FLOATS_PER_POSE; i += 2) {
+            float fromX = table[from + i];
+            float fromY = table[from + i + 1];
+            out[offset + i] = keyX + fromX + (table[to + i] - fromX) * fraction;
+            out[offset + i + 1] = keyY + fromY + (table[to + i + 1] - fromY) * fraction;
+        }
+    }
+
+    /**
+     * 清空所有的桶，已分配的姿态表会保留下来复用
+     */
+    public void clear() {
+        usedBuckets = 0;
+        candidateCount = 0;
+    }
+
+    public void resetStats() {
+        hitCount = 0;
+        missCount = 0;
+        buildCount = 0;
+        evictionCount = 0;
+    }
+
+    public FishSpecies getSpecies() {
+        return fishPose.getSpecies();
+    }
+
+    public float getHeadRadius() {
+        return fishPose.getHeadRadius();
+    }
+
+    public int getPhaseSteps() {
+        return phaseSteps;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getBuildCount() {
+        return buildCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+}
@@ -0,0 +1,278 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 根据姿态画鱼，只通过{@link RenderBackend}绘制，与具体的画布无关。
+ * 姿态可以是数组中的任意一段，这样鱼群中所有鱼的姿态可以存放在同一个数组中依次绘制。
+ * <p>
+ * 鱼鳍、躯干和鱼尾的两段梯形不会变形，它们的路径在构造时按同一种鱼共用的局部坐标（见{@link FishPartTemplates}）生成一次并保留在后端中，
+ * 绘制时只需要变换到姿态所在的位置和朝向。只有底边长度随相位变化的鱼尾三角形每一帧重新生成。
+ * <p>
+ * 细节等级（{@link FishLod}）较低时少画一些部位，并关闭抗锯齿或抖动，画鱼群时所有鱼共用同一个等级。
+ */
+public class FishRenderer {
+
+    // 鱼的颜色
+    public static final int DEFAULT_COLOR = 0x6EF45C47;
+    // 躯干的透明度，也是画每条鱼时的透明度
+    public static final int BODY_ALPHA = 160;
+
+    private final RenderBackend backend;
+    // 当前的细节等级
+    private int levelOfDetail = FishLod.FULL;
+    // 整条鱼的透明度（0~255），例如Drawable.setAlpha；各部位按BODY_ALPHA乘上它画
+    private int alpha = 255;
+    private int bodyAlpha = BODY_ALPHA;
+    // 部位局部坐标系的原点和朝向
+    private final float[] frame = new float[FishPartTemplates.FRAME_SIZE];
+    // 不会变形的部位在后端中保留的路径，下标为FishPartTemplates中的部位
+    private final int[] partPaths = new int[FishPartTemplates.PART_COUNT];
+    // 鱼的各部位的大小和颜色
+    private final FishSpecies species;
+    // 鱼头的半径，鱼其他部位的大小都依据鱼头的半径决定
+    private final float headRadius;
+    // 鱼尾大圆的半径
+    private final float tailBigCircleRadius;
+    // 鱼尾中圆的半径
+    private final float tailMiddleCircleRadius;
+    // 鱼尾小圆半径
+    private final float tailSmallCircleRadius;
+
+    /**
+     * @param species 鱼的大小和颜色
+     * @param backend 绘图后端，每个FishRenderer独占一个，画笔的状态保存在后端中
+     */
+    public FishRenderer(FishSpecies species, RenderBackend backend) {
+        this.species = species;
+        this.headRadius = species.getHeadRadius();
+        this.tailBigCircleRadius = species.getTailBigCircleRadius();
+        this.tailMiddleCircleRadius = species.getTailMiddleCircleRadius();
+        this.tailSmallCircleRadius = species.getTailSmallCircleRadius();
+        this.backend = backend;
+
+        FishPartTemplates templates = species.getPartTemplates();
+        for (int part = 0; part < FishPartTemplates.PART_COUNT; part++) {
+            partPaths[part] = retainPartPath(backend, templates, part);
+        }
+        backend.setColor(species.getColor());
+        backend.setAntiAlias(true);
+        backend.setDither(true);
+    }
+
+    public RenderBackend getBackend() {
+        return backend;
+    }
+
+    public float getHeadRadius() {
+        return headRadius;
+    }
+
+    public FishSpecies getSpecies() {
+        return species;
+    }
+
+    public int getLevelOfDetail() {
+        return levelOfDetail;
+    }
+
+    public int getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * 画各部位时实际使用的透明度，即BODY_ALPHA乘上整条鱼的透明度
+     */
+    public int getBodyAlpha() {
+        return bodyAlpha;
+    }
+
+    /**
+     * 设置之后绘制的整条鱼的透明度，各部位的透明度为BODY_ALPHA * alpha / 255
+     * @param alpha 0~255，为255时与原先相同
+     */
+    public void setAlpha(int alpha) {
+        alpha = Math.max(0, Math.min(255, alpha));
+        this.alpha = alpha;
+        bodyAlpha = BODY_ALPHA * alpha / 255;
+    }
+
+    /**
+     * 设置之后绘制的细节等级，等级变化时才修改抗锯齿和抖动
+     */
+    public void setLevelOfDetail(int levelOfDetail) {
+        levelOfDetail = FishLod.clamp(levelOfDetail);
+        if (levelOfDetail == this.levelOfDetail) {
+            return;
+        }
+        this.levelOfDetail = levelOfDetail;
+        backend.setAntiAlias(levelOfDetail != FishLod.MINIMAL);
+        backend.setDither(levelOfDetail == FishLod.FULL);
+    }
+
+    /**
+     * 画一条鱼
+     * @param pose 姿态数组
+     * @param offset 这条鱼的姿态在数组中的起始下标
+     */
+    public void draw(float[] pose, int offset) {
+        // 躯干设置的透明度原先会一直保留到之后的部位和下一条鱼，除了第一帧的鱼头以外都是这个透明度；
+        // 每条鱼都从这个透明度开始画，画出的结果只取决于姿态
+        backend.setAlpha(bodyAlpha);
+
+        // 绘画鱼头
+        backend.drawCircle(FishPose.x(pose, offset, FishPose.HEAD), FishPose.y(pose, offset, FishPose.HEAD), headRadius);
+
+        if (levelOfDetail != FishLod.FULL) {
+            drawReduced(pose, offset);
+            return;
+        }
+
+        // 画右鱼鳍
+        makeFins(pose, offset, FishPartTemplates.RIGHT_FIN);
+
+        // 画左鱼鳍
+        makeFins(pose, offset, FishPartTemplates.LEFT_FIN);
+
+        // 画鱼的躯干
+        makeBody(pose, offset);
+
+        // 画鱼尾的上部分
+        makeSegment(pose, offset, FishPose.BODY_BOTTOM, tailBigCircleRadius, FishPose.TAIL_MIDDLE,
+                tailMiddleCircleRadius, FishPartTemplates.UPPER_SEGMENT, true);
+
+        // 画鱼尾的下部分
+        makeSegment(pose, offset, FishPose.TAIL_MIDDLE, tailMiddleCircleRadius, FishPose.TAIL_SMALL,
+                tailSmallCircleRadius, FishPartTemplates.LOWER_SEGMENT, false);
+
+        // 画鱼尾的三角形
+        makeTriangle(pose, offset, FishPose.BIG_TRIANGLE_LEFT);
+        makeTriangle(pose, offset, FishPose.SMALL_TRIANGLE_LEFT);
+    }
+
+    /**
+     * 较低的细节等级：不画鱼鳍，鱼尾的两段梯形合并为从大圆到小圆的一段，
+     * REDUCED保留大圆和大三角形，MINIMAL只剩鱼头、躯干和鱼尾
+     */
+    private void drawReduced(float[] pose, int offset) {
+        makeBody(pose, offset);
+
+        boolean reduced = levelOfDetail == FishLod.REDUCED;
+        if (reduced) {
+            backend.drawCircle(FishPose.x(pose, offset, FishPose.BODY_BOTTOM), FishPose.y(pose, offset, FishPose.BODY_BOTTOM),
+                    tailBigCircleRadius);
+        }
+
+        // 合并后的鱼尾：下部分梯形的上底连到上部分梯形的下底
+        backend.beginPath();
+        backend.moveTo(FishPose.x(pose, offset, FishPose.LOWER_SEGMENT_UPPER_LEFT),
+                FishPose.y(pose, offset, FishPose.LOWER_SEGMENT_UPPER_LEFT));
+        backend.lineTo(FishPose.x(pose, offset, FishPose.LOWER_SEGMENT_UPPER_RIGHT),
+                FishPose.y(pose, offset, FishPose.LOWER_SEGMENT_UPPER_RIGHT));
+        backend.lineTo(FishPose.x(pose, offset, FishPose.UPPER_SEGMENT_BOTTOM_RIGHT),
+                FishPose.y(pose, offset, FishPose.UPPER_SEGMENT_BOTTOM_RIGHT));
+        backend.lineTo(FishPose.x(pose, offset, FishPose.UPPER_SEGMENT_BOTTOM_LEFT),
+                FishPose.y(pose, offset, FishPose.UPPER_SEGMENT_BOTTOM_LEFT));
+        backend.fillPath();
+
+        if (reduced) {
+            makeTriangle(pose, offset, FishPose.BIG_TRIANGLE_LEFT);
+        }
+    }
+
+    /**
+     * 使用二阶贝塞尔曲线绘制鱼的躯干
+     */
+    private void makeBody(float[] pose, int offset) {
+        // 设置躯干的透明度
+        backend.setAlpha(bodyAlpha);
+
+        // 绘制躯干
+        drawPart(pose, offset, FishPartTemplates.BODY);
+    }
+
+    /**
+     * 绘制鱼尾的三角形
+     * @param firstVertex 三角形底边左顶点的下标，右顶点紧随其后，上顶点为鱼尾小圆的圆心
+     */
+    private void makeTriangle(float[] pose, int offset, int firstVertex) {
+        // 画三角形，连接三角形的各顶点
+        backend.beginPath();
+        backend.moveTo(FishPose.x(pose, offset, FishPose.TAIL_SMALL), FishPose.y(pose, offset, FishPose.TAIL_SMALL));
+        backend.lineTo(FishPose.x(pose, offset, firstVertex), FishPose.y(pose, offset, firstVertex));
+        backend.lineTo(FishPose.x(pose, offset, firstVertex + 1), FishPose.y(pose, offset, firstVertex + 1));
+
+        backend.fillPath();
+    }
+
+    /**
+     * 绘制鱼尾部分（绘制梯形）
+     * @param bottomCenterPoint 梯形下底圆的圆心的下标
+     * @param bigRadius 大圆的半径
+     * @param upperCenterPoint 梯形上底圆的圆心的下标
+     * @param smallRadius 小圆的半径
+     * @param part 梯形对应的部位
+     * @param hasBigCircle 是否要绘制大圆（鱼尾分为两部分，只有上部分需要绘画大圆）
+     */
+    private void makeSegment(float[] pose, int offset, int bottomCenterPoint, float bigRadius,
+                             int upperCenterPoint, float smallRadius, int part, boolean hasBigCircle) {
+        if (hasBigCircle) {
+            // 画大圆 --- 只在绘画上部分鱼尾的时候才绘画
+            backend.drawCircle(FishPose.x(pose, offset, bottomCenterPoint), FishPose.y(pose, offset, bottomCenterPoint),
+                    bigRadius);
+        }
+        // 画小圆
+        backend.drawCircle(FishPose.x(pose, offset, upperCenterPoint), FishPose.y(pose, offset, upperCenterPoint),
+                smallRadius);
+
+        // 画梯形
+        drawPart(pose, offset, part);
+    }
+
+    /**
+     * 使用二阶贝塞尔曲线绘画鱼鳍
+     * @param part 右鱼鳍或左鱼鳍
+     */
+    private void makeFins(float[] pose, int offset, int part) {
+        drawPart(pose, offset, part);
+    }
+
+    /**
+     * 把不会变形的部位按姿态中的位置和朝向画出来
+     */
+    private void drawPart(float[] pose, int offset, int part) {
+        FishPartTemplates.frame(pose, offset, part, frame);
+        backend.fillRetainedPath(partPaths[part], frame[FishPartTemplates.FRAME_COS], frame[FishPartTemplates.FRAME_SIN],
+                frame[FishPartTemplates.FRAME_ORIGIN_X], frame[FishPartTemplates.FRAME_ORIGIN_Y]);
+    }
+
+    /**
+     * 在局部坐标系中生成不会变形的部位的路径并保留在后端中，连接顶点的方式与逐帧生成时相同
+     */
+    private static int retainPartPath(RenderBackend backend, FishPartTemplates templates, int part) {
+        backend.beginPath();
+        int first = FishPartTemplates.firstPoint(part);
+        backend.moveTo(templates.localX(first), templates.localY(first));
+        switch (part) {
+            case FishPartTemplates.RIGHT_FIN:
+            case FishPartTemplates.LEFT_FIN:
+                // 鱼鳍：起点、控制点、终点组成的二阶贝塞尔曲线
+                backend.quadTo(templates.localX(first + 1), templates.localY(first + 1),
+                        templates.localX(first + 2), templates.localY(first + 2));
+                break;
+            case FishPartTemplates.BODY:
+                // 躯干：左侧曲线、底边、右侧曲线
+                backend.quadTo(templates.localX(FishPose.BODY_CONTROL_LEFT), templates.localY(FishPose.BODY_CONTROL_LEFT),
+                        templates.localX(FishPose.BODY_BOTTOM_LEFT), templates.localY(FishPose.BODY_BOTTOM_LEFT));
+                backend.lineTo(templates.localX(FishPose.BODY_BOTTOM_RIGHT), templates.localY(FishPose.BODY_BOTTOM_RIGHT));
+                backend.quadTo(templates.localX(FishPose.BODY_CONTROL_RIGHT), templates.localY(FishPose.BODY_CONTROL_RIGHT),
+                        templates.localX(FishPose.BODY_TOP_RIGHT), templates.localY(FishPose.BODY_TOP_RIGHT));
+                break;
+            default:
+                // 鱼尾的梯形：依次连接四个顶点
+                for (int i = 1; i < FishPartTemplates.pointCount(part); i++) {
+                    backend.lineTo(templates.localX(first + i), templates.localY(first + i));
+                }
+                break;
+        }
+        return backend.retainPath();
+    }
+}
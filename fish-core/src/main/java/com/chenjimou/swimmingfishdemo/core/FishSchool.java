@@ -0,0 +1,284 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.util.Random;
+
+/**
+ * 鱼群：所有鱼的状态按字段存放在连续的基本类型数组中（第i条鱼的数据位于每个数组的下标i），
+ * 推进和计算姿态都是对这些数组的紧凑循环，不为每条鱼创建对象。
+ * 所有鱼属于同一种鱼（{@link FishSpecies}），大小和摆动周期只保存一份。
+ * <p>
+ * 鱼游出画面或者被移除时用{@link #remove(int)}把最后一条鱼移到空出的位置，数组的空间一直复用，
+ * 反复添加和移除鱼不会分配内存。
+ * <p>
+ * 鱼群与单独的鱼（{@link Fish}）之间通过{@link #spawn(Fish)}和{@link #despawn(int)}交换：
+ * 加入鱼群的鱼把状态复制到数组中之后放回鱼群的{@link FishPool}，移出鱼群时再从池中取出，
+ * 池中的鱼够用之后反复加入和移出也不会分配内存。
+ */
+public class FishSchool {
+
+    private final FishSpecies species;
+    private final FishPose fishPose;
+    // 加入和移出鱼群的鱼对象
+    private final FishPool pool = new FishPool();
+    private final int capacity;
+    private int size;
+
+    // 鱼的重心
+    public final float[] keyX;
+    public final float[] keyY;
+    // 鱼头的朝向角度
+    public final float[] headAngle;
+    // 摆动的相位（0~360），按各自的频率累加之后再取模，频率不是整数时跨过一个周期也不会跳变
+    public final float[] swing;
+    // 摆动频率
+    public final float[] frequence;
+    // 速度（像素/秒）
+    public final float[] velocityX;
+    public final float[] velocityY;
+    // 所有鱼的姿态，第i条鱼从i * FishPose.FLOATS_PER_POSE开始
+    public final float[] poses;
+
+    // 鱼游动的范围，超出范围时反弹
+    private float boundsWidth = Float.MAX_VALUE;
+    private float boundsHeight = Float.MAX_VALUE;
+
+    /**
+     * @param headRadius 鱼头的半径
+     * @param capacity 最多容纳多少条鱼
+     */
+    public FishSchool(float headRadius, int capacity) {
+        this(new FishSpecies(headRadius), capacity);
+    }
+
+    /**
+     * @param species 鱼群中的鱼的种类
+     * @param capacity 最多容纳多少条鱼
+     */
+    public FishSchool(FishSpecies species, int capacity) {
+        this.species = species;
+        this.fishPose = new FishPose(species);
+        this.capacity = capacity;
+        keyX = new float[capacity];
+        keyY = new float[capacity];
+        headAngle = new float[capacity];
+        swing = new float[capacity];
+        frequence = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        poses = new float[capacity * FishPose.FLOATS_PER_POSE];
+    }
+
+    /**
+     * 添加一条鱼，鱼头朝向速度方向
+     * @return 这条鱼的下标
+     */
+    public int add(float x, float y, float velocityX, float velocityY, float swing, float frequence) {
+        if (size == capacity) {
+            throw new IllegalStateException("school is full: " + capacity);
+        }
+        int i = size++;
+        keyX[i] = x;
+        keyY[i] = y;
+        this.velocityX[i] = velocityX;
+        this.velocityY[i] = velocityY;
+        this.swing[i] = swing;
+        this.frequence[i] = frequence;
+        headAngle[i] = heading(velocityX, velocityY, 90);
+        return i;
+    }
+
+    /**
+     * 把一条单独的鱼加入鱼群：位置、朝向、相位、频率和速度复制到数组中，鱼对象放回鱼群的池中，之后不能再使用
+     * @param fish 与鱼群同一种鱼，通常由{@link #obtainFish}取出
+     * @return 这条鱼在鱼群中的下标
+     */
+    public int spawn(Fish fish) {
+        if (fish.getSpecies() != species) {
+            throw new IllegalArgumentException("fish species does not match the school");
+        }
+        if (size == capacity) {
+            throw new IllegalStateException("school is full: " + capacity);
+        }
+        int i = size++;
+        keyX[i] = fish.keyX;
+        keyY[i] = fish.keyY;
+        headAngle[i] = fish.headAngle;
+        swing[i] = fish.phase;
+        frequence[i] = fish.frequence;
+        velocityX[i] = fish.velocityX;
+        velocityY[i] = fish.velocityY;
+        pool.recycle(fish);
+        return i;
+    }
+
+    /**
+     * 把一条鱼移出鱼群成为单独的鱼，状态与它在鱼群中时相同；鱼群中的下标变化与{@link #remove(int)}相同。
+     * 不再使用时通过{@link #recycleFish}放回池中
+     */
+    public Fish despawn(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        Fish fish = pool.obtain(species, keyX[index], keyY[index], headAngle[index]);
+        fish.phase = swing[index];
+        fish.frequence = frequence[index];
+        fish.velocityX = velocityX[index];
+        fish.velocityY = velocityY[index];
+        remove(index);
+        return fish;
+    }
+
+    /**
+     * 从鱼群的池中取出一条这种鱼，相位为0、频率为1、速度为0
+     */
+    public Fish obtainFish(float keyX, float keyY, float headAngle) {
+        return pool.obtain(species, keyX, keyY, headAngle);
+    }
+
+    /**
+     * 把{@link #despawn}移出的鱼放回池中
+     */
+    public void recycleFish(Fish fish) {
+        pool.recycle(fish);
+    }
+
+    public FishPool getPool() {
+        return pool;
+    }
+
+    /**
+     * 在范围内随机放置鱼，相同的种子得到相同的鱼群。每条鱼都从池中取出，加入鱼群后放回池中
+     * @param count 鱼的数量，不超过剩余容量
+     * @param speed 游动的速度（像素/秒）
+     */
+    public void spawnRandom(int count, float width, float height, float speed, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            double direction = random.nextDouble() * Math.PI * 2;
+            float x = random.nextFloat() * width;
+            float y = random.nextFloat() * height;
+            float vx = (float) Math.cos(direction) * speed;
+            float vy = (float) Math.sin(direction) * speed;
+            Fish fish = obtainFish(x, y, heading(vx, vy, 90));
+            fish.velocityX = vx;
+            fish.velocityY = vy;
+            fish.phase = random.nextFloat() * 360f;
+            fish.frequence = 1f + random.nextFloat() * 2f;
+            spawn(fish);
+        }
+    }
+
+    /**
+     * 移除一条鱼：最后一条鱼移到这个下标，其他鱼的下标不变
+     * @return 被移到这个下标的鱼原来的下标，移除的就是最后一条鱼时返回-1
+     */
+    public int remove(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        int last = --size;
+        if (index == last) {
+            return -1;
+        }
+        keyX[index] = keyX[last];
+        keyY[index] = keyY[last];
+        headAngle[index] = headAngle[last];
+        swing[index] = swing[last];
+        frequence[index] = frequence[last];
+        velocityX[index] = velocityX[last];
+        velocityY[index] = velocityY[last];
+        System.arraycopy(poses, last * FishPose.FLOATS_PER_POSE, poses, index * FishPose.FLOATS_PER_POSE,
+                FishPose.FLOATS_PER_POSE);
+        return last;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public float getHeadRadius() {
+        return species.getHeadRadius();
+    }
+
+    public FishSpecies getSpecies() {
+        return species;
+    }
+
+    /**
+     * 设置鱼游动的范围
+     */
+    public void setBounds(float width, float height) {
+        boundsWidth = width;
+        boundsHeight = height;
+    }
+
+    /**
+     * 推进所有鱼的状态并计算姿态
+     * @param deltaSeconds 距离上一次推进经过的时间（秒）
+     */
+    public void step(float deltaSeconds) {
+        advance(0, size, deltaSeconds);
+        computePoses(0, size);
+    }
+
+    /**
+     * 推进下标在[from, to)范围内的鱼：摆动、移动、碰到边界反弹、鱼头转向速度方向
+     */
+    public void advance(int from, int to, float deltaSeconds) {
+        for (int i = from; i < to; i++) {
+            float s = swing[i] + species.swingDelta(frequence[i], deltaSeconds);
+            swing[i] = s >= 360f ? s % 360f : s;
+
+            float vx = velocityX[i];
+            float vy = velocityY[i];
+            float x = keyX[i] + vx * deltaSeconds;
+            float y = keyY[i] + vy * deltaSeconds;
+            if ((x < 0 && vx < 0) || (x > boundsWidth && vx > 0)) {
+                vx = -vx;
+                velocityX[i] = vx;
+            }
+            if ((y < 0 && vy < 0) || (y > boundsHeight && vy > 0)) {
+                vy = -vy;
+                velocityY[i] = vy;
+            }
+            keyX[i] = x;
+            keyY[i] = y;
+            headAngle[i] = heading(vx, vy, headAngle[i]);
+        }
+    }
+
+    /**
+     * 计算下标在[from, to)范围内的鱼的姿态，写入{@link #poses}
+     */
+    public void computePoses(int from, int to) {
+        computePoses(from, to, poses);
+    }
+
+    /**
+     * 计算下标在[from, to)范围内的鱼的姿态，写入out，排列与{@link #poses}相同
+     */
+    public void computePoses(int from, int to, float[] out) {
+        FishPose pose = fishPose;
+        for (int i = from; i < to; i++) {
+            pose.compute(out, i * FishPose.FLOATS_PER_POSE, keyX[i], keyY[i], headAngle[i], swing[i]);
+        }
+    }
+
+    /**
+     * 速度方向对应的鱼头朝向角度（Android坐标系，y轴朝下），速度为0时保持原来的朝向
+     */
+    private static float heading(float vx, float vy, float fallback) {
+        if (vx == 0 && vy == 0) {
+            return fallback;
+        }
+        return FastMath.atan2Deg(-vy, vx);
+    }
+}
@@ -0,0 +1,214 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 一种鱼的全部不变的参数：各部位的大小、颜色、摆动的幅度和周期，以及由鱼头半径推出的各个长度。
+ * 这些值原先在每个FishDrawable、FishPose、FishRenderer中各算一份，现在构造时算好一次，
+ * 同一种鱼的所有实例（以及它们的姿态计算和绘制）都引用同一个对象，每条鱼自己只保存位置、朝向和相位等几个基本类型的状态。
+ * <p>
+ * 不可变，可以在线程之间共享。
+ */
+public final class FishSpecies {
+
+    // 鱼的重心到Drawable左上角的距离与鱼头半径之比（x、y相同）
+    public static final float KEY_POINT_RATIO = 5.324f;
+    // Drawable的宽高与鱼头半径之比
+    public static final float BOUNDS_RATIO = 10.648f;
+    // 摆动一个周期（0~360）的默认时长（秒）
+    public static final float DEFAULT_SWING_DURATION_SECONDS = 1f;
+    // 摆动幅度为1时各部位摆动的最大角度
+    private static final float HEAD_SWING_DEGREES = 10;
+    private static final float UPPER_TAIL_SWING_DEGREES = 15;
+    private static final float LOWER_TAIL_SWING_DEGREES = 25;
+    private static final float TRIANGLE_SWING_DEGREES = 35;
+
+    // FishDrawable和FishSwimLayout中的鱼
+    public static final FishSpecies KOI = new FishSpecies(40);
+    // 鱼群中的小鱼
+    public static final FishSpecies SMALL_KOI = new FishSpecies(12);
+
+    private final float headRadius;
+    private final int color;
+    private final float swingScale;
+    private final float swingDurationSeconds;
+
+    // 由鱼头半径推出的长度，计算方式与原先FishPose中的相同
+    private final float bodyLength;
+    private final float tailBigCircleRadius;
+    private final float tailMiddleCircleRadius;
+    private final float tailSmallCircleRadius;
+    private final float finsDistance;
+    private final float finsLength;
+    private final float finsControlLength;
+    private final float bodyControlLength;
+    private final float upperSegmentLength;
+    private final float lowerSegmentLength;
+    private final float triangleDistance;
+    private final float keyOffset;
+    private final float headSwingDegrees;
+    private final float upperTailSwingDegrees;
+    private final float lowerTailSwingDegrees;
+    private final float triangleSwingDegrees;
+    // 不会变形的部位的形状，第一次绘制时生成，之后所有绘制共用
+    private volatile FishPartTemplates partTemplates;
+
+    public FishSpecies(float headRadius) {
+        this(headRadius, FishRenderer.DEFAULT_COLOR, 1f, DEFAULT_SWING_DURATION_SECONDS);
+    }
+
+    /**
+     * @param headRadius 鱼头的半径，鱼其他部位的大小都依据鱼头的半径决定
+     * @param color 鱼的颜色
+     * @param swingScale 摆动幅度的倍数，为1时与原先的鱼相同
+     * @param swingDurationSeconds 频率为1时摆动一个周期的时长（秒）
+     */
+    public FishSpecies(float headRadius, int color, float swingScale, float swingDurationSeconds) {
+        if (headRadius <= 0 || swingDurationSeconds <= 0) {
+            throw new IllegalArgumentException("headRadius " + headRadius + ", swingDuration " + swingDurationSeconds);
+        }
+        this.headRadius = headRadius;
+        this.color = color;
+        this.swingScale = swingScale;
+        this.swingDurationSeconds = swingDurationSeconds;
+
+        bodyLength = 3.2f * headRadius;
+        tailBigCircleRadius = 0.7f * headRadius;
+        tailMiddleCircleRadius = 0.42f * headRadius;
+        tailSmallCircleRadius = 0.168f * headRadius;
+        finsDistance = 0.9f * headRadius;
+        finsLength = 1.3f * headRadius;
+        finsControlLength = 1.3f * headRadius * 1.8f;
+        bodyControlLength = bodyLength * 0.56f;
+        upperSegmentLength = tailBigCircleRadius * (0.6f + 1);
+        lowerSegmentLength = tailMiddleCircleRadius * (0.4f + 2.7f);
+        triangleDistance = tailMiddleCircleRadius * 2.7f;
+        keyOffset = KEY_POINT_RATIO * headRadius;
+        headSwingDegrees = HEAD_SWING_DEGREES * swingScale;
+        upperTailSwingDegrees = UPPER_TAIL_SWING_DEGREES * swingScale;
+        lowerTailSwingDegrees = LOWER_TAIL_SWING_DEGREES * swingScale;
+        triangleSwingDegrees = TRIANGLE_SWING_DEGREES * swingScale;
+    }
+
+    public float getHeadRadius() {
+        return headRadius;
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    public float getSwingScale() {
+        return swingScale;
+    }
+
+    public float getSwingDurationSeconds() {
+        return swingDurationSeconds;
+    }
+
+    /**
+     * 鱼身的长度（鱼头圆心到鱼尾大圆圆心）
+     */
+    public float getBodyLength() {
+        return bodyLength;
+    }
+
+    public float getTailBigCircleRadius() {
+        return tailBigCircleRadius;
+    }
+
+    public float getTailMiddleCircleRadius() {
+        return tailMiddleCircleRadius;
+    }
+
+    public float getTailSmallCircleRadius() {
+        return tailSmallCircleRadius;
+    }
+
+    /**
+     * 鱼鳍的起点到鱼头圆心的距离
+     */
+    public float getFinsDistance() {
+        return finsDistance;
+    }
+
+    public float getFinsLength() {
+        return finsLength;
+    }
+
+    public float getFinsControlLength() {
+        return finsControlLength;
+    }
+
+    public float getBodyControlLength() {
+        return bodyControlLength;
+    }
+
+    /**
+     * 鱼尾上部分梯形的长度（大圆圆心到中圆圆心）
+     */
+    public float getUpperSegmentLength() {
+        return upperSegmentLength;
+    }
+
+    /**
+     * 鱼尾下部分梯形的长度（中圆圆心到小圆圆心）
+     */
+    public float getLowerSegmentLength() {
+        return lowerSegmentLength;
+    }
+
+    /**
+     * 鱼尾三角形底边的中点到小圆圆心的距离
+     */
+    public float getTriangleDistance() {
+        return triangleDistance;
+    }
+
+    /**
+     * 鱼的重心相对Drawable左上角的偏移（x、y相同）
+     */
+    public float getKeyOffset() {
+        return keyOffset;
+    }
+
+    /**
+     * Drawable的宽高
+     */
+    public int getBoundsSize() {
+        return (int) (BOUNDS_RATIO * headRadius);
+    }
+
+    public float getHeadSwingDegrees() {
+        return headSwingDegrees;
+    }
+
+    public float getUpperTailSwingDegrees() {
+        return upperTailSwingDegrees;
+    }
+
+    public float getLowerTailSwingDegrees() {
+        return lowerTailSwingDegrees;
+    }
+
+    public float getTriangleSwingDegrees() {
+        return triangleSwingDegrees;
+    }
+
+    /**
+     * 这种鱼不会变形的部位的形状，第一次调用时生成。多个线程同时第一次调用时可能各生成一份，结果相同
+     */
+    public FishPartTemplates getPartTemplates() {
+        FishPartTemplates templates = partTemplates;
+        if (templates == null) {
+            templates = new FishPartTemplates(this);
+            partTemplates = templates;
+        }
+        return templates;
+    }
+
+    /**
+     * 以频率frequence摆动deltaSeconds后相位增加的角度
+     */
+    public float swingDelta(float frequence, float deltaSeconds) {
+        return 360f * frequence * deltaSeconds / swingDurationSeconds;
+    }
+}
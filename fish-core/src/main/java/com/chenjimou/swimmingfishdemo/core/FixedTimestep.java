@@ -0,0 +1,103 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 固定步长的时间累加器：每一帧把经过的时间累加起来，按固定的步长切成若干步交给模拟推进，
+ * 不足一步的剩余时间留到下一帧，绘制时按{@link #getAlpha()}在最近两步的状态之间插值。
+ * 因此无论屏幕刷新率是60、90还是120Hz，模拟每秒推进的步数相同，结果只取决于经过的总时间。
+ * <p>
+ * 时间用纳秒的整数累加，不会因为浮点误差在某一帧多算或少算一步。
+ * 卡顿很久之后（例如主线程阻塞、切回前台）一帧最多追赶maxStepsPerFrame步，超出的时间直接丢弃，
+ * 动画会慢下来而不是一帧之内跳很远，也不会因为追赶而卡得更久。
+ * <p>
+ * 不是线程安全的。
+ */
+public class FixedTimestep {
+
+    // 默认的步长：每秒60步
+    public static final long DEFAULT_STEP_NANOS = 1_000_000_000L / 60;
+    // 默认一帧最多追赶的步数，约100ms
+    public static final int DEFAULT_MAX_STEPS_PER_FRAME = 6;
+
+    private final long stepNanos;
+    private final float stepSeconds;
+    private final int maxStepsPerFrame;
+    // 还没有推进的时间，始终小于一步
+    private long accumulatorNanos;
+    // 推进过的总步数，以及因为追赶上限被丢弃的时间
+    private long stepCount;
+    private long droppedNanos;
+
+    public FixedTimestep() {
+        this(DEFAULT_STEP_NANOS, DEFAULT_MAX_STEPS_PER_FRAME);
+    }
+
+    /**
+     * @param stepNanos 每一步的时长（纳秒）
+     * @param maxStepsPerFrame 一帧最多推进的步数
+     */
+    public FixedTimestep(long stepNanos, int maxStepsPerFrame) {
+        if (stepNanos <= 0 || maxStepsPerFrame <= 0) {
+            throw new IllegalArgumentException("step " + stepNanos + ", max steps " + maxStepsPerFrame);
+        }
+        this.stepNanos = stepNanos;
+        this.stepSeconds = stepNanos / 1e9f;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * 累加这一帧经过的时间
+     * @param deltaNanos 距离上一帧的时间，小于等于0时不推进
+     * @return 这一帧需要推进的步数，每一步的时长为{@link #getStepSeconds()}
+     */
+    public int advance(long deltaNanos) {
+        if (deltaNanos > 0) {
+            accumulatorNanos += deltaNanos;
+        }
+        long steps = accumulatorNanos / stepNanos;
+        if (steps > maxStepsPerFrame) {
+            // 追赶不完的整步丢弃，保留不足一步的部分，插值仍然是连续的
+            droppedNanos += (steps - maxStepsPerFrame) * stepNanos;
+            steps = maxStepsPerFrame;
+        }
+        accumulatorNanos %= stepNanos;
+        stepCount += steps;
+        return (int) steps;
+    }
+
+    /**
+     * 剩余时间占一步的比例（0~1），绘制时在上一步与最新一步的状态之间按这个比例插值
+     */
+    public float getAlpha() {
+        return (float) accumulatorNanos / stepNanos;
+    }
+
+    /**
+     * 清空剩余的时间，例如暂停之后重新开始
+     */
+    public void reset() {
+        accumulatorNanos = 0;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    public float getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public int getMaxStepsPerFrame() {
+        return maxStepsPerFrame;
+    }
+
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * 因为一帧最多追赶{@link #getMaxStepsPerFrame()}步而丢弃的总时间（纳秒）
+     */
+    public long getDroppedNanos() {
+        return droppedNanos;
+    }
+}
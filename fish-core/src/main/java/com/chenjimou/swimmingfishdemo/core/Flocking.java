@@ -0,0 +1,242 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 鱼群的集群行为：分离（避免与邻居靠得太近）、对齐（与邻居保持相同的游动方向）、
+ * 聚合（向邻居的中心靠拢），以及游向触摸点（与单条鱼点击后游向触摸点相同的目标）。
+ * <p>
+ * 邻居通过{@link SpatialGrid}查询，每一帧先增量更新网格，再根据上一帧的状态计算所有鱼的新速度，
+ * 最后统一写回，因此每条鱼的结果与计算顺序无关。
+ */
+public class Flocking {
+
+    // 每条鱼最多参考多少个邻居
+    public static final int MAX_NEIGHBORS = 16;
+
+    private final SpatialGrid grid;
+    // 计算出的新速度，全部计算完后再写回鱼群
+    private final float[] nextVelocityX;
+    private final float[] nextVelocityY;
+    private final int[] neighbors = new int[MAX_NEIGHBORS];
+    // 上一次更新网格时鱼群的数量，鱼群变小后多出的下标要从网格中摘下
+    private int gridSize;
+
+    // 邻居的查询半径
+    private final float neighborRadius;
+    // 小于这个距离时互相排斥
+    private float separationRadius;
+    private float separationWeight = 1.5f;
+    private float alignmentWeight = 1f;
+    private float cohesionWeight = 1f;
+    private float targetWeight = 2f;
+    // 速度范围（像素/秒）
+    private float minSpeed = 40f;
+    private float maxSpeed = 120f;
+    // 每条规则产生的最大加速度（像素/秒²）
+    private float maxForce = 240f;
+
+    private boolean hasTarget;
+    private float targetX;
+    private float targetY;
+
+    /**
+     * @param capacity 鱼群的容量
+     * @param neighborRadius 邻居的查询半径，同时作为网格的边长
+     */
+    public Flocking(int capacity, float neighborRadius) {
+        this.grid = new SpatialGrid(neighborRadius, capacity);
+        this.neighborRadius = neighborRadius;
+        this.separationRadius = neighborRadius / 2;
+        this.nextVelocityX = new float[capacity];
+        this.nextVelocityY = new float[capacity];
+    }
+
+    public SpatialGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * 推进一帧：更新网格、计算新速度、移动鱼并计算姿态
+     */
+    public void step(FishSchool school, float deltaSeconds) {
+        int size = school.size();
+        updateGrid(school);
+        steer(school, 0, size, deltaSeconds, neighbors);
+        applySteering(school, 0, size);
+        school.advance(0, size, deltaSeconds);
+        school.computePoses(0, size);
+    }
+
+    public int getCapacity() {
+        return nextVelocityX.length;
+    }
+
+    /**
+     * 把鱼群当前的位置增量更新到网格中。鱼被移除后最后的下标空了出来（见{@link FishSchool#remove(int)}），
+     * 这些下标也从网格中摘下，否则查询时会返回已经不在鱼群中的鱼
+     */
+    public void updateGrid(FishSchool school) {
+        int size = school.size();
+        for (int i = size; i < gridSize; i++) {
+            grid.remove(i);
+        }
+        gridSize = size;
+        grid.updateAll(school.keyX, school.keyY, 0, size);
+    }
+
+    /**
+     * 根据当前状态计算下标在[from, to)范围内的鱼的新速度，只读鱼群的状态，不修改它
+     * @param neighborBuffer 存放邻居查询结果的临时数组，多线程同时调用时每个线程需要各自的数组
+     */
+    public void steer(FishSchool school, int from, int to, float deltaSeconds, int[] neighborBuffer) {
+        float[] keyX = school.keyX;
+        float[] keyY = school.keyY;
+        float[] velocityX = school.velocityX;
+        float[] velocityY = school.velocityY;
+        float separationRadiusSquared = separationRadius * separationRadius;
+        for (int i = from; i < to; i++) {
+            float x = keyX[i];
+            float y = keyY[i];
+            float vx = velocityX[i];
+            float vy = velocityY[i];
+            int count = grid.query(x, y, neighborRadius, keyX, keyY, i, neighborBuffer);
+
+            float separationX = 0, separationY = 0;
+            float alignmentX = 0, alignmentY = 0;
+            float centerX = 0, centerY = 0;
+            for (int n = 0; n < count; n++) {
+                int j = neighborBuffer[n];
+                float dx = x - keyX[j];
+                float dy = y - keyY[j];
+                float distanceSquared = dx * dx + dy * dy;
+                if (distanceSquared < separationRadiusSquared && distanceSquared > 0) {
+                    // 越近排斥越强
+                    separationX += dx / distanceSquared;
+                    separationY += dy / distanceSquared;
+                }
+                alignmentX += velocityX[j];
+                alignmentY += velocityY[j];
+                centerX += keyX[j];
+                centerY += keyY[j];
+            }
+
+            float accelerationX = 0;
+            float accelerationY = 0;
+            if (count > 0) {
+                float inverseCount = 1f / count;
+                float scale = desiredScale(separationX, separationY);
+                if (scale > 0) {
+                    float steerX = separationX * scale - vx;
+                    float steerY = separationY * scale - vy;
+                    float limit = forceLimit(steerX, steerY) * separationWeight;
+                    accelerationX += steerX * limit;
+                    accelerationY += steerY * limit;
+                }
+                scale = desiredScale(alignmentX, alignmentY);
+                if (scale > 0) {
+                    float steerX = alignmentX * scale - vx;
+                    float steerY = alignmentY * scale - vy;
+                    float limit = forceLimit(steerX, steerY) * alignmentWeight;
+                    accelerationX += steerX * limit;
+                    accelerationY += steerY * limit;
+                }
+                float toCenterX = centerX * inverseCount - x;
+                float toCenterY = centerY * inverseCount - y;
+                scale = desiredScale(toCenterX, toCenterY);
+                if (scale > 0) {
+                    float steerX = toCenterX * scale - vx;
+                    float steerY = toCenterY * scale - vy;
+                    float limit = forceLimit(steerX, steerY) * cohesionWeight;
+                    accelerationX += steerX * limit;
+                    accelerationY += steerY * limit;
+                }
+            }
+            if (hasTarget) {
+                float toTargetX = targetX - x;
+                float toTargetY = targetY - y;
+                float scale = desiredScale(toTargetX, toTargetY);
+                if (scale > 0) {
+                    float steerX = toTargetX * scale - vx;
+                    float steerY = toTargetY * scale - vy;
+                    float limit = forceLimit(steerX, steerY) * targetWeight;
+                    accelerationX += steerX * limit;
+                    accelerationY += steerY * limit;
+                }
+            }
+
+            vx += accelerationX * deltaSeconds;
+            vy += accelerationY * deltaSeconds;
+            // 把速度限制在[minSpeed, maxSpeed]之间
+            float speed = (float) Math.sqrt(vx * vx + vy * vy);
+            if (speed > maxSpeed) {
+                vx *= maxSpeed / speed;
+                vy *= maxSpeed / speed;
+            } else if (speed < minSpeed && speed > 0) {
+                vx *= minSpeed / speed;
+                vy *= minSpeed / speed;
+            }
+            nextVelocityX[i] = vx;
+            nextVelocityY[i] = vy;
+        }
+    }
+
+    /**
+     * 把计算出的新速度写回下标在[from, to)范围内的鱼
+     */
+    public void applySteering(FishSchool school, int from, int to) {
+        System.arraycopy(nextVelocityX, from, school.velocityX, from, to - from);
+        System.arraycopy(nextVelocityY, from, school.velocityY, from, to - from);
+    }
+
+    /**
+     * 把(x, y)缩放到最大速度所需的系数，向量为0时返回0
+     */
+    private float desiredScale(float x, float y) {
+        float length = (float) Math.sqrt(x * x + y * y);
+        return length > 0 ? maxSpeed / length : 0;
+    }
+
+    /**
+     * 把加速度限制在maxForce以内所需的系数
+     */
+    private float forceLimit(float x, float y) {
+        float length = (float) Math.sqrt(x * x + y * y);
+        return length > maxForce ? maxForce / length : 1f;
+    }
+
+    /**
+     * 设置所有鱼共同游向的目标点
+     */
+    public void setTarget(float x, float y) {
+        hasTarget = true;
+        targetX = x;
+        targetY = y;
+    }
+
+    public void clearTarget() {
+        hasTarget = false;
+    }
+
+    public boolean hasTarget() {
+        return hasTarget;
+    }
+
+    public void setWeights(float separation, float alignment, float cohesion, float target) {
+        separationWeight = separation;
+        alignmentWeight = alignment;
+        cohesionWeight = cohesion;
+        targetWeight = target;
+    }
+
+    public void setSeparationRadius(float separationRadius) {
+        this.separationRadius = separationRadius;
+    }
+
+    public void setSpeedRange(float minSpeed, float maxSpeed) {
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+    }
+
+    public void setMaxForce(float maxForce) {
+        this.maxForce = maxForce;
+    }
+}
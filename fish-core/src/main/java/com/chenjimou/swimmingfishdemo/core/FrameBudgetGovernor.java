@@ -0,0 +1,120 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 帧预算调节器：统计最近若干帧的耗时，超出预算时提高所有鱼的最低细节等级（{@link FishLod}），
+ * 有足够余量时再逐级恢复，以保持目标帧率。
+ * <p>
+ * 为了避免等级来回切换：
+ * <ul>
+ *     <li>降低和恢复的阈值之间留有空档（平均耗时超过预算的80%才降低，低于50%才恢复）</li>
+ *     <li>每次判断都需要攒满一个窗口的样本，判断后清空窗口，等级变化后新的等级需要重新统计一个窗口</li>
+ *     <li>恢复比降低慢：需要连续{@link #UPGRADE_WINDOWS}个窗口都有余量才恢复一级</li>
+ * </ul>
+ * 不是线程安全的，只能在统计帧耗时的线程中使用。
+ */
+public class FrameBudgetGovernor {
+
+    // 默认每次判断使用的帧数，60Hz时约半秒
+    public static final int DEFAULT_WINDOW = 30;
+    // 平均耗时超过预算的这个比例时降低细节
+    public static final float DEGRADE_RATIO = 0.8f;
+    // 平均耗时低于预算的这个比例时才允许恢复细节
+    public static final float UPGRADE_RATIO = 0.5f;
+    // 连续多少个窗口都低于UPGRADE_RATIO才恢复一级
+    public static final int UPGRADE_WINDOWS = 3;
+
+    // 每个窗口的帧数
+    private final int window;
+    // 当前窗口已经统计的帧数与耗时之和
+    private int sampleCount;
+    private long sampleSum;
+    private long budgetNanos;
+    private int tier = FishLod.FULL;
+    // 连续低于UPGRADE_RATIO的窗口数
+    private int calmWindows;
+
+    /**
+     * @param budgetNanos 每一帧的预算（纳秒），通常为屏幕刷新的间隔
+     */
+    public FrameBudgetGovernor(long budgetNanos) {
+        this(budgetNanos, DEFAULT_WINDOW);
+    }
+
+    public FrameBudgetGovernor(long budgetNanos, int window) {
+        if (budgetNanos <= 0 || window <= 0) {
+            throw new IllegalArgumentException("budget " + budgetNanos + ", window " + window);
+        }
+        this.budgetNanos = budgetNanos;
+        this.window = window;
+    }
+
+    /**
+     * 记录一帧的耗时
+     * @param frameNanos 这一帧的工作耗时（纳秒）
+     * @return 最低细节等级是否发生了变化
+     */
+    public boolean addFrame(long frameNanos) {
+        sampleSum += frameNanos;
+        if (++sampleCount < window) {
+            return false;
+        }
+
+        long average = sampleSum / sampleCount;
+        int newTier = tier;
+        if (average > budgetNanos * DEGRADE_RATIO) {
+            calmWindows = 0;
+            newTier = Math.min(tier + 1, FishLod.MINIMAL);
+        } else if (average < budgetNanos * UPGRADE_RATIO) {
+            if (++calmWindows >= UPGRADE_WINDOWS) {
+                calmWindows = 0;
+                newTier = Math.max(tier - 1, FishLod.FULL);
+            }
+        } else {
+            calmWindows = 0;
+        }
+        // 不管等级是否变化，下一次判断都使用新的一个窗口
+        clearSamples();
+        if (newTier == tier) {
+            return false;
+        }
+        tier = newTier;
+        return true;
+    }
+
+    /**
+     * 当前帧预算要求的最低细节等级，与按大小选择的等级通过{@link FishLod#combine}合并
+     */
+    public int getTier() {
+        return tier;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * 修改每一帧的预算（例如屏幕刷新率变化时），已经统计的样本作废
+     */
+    public void setBudgetNanos(long budgetNanos) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("budget " + budgetNanos);
+        }
+        this.budgetNanos = budgetNanos;
+        clearSamples();
+        calmWindows = 0;
+    }
+
+    /**
+     * 恢复到全部细节并清空统计
+     */
+    public void reset() {
+        tier = FishLod.FULL;
+        calmWindows = 0;
+        clearSamples();
+    }
+
+    private void clearSamples() {
+        sampleCount = 0;
+        sampleSum = 0;
+    }
+}
@@ -0,0 +1,156 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 触摸与帧的记录（见{@link TraceRecorder}）读入内存后的结果，按记录的顺序存放在几个并列的数组中，
+ * 可以由{@link TraceReplayer}在JVM上重放。
+ * <p>
+ * 文件格式（大端序）：4字节的{@link #MAGIC}、4字节的版本号，之后是连续的记录，每条记录以1字节的类型开头：
+ * <ul>
+ *     <li>{@link #TOUCH_DOWN}、{@link #TOUCH_MOVE}、{@link #TOUCH_UP}：事件时间（long，纳秒）、x（float）、y（float）</li>
+ *     <li>{@link #FRAME}：帧回调的时间（long，纳秒）</li>
+ *     <li>{@link #DRAW_END}：这一帧画完的时间（long，纳秒）</li>
+ *     <li>{@link #SIZE}：布局的宽度（int）、高度（int）</li>
+ * </ul>
+ * 所有时间都与System.nanoTime同一个时钟。
+ */
+public class InputTrace {
+
+    public static final int MAGIC = 0x46545243;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 8;
+
+    // 记录的类型
+    public static final byte TOUCH_DOWN = 1;
+    public static final byte TOUCH_MOVE = 2;
+    public static final byte TOUCH_UP = 3;
+    public static final byte FRAME = 4;
+    public static final byte DRAW_END = 5;
+    public static final byte SIZE = 6;
+
+    // 各类记录的字节数（包括类型）
+    public static final int TOUCH_RECORD_BYTES = 1 + 8 + 4 + 4;
+    public static final int TIME_RECORD_BYTES = 1 + 8;
+    public static final int SIZE_RECORD_BYTES = 1 + 4 + 4;
+    public static final int MAX_RECORD_BYTES = TOUCH_RECORD_BYTES;
+
+    private byte[] types;
+    private long[] timesNanos;
+    // 触摸的坐标，SIZE记录中为宽度和高度
+    private float[] xs;
+    private float[] ys;
+    private int count;
+
+    public InputTrace() {
+        this(256);
+    }
+
+    public InputTrace(int initialCapacity) {
+        types = new byte[initialCapacity];
+        timesNanos = new long[initialCapacity];
+        xs = new float[initialCapacity];
+        ys = new float[initialCapacity];
+    }
+
+    /**
+     * 读取整个记录文件，文件末尾不完整的一条记录会被忽略（例如应用在写入的过程中被杀死）
+     * @throws IOException 文件头不正确或者遇到未知的记录类型
+     */
+    public static InputTrace read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int magic = data.readInt();
+        int version = data.readInt();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("not a fish trace: magic " + Integer.toHexString(magic) + ", version " + version);
+        }
+        InputTrace trace = new InputTrace();
+        try {
+            while (true) {
+                int type = data.read();
+                if (type < 0) {
+                    break;
+                }
+                switch (type) {
+                    case TOUCH_DOWN:
+                    case TOUCH_MOVE:
+                    case TOUCH_UP:
+                        long timeNanos = data.readLong();
+                        float x = data.readFloat();
+                        float y = data.readFloat();
+                        trace.add((byte) type, timeNanos, x, y);
+                        break;
+                    case FRAME:
+                    case DRAW_END:
+                        trace.add((byte) type, data.readLong(), 0, 0);
+                        break;
+                    case SIZE:
+                        int width = data.readInt();
+                        int height = data.readInt();
+                        trace.add(SIZE, 0, width, height);
+                        break;
+                    default:
+                        throw new IOException("unknown record type " + type + " after " + trace.size() + " records");
+                }
+            }
+        } catch (EOFException ignored) {
+            // 最后一条记录不完整
+        }
+        return trace;
+    }
+
+    /**
+     * 追加一条记录，用于在内存中直接构造记录（例如性能测试的输入）
+     */
+    public void add(byte type, long timeNanos, float x, float y) {
+        if (count == types.length) {
+            int capacity = count * 2;
+            types = Arrays.copyOf(types, capacity);
+            timesNanos = Arrays.copyOf(timesNanos, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        types[count] = type;
+        timesNanos[count] = timeNanos;
+        xs[count] = x;
+        ys[count] = y;
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public byte getType(int i) {
+        return types[i];
+    }
+
+    public long getTimeNanos(int i) {
+        return timesNanos[i];
+    }
+
+    public float getX(int i) {
+        return xs[i];
+    }
+
+    public float getY(int i) {
+        return ys[i];
+    }
+
+    /**
+     * 某一类记录的数量
+     */
+    public int count(byte type) {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (types[i] == type) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
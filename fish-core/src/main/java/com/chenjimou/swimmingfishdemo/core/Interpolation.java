@@ -0,0 +1,63 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 动画插值，与Android中的同名Interpolator计算结果相同，用于在不使用属性动画的地方得到同样的动画效果，
+ * 另外还有Android中没有的、起点带有初速度的版本
+ */
+public final class Interpolation {
+
+    // accelerateDecelerate(input, initialSlope)单调不减时initialSlope的上限（终点附近要求initialSlope ≤ π²/4）
+    public static final float MAX_INITIAL_SLOPE = 2.4f;
+
+    private Interpolation() {
+    }
+
+    /**
+     * 与AccelerateDecelerateInterpolator相同（属性动画默认的插值器）：开始和结束时慢，中间快
+     * @param input 0~1
+     */
+    public static float accelerateDecelerate(float input) {
+        return (float) (Math.cos((input + 1) * Math.PI) / 2.0) + 0.5f;
+    }
+
+    /**
+     * 起点带有初速度的先加速后减速：在accelerateDecelerate的基础上加上initialSlope * input * (1 - input)²，
+     * 起点的斜率为initialSlope，终点的斜率仍为0，用于游动途中改变目标时保持速度连续
+     * @param input 0~1
+     * @param initialSlope 起点的斜率（相对于整段的长度和时长），不超过{@link #MAX_INITIAL_SLOPE}时结果单调不减
+     */
+    public static float accelerateDecelerate(float input, float initialSlope) {
+        float remaining = 1 - input;
+        return accelerateDecelerate(input) + initialSlope * input * remaining * remaining;
+    }
+
+    /**
+     * {@link #accelerateDecelerate(float, float)}的斜率
+     */
+    public static float accelerateDecelerateSlope(float input, float initialSlope) {
+        float remaining = 1 - input;
+        return (float) (Math.PI / 2 * Math.sin(input * Math.PI)) + initialSlope * remaining * (1 - 3 * input);
+    }
+
+    /**
+     * 线性插值
+     * @param fraction 0~1，为0时返回from，为1时返回to
+     */
+    public static float lerp(float from, float to, float fraction) {
+        return from + (to - from) * fraction;
+    }
+
+    /**
+     * 角度的线性插值，沿较短的方向转过去，例如从350°到10°经过0°而不是180°。结果可能超出0~360
+     * @param fraction 0~1
+     */
+    public static float lerpDegrees(float from, float to, float fraction) {
+        float difference = (to - from) % 360f;
+        if (difference > 180f) {
+            difference -= 360f;
+        } else if (difference < -180f) {
+            difference += 360f;
+        }
+        return from + difference * fraction;
+    }
+}
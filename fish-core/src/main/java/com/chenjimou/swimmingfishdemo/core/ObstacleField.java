@@ -0,0 +1,272 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.util.Arrays;
+
+/**
+ * 障碍物的有符号距离场：把布局分成边长为cellSize的格子，每个格子中心保存到最近的障碍物边缘的距离，
+ * 在障碍物外为正、内部为负。布局的边界也是障碍物，布局之外的距离为负。
+ * <p>
+ * 距离只精确保存到maxDistance为止，更远的格子都记为maxDistance，因此添加、移动或移除一个障碍物时
+ * 只需要重新计算它新旧范围向外扩大maxDistance的格子，其他格子不变（增量更新），只在布局变化时调用。
+ * 查询时对相邻的四个格子做双线性插值，每次查询是O(1)的，不需要逐个检查障碍物。
+ * <p>
+ * 障碍物是轴对齐的矩形（子View的范围），用调用者给定的id区分。不是线程安全的。
+ */
+public class ObstacleField {
+
+    public static final int LEFT = 0;
+    public static final int TOP = 1;
+    public static final int RIGHT = 2;
+    public static final int BOTTOM = 3;
+
+    private final float cellSize;
+    private final float inverseCellSize;
+    private final float maxDistance;
+
+    private float width;
+    private float height;
+    private int columns;
+    private int rows;
+    // 每个格子中心的有符号距离，按行存放
+    private float[] distances = new float[0];
+
+    // 障碍物的范围，每个占4个float，按id存放；active[id]为false表示没有这个障碍物
+    private float[] rects = new float[0];
+    private boolean[] active = new boolean[0];
+    // 距离场重新计算过的格子数，用于确认更新是增量的
+    private long updatedCells;
+
+    /**
+     * @param cellSize 格子的边长
+     * @param maxDistance 精确保存距离的范围，应该不小于查询时要求的最大间隙
+     */
+    public ObstacleField(float cellSize, float maxDistance) {
+        if (cellSize <= 0 || maxDistance <= 0) {
+            throw new IllegalArgumentException("cellSize " + cellSize + ", maxDistance " + maxDistance);
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1f / cellSize;
+        this.maxDistance = maxDistance;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public float getMaxDistance() {
+        return maxDistance;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getUpdatedCells() {
+        return updatedCells;
+    }
+
+    /**
+     * 设置布局的大小，大小变化时重新计算整个距离场
+     */
+    public void setBounds(float width, float height) {
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        columns = Math.max(1, (int) Math.ceil(width * inverseCellSize));
+        rows = Math.max(1, (int) Math.ceil(height * inverseCellSize));
+        if (distances.length < columns * rows) {
+            distances = new float[columns * rows];
+        }
+        recompute(0, 0, columns - 1, rows - 1);
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    /**
+     * 添加或移动一个障碍物，范围没有变化时不做任何计算
+     * @param id 障碍物的编号，从0开始
+     */
+    public void setObstacle(int id, float left, float top, float right, float bottom) {
+        ensureCapacity(id + 1);
+        int offset = id * 4;
+        if (active[id]) {
+            if (rects[offset + LEFT] == left && rects[offset + TOP] == top
+                    && rects[offset + RIGHT] == right && rects[offset + BOTTOM] == bottom) {
+                return;
+            }
+            // 先按移除处理旧的范围
+            active[id] = false;
+            recomputeAround(rects[offset + LEFT], rects[offset + TOP], rects[offset + RIGHT], rects[offset + BOTTOM]);
+        }
+        rects[offset + LEFT] = left;
+        rects[offset + TOP] = top;
+        rects[offset + RIGHT] = right;
+        rects[offset + BOTTOM] = bottom;
+        active[id] = true;
+        recomputeAround(left, top, right, bottom);
+    }
+
+    /**
+     * 移除一个障碍物，不存在时不做任何事
+     */
+    public void removeObstacle(int id) {
+        if (id >= active.length || !active[id]) {
+            return;
+        }
+        active[id] = false;
+        int offset = id * 4;
+        recomputeAround(rects[offset + LEFT], rects[offset + TOP], rects[offset + RIGHT], rects[offset + BOTTOM]);
+    }
+
+    /**
+     * 移除编号不小于id的所有障碍物
+     */
+    public void removeObstaclesFrom(int id) {
+        for (int i = id; i < active.length; i++) {
+            removeObstacle(i);
+        }
+    }
+
+    public boolean hasObstacle(int id) {
+        return id < active.length && active[id];
+    }
+
+    private void ensureCapacity(int count) {
+        if (active.length >= count) {
+            return;
+        }
+        int capacity = Math.max(count, active.length * 2);
+        rects = Arrays.copyOf(rects, capacity * 4);
+        active = Arrays.copyOf(active, capacity);
+    }
+
+    /**
+     * 重新计算矩形向外扩大maxDistance范围内的格子，更远的格子不受这个矩形影响
+     */
+    private void recomputeAround(float left, float top, float right, float bottom) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        int fromColumn = Math.max(0, (int) Math.floor((left - maxDistance) * inverseCellSize));
+        int fromRow = Math.max(0, (int) Math.floor((top - maxDistance) * inverseCellSize));
+        int toColumn = Math.min(columns - 1, (int) Math.floor((right + maxDistance) * inverseCellSize));
+        int toRow = Math.min(rows - 1, (int) Math.floor((bottom + maxDistance) * inverseCellSize));
+        if (fromColumn <= toColumn && fromRow <= toRow) {
+            recompute(fromColumn, fromRow, toColumn, toRow);
+        }
+    }
+
+    private void recompute(int fromColumn, int fromRow, int toColumn, int toRow) {
+        // 只有范围扩大后与这些格子相交的障碍物才会影响它们
+        float regionLeft = fromColumn * cellSize - maxDistance;
+        float regionTop = fromRow * cellSize - maxDistance;
+        float regionRight = (toColumn + 1) * cellSize + maxDistance;
+        float regionBottom = (toRow + 1) * cellSize + maxDistance;
+        for (int row = fromRow; row <= toRow; row++) {
+            float y = (row + 0.5f) * cellSize;
+            for (int column = fromColumn; column <= toColumn; column++) {
+                float x = (column + 0.5f) * cellSize;
+                // 到布局边界的距离
+                float distance = Math.min(Math.min(x, width - x), Math.min(y, height - y));
+                for (int id = 0; id < active.length; id++) {
+                    if (!active[id]) {
+                        continue;
+                    }
+                    int offset = id * 4;
+                    if (rects[offset + RIGHT] < regionLeft || rects[offset + LEFT] > regionRight
+                            || rects[offset + BOTTOM] < regionTop || rects[offset + TOP] > regionBottom) {
+                        continue;
+                    }
+                    distance = Math.min(distance, rectDistance(x, y, rects[offset + LEFT], rects[offset + TOP],
+                            rects[offset + RIGHT], rects[offset + BOTTOM]));
+                }
+                distances[row * columns + column] = Math.min(distance, maxDistance);
+            }
+        }
+        updatedCells += (long) (toColumn - fromColumn + 1) * (toRow - fromRow + 1);
+    }
+
+    /**
+     * 点到矩形边缘的有符号距离，在矩形内部为负
+     */
+    static float rectDistance(float x, float y, float left, float top, float right, float bottom) {
+        float dx = Math.max(left - x, x - right);
+        float dy = Math.max(top - y, y - bottom);
+        float outsideX = Math.max(dx, 0);
+        float outsideY = Math.max(dy, 0);
+        return (float) Math.sqrt(outsideX * outsideX + outsideY * outsideY) + Math.min(Math.max(dx, dy), 0);
+    }
+
+    /**
+     * (x, y)处的有符号距离：相邻四个格子中心的双线性插值，布局之外为到布局边界距离的相反数
+     */
+    public float distanceAt(float x, float y) {
+        if (x < 0 || y < 0 || x > width || y > height) {
+            return -rectDistance(x, y, 0, 0, width, height);
+        }
+        float gridX = x * inverseCellSize - 0.5f;
+        float gridY = y * inverseCellSize - 0.5f;
+        int column = (int) Math.floor(gridX);
+        int row = (int) Math.floor(gridY);
+        float fractionX = gridX - column;
+        float fractionY = gridY - row;
+        // 边缘的半个格子没有相邻的格子中心，使用最近的格子
+        int column0 = Math.max(0, Math.min(columns - 1, column));
+        int column1 = Math.max(0, Math.min(columns - 1, column + 1));
+        int row0 = Math.max(0, Math.min(rows - 1, row)) * columns;
+        int row1 = Math.max(0, Math.min(rows - 1, row + 1)) * columns;
+        float top = distances[row0 + column0] + (distances[row0 + column1] - distances[row0 + column0]) * fractionX;
+        float bottom = distances[row1 + column0] + (distances[row1 + column1] - distances[row1 + column0]) * fractionX;
+        float distance = top + (bottom - top) * fractionY;
+        // 边缘的格子中心离边界还有半个格子，插值不能超过到边界的精确距离
+        return Math.min(distance, Math.min(Math.min(x, width - x), Math.min(y, height - y)));
+    }
+
+    /**
+     * (x, y)处远离障碍物的方向（距离增大最快的方向，单位向量），距离场平坦时为(0, 0)
+     * @param out 长度至少为2
+     */
+    public void gradientAt(float x, float y, float[] out) {
+        float h = cellSize * 0.5f;
+        float gx = distanceAt(x + h, y) - distanceAt(x - h, y);
+        float gy = distanceAt(x, y + h) - distanceAt(x, y - h);
+        float length = (float) Math.sqrt(gx * gx + gy * gy);
+        if (length > 1e-6f) {
+            out[0] = gx / length;
+            out[1] = gy / length;
+        } else {
+            out[0] = 0;
+            out[1] = 0;
+        }
+    }
+
+    /**
+     * 线段上每隔半个格子检查一次，所有点到障碍物的距离是否都不小于clearance。
+     * 开销与线段经过的格子数成正比
+     */
+    public boolean isSegmentClear(float x0, float y0, float x1, float y1, float clearance) {
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        int steps = Math.max(1, (int) Math.ceil(length * inverseCellSize * 2));
+        for (int i = 0; i <= steps; i++) {
+            float t = (float) i / steps;
+            if (distanceAt(x0 + dx * t, y0 + dy * t) < clearance) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
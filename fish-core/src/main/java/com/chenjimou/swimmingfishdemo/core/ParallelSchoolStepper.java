@@ -0,0 +1,207 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 把鱼群每一帧的推进拆成若干段，分发到多个线程上并行计算，结果与{@link Flocking#step}逐位相同。
+ * <p>
+ * 一帧分为三个阶段：
+ * <ol>
+ *     <li>在调用线程中增量更新空间网格（链表操作无法安全地并行）；</li>
+ *     <li>各段并行计算新速度，只读鱼群的状态，每一段使用自己的邻居数组；</li>
+ *     <li>所有段都算完之后，各段再并行写回速度、移动鱼并计算姿态，每条鱼只依赖自己的数据。</li>
+ * </ol>
+ * 每条鱼的计算与单线程完全相同，邻居的遍历顺序也只取决于网格，与分段方式和线程调度无关，因此结果是确定的。
+ * <p>
+ * 调用线程自己负责第一段，其余的段交给executor，executor可以是ForkJoinPool，也可以是普通的线程池。
+ * 分段任务在构造时创建并在每一帧复用。同一个实例不能被多个线程同时调用。
+ */
+public class ParallelSchoolStepper {
+
+    // 每段至少包含多少条鱼，鱼太少时分段的开销大于并行的收益
+    public static final int DEFAULT_MIN_CHUNK_SIZE = 256;
+    // 每个线程分到的段数，多分几段可以让先完成的线程继续处理剩下的段
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final int PHASE_STEER = 0;
+    private static final int PHASE_ADVANCE = 1;
+
+    private final Executor executor;
+    private final int parallelism;
+    private final int minChunkSize;
+    private final ChunkTask[] tasks;
+
+    private final Object lock = new Object();
+    // 还没有完成的段，由lock保护
+    private int pending;
+    private Throwable failure;
+
+    // 当前这一帧的参数，在分发任务之前写入
+    private FishSchool school;
+    private Flocking flocking;
+    private float deltaSeconds;
+    private float[] posesOut;
+    private int phase;
+    private int chunkCount;
+
+    /**
+     * @param executor 执行分段任务的线程池
+     * @param parallelism 期望同时参与计算的线程数（包括调用线程）
+     */
+    public ParallelSchoolStepper(Executor executor, int parallelism) {
+        this(executor, parallelism, DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * @param executor 执行分段任务的线程池
+     * @param parallelism 期望同时参与计算的线程数（包括调用线程）
+     * @param minChunkSize 每段至少包含多少条鱼
+     */
+    public ParallelSchoolStepper(Executor executor, int parallelism, int minChunkSize) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        if (minChunkSize < 1) {
+            throw new IllegalArgumentException("minChunkSize must be positive: " + minChunkSize);
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.minChunkSize = minChunkSize;
+        int maxChunks = parallelism == 1 ? 1 : parallelism * CHUNKS_PER_THREAD;
+        tasks = new ChunkTask[maxChunks];
+        for (int i = 0; i < maxChunks; i++) {
+            tasks[i] = new ChunkTask(i);
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 推进一帧，姿态写入鱼群自己的{@link FishSchool#poses}
+     */
+    public void step(FishSchool school, Flocking flocking, float deltaSeconds) {
+        step(school, flocking, deltaSeconds, school.poses);
+    }
+
+    /**
+     * 推进一帧，姿态写入posesOut，排列与{@link FishSchool#poses}相同
+     */
+    public void step(FishSchool school, Flocking flocking, float deltaSeconds, float[] posesOut) {
+        int size = school.size();
+        flocking.updateGrid(school);
+        this.school = school;
+        this.flocking = flocking;
+        this.deltaSeconds = deltaSeconds;
+        this.posesOut = posesOut;
+        chunkCount = Math.max(1, Math.min(tasks.length, size / minChunkSize));
+        try {
+            runPhase(PHASE_STEER);
+            runPhase(PHASE_ADVANCE);
+        } finally {
+            this.school = null;
+            this.flocking = null;
+            this.posesOut = null;
+        }
+    }
+
+    /**
+     * 执行一个阶段的所有段，全部完成后才返回
+     */
+    private void runPhase(int phase) {
+        this.phase = phase;
+        int chunks = chunkCount;
+        if (chunks == 1) {
+            tasks[0].compute();
+            return;
+        }
+        synchronized (lock) {
+            pending = chunks - 1;
+            failure = null;
+        }
+        for (int i = 1; i < chunks; i++) {
+            try {
+                executor.execute(tasks[i]);
+            } catch (RejectedExecutionException e) {
+                // 线程池已经关闭时由调用线程自己完成
+                tasks[i].run();
+            }
+        }
+        Throwable error = null;
+        try {
+            tasks[0].compute();
+        } catch (Throwable t) {
+            error = t;
+        }
+        boolean interrupted = false;
+        synchronized (lock) {
+            // 其它线程还在读写鱼群时不能返回，因此被中断也要等到所有段完成
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (error == null) {
+                error = failure;
+            }
+            failure = null;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    private final class ChunkTask implements Runnable {
+
+        private final int index;
+        private final int[] neighbors = new int[Flocking.MAX_NEIGHBORS];
+
+        ChunkTask(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            Throwable error = null;
+            try {
+                compute();
+            } catch (Throwable t) {
+                error = t;
+            }
+            synchronized (lock) {
+                if (error != null && failure == null) {
+                    failure = error;
+                }
+                if (--pending == 0) {
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        void compute() {
+            int size = school.size();
+            int from = (int) ((long) size * index / chunkCount);
+            int to = (int) ((long) size * (index + 1) / chunkCount);
+            if (phase == PHASE_STEER) {
+                flocking.steer(school, from, to, deltaSeconds, neighbors);
+            } else {
+                flocking.applySteering(school, from, to);
+                school.advance(from, to, deltaSeconds);
+                school.computePoses(from, to, posesOut);
+            }
+        }
+    }
+}
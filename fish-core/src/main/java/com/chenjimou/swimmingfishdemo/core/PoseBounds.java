@@ -0,0 +1,95 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 姿态的包围盒，用于只刷新鱼实际占据的区域。
+ * <p>
+ * 包围盒按left、top、right、bottom的顺序存放在长度为{@link #SIZE}的数组中。
+ * 躯干和鱼鳍是二阶贝塞尔曲线，曲线一定位于起点、控制点和终点组成的三角形之内，梯形和三角形由顶点围成，
+ * 因此所有顶点的包围盒再并上鱼头和鱼尾的四个圆，就一定能包含整条鱼。
+ */
+public final class PoseBounds {
+
+    public static final int LEFT = 0;
+    public static final int TOP = 1;
+    public static final int RIGHT = 2;
+    public static final int BOTTOM = 3;
+    public static final int SIZE = 4;
+
+    // 圆与鱼头半径的比例，与FishPainter相同
+    private static final float TAIL_BIG_CIRCLE_SCALE = 0.7f;
+    private static final float TAIL_MIDDLE_CIRCLE_SCALE = 0.42f;
+    private static final float TAIL_SMALL_CIRCLE_SCALE = 0.168f;
+
+    private PoseBounds() {
+    }
+
+    /**
+     * 计算一条鱼的包围盒
+     * @param margin 额外向外扩展的距离，用于抗锯齿的边缘
+     */
+    public static void compute(float[] pose, int offset, float headRadius, float margin, float[] out) {
+        float left = pose[offset];
+        float top = pose[offset + 1];
+        float right = left;
+        float bottom = top;
+        for (int i = offset + 2, end = offset + FishPose.FLOATS_PER_POSE; i < end; i += 2) {
+            float x = pose[i];
+            float y = pose[i + 1];
+            if (x < left) {
+                left = x;
+            } else if (x > right) {
+                right = x;
+            }
+            if (y < top) {
+                top = y;
+            } else if (y > bottom) {
+                bottom = y;
+            }
+        }
+        out[LEFT] = left;
+        out[TOP] = top;
+        out[RIGHT] = right;
+        out[BOTTOM] = bottom;
+        includeCircle(out, pose, offset, FishPose.HEAD, headRadius);
+        includeCircle(out, pose, offset, FishPose.BODY_BOTTOM, TAIL_BIG_CIRCLE_SCALE * headRadius);
+        includeCircle(out, pose, offset, FishPose.TAIL_MIDDLE, TAIL_MIDDLE_CIRCLE_SCALE * headRadius);
+        includeCircle(out, pose, offset, FishPose.TAIL_SMALL, TAIL_SMALL_CIRCLE_SCALE * headRadius);
+        out[LEFT] -= margin;
+        out[TOP] -= margin;
+        out[RIGHT] += margin;
+        out[BOTTOM] += margin;
+    }
+
+    private static void includeCircle(float[] out, float[] pose, int offset, int center, float radius) {
+        float x = FishPose.x(pose, offset, center);
+        float y = FishPose.y(pose, offset, center);
+        out[LEFT] = Math.min(out[LEFT], x - radius);
+        out[TOP] = Math.min(out[TOP], y - radius);
+        out[RIGHT] = Math.max(out[RIGHT], x + radius);
+        out[BOTTOM] = Math.max(out[BOTTOM], y + radius);
+    }
+
+    /**
+     * 圆的包围盒
+     */
+    public static void circle(float centerX, float centerY, float radius, float[] out) {
+        out[LEFT] = centerX - radius;
+        out[TOP] = centerY - radius;
+        out[RIGHT] = centerX + radius;
+        out[BOTTOM] = centerY + radius;
+    }
+
+    /**
+     * 把bounds合并到out中
+     */
+    public static void union(float[] out, float[] bounds) {
+        out[LEFT] = Math.min(out[LEFT], bounds[LEFT]);
+        out[TOP] = Math.min(out[TOP], bounds[TOP]);
+        out[RIGHT] = Math.max(out[RIGHT], bounds[RIGHT]);
+        out[BOTTOM] = Math.max(out[BOTTOM], bounds[BOTTOM]);
+    }
+
+    public static float area(float[] bounds) {
+        return Math.max(0, bounds[RIGHT] - bounds[LEFT]) * Math.max(0, bounds[BOTTOM] - bounds[TOP]);
+    }
+}
@@ -0,0 +1,76 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在模拟线程与绘制线程之间传递姿态快照的缓冲区，读写双方都不会阻塞，也不会读到写了一半的数据。
+ * <p>
+ * 写入方总是写自己独占的后台缓冲区，写完后与中间缓冲区交换；读取方只在有新快照时把中间缓冲区换成自己的前台缓冲区。
+ * 交换通过一个AtomicInteger完成（低两位为中间缓冲区的下标，第三位表示中间缓冲区是否为新写入的），
+ * 因此除了两个对外可见的缓冲区，还需要一个中间缓冲区，保证写入方发布新快照时不会覆盖读取方正在使用的数据。
+ */
+public class PoseSnapshotBuffer {
+
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final float[][] buffers;
+    // 每个缓冲区中有效的鱼的数量
+    private final int[] counts = new int[3];
+    // 中间缓冲区的下标以及是否为新写入的
+    private final AtomicInteger middle = new AtomicInteger(1);
+    // 只由写入方访问
+    private int backIndex = 0;
+    // 只由读取方访问
+    private int frontIndex = 2;
+
+    /**
+     * @param fishCapacity 最多容纳多少条鱼的姿态
+     */
+    public PoseSnapshotBuffer(int fishCapacity) {
+        buffers = new float[3][fishCapacity * FishPose.FLOATS_PER_POSE];
+    }
+
+    /**
+     * 写入方：取得可以写入的后台缓冲区
+     */
+    public float[] beginWrite() {
+        return buffers[backIndex];
+    }
+
+    /**
+     * 写入方：发布写好的快照
+     * @param fishCount 快照中鱼的数量
+     */
+    public void publish(int fishCount) {
+        counts[backIndex] = fishCount;
+        // AtomicInteger的写入保证了之前对缓冲区的写入对读取方可见
+        backIndex = middle.getAndSet(backIndex | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * 读取方：如果有新的快照就换到前台
+     * @return 前台缓冲区是否被更新
+     */
+    public boolean acquire() {
+        if ((middle.get() & FRESH) == 0) {
+            return false;
+        }
+        frontIndex = middle.getAndSet(frontIndex) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * 读取方：最近一次acquire得到的快照
+     */
+    public float[] front() {
+        return buffers[frontIndex];
+    }
+
+    /**
+     * 读取方：前台快照中鱼的数量
+     */
+    public int frontCount() {
+        return counts[frontIndex];
+    }
+}
@@ -0,0 +1,69 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 画鱼用到的绘图操作。{@link FishRenderer}只通过这个接口绘制，
+ * Android上由Canvas实现，JVM上可以画到BufferedImage中（fish-headless模块），因此可以在没有设备的服务器上测试和做性能测试。
+ * <p>
+ * 坐标系与Android相同（y轴朝下），所有图形都用当前的颜色填充。画笔的状态（颜色、透明度、抗锯齿、抖动）保存在实现中，
+ * 设置之后对后面所有的绘制生效（{@link #drawTriangles}除外）。
+ */
+public interface RenderBackend {
+
+    /**
+     * @param argb 颜色，包括透明度
+     */
+    void setColor(int argb);
+
+    /**
+     * 只修改透明度，颜色不变
+     * @param alpha 0~255
+     */
+    void setAlpha(int alpha);
+
+    void setAntiAlias(boolean antiAlias);
+
+    void setDither(boolean dither);
+
+    void drawCircle(float cx, float cy, float radius);
+
+    /**
+     * 开始一个新的路径，之前没有画出或保留的路径会被丢弃
+     */
+    void beginPath();
+
+    void moveTo(float x, float y);
+
+    void lineTo(float x, float y);
+
+    /**
+     * 二阶贝塞尔曲线
+     */
+    void quadTo(float controlX, float controlY, float x, float y);
+
+    /**
+     * 填充当前的路径
+     */
+    void fillPath();
+
+    /**
+     * 把当前的路径保留下来，之后可以多次按不同的位置和朝向填充，用于不会变形的部位
+     * @return 保留的路径的编号
+     */
+    int retainPath();
+
+    /**
+     * 填充保留的路径：局部坐标(u, v)变换为(originX + u * cos + v * sin, originY - u * sin + v * cos)，
+     * 与{@link FishPartTemplates}的局部坐标系相同
+     * @param path {@link #retainPath()}返回的编号
+     */
+    void fillRetainedPath(int path, float cos, float sin, float originX, float originY);
+
+    /**
+     * 一次画出一组三角形，每3个顶点一个三角形，用于{@link FishMeshRenderer}把整个鱼群合并为一次绘制。
+     * 每个顶点的颜色（包括透明度）单独给出，不使用当前的颜色，也不做抗锯齿
+     * @param vertices 依次存放每个顶点的x、y坐标
+     * @param colors 每个顶点的颜色
+     * @param vertexCount 顶点数，是3的倍数
+     */
+    void drawTriangles(float[] vertices, int[] colors, int vertexCount);
+}
@@ -0,0 +1,172 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 点击产生的波纹：最多同时保留capacity个，圆心和已经播放的时间存放在固定大小的环形数组中。
+ * 所有波纹的时长相同，所以最早添加的总是最先结束，结束的波纹从环的头部移除；
+ * 波纹已满时新的波纹覆盖最早的一个。添加、推进和回收都不分配内存。
+ * <p>
+ * 所有波纹由调用者按同一帧的时间一起推进，绘制时依次取出每个波纹的圆心、半径和透明度，一次画完。
+ * 半径按{@link Interpolation#accelerateDecelerate(float)}从0扩大到最大半径，透明度同时从{@link #MAX_ALPHA}降到0，
+ * 与原先每次点击启动一个属性动画的效果相同。
+ * <p>
+ * 不是线程安全的。
+ */
+public class RipplePool {
+
+    // 默认最多同时存在的波纹数，再多时覆盖最早的波纹
+    public static final int DEFAULT_CAPACITY = 8;
+    // 波纹的时长（秒）
+    public static final float DEFAULT_DURATION_SECONDS = 1f;
+    // 波纹的最大半径（像素）
+    public static final float DEFAULT_MAX_RADIUS = 100f;
+    // 波纹刚出现时的透明度
+    public static final int MAX_ALPHA = 100;
+
+    private final float[] xs;
+    private final float[] ys;
+    // 每个波纹已经播放的时间（秒）
+    private final float[] elapsed;
+    private final float duration;
+    private final float maxRadius;
+    // 最早的波纹在数组中的下标，以及波纹的数量
+    private int head;
+    private int count;
+
+    public RipplePool(int capacity) {
+        this(capacity, DEFAULT_DURATION_SECONDS, DEFAULT_MAX_RADIUS);
+    }
+
+    /**
+     * @param capacity 最多同时存在的波纹数
+     * @param durationSeconds 每个波纹的时长（秒）
+     * @param maxRadius 波纹结束时的半径
+     */
+    public RipplePool(int capacity, float durationSeconds, float maxRadius) {
+        if (capacity <= 0 || durationSeconds <= 0) {
+            throw new IllegalArgumentException("capacity " + capacity + ", duration " + durationSeconds);
+        }
+        xs = new float[capacity];
+        ys = new float[capacity];
+        elapsed = new float[capacity];
+        this.duration = durationSeconds;
+        this.maxRadius = maxRadius;
+    }
+
+    /**
+     * 在(x, y)添加一个新的波纹
+     * @return 波纹已满、覆盖了最早的一个时返回true
+     */
+    public boolean add(float x, float y) {
+        int capacity = xs.length;
+        boolean recycled = count == capacity;
+        if (recycled) {
+            head = next(head);
+            count--;
+        }
+        int index = slot(count);
+        xs[index] = x;
+        ys[index] = y;
+        elapsed[index] = 0;
+        count++;
+        return recycled;
+    }
+
+    /**
+     * 推进所有波纹，移除已经结束的波纹
+     * @param deltaSeconds 距离上一次推进经过的时间（秒）
+     * @return 这次结束的波纹数
+     */
+    public int advance(float deltaSeconds) {
+        for (int i = 0; i < count; i++) {
+            elapsed[slot(i)] += deltaSeconds;
+        }
+        int finished = 0;
+        while (count > 0 && elapsed[head] >= duration) {
+            head = next(head);
+            count--;
+            finished++;
+        }
+        return finished;
+    }
+
+    public void clear() {
+        head = 0;
+        count = 0;
+    }
+
+    /**
+     * 当前的波纹数
+     */
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return xs.length;
+    }
+
+    public float getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * @param i 0~size()-1，0为最早的波纹
+     */
+    public float getX(int i) {
+        return xs[slot(i)];
+    }
+
+    public float getY(int i) {
+        return ys[slot(i)];
+    }
+
+    public float getRadius(int i) {
+        return progress(i) * maxRadius;
+    }
+
+    /**
+     * @return 0~{@link #MAX_ALPHA}
+     */
+    public int getAlpha(int i) {
+        return (int) (MAX_ALPHA * (1 - progress(i)));
+    }
+
+    /**
+     * 所有波纹的包围盒，排列见{@link PoseBounds}
+     * @param padding 每个圆向外多留的距离，例如画笔宽度的一半
+     * @return 没有波纹时返回false，out不变
+     */
+    public boolean computeBounds(float padding, float[] out) {
+        if (count == 0) {
+            return false;
+        }
+        PoseBounds.circle(getX(0), getY(0), getRadius(0) + padding, out);
+        for (int i = 1; i < count; i++) {
+            float radius = getRadius(i) + padding;
+            float x = getX(i);
+            float y = getY(i);
+            out[PoseBounds.LEFT] = Math.min(out[PoseBounds.LEFT], x - radius);
+            out[PoseBounds.TOP] = Math.min(out[PoseBounds.TOP], y - radius);
+            out[PoseBounds.RIGHT] = Math.max(out[PoseBounds.RIGHT], x + radius);
+            out[PoseBounds.BOTTOM] = Math.max(out[PoseBounds.BOTTOM], y + radius);
+        }
+        return true;
+    }
+
+    /**
+     * 插值后的进度（0~1）
+     */
+    private float progress(int i) {
+        float t = elapsed[slot(i)] / duration;
+        return Interpolation.accelerateDecelerate(t >= 1 ? 1 : t);
+    }
+
+    private int slot(int i) {
+        int index = head + i;
+        return index >= xs.length ? index - xs.length : index;
+    }
+
+    private int next(int index) {
+        return index + 1 == xs.length ? 0 : index + 1;
+    }
+}
@@ -0,0 +1,170 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 均匀网格空间索引，用于查询某个点周围一定半径内的鱼。
+ * <p>
+ * 网格坐标经过哈希映射到固定大小的桶数组中，因此鱼游到哪里都不需要扩容。
+ * 每个桶是一个用int数组实现的双向链表（桶头 + 每条鱼的前驱和后继），
+ * 鱼移动时只有跨越格子才需要从旧桶摘下并挂到新桶，每一帧的更新是增量的，查询和更新都不创建对象。
+ * 不同的格子可能被哈希到同一个桶，查询时会校验每条鱼实际所在的格子，不会重复返回。
+ */
+public class SpatialGrid {
+
+    private static final int NONE = -1;
+
+    private final float cellSize;
+    private final float inverseCellSize;
+    private final int capacity;
+    private final int bucketMask;
+    // 每个桶的第一条鱼
+    private final int[] bucketHead;
+    // 每条鱼在桶链表中的前驱和后继
+    private final int[] next;
+    private final int[] previous;
+    // 每条鱼所在的桶以及格子坐标，桶为NONE表示不在网格中
+    private final int[] agentBucket;
+    private final int[] agentCellX;
+    private final int[] agentCellY;
+
+    /**
+     * @param cellSize 格子的边长，通常取邻居查询的半径
+     * @param capacity 最多容纳多少条鱼
+     */
+    public SpatialGrid(float cellSize, int capacity) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1f / cellSize;
+        this.capacity = capacity;
+        int bucketCount = Integer.highestOneBit(Math.max(2, capacity * 2) - 1) << 1;
+        this.bucketMask = bucketCount - 1;
+        bucketHead = new int[bucketCount];
+        next = new int[capacity];
+        previous = new int[capacity];
+        agentBucket = new int[capacity];
+        agentCellX = new int[capacity];
+        agentCellY = new int[capacity];
+        clear();
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 移除所有的鱼
+     */
+    public void clear() {
+        java.util.Arrays.fill(bucketHead, NONE);
+        java.util.Arrays.fill(agentBucket, NONE);
+    }
+
+    /**
+     * 更新一条鱼的位置，没有跨越格子时不做任何链表操作
+     */
+    public void update(int agent, float x, float y) {
+        int cellX = cellCoordinate(x);
+        int cellY = cellCoordinate(y);
+        int bucket = agentBucket[agent];
+        if (bucket != NONE) {
+            if (agentCellX[agent] == cellX && agentCellY[agent] == cellY) {
+                return;
+            }
+            unlink(agent, bucket);
+        }
+        agentCellX[agent] = cellX;
+        agentCellY[agent] = cellY;
+        link(agent, bucketOf(cellX, cellY));
+    }
+
+    /**
+     * 批量更新下标在[from, to)范围内的鱼的位置
+     */
+    public void updateAll(float[] xs, float[] ys, int from, int to) {
+        for (int i = from; i < to; i++) {
+            update(i, xs[i], ys[i]);
+        }
+    }
+
+    public void remove(int agent) {
+        int bucket = agentBucket[agent];
+        if (bucket != NONE) {
+            unlink(agent, bucket);
+        }
+    }
+
+    /**
+     * 查询(x, y)周围radius范围内的鱼，结果按桶内链表的顺序写入out，超出out的长度时只返回前面的部分
+     * @param xs 所有鱼的x坐标
+     * @param ys 所有鱼的y坐标
+     * @param exclude 不需要返回的鱼（通常是查询者自己），没有时传-1
+     * @param out 结果
+     * @return 写入out的数量
+     */
+    public int query(float x, float y, float radius, float[] xs, float[] ys, int exclude, int[] out) {
+        int minCellX = cellCoordinate(x - radius);
+        int maxCellX = cellCoordinate(x + radius);
+        int minCellY = cellCoordinate(y - radius);
+        int maxCellY = cellCoordinate(y + radius);
+        float radiusSquared = radius * radius;
+        int count = 0;
+        int limit = out.length;
+        for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                int agent = bucketHead[bucketOf(cellX, cellY)];
+                while (agent != NONE) {
+                    if (agent != exclude && agentCellX[agent] == cellX && agentCellY[agent] == cellY) {
+                        float dx = xs[agent] - x;
+                        float dy = ys[agent] - y;
+                        if (dx * dx + dy * dy <= radiusSquared) {
+                            out[count++] = agent;
+                            if (count == limit) {
+                                return count;
+                            }
+                        }
+                    }
+                    agent = next[agent];
+                }
+            }
+        }
+        return count;
+    }
+
+    private int cellCoordinate(float value) {
+        return (int) Math.floor(value * inverseCellSize);
+    }
+
+    private int bucketOf(int cellX, int cellY) {
+        return (cellX * 73856093 ^ cellY * 19349663) & bucketMask;
+    }
+
+    private void link(int agent, int bucket) {
+        int head = bucketHead[bucket];
+        next[agent] = head;
+        previous[agent] = NONE;
+        if (head != NONE) {
+            previous[head] = agent;
+        }
+        bucketHead[bucket] = agent;
+        agentBucket[agent] = bucket;
+    }
+
+    private void unlink(int agent, int bucket) {
+        int before = previous[agent];
+        int after = next[agent];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            bucketHead[bucket] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+        agentBucket[agent] = NONE;
+    }
+}
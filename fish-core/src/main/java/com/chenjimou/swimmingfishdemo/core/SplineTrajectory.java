@@ -0,0 +1,118 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 由多段三阶贝塞尔曲线首尾相接组成的游动轨迹，整体按弧长参数化。
+ * <p>
+ * 每一段是一个{@link CubicTrajectory}，各段的累计长度另存一张表：按走过的弧长比例求位置时，
+ * 先在累计长度表中找到所在的段，再在这一段的弧长表中查找。所有的段在构造时创建，设置曲线不分配内存。
+ * 只有一段时与直接使用{@link CubicTrajectory}的结果完全相同。
+ */
+public class SplineTrajectory {
+
+    public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+    private final CubicTrajectory[] segments;
+    // segmentEnds[i]为前i + 1段的累计长度
+    private final float[] segmentEnds;
+    private int segmentCount;
+    private float length;
+
+    public SplineTrajectory() {
+        this(DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * @param maxSegments 最多可以有多少段
+     */
+    public SplineTrajectory(int maxSegments) {
+        if (maxSegments < 1) {
+            throw new IllegalArgumentException("maxSegments must be positive: " + maxSegments);
+        }
+        segments = new CubicTrajectory[maxSegments];
+        for (int i = 0; i < maxSegments; i++) {
+            segments[i] = new CubicTrajectory();
+        }
+        segmentEnds = new float[maxSegments];
+    }
+
+    /**
+     * 只有一段曲线，points的排列与{@link SwimPath#points}相同
+     */
+    public void set(float[] points) {
+        segmentCount = 0;
+        length = 0;
+        addSegment(points[0], points[1], points[2], points[3], points[4], points[5], points[6], points[7]);
+    }
+
+    /**
+     * 设置曲线，points中依次存放起点，然后每一段的控制点1、控制点2、终点，每个点占两个float，
+     * 共(1 + 3 * segmentCount) * 2个float
+     */
+    public void set(float[] points, int segmentCount) {
+        if (segmentCount < 1 || segmentCount > segments.length) {
+            throw new IllegalArgumentException("segmentCount " + segmentCount + ", max " + segments.length);
+        }
+        this.segmentCount = 0;
+        length = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            int offset = i * 6;
+            addSegment(points[offset], points[offset + 1], points[offset + 2], points[offset + 3],
+                    points[offset + 4], points[offset + 5], points[offset + 6], points[offset + 7]);
+        }
+    }
+
+    private void addSegment(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3) {
+        CubicTrajectory segment = segments[segmentCount];
+        segment.set(x0, y0, x1, y1, x2, y2, x3, y3);
+        length += segment.getLength();
+        segmentEnds[segmentCount] = length;
+        segmentCount++;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public int getMaxSegments() {
+        return segments.length;
+    }
+
+    public CubicTrajectory getSegment(int index) {
+        return segments[index];
+    }
+
+    public float getLength() {
+        return length;
+    }
+
+    /**
+     * 与PathMeasure.getPosTan相同：根据走过的弧长比例，计算位置和单位切线向量
+     * @param fraction 0~1
+     * @param pos 位置，可以为空
+     * @param tan 单位切线向量，可以为空
+     */
+    public void getPosTan(float fraction, float[] pos, float[] tan) {
+        if (segmentCount == 1 || length <= 0) {
+            segments[0].getPosTan(fraction, pos, tan);
+            return;
+        }
+        if (fraction <= 0) {
+            segments[0].getPosTan(0, pos, tan);
+            return;
+        }
+        if (fraction >= 1) {
+            segments[segmentCount - 1].getPosTan(1, pos, tan);
+            return;
+        }
+        float distance = fraction * length;
+        // 段数很少，顺序查找即可
+        int index = 0;
+        while (index < segmentCount - 1 && segmentEnds[index] < distance) {
+            index++;
+        }
+        float start = index == 0 ? 0 : segmentEnds[index - 1];
+        float segmentLength = segmentEnds[index] - start;
+        float segmentFraction = segmentLength > 0 ? (distance - start) / segmentLength : 0;
+        segments[index].getPosTan(segmentFraction, pos, tan);
+    }
+}
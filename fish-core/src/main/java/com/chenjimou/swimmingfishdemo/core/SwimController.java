@@ -0,0 +1,175 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 鱼游向触摸点的控制器：一条鱼只有一个，游动途中再次点击时不会再开始一个新的动画，而是从当前的位置重新规划路线。
+ * <p>
+ * 新的路线与原来的一样由{@link SwimPath}计算，起点为鱼当前的重心、控制点1在当前路线的切线方向上（与重心的距离等于到鱼头圆心的距离），
+ * 而不是摆动中的鱼头圆心，因此出发的方向就是当前的朝向，不受鱼头摆动的影响；
+ * 沿新路线的进度使用{@link Interpolation#accelerateDecelerate(float, float)}，起点的斜率按当前的速度计算，
+ * 所以改变目标的前后位置、方向和速度都是连续的（C1连续）。从静止出发时与属性动画默认的插值器相同。
+ * <p>
+ * 设置了{@link SwimPlanner}时路线改由它规划，绕开布局的边界和障碍物，可能由多段曲线组成，出发的方向和速度同样是连续的。
+ * <p>
+ * 由调用者按经过的时间推进，不依赖Android的动画框架，推进和改变目标都不分配内存。所有坐标都是相对于布局的坐标。
+ */
+public class SwimController {
+
+    private final float headRadius;
+    private final SwimPath swimPath = new SwimPath();
+    private final SplineTrajectory trajectory = new SplineTrajectory();
+    // 为空时不避开障碍物
+    private SwimPlanner planner;
+    private final float[] pos = new float[2];
+    private final float[] tan = new float[2];
+
+    private float duration = SwimmingFish.DEFAULT_SWIM_DURATION_SECONDS;
+    // 当前这段路线的时长，修改duration不影响正在游的这一段
+    private float swimDuration;
+    private boolean swimming;
+    private float elapsed;
+    // 沿当前路线的进度在起点的斜率，从静止出发时为0
+    private float initialSlope;
+
+    private float keyX;
+    private float keyY;
+    private float headAngle;
+    // 当前沿路线的速度（像素/秒）
+    private float speed;
+    // 改变目标的次数（游动途中重新规划路线）
+    private int retargetCount;
+
+    public SwimController(float headRadius) {
+        this.headRadius = headRadius;
+    }
+
+    /**
+     * 从当前的位置和朝向开始游向(touchX, touchY)。正在游动时从当前位置重新规划，方向和速度保持连续
+     * @param keyX 鱼的重心
+     * @param keyY 鱼的重心
+     * @param headX 鱼头的圆心，静止时决定出发的方向；正在游动时只使用它与重心的距离，方向沿当前路线的切线
+     * @param headY 鱼头的圆心
+     */
+    public void swimTo(float keyX, float keyY, float headX, float headY, float touchX, float touchY) {
+        float currentSpeed = swimming ? speed : 0;
+        if (swimming) {
+            // 摆动中的鱼头圆心偏离切线最多有鱼头的摆动幅度，用它出发会使朝向跳变
+            float distance = (float) Math.hypot(headX - keyX, headY - keyY);
+            headX = keyX + FastMath.cosDeg(headAngle) * distance;
+            headY = keyY - FastMath.sinDeg(headAngle) * distance;
+        }
+        if (planner != null) {
+            planner.plan(keyX, keyY, headX, headY, touchX, touchY, trajectory);
+        } else {
+            swimPath.set(keyX, keyY, headX, headY, touchX, touchY, headRadius);
+            trajectory.set(swimPath.points);
+        }
+        float length = trajectory.getLength();
+        // 起点的斜率 = 当前速度 / 新路线的平均速度，超过上限时进度会往回走，只能限制在上限以内
+        float slope = length > 0 ? currentSpeed * duration / length : 0;
+        swimDuration = duration;
+        initialSlope = Math.min(slope, Interpolation.MAX_INITIAL_SLOPE);
+        if (swimming) {
+            retargetCount++;
+        }
+        swimming = true;
+        elapsed = 0;
+        this.keyX = keyX;
+        this.keyY = keyY;
+        this.speed = currentSpeed;
+        // 还没有推进时再次改变目标，也从新路线起点的切线方向出发
+        trajectory.getPosTan(0, null, tan);
+        headAngle = FastMath.atan2Deg(-tan[1], tan[0]);
+    }
+
+    /**
+     * 推进游动
+     * @param deltaSeconds 距离上一次推进经过的时间（秒）
+     * @return 推进之后是否仍在游动
+     */
+    public boolean advance(float deltaSeconds) {
+        if (!swimming) {
+            return false;
+        }
+        elapsed += deltaSeconds;
+        float fraction = elapsed >= swimDuration ? 1f : elapsed / swimDuration;
+        trajectory.getPosTan(Interpolation.accelerateDecelerate(fraction, initialSlope), pos, tan);
+        keyX = pos[0];
+        keyY = pos[1];
+        headAngle = FastMath.atan2Deg(-tan[1], tan[0]);
+        if (fraction >= 1f) {
+            swimming = false;
+            speed = 0;
+        } else {
+            speed = trajectory.getLength() / swimDuration * Interpolation.accelerateDecelerateSlope(fraction, initialSlope);
+        }
+        return swimming;
+    }
+
+    /**
+     * 停止游动，停在当前的位置
+     */
+    public void stop() {
+        swimming = false;
+        speed = 0;
+    }
+
+    public boolean isSwimming() {
+        return swimming;
+    }
+
+    public float getKeyX() {
+        return keyX;
+    }
+
+    public float getKeyY() {
+        return keyY;
+    }
+
+    /**
+     * 当前路线切线方向的角度（Android坐标系，y轴朝下），开始游动之后才有效
+     */
+    public float getHeadAngle() {
+        return headAngle;
+    }
+
+    /**
+     * 当前沿路线的速度（像素/秒）
+     */
+    public float getSpeed() {
+        return speed;
+    }
+
+    /**
+     * 设置避开障碍物的路线规划，从下一次{@link #swimTo}开始生效
+     * @param planner 为空时与原来一样只用一段曲线游向触摸点
+     */
+    public void setPlanner(SwimPlanner planner) {
+        this.planner = planner;
+    }
+
+    public SwimPlanner getPlanner() {
+        return planner;
+    }
+
+    /**
+     * 当前的路线
+     */
+    public SplineTrajectory getTrajectory() {
+        return trajectory;
+    }
+
+    public int getRetargetCount() {
+        return retargetCount;
+    }
+
+    public float getDuration() {
+        return duration;
+    }
+
+    /**
+     * 设置每次游到目标的时长（秒），从下一次{@link #swimTo}开始生效
+     */
+    public void setDuration(float durationSeconds) {
+        this.duration = durationSeconds;
+    }
+}
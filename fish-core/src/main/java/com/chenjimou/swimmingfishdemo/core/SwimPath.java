@@ -0,0 +1,52 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 鱼游向触摸点的路线：一条三阶贝塞尔曲线。
+ * 起点为鱼的重心，控制点1为鱼头圆心（保证鱼沿着当前朝向出发），
+ * 控制点2位于起点附近、朝向触摸点一侧偏转一半夹角的位置，终点为触摸点。
+ * 所有坐标都是相对于布局的坐标（绝对坐标）。
+ */
+public class SwimPath {
+
+    // 起点、控制点1、控制点2、终点
+    public static final int START = 0;
+    public static final int CONTROL_1 = 1;
+    public static final int CONTROL_2 = 2;
+    public static final int END = 3;
+
+    // 四个点依次存放，每个点占两个float
+    public final float[] points = new float[8];
+
+    /**
+     * 根据鱼当前的位置和朝向计算游向触摸点的路线
+     * @param keyX 鱼的重心x坐标
+     * @param keyY 鱼的重心y坐标
+     * @param headX 鱼头圆心x坐标
+     * @param headY 鱼头圆心y坐标
+     * @param touchX 触摸点x坐标
+     * @param touchY 触摸点y坐标
+     * @param headRadius 鱼头的半径
+     */
+    public void set(float keyX, float keyY, float headX, float headY, float touchX, float touchY,
+                    float headRadius) {
+        float angle = FishGeometry.includeAngle(keyX, keyY, headX, headY, touchX, touchY) / 2;
+        float delta = FishGeometry.includeAngle(keyX, keyY, keyX + 1, keyY, headX, headY);
+
+        points[START * 2] = keyX;
+        points[START * 2 + 1] = keyY;
+        points[CONTROL_1 * 2] = headX;
+        points[CONTROL_1 * 2 + 1] = headY;
+        // 控制点2的坐标
+        FishGeometry.calculatePoint(keyX, keyY, headRadius * 1.6f, angle + delta, points, CONTROL_2 * 2);
+        points[END * 2] = touchX;
+        points[END * 2 + 1] = touchY;
+    }
+
+    public float x(int point) {
+        return points[point * 2];
+    }
+
+    public float y(int point) {
+        return points[point * 2 + 1];
+    }
+}
@@ -0,0 +1,408 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 避开障碍物的游动路线规划，障碍物（布局的边界和子View）由{@link ObstacleField}的距离场表示。
+ * <p>
+ * 规划分为几步，每一步的开销都与路线经过的格子数成正比，而与障碍物的数量无关：
+ * <ol>
+ * <li>目标点离障碍物太近（或在障碍物内部）时，沿距离场的梯度把它推到可以到达的位置；</li>
+ * <li>原先的单段曲线（{@link SwimPath}）上所有点都离障碍物足够远时直接使用它，没有障碍物时与原来的路线相同；</li>
+ * <li>否则从鱼的重心出发，每次朝目标走半个格子，被挡住时沿障碍物的等距线绕行（始终朝同一侧），得到一条折线；</li>
+ * <li>用角度窗口（sleeve-fitting）把折线简化成少量关键点，关键点之间的直线与折线的偏差不超过容差；</li>
+ * <li>关键点之间用Catmull-Rom切线连成多段三阶贝塞尔曲线，第一段沿鱼当前的朝向出发。
+ * 曲线按半个格子的间隔检查一遍，碰到障碍物时退回直线段。</li>
+ * </ol>
+ * 规划时按间隙再加一个格子的余量绕行，简化和平滑产生的偏差都在余量以内，所以最终的曲线不会进入间隙。
+ * 目标被完全包围、或路线太长（超过步数或段数的上限）时，路线在能到达的最远处结束，{@link #plan}返回false。
+ * <p>
+ * 所有的缓冲区在构造时分配，规划不分配内存。同一个线程中可以用一个对象依次为多条鱼规划。不是线程安全的。
+ */
+public class SwimPlanner {
+
+    public static final int DEFAULT_MAX_STEPS = 1024;
+    // 游动时鱼的重心与障碍物（布局的边界和子View）之间的默认最小距离与鱼头半径之比
+    public static final float DEFAULT_CLEARANCE_RATIO = 2f;
+    // 简化折线时跳过与关键点重合的点
+    private static final float MIN_KEY_DISTANCE = 1e-3f;
+
+    private final ObstacleField field;
+    private final float headRadius;
+    private final float clearance;
+    private final float margin;
+    private final float stepLength;
+    private final int maxSteps;
+
+    private final SwimPath swimPath = new SwimPath();
+    private final float[] gradient = new float[2];
+    private final float[] pos = new float[2];
+    // 绕行得到的折线，每个点占两个float
+    private final float[] polyline;
+    private int polylineSize;
+    // 关键点在折线中的下标
+    private final int[] keys;
+    private int keyCount;
+    // 多段曲线的点，与SplineTrajectory.set(float[], int)的排列相同，按关键点最多时的段数预先分配
+    private final float[] controlPoints;
+
+    private float endX;
+    private float endY;
+    private boolean usedSinglePath;
+
+    /**
+     * @param field 障碍物的距离场，maxDistance应该不小于clearance加一个格子
+     * @param headRadius 鱼头的半径，用于计算原先的单段曲线
+     * @param clearance 鱼的重心到障碍物的最小距离
+     */
+    public SwimPlanner(ObstacleField field, float headRadius, float clearance) {
+        this(field, headRadius, clearance, DEFAULT_MAX_STEPS);
+    }
+
+    /**
+     * @param maxSteps 绕行时最多走多少步（每步半个格子）
+     */
+    public SwimPlanner(ObstacleField field, float headRadius, float clearance, int maxSteps) {
+        if (clearance < 0 || maxSteps < 1) {
+            throw new IllegalArgumentException("clearance " + clearance + ", maxSteps " + maxSteps);
+        }
+        this.field = field;
+        this.headRadius = headRadius;
+        this.clearance = clearance;
+        this.margin = field.getCellSize();
+        this.stepLength = field.getCellSize() * 0.5f;
+        this.maxSteps = maxSteps;
+        polyline = new float[(maxSteps + 2) * 2];
+        keys = new int[maxSteps + 2];
+        int maxSegments = keys.length - 1;
+        controlPoints = new float[(1 + 3 * maxSegments) * 2];
+    }
+
+    /**
+     * 距离场需要计算到的最远距离：间隙之外再留出两个鱼头半径，绕行时沿等距线行走不会超出距离场
+     */
+    public static float fieldMaxDistance(float headRadius, float clearance) {
+        return clearance + headRadius * 2;
+    }
+
+    public ObstacleField getField() {
+        return field;
+    }
+
+    public float getClearance() {
+        return clearance;
+    }
+
+    /**
+     * 规划从鱼当前的位置游向目标的路线，结果写入out
+     * @param keyX 鱼的重心
+     * @param keyY 鱼的重心
+     * @param headX 鱼头的圆心，决定出发的方向
+     * @param headY 鱼头的圆心
+     * @return 路线是否到达了（调整后的）目标，为false时路线在能到达的最远处结束
+     */
+    public boolean plan(float keyX, float keyY, float headX, float headY, float targetX, float targetY,
+                        SplineTrajectory out) {
+        float planClearance = clearance + margin;
+        // 1. 把目标推到离障碍物足够远的位置
+        for (int i = 0; i < 8; i++) {
+            float distance = field.distanceAt(targetX, targetY);
+            if (distance >= planClearance) {
+                break;
+            }
+            field.gradientAt(targetX, targetY, gradient);
+            if (gradient[0] == 0 && gradient[1] == 0) {
+                break;
+            }
+            float push = Math.min(planClearance - distance, field.getMaxDistance());
+            targetX += gradient[0] * push;
+            targetY += gradient[1] * push;
+        }
+        // 起点已经在间隙内时，路线只要不比起点更深入障碍物即可
+        float allowed = Math.min(clearance, field.distanceAt(keyX, keyY));
+
+        // 2. 原先的单段曲线没有碰到障碍物时直接使用
+        swimPath.set(keyX, keyY, headX, headY, targetX, targetY, headRadius);
+        out.set(swimPath.points);
+        if (isClear(out, allowed)) {
+            usedSinglePath = true;
+            endX = targetX;
+            endY = targetY;
+            polylineSize = 0;
+            keyCount = 0;
+            return true;
+        }
+        usedSinglePath = false;
+
+        // 3. 绕开障碍物的折线
+        boolean reached = march(keyX, keyY, targetX, targetY, planClearance);
+
+        // 4. 简化成关键点，超过曲线段数的上限时在最后一个关键点结束
+        simplify(margin * 0.5f);
+        if (keyCount - 1 > out.getMaxSegments()) {
+            keyCount = out.getMaxSegments() + 1;
+            reached = false;
+        }
+        endX = polyline[keys[keyCount - 1] * 2];
+        endY = polyline[keys[keyCount - 1] * 2 + 1];
+
+        // 5. 平滑成多段曲线，碰到障碍物时退回直线段
+        int segmentCount = keyCount - 1;
+        if (segmentCount == 0) {
+            // 被困在原地
+            buildSegments(keyX, keyY, headX, headY, 0);
+            out.set(controlPoints, 1);
+            return false;
+        }
+        buildSegments(keyX, keyY, headX, headY, 1f);
+        out.set(controlPoints, segmentCount);
+        if (!isClear(out, allowed)) {
+            buildSegments(keyX, keyY, headX, headY, 0);
+            out.set(controlPoints, segmentCount);
+        }
+        return reached;
+    }
+
+    /**
+     * 每次朝目标走一步，被挡住时沿距离为planClearance的等距线绕行，直到可以继续朝目标走
+     */
+    private boolean march(float x, float y, float targetX, float targetY, float planClearance) {
+        polylineSize = 0;
+        addPoint(x, y);
+        // 绕行的方向：1为逆时针，-1为顺时针，0为没有在绕行
+        int side = 0;
+        // 开始绕行时到目标的距离，比它更接近目标之后才重新选择绕行的方向，避免在凹处来回掉头
+        float hitDistance = Float.MAX_VALUE;
+        for (int step = 0; step < maxSteps; step++) {
+            float dx = targetX - x;
+            float dy = targetY - y;
+            float distanceToTarget = (float) Math.sqrt(dx * dx + dy * dy);
+            float current = field.distanceAt(x, y);
+            if (distanceToTarget <= stepLength) {
+                if (field.distanceAt(targetX, targetY) >= Math.min(planClearance, current)) {
+                    addPoint(targetX, targetY);
+                    return true;
+                }
+                return false;
+            }
+            float directionX = dx / distanceToTarget;
+            float directionY = dy / distanceToTarget;
+            float nextX = x + directionX * stepLength;
+            float nextY = y + directionY * stepLength;
+            float next = field.distanceAt(nextX, nextY);
+            if (next >= planClearance || next > current) {
+                // 可以直接朝目标走，或者正在离开障碍物
+                if (distanceToTarget < hitDistance - margin) {
+                    side = 0;
+                }
+                x = nextX;
+                y = nextY;
+                addPoint(x, y);
+                continue;
+            }
+            field.gradientAt(x, y, gradient);
+            if (gradient[0] == 0 && gradient[1] == 0) {
+                return false;
+            }
+            if (side == 0) {
+                // 选择更接近目标方向的一侧，绕完这个障碍物之前不再改变
+                side = gradient[0] * directionY - gradient[1] * directionX >= 0 ? 1 : -1;
+                hitDistance = distanceToTarget;
+            }
+            nextX = x - side * gradient[1] * stepLength;
+            nextY = y + side * gradient[0] * stepLength;
+            // 拉回到等距线上，每步最多移动一步的距离
+            next = field.distanceAt(nextX, nextY);
+            field.gradientAt(nextX, nextY, gradient);
+            float pull = Math.max(-stepLength, Math.min(stepLength, planClearance - next));
+            nextX += gradient[0] * pull;
+            nextY += gradient[1] * pull;
+            x = nextX;
+            y = nextY;
+            addPoint(x, y);
+        }
+        return false;
+    }
+
+    private void addPoint(float x, float y) {
+        polyline[polylineSize * 2] = x;
+        polyline[polylineSize * 2 + 1] = y;
+        polylineSize++;
+    }
+
+    /**
+     * 角度窗口简化：从当前关键点看出去，所有中间点都在容差以内的方向构成一个角度范围，
+     * 下一个点的方向落在范围之外时，把前一个点作为新的关键点。开销与折线的点数成正比
+     */
+    private void simplify(float tolerance) {
+        keyCount = 0;
+        keys[keyCount++] = 0;
+        int anchor = 0;
+        // 相对参考方向的角度范围
+        float referenceX = 0;
+        float referenceY = 0;
+        float low = 0;
+        float high = 0;
+        boolean hasWindow = false;
+        for (int i = 1; i < polylineSize; i++) {
+            float dx = polyline[i * 2] - polyline[anchor * 2];
+            float dy = polyline[i * 2 + 1] - polyline[anchor * 2 + 1];
+            float distance = (float) Math.sqrt(dx * dx + dy * dy);
+            if (distance < MIN_KEY_DISTANCE) {
+                continue;
+            }
+            if (!hasWindow) {
+                referenceX = dx / distance;
+                referenceY = dy / distance;
+            }
+            float angle = (float) Math.atan2(referenceX * dy - referenceY * dx, referenceX * dx + referenceY * dy);
+            if (hasWindow && (angle < low || angle > high)) {
+                anchor = i - 1;
+                keys[keyCount++] = anchor;
+                hasWindow = false;
+                i--;
+                continue;
+            }
+            float halfWidth = distance <= tolerance ? (float) Math.PI : (float) Math.asin(tolerance / distance);
+            if (hasWindow) {
+                low = Math.max(low, angle - halfWidth);
+                high = Math.min(high, angle + halfWidth);
+            } else {
+                low = angle - halfWidth;
+                high = angle + halfWidth;
+                hasWindow = true;
+            }
+        }
+        if (keys[keyCount - 1] != polylineSize - 1) {
+            keys[keyCount++] = polylineSize - 1;
+        }
+    }
+
+    /**
+     * 关键点之间连成多段三阶贝塞尔曲线
+     * @param tension 为1时使用Catmull-Rom切线（限制在相邻两段中较短的一段以内，避免过冲），为0时为直线段
+     */
+    private void buildSegments(float keyX, float keyY, float headX, float headY, float tension) {
+        int segmentCount = Math.max(1, keyCount - 1);
+        if (keyCount < 2) {
+            // 原地不动的一段
+            for (int i = 0; i < 8; i += 2) {
+                controlPoints[i] = keyX;
+                controlPoints[i + 1] = keyY;
+            }
+            return;
+        }
+        controlPoints[0] = keyX(0);
+        controlPoints[1] = keyY(0);
+        for (int i = 0; i < segmentCount; i++) {
+            float x0 = keyX(i);
+            float y0 = keyY(i);
+            float x3 = keyX(i + 1);
+            float y3 = keyY(i + 1);
+            float chordX = x3 - x0;
+            float chordY = y3 - y0;
+            float chord = (float) Math.sqrt(chordX * chordX + chordY * chordY);
+            int offset = 2 + i * 6;
+            if (tension == 0 || chord == 0) {
+                controlPoints[offset] = x0 + chordX / 3;
+                controlPoints[offset + 1] = y0 + chordY / 3;
+                controlPoints[offset + 2] = x3 - chordX / 3;
+                controlPoints[offset + 3] = y3 - chordY / 3;
+            } else {
+                if (i == 0) {
+                    // 第一段沿鱼当前的朝向出发
+                    tangent(headX - keyX, headY - keyY, chord);
+                } else {
+                    catmullRomTangent(i, chord);
+                }
+                controlPoints[offset] = x0 + pos[0] * tension / 3;
+                controlPoints[offset + 1] = y0 + pos[1] * tension / 3;
+                if (i == segmentCount - 1) {
+                    tangent(chordX, chordY, chord);
+                } else {
+                    catmullRomTangent(i + 1, chord);
+                }
+                controlPoints[offset + 2] = x3 - pos[0] * tension / 3;
+                controlPoints[offset + 3] = y3 - pos[1] * tension / 3;
+            }
+            controlPoints[offset + 4] = x3;
+            controlPoints[offset + 5] = y3;
+        }
+    }
+
+    /**
+     * 关键点index处的切线方向为前后两个关键点的连线，长度为相邻两段中较短的一段
+     */
+    private void catmullRomTangent(int index, float chord) {
+        float previousX = keyX(index) - keyX(index - 1);
+        float previousY = keyY(index) - keyY(index - 1);
+        float nextX = keyX(index + 1) - keyX(index);
+        float nextY = keyY(index + 1) - keyY(index);
+        float length = Math.min(chord, Math.min((float) Math.sqrt(previousX * previousX + previousY * previousY),
+                (float) Math.sqrt(nextX * nextX + nextY * nextY)));
+        tangent(previousX + nextX, previousY + nextY, length);
+    }
+
+    /**
+     * 把(dx, dy)缩放到长度length，结果写入pos
+     */
+    private void tangent(float dx, float dy, float length) {
+        float d = (float) Math.sqrt(dx * dx + dy * dy);
+        if (d > 0) {
+            pos[0] = dx / d * length;
+            pos[1] = dy / d * length;
+        } else {
+            pos[0] = 0;
+            pos[1] = 0;
+        }
+    }
+
+    private float keyX(int index) {
+        return polyline[keys[index] * 2];
+    }
+
+    private float keyY(int index) {
+        return polyline[keys[index] * 2 + 1];
+    }
+
+    /**
+     * 沿曲线每隔半个格子检查一次到障碍物的距离
+     */
+    private boolean isClear(SplineTrajectory trajectory, float allowed) {
+        float spacing = field.getCellSize() * 0.5f;
+        for (int s = 0, count = trajectory.getSegmentCount(); s < count; s++) {
+            CubicTrajectory segment = trajectory.getSegment(s);
+            int samples = Math.max(1, (int) Math.ceil(segment.getLength() / spacing));
+            for (int i = 0; i <= samples; i++) {
+                segment.getPosTan((float) i / samples, pos, null);
+                if (field.distanceAt(pos[0], pos[1]) < allowed) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 最近一次规划的路线的终点（调整后的目标，或者能到达的最远处）
+     */
+    public float getEndX() {
+        return endX;
+    }
+
+    public float getEndY() {
+        return endY;
+    }
+
+    /**
+     * 最近一次规划是否直接使用了原先的单段曲线
+     */
+    public boolean usedSinglePath() {
+        return usedSinglePath;
+    }
+
+    /**
+     * 最近一次规划绕行的折线的点数，直接使用单段曲线时为0
+     */
+    public int getPolylineSize() {
+        return polylineSize;
+    }
+}
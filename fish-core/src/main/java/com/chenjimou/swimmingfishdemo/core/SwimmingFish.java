@@ -0,0 +1,156 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 单条鱼的动画状态：原地摆动，点击后由{@link SwimController}沿三阶贝塞尔曲线游到触摸点，游动途中再次点击时平滑地改变目标。
+ * 效果与FishDrawable加FishSwimLayout的属性动画相同，但是由调用者按经过的时间推进，
+ * 因此可以在任意线程中使用（例如渲染线程），不依赖Android的动画框架。
+ * 所有坐标都是相对于布局的坐标（绝对坐标）。
+ * <p>
+ * 按固定步长推进时，每一帧先调用若干次{@link #step(float)}，再用{@link #interpolate(float)}
+ * 在最近两步的状态之间插值得到绘制的姿态（见{@link FixedTimestep}）；{@link #advance(float)}则直接按经过的时间推进一步。
+ * 摆动的相位按频率累加，频率变化时相位连续，不会跳变。
+ */
+public class SwimmingFish {
+
+    // 摆动一个周期（0~360）的时长（秒），与FishDrawable相同
+    private static final float SWING_DURATION_SECONDS = 1f;
+    // 游到触摸点的时长（秒），与FishSwimLayout相同
+    public static final float DEFAULT_SWIM_DURATION_SECONDS = 2f;
+    // 游动时的摆动频率
+    private static final float SWIM_FREQUENCE = 3f;
+
+    private final FishPose fishPose;
+    // 用模拟的最新状态计算的姿态，只在改变目标时用来确定出发的方向
+    private final FishPose statePose;
+    private final SwimController swimController;
+
+    // 模拟的最新状态
+    private float keyX;
+    private float keyY;
+    // 鱼头的朝向角度
+    private float headAngle = 90;
+    // 摆动的相位（0~360），即属性动画的值乘以频率
+    private float phase;
+    private float frequence = 1f;
+    // 上一步的状态，用于插值
+    private float previousKeyX;
+    private float previousKeyY;
+    private float previousHeadAngle = 90;
+    private float previousPhase;
+
+    /**
+     * @param headRadius 鱼头的半径
+     * @param keyX 鱼的重心的初始x坐标
+     * @param keyY 鱼的重心的初始y坐标
+     */
+    public SwimmingFish(float headRadius, float keyX, float keyY) {
+        this.fishPose = new FishPose(headRadius);
+        this.statePose = new FishPose(headRadius);
+        this.swimController = new SwimController(headRadius);
+        this.keyX = keyX;
+        this.keyY = keyY;
+        this.previousKeyX = keyX;
+        this.previousKeyY = keyY;
+        interpolate(1f);
+    }
+
+    /**
+     * 从当前位置和朝向开始游向(touchX, touchY)，正在游动时从当前位置重新规划，位置、方向和速度保持连续
+     */
+    public void swimTo(float touchX, float touchY) {
+        // 从模拟的最新状态出发，而不是从插值后（落后不到一步）的姿态出发；正在游动时控制器只使用鱼头圆心与重心的距离
+        statePose.update(keyX, keyY, headAngle, phase);
+        float[] points = statePose.points;
+        swimController.swimTo(keyX, keyY, FishPose.x(points, 0, FishPose.HEAD), FishPose.y(points, 0, FishPose.HEAD),
+                touchX, touchY);
+        frequence = SWIM_FREQUENCE;
+    }
+
+    /**
+     * 按经过的时间推进一步并重新计算姿态
+     * @param deltaSeconds 距离上一次推进经过的时间（秒）
+     */
+    public void advance(float deltaSeconds) {
+        step(deltaSeconds);
+        interpolate(1f);
+    }
+
+    /**
+     * 推进一步模拟，不计算姿态
+     * @param stepSeconds 这一步的时长（秒），按固定步长推进时为{@link FixedTimestep#getStepSeconds()}
+     */
+    public void step(float stepSeconds) {
+        previousKeyX = keyX;
+        previousKeyY = keyY;
+        previousHeadAngle = headAngle;
+        previousPhase = phase;
+
+        float p = phase + 360f * frequence * stepSeconds / SWING_DURATION_SECONDS;
+        phase = p >= 360f ? p % 360f : p;
+        if (swimController.isSwimming()) {
+            boolean stillSwimming = swimController.advance(stepSeconds);
+            keyX = swimController.getKeyX();
+            keyY = swimController.getKeyY();
+            headAngle = swimController.getHeadAngle();
+            if (!stillSwimming) {
+                frequence = 1f;
+            }
+        }
+    }
+
+    /**
+     * 在上一步与最新一步的状态之间插值，计算绘制用的姿态
+     * @param alpha 0~1，见{@link FixedTimestep#getAlpha()}，为1时就是最新的状态
+     */
+    public void interpolate(float alpha) {
+        fishPose.update(Interpolation.lerp(previousKeyX, keyX, alpha), Interpolation.lerp(previousKeyY, keyY, alpha),
+                Interpolation.lerpDegrees(previousHeadAngle, headAngle, alpha),
+                Interpolation.lerpDegrees(previousPhase, phase, alpha));
+    }
+
+    /**
+     * 最近一次插值得到的姿态，排列见{@link FishPose}
+     */
+    public float[] getPose() {
+        return fishPose.points;
+    }
+
+    /**
+     * 模拟的最新状态，绘制的姿态可能落后不到一步
+     */
+    public float getKeyX() {
+        return keyX;
+    }
+
+    public float getKeyY() {
+        return keyY;
+    }
+
+    public float getHeadAngle() {
+        return headAngle;
+    }
+
+    public float getPhase() {
+        return phase;
+    }
+
+    public float getFrequence() {
+        return frequence;
+    }
+
+    public float getHeadRadius() {
+        return fishPose.getHeadRadius();
+    }
+
+    public boolean isSwimming() {
+        return swimController.isSwimming();
+    }
+
+    public SwimController getSwimController() {
+        return swimController;
+    }
+
+    public void setSwimDuration(float swimDurationSeconds) {
+        swimController.setDuration(swimDurationSeconds);
+    }
+}
@@ -0,0 +1,79 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 合并一帧内的触摸事件：一帧内无论收到多少个事件，下一帧只处理最后一个触摸点，
+ * 只要其中有按下事件就记为按下（用于波纹），因此每一帧最多改变一次游动的目标。
+ * <p>
+ * 不是线程安全的，收到事件和处理事件需要在同一个线程中（跨线程时使用{@link TouchQueue}）。
+ */
+public class TouchCoalescer {
+
+    private boolean pending;
+    private float pendingX;
+    private float pendingY;
+    private boolean pendingDown;
+
+    private float polledX;
+    private float polledY;
+    private boolean polledDown;
+
+    // 收到的事件数与合并后处理的次数
+    private long offeredCount;
+    private long polledCount;
+
+    /**
+     * 收到一个触摸事件，覆盖这一帧之前收到的触摸点
+     * @param down 是否为按下事件
+     */
+    public void offer(float x, float y, boolean down) {
+        pending = true;
+        pendingX = x;
+        pendingY = y;
+        pendingDown |= down;
+        offeredCount++;
+    }
+
+    /**
+     * 取出合并后的触摸点，结果通过{@link #getPolledX()}等方法获取
+     * @return 上一次取出之后是否收到过事件
+     */
+    public boolean poll() {
+        if (!pending) {
+            return false;
+        }
+        polledX = pendingX;
+        polledY = pendingY;
+        polledDown = pendingDown;
+        pending = false;
+        pendingDown = false;
+        polledCount++;
+        return true;
+    }
+
+    public boolean hasPending() {
+        return pending;
+    }
+
+    public float getPolledX() {
+        return polledX;
+    }
+
+    public float getPolledY() {
+        return polledY;
+    }
+
+    /**
+     * 合并的事件中是否有按下事件
+     */
+    public boolean isPolledDown() {
+        return polledDown;
+    }
+
+    public long getOfferedCount() {
+        return offeredCount;
+    }
+
+    public long getPolledCount() {
+        return polledCount;
+    }
+}
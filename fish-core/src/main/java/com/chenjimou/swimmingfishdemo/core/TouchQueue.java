@@ -0,0 +1,97 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把触摸事件从主线程交给渲染线程的无锁队列，只允许一个线程写入、一个线程读取。
+ * <p>
+ * 事件存放在预先分配的环形数组中，写入方和读取方各自只推进自己的下标，
+ * 下标通过AtomicLong的lazySet发布，保证读取方看到下标时事件的数据已经写好。队列满时新的事件被丢弃。
+ */
+public class TouchQueue {
+
+    private final int mask;
+    private final float[] xs;
+    private final float[] ys;
+    private final long[] times;
+    // 下一个写入的位置，只由写入方修改
+    private final AtomicLong tail = new AtomicLong();
+    // 下一个读取的位置，只由读取方修改
+    private final AtomicLong head = new AtomicLong();
+
+    // 最近一次poll取出的事件，只由读取方访问
+    private float polledX;
+    private float polledY;
+    private long polledTimeNanos;
+
+    /**
+     * @param capacity 队列的容量，会向上取整到2的幂
+     */
+    public TouchQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        xs = new float[size];
+        ys = new float[size];
+        times = new long[size];
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 写入方：加入一个触摸事件
+     * @return 队列已满时返回false，事件被丢弃
+     */
+    public boolean offer(float x, float y, long timeNanos) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            return false;
+        }
+        int index = (int) t & mask;
+        xs[index] = x;
+        ys[index] = y;
+        times[index] = timeNanos;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * 读取方：取出最早的事件，之后通过{@link #getPolledX()}等方法读取它
+     * @return 队列为空时返回false
+     */
+    public boolean poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return false;
+        }
+        int index = (int) h & mask;
+        polledX = xs[index];
+        polledY = ys[index];
+        polledTimeNanos = times[index];
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    public float getPolledX() {
+        return polledX;
+    }
+
+    public float getPolledY() {
+        return polledY;
+    }
+
+    public long getPolledTimeNanos() {
+        return polledTimeNanos;
+    }
+
+    /**
+     * 队列中事件的数量，在另一个线程同时读写时只是一个近似值
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
@@ -0,0 +1,149 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 把触摸事件和帧的时间按{@link InputTrace}的格式写入预先分配好的缓冲区，记录时不分配内存、不做IO。
+ * 缓冲区快满时{@link #needsFlush()}返回true，由调用者把内容取出写入文件（通常在后台线程中），
+ * 来不及取出时新的记录会被丢弃并计数，不会阻塞记录的线程。
+ * <p>
+ * 文件头只在第一块内容的开头写入一次，依次写出的所有内容拼起来就是一个完整的记录文件。
+ * <p>
+ * 不是线程安全的，记录和取出需要在同一个线程中。
+ */
+public class TraceRecorder {
+
+    // 默认的缓冲区大小，约为60Hz下一分钟的帧记录
+    public static final int DEFAULT_CAPACITY_BYTES = 64 * 1024;
+
+    private final ByteBuffer buffer;
+    // 缓冲区满而丢弃的记录数
+    private long droppedCount;
+    private long recordCount;
+
+    public TraceRecorder() {
+        this(DEFAULT_CAPACITY_BYTES);
+    }
+
+    /**
+     * @param capacityBytes 缓冲区的大小，至少能放下文件头和一条记录
+     */
+    public TraceRecorder(int capacityBytes) {
+        if (capacityBytes < InputTrace.HEADER_BYTES + InputTrace.MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("capacity too small: " + capacityBytes);
+        }
+        buffer = ByteBuffer.allocate(capacityBytes);
+        writeHeader();
+    }
+
+    /**
+     * @param type {@link InputTrace#TOUCH_DOWN}、{@link InputTrace#TOUCH_MOVE}或{@link InputTrace#TOUCH_UP}
+     * @param eventTimeNanos 事件的时间，与System.nanoTime同一个时钟
+     */
+    public boolean recordTouch(byte type, long eventTimeNanos, float x, float y) {
+        if (!reserve(InputTrace.TOUCH_RECORD_BYTES)) {
+            return false;
+        }
+        buffer.put(type).putLong(eventTimeNanos).putFloat(x).putFloat(y);
+        return true;
+    }
+
+    /**
+     * 帧回调的时间
+     */
+    public boolean recordFrame(long frameTimeNanos) {
+        return recordTime(InputTrace.FRAME, frameTimeNanos);
+    }
+
+    /**
+     * 这一帧画完的时间，与帧回调的时间之差就是这一帧主线程的耗时
+     */
+    public boolean recordDrawEnd(long timeNanos) {
+        return recordTime(InputTrace.DRAW_END, timeNanos);
+    }
+
+    public boolean recordSize(int width, int height) {
+        if (!reserve(InputTrace.SIZE_RECORD_BYTES)) {
+            return false;
+        }
+        buffer.put(InputTrace.SIZE).putInt(width).putInt(height);
+        return true;
+    }
+
+    private boolean recordTime(byte type, long timeNanos) {
+        if (!reserve(InputTrace.TIME_RECORD_BYTES)) {
+            return false;
+        }
+        buffer.put(type).putLong(timeNanos);
+        return true;
+    }
+
+    private boolean reserve(int bytes) {
+        if (buffer.remaining() < bytes) {
+            droppedCount++;
+            return false;
+        }
+        recordCount++;
+        return true;
+    }
+
+    /**
+     * 剩余的空间不够再放下一条最长的记录的若干倍时需要取出，留一些余量给取出之前的记录
+     */
+    public boolean needsFlush() {
+        return buffer.remaining() < InputTrace.MAX_RECORD_BYTES * 16;
+    }
+
+    /**
+     * 缓冲区中还没有取出的字节数（包括还没有写出的文件头）
+     */
+    public int pendingBytes() {
+        return buffer.position();
+    }
+
+    /**
+     * 把缓冲区中的内容写入out并清空缓冲区
+     */
+    public void drainTo(OutputStream out) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    /**
+     * 取出缓冲区中的内容并清空缓冲区，用于交给其他线程写入文件（只有取出时才分配内存）
+     */
+    public byte[] drain() {
+        byte[] bytes = new byte[buffer.position()];
+        System.arraycopy(buffer.array(), 0, bytes, 0, bytes.length);
+        buffer.clear();
+        return bytes;
+    }
+
+    /**
+     * 开始一个新的记录文件：清空缓冲区并重新写入文件头
+     */
+    public void reset() {
+        buffer.clear();
+        writeHeader();
+        droppedCount = 0;
+        recordCount = 0;
+    }
+
+    private void writeHeader() {
+        buffer.putInt(InputTrace.MAGIC).putInt(InputTrace.VERSION);
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public int getCapacityBytes() {
+        return buffer.capacity();
+    }
+}
@@ -0,0 +1,188 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+/**
+ * 在JVM上按记录重放FishSwimLayout的模拟：触摸事件按记录的顺序交给{@link TouchCoalescer}，
+ * 每一条帧记录与FishSwimLayout的帧回调做同样的事情——取出合并后的触摸点，按下时添加波纹，
+ * 鱼游向触摸点，再按固定步长推进鱼、推进波纹并计算插值后的姿态。
+ * 与FishSwimLayout一样由{@link SwimPlanner}规划路线，避开按记录中的布局大小（SIZE记录）生成的边界；
+ * 记录中没有子View的位置，只有布局的边界是障碍物。还没有SIZE记录时与原先一样只用一段曲线。
+ * <p>
+ * 重放只依赖记录中的时间，不读取系统时钟，同一份记录每次重放的结果完全相同，
+ * 因此线上录下的操作可以作为性能测试的输入和回归测试的用例。
+ * 同时统计记录中每一帧主线程的耗时（帧回调到画完），用于与重放的耗时对照。
+ * <p>
+ * 不是线程安全的。
+ */
+public class TraceReplayer {
+
+    private final float headRadius;
+    private final float swimDurationSeconds;
+    private final float[] fishBounds = new float[PoseBounds.SIZE];
+    private final float[] rippleBounds = new float[PoseBounds.SIZE];
+    // 记录中每一帧主线程的耗时（微秒）
+    private final BucketHistogram recordedFrameMicros = new BucketHistogram();
+    // 布局边界的距离场和路线规划，格子的边长与间隙与FishSwimLayout相同
+    private final ObstacleField obstacleField;
+    private final SwimPlanner planner;
+
+    private SwimmingFish fish;
+    private final TouchCoalescer touchCoalescer = new TouchCoalescer();
+    private final FixedTimestep timestep = new FixedTimestep();
+    private final RipplePool ripples = new RipplePool(RipplePool.DEFAULT_CAPACITY);
+
+    private int width;
+    private int height;
+    private int frameCount;
+    private int swimCount;
+    private long lastFrameTimeNanos;
+
+    /**
+     * @param headRadius 鱼头的半径，与录制时相同
+     */
+    public TraceReplayer(float headRadius) {
+        this(headRadius, SwimmingFish.DEFAULT_SWIM_DURATION_SECONDS);
+    }
+
+    public TraceReplayer(float headRadius, float swimDurationSeconds) {
+        this.headRadius = headRadius;
+        this.swimDurationSeconds = swimDurationSeconds;
+        float clearance = headRadius * SwimPlanner.DEFAULT_CLEARANCE_RATIO;
+        obstacleField = new ObstacleField(headRadius, SwimPlanner.fieldMaxDistance(headRadius, clearance));
+        planner = new SwimPlanner(obstacleField, headRadius, clearance);
+        reset();
+    }
+
+    /**
+     * 回到录制开始时的状态
+     */
+    public void reset() {
+        // 鱼的重心在FishDrawable中的位置，FishSwimLayout中鱼的初始位置为布局的左上角
+        float key = FishSpecies.KEY_POINT_RATIO * headRadius;
+        fish = new SwimmingFish(headRadius, key, key);
+        fish.setSwimDuration(swimDurationSeconds);
+        while (touchCoalescer.poll()) {
+            // 丢弃上一次没有处理的触摸点
+        }
+        timestep.reset();
+        ripples.clear();
+        recordedFrameMicros.reset();
+        width = 0;
+        height = 0;
+        frameCount = 0;
+        swimCount = 0;
+        lastFrameTimeNanos = 0;
+    }
+
+    /**
+     * 从头重放整个记录
+     * @return 重放结束时状态的校验值，同一份记录每次相同
+     */
+    public long replay(InputTrace trace) {
+        reset();
+        long lastFrameStartNanos = 0;
+        for (int i = 0, size = trace.size(); i < size; i++) {
+            switch (trace.getType(i)) {
+                case InputTrace.TOUCH_DOWN:
+                    touchCoalescer.offer(trace.getX(i), trace.getY(i), true);
+                    break;
+                case InputTrace.TOUCH_MOVE:
+                    touchCoalescer.offer(trace.getX(i), trace.getY(i), false);
+                    break;
+                case InputTrace.FRAME:
+                    lastFrameStartNanos = trace.getTimeNanos(i);
+                    onFrame(lastFrameStartNanos);
+                    break;
+                case InputTrace.DRAW_END:
+                    if (lastFrameStartNanos != 0) {
+                        recordedFrameMicros.record((trace.getTimeNanos(i) - lastFrameStartNanos) / 1000);
+                        lastFrameStartNanos = 0;
+                    }
+                    break;
+                case InputTrace.SIZE:
+                    width = (int) trace.getX(i);
+                    height = (int) trace.getY(i);
+                    // 与FishSwimLayout.onSizeChanged相同，从这之后的游动都绕开布局的边界
+                    obstacleField.setBounds(width, height);
+                    fish.getSwimController().setPlanner(planner);
+                    break;
+                default:
+                    // 抬起事件只结束手势，不改变游动的目标
+                    break;
+            }
+        }
+        return checksum();
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        long deltaNanos = lastFrameTimeNanos == 0 ? 0 : frameTimeNanos - lastFrameTimeNanos;
+        lastFrameTimeNanos = frameTimeNanos;
+        frameCount++;
+
+        if (touchCoalescer.poll()) {
+            if (touchCoalescer.isPolledDown()) {
+                ripples.add(touchCoalescer.getPolledX(), touchCoalescer.getPolledY());
+            }
+            fish.swimTo(touchCoalescer.getPolledX(), touchCoalescer.getPolledY());
+            swimCount++;
+        }
+        for (int i = timestep.advance(deltaNanos); i > 0; i--) {
+            fish.step(timestep.getStepSeconds());
+        }
+        fish.interpolate(timestep.getAlpha());
+        ripples.advance(deltaNanos / 1e9f);
+        // 绘制之前需要的包围盒
+        PoseBounds.compute(fish.getPose(), 0, headRadius, 1, fishBounds);
+        ripples.computeBounds(1, rippleBounds);
+    }
+
+    private long checksum() {
+        long hash = 17;
+        float[] pose = fish.getPose();
+        for (float value : pose) {
+            hash = hash * 31 + Float.floatToIntBits(value);
+        }
+        hash = hash * 31 + Float.floatToIntBits(fish.getKeyX());
+        hash = hash * 31 + Float.floatToIntBits(fish.getKeyY());
+        hash = hash * 31 + ripples.size();
+        hash = hash * 31 + frameCount;
+        return hash * 31 + swimCount;
+    }
+
+    public SwimmingFish getFish() {
+        return fish;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * 鱼开始游动或者改变目标的次数
+     */
+    public int getSwimCount() {
+        return swimCount;
+    }
+
+    public int getRippleCount() {
+        return ripples.size();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public SwimPlanner getPlanner() {
+        return planner;
+    }
+
+    /**
+     * 记录中每一帧主线程的耗时（微秒），只统计有画完记录的帧
+     */
+    public BucketHistogram getRecordedFrameMicros() {
+        return recordedFrameMicros;
+    }
+}
@@ -0,0 +1,72 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BucketHistogramTest {
+
+    @Test
+    public void buckets_areContiguousAndCoverAllValues() {
+        for (int bucket = 0; bucket < BucketHistogram.BUCKET_COUNT; bucket++) {
+            long upper = BucketHistogram.upperBoundOf(bucket);
+            assertEquals(bucket, BucketHistogram.bucketOf(upper));
+            if (upper != Long.MAX_VALUE) {
+                assertEquals(bucket + 1, BucketHistogram.bucketOf(upper + 1));
+            }
+        }
+        assertEquals(Long.MAX_VALUE, BucketHistogram.upperBoundOf(BucketHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void percentile_withinOneEighth() {
+        BucketHistogram histogram = new BucketHistogram();
+        Random random = new Random(5);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            // 0.1ms ~ 30ms的耗时
+            values[i] = 100_000 + (long) (random.nextDouble() * random.nextDouble() * 30_000_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[]{50, 95, 99, 100}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.getPercentile(percentile);
+            assertTrue(percentile + ": " + estimate + " < " + exact, estimate >= exact);
+            assertTrue(percentile + ": " + estimate + " vs " + exact, estimate <= exact + exact / 8);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(values.length, histogram.getCount());
+    }
+
+    @Test
+    public void smallValues_areExact() {
+        BucketHistogram histogram = new BucketHistogram();
+        for (int i = 0; i < 4; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1, histogram.getPercentile(50));
+        assertEquals(3, histogram.getPercentile(99));
+        assertEquals(1.5, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void resetAndAdd() {
+        BucketHistogram a = new BucketHistogram();
+        BucketHistogram b = new BucketHistogram();
+        a.record(10);
+        b.record(1000);
+        b.record(-5);
+        a.add(b);
+        assertEquals(3, a.getCount());
+        assertEquals(1010, a.getTotal());
+        assertEquals(1000, a.getMax());
+
+        a.reset();
+        assertEquals(0, a.getCount());
+        assertEquals(0, a.getPercentile(50));
+    }
+}
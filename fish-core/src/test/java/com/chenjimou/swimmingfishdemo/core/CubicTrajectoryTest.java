@@ -0,0 +1,122 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CubicTrajectoryTest {
+
+    // 参考值使用的细分段数
+    private static final int REFERENCE_SAMPLES = 200_000;
+
+    private static final float[][] CURVES = {
+            // 与FishSwimLayout中相同方式生成的曲线：鱼头朝上，点击右下方
+            swimPath(213, 213, 213, 149, 900, 1600),
+            // 点击鱼的正后方，需要掉头
+            swimPath(500, 800, 500, 736, 500, 1500),
+            // 点击点距离很近
+            swimPath(300, 300, 300, 236, 320, 280),
+            // 控制点与起点重合
+            {0, 0, 0, 0, 300, 100, 400, 400},
+    };
+
+    @Test
+    public void length_matchesDenseReference() {
+        CubicTrajectory trajectory = new CubicTrajectory();
+        for (float[] curve : CURVES) {
+            trajectory.set(curve);
+            double[] reference = referenceArcLengths(curve);
+            double referenceLength = reference[REFERENCE_SAMPLES];
+            assertEquals(referenceLength, trajectory.getLength(), referenceLength * 1e-4 + 0.01);
+        }
+    }
+
+    @Test
+    public void positionAndHeading_matchDenseReference() {
+        CubicTrajectory trajectory = new CubicTrajectory();
+        float[] pos = new float[2];
+        float[] tan = new float[2];
+        for (float[] curve : CURVES) {
+            trajectory.set(curve);
+            double[] reference = referenceArcLengths(curve);
+            for (int i = 0; i <= 100; i++) {
+                float fraction = i / 100f;
+                double t = referenceParameter(reference, fraction);
+                trajectory.getPosTan(fraction, pos, tan);
+                assertEquals(bezier(curve, 0, t), pos[0], 0.5);
+                assertEquals(bezier(curve, 1, t), pos[1], 0.5);
+
+                double derivativeX = derivative(curve, 0, t);
+                double derivativeY = derivative(curve, 1, t);
+                if (Math.hypot(derivativeX, derivativeY) < 1e-3) {
+                    // 导数为0的端点没有确定的切线方向
+                    continue;
+                }
+                double expectedHeading = Math.toDegrees(Math.atan2(-derivativeY, derivativeX));
+                float heading = trajectory.headingAt(fraction, tan);
+                assertEquals("fraction=" + fraction, 0, angleDifference(expectedHeading, heading), 0.5);
+            }
+        }
+    }
+
+    @Test
+    public void endpointWithZeroDerivative_usesCurveDirection() {
+        CubicTrajectory trajectory = new CubicTrajectory();
+        trajectory.set(0, 0, 0, 0, 100, 0, 200, 0);
+        float[] tan = new float[2];
+        trajectory.getPosTan(0, null, tan);
+        assertEquals(1f, tan[0], 1e-5f);
+        assertEquals(0f, tan[1], 1e-5f);
+    }
+
+    private static float[] swimPath(float keyX, float keyY, float headX, float headY, float touchX, float touchY) {
+        SwimPath swimPath = new SwimPath();
+        swimPath.set(keyX, keyY, headX, headY, touchX, touchY, 40);
+        return swimPath.points.clone();
+    }
+
+    private static double[] referenceArcLengths(float[] curve) {
+        double[] lengths = new double[REFERENCE_SAMPLES + 1];
+        double lastX = curve[0];
+        double lastY = curve[1];
+        for (int i = 1; i <= REFERENCE_SAMPLES; i++) {
+            double t = (double) i / REFERENCE_SAMPLES;
+            double x = bezier(curve, 0, t);
+            double y = bezier(curve, 1, t);
+            lengths[i] = lengths[i - 1] + Math.hypot(x - lastX, y - lastY);
+            lastX = x;
+            lastY = y;
+        }
+        return lengths;
+    }
+
+    private static double referenceParameter(double[] lengths, float fraction) {
+        double distance = fraction * lengths[REFERENCE_SAMPLES];
+        int index = java.util.Arrays.binarySearch(lengths, distance);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, REFERENCE_SAMPLES) / (double) REFERENCE_SAMPLES;
+    }
+
+    private static double bezier(float[] p, int axis, double t) {
+        double u = 1 - t;
+        return u * u * u * p[axis] + 3 * u * u * t * p[2 + axis] + 3 * u * t * t * p[4 + axis] + t * t * t * p[6 + axis];
+    }
+
+    private static double derivative(float[] p, int axis, double t) {
+        double u = 1 - t;
+        return 3 * u * u * (p[2 + axis] - p[axis]) + 6 * u * t * (p[4 + axis] - p[2 + axis])
+                + 3 * t * t * (p[6 + axis] - p[4 + axis]);
+    }
+
+    private static double angleDifference(double a, double b) {
+        double difference = (a - b) % 360;
+        if (difference > 180) {
+            difference -= 360;
+        } else if (difference < -180) {
+            difference += 360;
+        }
+        return difference;
+    }
+}
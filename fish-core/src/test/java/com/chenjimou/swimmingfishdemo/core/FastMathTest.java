@@ -0,0 +1,66 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在整个输入范围内逐点校验{@link FastMath}文档中给出的误差上限
+ */
+public class FastMathTest {
+
+    @Test
+    public void sinCos_withinDocumentedError() {
+        float limit = FastMath.MAX_ACCURATE_DEGREES;
+        for (float degrees = -limit; degrees <= limit; degrees += 0.0131f) {
+            double radians = Math.toRadians(degrees);
+            assertEquals("sin " + degrees, Math.sin(radians), FastMath.sinDeg(degrees), FastMath.MAX_SIN_ERROR);
+            assertEquals("cos " + degrees, Math.cos(radians), FastMath.cosDeg(degrees), FastMath.MAX_SIN_ERROR);
+        }
+    }
+
+    @Test
+    public void sinCos_exactAtTableAngles() {
+        assertEquals(0, FastMath.sinDeg(0), 0);
+        assertEquals(1, FastMath.cosDeg(0), 0);
+        assertEquals(1, FastMath.sinDeg(90), 1e-7f);
+        assertEquals(-1, FastMath.cosDeg(180), 1e-7f);
+        assertEquals(-1, FastMath.sinDeg(-90), 1e-7f);
+        assertEquals(0, FastMath.cosDeg(270), 1e-7f);
+    }
+
+    @Test
+    public void atan2_withinDocumentedError() {
+        Random random = new Random(3);
+        for (int i = 0; i < 1_000_000; i++) {
+            float x = (float) random.nextGaussian() * 100;
+            float y = (float) random.nextGaussian() * 100;
+            assertAtan2(y, x);
+        }
+        // 单位圆上均匀分布的方向，覆盖八个分区的边界
+        for (int i = 0; i <= 100_000; i++) {
+            double angle = Math.PI * 2 * i / 100_000;
+            assertAtan2((float) Math.sin(angle), (float) Math.cos(angle));
+        }
+    }
+
+    @Test
+    public void atan2_axesAndOrigin() {
+        assertEquals(0, FastMath.atan2Deg(0, 0), 0);
+        assertEquals(0, FastMath.atan2Deg(0, 5), 0);
+        assertEquals(90, FastMath.atan2Deg(5, 0), 1e-4f);
+        assertEquals(180, FastMath.atan2Deg(0, -5), 1e-4f);
+        assertEquals(-90, FastMath.atan2Deg(-5, 0), 1e-4f);
+        assertEquals(45, FastMath.atan2Deg(3, 3), 1e-4f);
+        assertEquals(-135, FastMath.atan2Deg(-3, -3), 1e-4f);
+    }
+
+    private static void assertAtan2(float y, float x) {
+        double error = Math.abs(FastMath.atan2Deg(y, x) - Math.toDegrees(Math.atan2(y, x)));
+        // ±180度是同一个方向
+        error = Math.min(error, 360 - error);
+        assertTrue("atan2(" + y + ", " + x + ") error " + error, error <= FastMath.MAX_ATAN2_ERROR_DEGREES);
+    }
+}
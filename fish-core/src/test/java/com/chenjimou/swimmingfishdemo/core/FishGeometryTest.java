@@ -0,0 +1,27 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FishGeometryTest {
+
+    @Test
+    public void calculatePoint_usesAndroidYAxis() {
+        float[] out = new float[4];
+        FishGeometry.calculatePoint(10, 10, 5, 90, out, 2);
+        assertEquals(10f, out[2], 1e-5f);
+        assertEquals(5f, out[3], 1e-5f);
+        FishGeometry.calculatePoint(10, 10, 5, 0, out, 0);
+        assertEquals(15f, out[0], 1e-5f);
+        assertEquals(10f, out[1], 1e-5f);
+    }
+
+    @Test
+    public void includeAngle_isSignedByTurnDirection() {
+        // 从正上方转到正右方，Android坐标系下为顺时针，角度为负
+        assertEquals(-90f, FishGeometry.includeAngle(0, 0, 0, -1, 1, 0), 1e-3f);
+        // 从正上方转到正左方，角度为正
+        assertEquals(90f, FishGeometry.includeAngle(0, 0, 0, -1, -1, 0), 1e-3f);
+    }
+}
@@ -0,0 +1,53 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FishLodTest {
+
+    @Test
+    public void tierForRadius_bySize() {
+        assertEquals(FishLod.FULL, FishLod.tierForRadius(40, FishLod.FULL));
+        assertEquals(FishLod.REDUCED, FishLod.tierForRadius(10, FishLod.FULL));
+        assertEquals(FishLod.MINIMAL, FishLod.tierForRadius(2, FishLod.FULL));
+        assertEquals(FishLod.FULL, FishLod.tierForRadius(40, FishLod.MINIMAL));
+    }
+
+    @Test
+    public void tierForRadius_holdsInsideHysteresisBand() {
+        float threshold = FishLod.REDUCED_BELOW_RADIUS;
+        // 刚好低于阈值时不降低，刚好高于阈值时也不恢复
+        assertEquals(FishLod.FULL, FishLod.tierForRadius(threshold - 1, FishLod.FULL));
+        assertEquals(FishLod.REDUCED, FishLod.tierForRadius(threshold + 1, FishLod.REDUCED));
+
+        // 半径在阈值附近来回变化时等级不变
+        int tier = FishLod.FULL;
+        int changes = 0;
+        for (int i = 0; i < 100; i++) {
+            float radius = threshold + (i % 2 == 0 ? 1.5f : -1.5f);
+            int next = FishLod.tierForRadius(radius, tier);
+            if (next != tier) {
+                changes++;
+            }
+            tier = next;
+        }
+        assertEquals(0, changes);
+    }
+
+    @Test
+    public void tierForRadius_leavesBandOnlyPastThreshold() {
+        float threshold = FishLod.REDUCED_BELOW_RADIUS;
+        assertEquals(FishLod.REDUCED,
+                FishLod.tierForRadius(threshold * (1 - FishLod.HYSTERESIS) - 0.01f, FishLod.FULL));
+        assertEquals(FishLod.FULL,
+                FishLod.tierForRadius(threshold * (1 + FishLod.HYSTERESIS), FishLod.REDUCED));
+    }
+
+    @Test
+    public void combine_takesLowerDetail() {
+        assertEquals(FishLod.REDUCED, FishLod.combine(FishLod.FULL, FishLod.REDUCED));
+        assertEquals(FishLod.MINIMAL, FishLod.combine(FishLod.MINIMAL, FishLod.FULL));
+        assertEquals(FishLod.MINIMAL, FishLod.combine(FishLod.FULL, 7));
+    }
+}
@@ -0,0 +1,212 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FishMeshRendererTest {
+
+    private static final float HEAD_RADIUS = 12;
+    private static final FishSpecies SPECIES = new FishSpecies(HEAD_RADIUS);
+
+    @Test
+    public void wholeSchool_isOneDrawCall() {
+        CountingBackend backend = new CountingBackend();
+        FishMeshRenderer mesh = new FishMeshRenderer(SPECIES, backend);
+        int count = 200;
+        float[] poses = randomPoses(new Random(1), count);
+
+        mesh.draw(poses, count, FishPose.FLOATS_PER_POSE);
+        assertEquals(1, backend.triangleCalls);
+        assertEquals(0, backend.otherCalls);
+        assertEquals(count * mesh.getVerticesPerFish(), backend.lastVertexCount);
+        assertEquals(0, backend.lastVertexCount % 3);
+
+        // 细节等级越低顶点越少，仍然只有一次绘制
+        int fullVertices = mesh.getVerticesPerFish();
+        mesh.setLevelOfDetail(FishLod.REDUCED);
+        int reducedVertices = mesh.getVerticesPerFish();
+        mesh.setLevelOfDetail(FishLod.MINIMAL);
+        int minimalVertices = mesh.getVerticesPerFish();
+        assertTrue(fullVertices > reducedVertices);
+        assertTrue(reducedVertices > minimalVertices);
+        mesh.draw(poses, count, FishPose.FLOATS_PER_POSE);
+        assertEquals(2, backend.triangleCalls);
+        assertEquals(count * minimalVertices, backend.lastVertexCount);
+    }
+
+    @Test
+    public void vertexColors_carryPerFishAlpha() {
+        FishMeshRenderer mesh = new FishMeshRenderer(SPECIES, new CountingBackend());
+        mesh.setColor(0xFF112233);
+        float[] poses = randomPoses(new Random(2), 2);
+        mesh.begin();
+        mesh.add(poses, 0, 40);
+        mesh.add(poses, FishPose.FLOATS_PER_POSE);
+        int perFish = mesh.getVerticesPerFish();
+        int[] colors = mesh.getColors();
+        for (int i = 0; i < perFish; i++) {
+            assertEquals(0x28112233, colors[i]);
+            assertEquals(FishRenderer.BODY_ALPHA << 24 | 0x112233, colors[perFish + i]);
+        }
+    }
+
+    @Test
+    public void headCircle_staysWithinTolerance() {
+        float tolerance = 0.25f;
+        FishMeshRenderer mesh = new FishMeshRenderer(SPECIES, tolerance, 1, new CountingBackend());
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        pose.update(100, 100, 30, 0);
+        mesh.begin();
+        mesh.add(pose.points, 0);
+        float[] vertices = mesh.getVertices();
+        float cx = FishPose.x(pose.points, 0, FishPose.HEAD);
+        float cy = FishPose.y(pose.points, 0, FishPose.HEAD);
+        int segments = FishMeshRenderer.circleSegments(HEAD_RADIUS, tolerance);
+        // 鱼头是第一个部位：每个三角形的第一个顶点是圆心，另外两个在圆周上
+        for (int i = 0; i < segments * 3; i++) {
+            float distance = (float) Math.hypot(vertices[i * 2] - cx, vertices[i * 2 + 1] - cy);
+            assertEquals(i % 3 == 0 ? 0 : HEAD_RADIUS, distance, 1e-3f);
+        }
+        // 每条边的弓形高不超过容差
+        double sagitta = HEAD_RADIUS * (1 - Math.cos(Math.PI / segments));
+        assertTrue(sagitta <= tolerance);
+        assertTrue(HEAD_RADIUS * (1 - Math.cos(Math.PI / (segments - 1))) > tolerance);
+    }
+
+    @Test
+    public void quadSegments_boundFlatteningError() {
+        Random random = new Random(3);
+        for (int n = 0; n < 100; n++) {
+            float[] p = new float[6];
+            for (int i = 0; i < p.length; i++) {
+                p[i] = random.nextFloat() * 200;
+            }
+            float tolerance = 0.1f + random.nextFloat();
+            int segments = FishMeshRenderer.quadSegments(p[0], p[1], p[2], p[3], p[4], p[5], tolerance);
+            // 每一段的中点处曲线与弦的距离最大
+            for (int s = 0; s < segments; s++) {
+                float t0 = (float) s / segments;
+                float t1 = (float) (s + 1) / segments;
+                float tm = (t0 + t1) / 2;
+                float chordX = (quadX(p, t0) + quadX(p, t1)) / 2;
+                float chordY = (quadY(p, t0) + quadY(p, t1)) / 2;
+                double error = Math.hypot(quadX(p, tm) - chordX, quadY(p, tm) - chordY);
+                assertTrue(error + " > " + tolerance, error <= tolerance + 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void steadyState_allocatesNothing() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int count = 100;
+        FishMeshRenderer mesh = new FishMeshRenderer(SPECIES, FishMeshRenderer.DEFAULT_TOLERANCE, 1,
+                new CountingBackend());
+        float[] poses = randomPoses(new Random(4), count);
+        // 第一帧扩大顶点数组，之后复用
+        for (int i = 0; i < 1000; i++) {
+            mesh.draw(poses, count, FishPose.FLOATS_PER_POSE);
+        }
+        int frames = 1000;
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < frames; i++) {
+            mesh.draw(poses, count, FishPose.FLOATS_PER_POSE);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes in " + frames + " frames", allocated < frames);
+    }
+
+    private static float quadX(float[] p, float t) {
+        float mt = 1 - t;
+        return mt * mt * p[0] + 2 * mt * t * p[2] + t * t * p[4];
+    }
+
+    private static float quadY(float[] p, float t) {
+        float mt = 1 - t;
+        return mt * mt * p[1] + 2 * mt * t * p[3] + t * t * p[5];
+    }
+
+    private static float[] randomPoses(Random random, int count) {
+        FishPose fishPose = new FishPose(HEAD_RADIUS);
+        float[] poses = new float[count * FishPose.FLOATS_PER_POSE];
+        for (int i = 0; i < count; i++) {
+            fishPose.compute(poses, i * FishPose.FLOATS_PER_POSE, random.nextFloat() * 1080, random.nextFloat() * 1920,
+                    random.nextFloat() * 360, random.nextFloat() * 360);
+        }
+        return poses;
+    }
+
+    /**
+     * 只统计绘制的次数
+     */
+    private static class CountingBackend implements RenderBackend {
+
+        int triangleCalls;
+        int otherCalls;
+        int lastVertexCount;
+
+        @Override
+        public void setColor(int argb) {
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+        }
+
+        @Override
+        public void setAntiAlias(boolean antiAlias) {
+        }
+
+        @Override
+        public void setDither(boolean dither) {
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius) {
+            otherCalls++;
+        }
+
+        @Override
+        public void beginPath() {
+        }
+
+        @Override
+        public void moveTo(float x, float y) {
+        }
+
+        @Override
+        public void lineTo(float x, float y) {
+        }
+
+        @Override
+        public void quadTo(float controlX, float controlY, float x, float y) {
+        }
+
+        @Override
+        public void fillPath() {
+            otherCalls++;
+        }
+
+        @Override
+        public int retainPath() {
+            return 0;
+        }
+
+        @Override
+        public void fillRetainedPath(int path, float cos, float sin, float originX, float originY) {
+            otherCalls++;
+        }
+
+        @Override
+        public void drawTriangles(float[] vertices, int[] colors, int vertexCount) {
+            triangleCalls++;
+            lastVertexCount = vertexCount;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FishMetricsTest {
+
+    private static final long FRAME = 16_000_000L;
+
+    private FishMetrics metrics;
+    private long allocations;
+
+    @Before
+    public void setUp() {
+        FishMetrics.setEnabled(true);
+        metrics = FishMetrics.getInstance();
+        metrics.setFrameIntervalNanos(FRAME);
+        metrics.setAllocationCounter(null);
+        metrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        metrics.setAllocationCounter(null);
+        FishMetrics.setEnabled(false);
+    }
+
+    @Test
+    public void sections_sumIntoFrameWork() {
+        metrics.onFrame(FRAME, 1);
+        metrics.recordSection(FishMetrics.SECTION_DRAW_FISH, 300_000);
+        metrics.recordSection(FishMetrics.SECTION_SWIM_UPDATE, 100_000);
+        metrics.onFrame(FRAME * 2, 1);
+        // 没有记录耗时的帧不计入
+        metrics.onFrame(FRAME * 3, 1);
+
+        assertEquals(1, metrics.getSection(FishMetrics.SECTION_DRAW_FISH).getCount());
+        assertEquals(1, metrics.getFrameWork().getCount());
+        assertEquals(400_000, metrics.getFrameWork().getMax());
+        assertEquals(2, metrics.getFrameCount());
+    }
+
+    @Test
+    public void longIntervals_countJankAndDroppedFrames() {
+        metrics.onFrame(FRAME, 1);
+        metrics.onFrame(FRAME * 2, 1);
+        // 间隔3帧：一次卡顿，丢了2帧
+        metrics.onFrame(FRAME * 5, 1);
+        // 1.2倍的间隔不算卡顿
+        metrics.onFrame(FRAME * 5 + FRAME * 6 / 5, 1);
+        assertEquals(1, metrics.getJankCount());
+        assertEquals(2, metrics.getDroppedFrameCount());
+
+        // 时钟暂停后的第一帧不统计间隔
+        metrics.breakFrameSequence();
+        metrics.onFrame(FRAME * 100, 1);
+        assertEquals(1, metrics.getJankCount());
+        assertEquals(3, metrics.getFrameCount());
+    }
+
+    @Test
+    public void allocations_perFrame() {
+        metrics.setAllocationCounter(new FishMetrics.AllocationCounter() {
+            @Override
+            public long getAllocationCount() {
+                return allocations;
+            }
+        });
+        metrics.onFrame(FRAME, 1);
+        allocations += 5;
+        metrics.onFrame(FRAME * 2, 1);
+        metrics.onFrame(FRAME * 3, 1);
+        assertEquals(2, metrics.getFrameAllocations().getCount());
+        assertEquals(5, metrics.getFrameAllocations().getMax());
+        assertTrue(metrics.report().contains("allocations/frame: n=2"));
+    }
+
+    @Test
+    public void animators_trackLiveAndPeak() {
+        metrics.animatorStarted();
+        metrics.animatorStarted();
+        metrics.animatorEnded();
+        assertEquals(1, metrics.getLiveAnimatorCount());
+        assertEquals(2, metrics.getPeakAnimatorCount());
+        metrics.animatorEnded();
+        metrics.animatorEnded();
+        assertEquals(0, metrics.getLiveAnimatorCount());
+    }
+
+    @Test
+    public void report_listsEverySection() {
+        metrics.onFrame(FRAME, 2);
+        metrics.recordSection(FishMetrics.SECTION_DRAW_RIPPLE, 1_500_000);
+        String report = metrics.report();
+        for (int i = 0; i < FishMetrics.SECTION_COUNT; i++) {
+            assertTrue(report, report.contains(FishMetrics.getSectionName(i) + ":"));
+        }
+        assertTrue(report, report.contains("draw ripple: n=1 p50=1.500ms"));
+        assertTrue(report, report.contains("clock listeners=2"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FishPartTemplatesTest {
+
+    private static final float HEAD_RADIUS = 40;
+    private static final FishSpecies SPECIES = new FishSpecies(HEAD_RADIUS);
+
+    /**
+     * 模板经过局部坐标系变换后必须与逐帧计算的姿态重合，保证换成模板后画出的形状不变
+     */
+    @Test
+    public void transformedTemplates_matchPoseGeometry() {
+        FishPartTemplates templates = new FishPartTemplates(SPECIES);
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        float[] frame = new float[FishPartTemplates.FRAME_SIZE];
+        Random random = new Random(12);
+        for (int sample = 0; sample < 2000; sample++) {
+            float keyX = random.nextFloat() * 2000 - 500;
+            float keyY = random.nextFloat() * 2000 - 500;
+            float angle = random.nextFloat() * 720 - 360;
+            float phase = random.nextFloat() * 1080;
+            pose.update(keyX, keyY, angle, phase);
+            float[] points = pose.points;
+            for (int part = 0; part < FishPartTemplates.PART_COUNT; part++) {
+                FishPartTemplates.frame(points, 0, part, frame);
+                float originX = frame[FishPartTemplates.FRAME_ORIGIN_X];
+                float originY = frame[FishPartTemplates.FRAME_ORIGIN_Y];
+                float cos = frame[FishPartTemplates.FRAME_COS];
+                float sin = frame[FishPartTemplates.FRAME_SIN];
+                int first = FishPartTemplates.firstPoint(part);
+                for (int point = first; point < first + FishPartTemplates.pointCount(part); point++) {
+                    float u = templates.localX(point);
+                    float v = templates.localY(point);
+                    assertEquals(FishPose.x(points, 0, point), originX + u * cos + v * sin, 2e-3f);
+                    assertEquals(FishPose.y(points, 0, point), originY - u * sin + v * cos, 2e-3f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void speciesTemplates_areBuiltOnceAndShared() {
+        FishSpecies species = new FishSpecies(HEAD_RADIUS);
+        FishPartTemplates templates = species.getPartTemplates();
+        assertSame(species, templates.getSpecies());
+        assertSame(templates, species.getPartTemplates());
+    }
+
+    @Test
+    public void headFrame_pointsAlongHeadAngle() {
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        pose.update(100, 100, 30, 0);
+        float[] frame = new float[FishPartTemplates.FRAME_SIZE];
+        FishPartTemplates.frame(pose.points, 0, FishPartTemplates.BODY, frame);
+        assertEquals(FishPose.x(pose.points, 0, FishPose.HEAD), frame[FishPartTemplates.FRAME_ORIGIN_X], 0f);
+        assertEquals(Math.cos(Math.toRadians(30)), frame[FishPartTemplates.FRAME_COS], 1e-5);
+        assertEquals(Math.sin(Math.toRadians(30)), frame[FishPartTemplates.FRAME_SIN], 1e-5);
+    }
+}
@@ -0,0 +1,230 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FishPoolTest {
+
+    private static final int SPAWNS = 100_000;
+    private static final int MAX_ALIVE = 500;
+
+    @Test
+    public void recycledFish_isReusedWithFreshState() {
+        FishPool pool = new FishPool();
+        Fish fish = pool.obtain(FishSpecies.KOI, 10, 20, 90);
+        fish.phase = 123;
+        fish.frequence = 3;
+        fish.velocityX = 50;
+        pool.recycle(fish);
+        assertEquals(1, pool.getFreeCount());
+
+        Fish again = pool.obtain(FishSpecies.SMALL_KOI, 1, 2, 45);
+        assertSame(fish, again);
+        assertSame(FishSpecies.SMALL_KOI, again.getSpecies());
+        assertEquals(1, again.keyX, 0);
+        assertEquals(2, again.keyY, 0);
+        assertEquals(45, again.headAngle, 0);
+        assertEquals(0, again.phase, 0);
+        assertEquals(1, again.frequence, 0);
+        assertEquals(0, again.velocityX, 0);
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(0, pool.getFreeCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recycleTwice_throws() {
+        FishPool pool = new FishPool();
+        Fish fish = pool.obtain(FishSpecies.KOI, 0, 0, 0);
+        pool.recycle(fish);
+        pool.recycle(fish);
+    }
+
+    @Test
+    public void pooledFish_poseMatchesSchool() {
+        FishPool pool = new FishPool();
+        Fish fish = pool.obtain(FishSpecies.SMALL_KOI, 100, 200, 30);
+        fish.velocityX = 20;
+        fish.velocityY = -10;
+        FishSchool school = new FishSchool(FishSpecies.SMALL_KOI, 1);
+        school.add(100, 200, 20, -10, 0, 1);
+        for (int i = 0; i < 30; i++) {
+            fish.advance(1 / 60f);
+            school.advance(0, 1, 1 / 60f);
+        }
+        assertEquals(school.keyX[0], fish.keyX, 1e-4f);
+        assertEquals(school.keyY[0], fish.keyY, 1e-4f);
+        assertEquals(school.swing[0], fish.phase, 1e-3f);
+
+        float[] out = new float[FishPose.FLOATS_PER_POSE];
+        fish.headAngle = school.headAngle[0];
+        fish.computePose(new FishPose(FishSpecies.SMALL_KOI), out, 0);
+        school.computePoses(0, 1);
+        assertArrayEquals(school.poses, out, 1e-3f);
+    }
+
+    @Test
+    public void spawnAndDespawn100k_allocatesNothingInSteadyState() {
+        FishPool pool = new FishPool(MAX_ALIVE);
+        Fish[] alive = new Fish[MAX_ALIVE];
+        Random random = new Random(7);
+        // 预热：填满并按同样的方式反复移除和添加
+        churn(pool, alive, random, SPAWNS);
+        int created = pool.getCreatedCount();
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        churn(pool, alive, random, SPAWNS);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(created, pool.getCreatedCount());
+        assertEquals(MAX_ALIVE, created);
+        assertTrue("allocated " + allocated + " bytes for " + SPAWNS + " spawns", allocated < 1024);
+    }
+
+    @Test
+    public void schoolSpawnAndDespawn100k_allocatesNothing() {
+        FishSchool school = new FishSchool(FishSpecies.SMALL_KOI, MAX_ALIVE);
+        Random random = new Random(8);
+        churnSchool(school, random, SPAWNS);
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        churnSchool(school, random, SPAWNS);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes for " + SPAWNS + " spawns", allocated < 1024);
+    }
+
+    @Test
+    public void schoolSpawnAndDespawn_reuseOneFishAndKeepState() {
+        FishSchool school = new FishSchool(FishSpecies.SMALL_KOI, 2);
+        school.spawnRandom(2, 1080, 1920, 80, 3);
+        assertEquals(1, school.getPool().getCreatedCount());
+        assertEquals(1, school.getPool().getFreeCount());
+
+        float keyX = school.keyX[0];
+        float swing = school.swing[0];
+        float velocityY = school.velocityY[0];
+        float lastKeyX = school.keyX[1];
+        Fish fish = school.despawn(0);
+        assertEquals(1, school.size());
+        assertEquals(lastKeyX, school.keyX[0], 0);
+        assertEquals(keyX, fish.keyX, 0);
+        assertEquals(swing, fish.phase, 0);
+        assertEquals(velocityY, fish.velocityY, 0);
+
+        fish.advance(1 / 60f);
+        assertEquals(1, school.spawn(fish));
+        assertEquals(fish.keyX, school.keyX[1], 0);
+        assertEquals(fish.phase, school.swing[1], 0);
+        assertEquals(1, school.getPool().getCreatedCount());
+        assertEquals(1, school.getPool().getFreeCount());
+    }
+
+    @Test
+    public void schoolDespawnWithoutRefill_leavesNoStaleFishInGrid() {
+        FishSchool school = new FishSchool(FishSpecies.SMALL_KOI, 50);
+        school.spawnRandom(50, 100, 100, 80, 11);
+        Flocking flocking = new Flocking(50, 60);
+        flocking.step(school, 1 / 60f);
+        for (int i = 0; i < 20; i++) {
+            school.recycleFish(school.despawn(i));
+        }
+        flocking.step(school, 1 / 60f);
+
+        int[] out = new int[64];
+        int count = flocking.getGrid().query(50, 50, 1000, school.keyX, school.keyY, -1, out);
+        assertEquals(school.size(), count);
+        for (int n = 0; n < count; n++) {
+            assertTrue("index " + out[n] + ", size " + school.size(), out[n] < school.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void schoolSpawnOtherSpecies_throws() {
+        FishSchool school = new FishSchool(FishSpecies.SMALL_KOI, 1);
+        school.spawn(new FishPool().obtain(FishSpecies.KOI, 0, 0, 0));
+    }
+
+    @Test
+    public void schoolRemove_movesLastFishIntoHole() {
+        FishSchool school = new FishSchool(FishSpecies.SMALL_KOI, 3);
+        school.add(1, 1, 0, 0, 0, 1);
+        school.add(2, 2, 0, 0, 0, 1);
+        school.add(3, 3, 0, 0, 0, 1);
+        school.computePoses(0, 3);
+        float poseX = FishPose.x(school.poses, 2 * FishPose.FLOATS_PER_POSE, FishPose.HEAD);
+
+        assertEquals(2, school.remove(0));
+        assertEquals(2, school.size());
+        assertEquals(3, school.keyX[0], 0);
+        assertEquals(poseX, FishPose.x(school.poses, 0, FishPose.HEAD), 0);
+        assertEquals(-1, school.remove(1));
+        assertEquals(1, school.size());
+    }
+
+    @Test
+    public void perFishFootprint_isSmall() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // 预热，避免把类加载算进去
+        new FishPool(1000);
+        int count = 10_000;
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        FishPool pool = new FishPool(count);
+        long bytesPerFish = (threadBean.getThreadAllocatedBytes(threadId) - before) / count;
+        assertEquals(count, pool.getFreeCount());
+        // 对象头、一个引用、七个float和池的链表字段，不包括共用的FishSpecies
+        assertTrue(bytesPerFish + " bytes per fish", bytesPerFish <= 64);
+    }
+
+    /**
+     * 随机移除一条鱼并添加一条新鱼，保持同时存在的鱼的数量
+     */
+    private static void churn(FishPool pool, Fish[] alive, Random random, int spawns) {
+        for (int i = 0; i < alive.length; i++) {
+            if (alive[i] == null) {
+                alive[i] = pool.obtain(FishSpecies.SMALL_KOI, i, i, 0);
+            }
+        }
+        for (int i = 0; i < spawns; i++) {
+            int index = random.nextInt(alive.length);
+            pool.recycle(alive[index]);
+            Fish fish = pool.obtain(FishSpecies.SMALL_KOI, random.nextFloat() * 1080, random.nextFloat() * 1920,
+                    random.nextFloat() * 360);
+            fish.velocityX = 80;
+            fish.advance(1 / 60f);
+            alive[index] = fish;
+        }
+    }
+
+    /**
+     * 随机把一条鱼移出鱼群再放回池中，然后从池中取出一条新鱼加入鱼群
+     */
+    private static void churnSchool(FishSchool school, Random random, int spawns) {
+        while (school.size() < school.capacity()) {
+            spawnSchoolFish(school, random);
+        }
+        for (int i = 0; i < spawns; i++) {
+            school.recycleFish(school.despawn(random.nextInt(school.size())));
+            spawnSchoolFish(school, random);
+            if (i % 1000 == 0) {
+                school.step(1 / 60f);
+            }
+        }
+    }
+
+    private static void spawnSchoolFish(FishSchool school, Random random) {
+        Fish fish = school.obtainFish(random.nextFloat() * 1080, random.nextFloat() * 1920, 0);
+        fish.velocityX = 80;
+        school.spawn(fish);
+    }
+}
@@ -0,0 +1,82 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FishPoseCacheTest {
+
+    private static final float HEAD_RADIUS = 40;
+    private static final FishSpecies SPECIES = new FishSpecies(HEAD_RADIUS);
+
+    @Test
+    public void get_matchesDirectComputationWithinTolerance() {
+        FishPoseCache cache = new FishPoseCache(SPECIES);
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        float[] cached = new float[FishPose.FLOATS_PER_POSE];
+        for (float frequence = 1f; frequence <= 3f; frequence += 2f) {
+            for (float value = 0; value < 360; value += 1.3f) {
+                cache.get(cached, 0, 213f, 213f, 90f, value * frequence);
+                pose.update(213f, 213f, 90f, value * frequence);
+                assertArrayEquals("phase=" + value * frequence, pose.points, cached, 0.1f);
+            }
+        }
+        // 只有第一帧没有命中，第二帧建表
+        assertEquals(1, cache.getMissCount() - cache.getBuildCount());
+        assertEquals(1, cache.getBuildCount());
+    }
+
+    @Test
+    public void get_followsSpeciesSwingScale() {
+        FishSpecies wide = new FishSpecies(HEAD_RADIUS, FishRenderer.DEFAULT_COLOR, 1.5f, 1f);
+        FishPoseCache cache = new FishPoseCache(wide);
+        assertSame(wide, cache.getSpecies());
+        FishPose pose = new FishPose(wide);
+        float[] cached = new float[FishPose.FLOATS_PER_POSE];
+        for (float phase = 0; phase < 360; phase += 7.7f) {
+            cache.get(cached, 0, 213f, 213f, 90f, phase);
+            pose.update(213f, 213f, 90f, phase);
+            assertArrayEquals("phase=" + phase, pose.points, cached, 0.1f);
+        }
+        assertEquals(1, cache.getBuildCount());
+    }
+
+    @Test
+    public void get_doesNotBuildWhileHeadAngleKeepsChanging() {
+        FishPoseCache cache = new FishPoseCache(SPECIES);
+        float[] out = new float[FishPose.FLOATS_PER_POSE];
+        for (int i = 0; i < 100; i++) {
+            cache.get(out, 0, 0, 0, i * 0.5f, i * 12f);
+        }
+        assertEquals(0, cache.getBuildCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(100, cache.getMissCount());
+    }
+
+    @Test
+    public void buckets_areEvictedLeastRecentlyUsedFirst() {
+        int steps = 16;
+        FishPoseCache cache = new FishPoseCache(SPECIES, steps, FishPoseCache.bytesPerBucket(steps) * 2);
+        assertEquals(2, cache.getBucketCount());
+        float[] out = new float[FishPose.FLOATS_PER_POSE];
+
+        warm(cache, out, 0f);
+        warm(cache, out, 90f);
+        // 使用0°的桶，使90°的桶成为最久未使用的
+        cache.get(out, 0, 0, 0, 0f, 10f);
+        warm(cache, out, 180f);
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.resetStats();
+        cache.get(out, 0, 0, 0, 0f, 20f);
+        cache.get(out, 0, 0, 0, 180f, 20f);
+        assertEquals(2, cache.getHitCount());
+        cache.get(out, 0, 0, 0, 90f, 20f);
+        assertEquals(1, cache.getMissCount());
+    }
+
+    private static void warm(FishPoseCache cache, float[] out, float headAngle) {
+        cache.get(out, 0, 0, 0, headAngle, 0f);
+        cache.get(out, 0, 0, 0, headAngle, 0f);
+    }
+}
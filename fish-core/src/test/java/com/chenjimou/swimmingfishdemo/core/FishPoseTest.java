@@ -0,0 +1,161 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 校验{@link FishPose}与原先基于PointF逐点计算的几何结果一致，并且每帧不分配内存
+ */
+public class FishPoseTest {
+
+    private static final float HEAD_RADIUS = 40;
+    private static final float TOLERANCE = 1e-3f;
+
+    @Test
+    public void pose_matchesReferenceGeometry() {
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        float[] expected = new float[FishPose.FLOATS_PER_POSE];
+        float[] headAngles = {90, 0, -37.5f, 180, 271};
+        float[] frequences = {1f, 3f};
+        for (float headAngle : headAngles) {
+            for (float frequence : frequences) {
+                for (float value = 0; value < 360; value += 7.5f) {
+                    float phase = value * frequence;
+                    pose.update(213f, 213f, headAngle, phase);
+                    referencePose(expected, 213f, 213f, headAngle, phase);
+                    assertArrayEquals("headAngle=" + headAngle + " phase=" + phase,
+                            expected, pose.points, TOLERANCE);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fastTrig_keepsEveryVertexWellWithinOnePixel() {
+        // FastMath的查表误差在随机的朝向、相位和位置下都不会让任何一个顶点偏离超过TOLERANCE（远小于一个像素）
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        float[] expected = new float[FishPose.FLOATS_PER_POSE];
+        Random random = new Random(11);
+        float maxError = 0;
+        for (int i = 0; i < 20_000; i++) {
+            float keyX = random.nextFloat() * 1080;
+            float keyY = random.nextFloat() * 1920;
+            float headAngle = random.nextFloat() * 360 - 180;
+            float phase = random.nextFloat() * 1080;
+            pose.update(keyX, keyY, headAngle, phase);
+            referencePose(expected, keyX, keyY, headAngle, phase);
+            for (int j = 0; j < FishPose.FLOATS_PER_POSE; j++) {
+                maxError = Math.max(maxError, Math.abs(expected[j] - pose.points[j]));
+            }
+        }
+        assertTrue("max vertex error " + maxError + " px", maxError < TOLERANCE);
+    }
+
+    @Test
+    public void compute_writesAtOffset() {
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        float[] batch = new float[FishPose.FLOATS_PER_POSE * 3];
+        pose.compute(batch, FishPose.FLOATS_PER_POSE, 100f, 50f, 45f, 120f);
+        pose.update(100f, 50f, 45f, 120f);
+        for (int i = 0; i < FishPose.FLOATS_PER_POSE; i++) {
+            assertEquals(0f, batch[i], 0f);
+            assertEquals(pose.points[i], batch[FishPose.FLOATS_PER_POSE + i], 0f);
+            assertEquals(0f, batch[FishPose.FLOATS_PER_POSE * 2 + i], 0f);
+        }
+    }
+
+    @Test
+    public void update_allocatesNothingPerFrame() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assertTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        // 预热，让JIT完成编译，避免把编译期间的分配算进来
+        for (int i = 0; i < 20_000; i++) {
+            pose.update(213f, 213f, 90f, i % 360);
+        }
+
+        int frames = 10_000;
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < frames; i++) {
+            pose.update(213f, 213f, 90f + (i % 30), (i * 6) % 1080);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        // getThreadAllocatedBytes本身可能带来少量分配，这里只允许远小于一帧一个对象的量
+        assertTrue("allocated " + allocated + " bytes in " + frames + " frames", allocated < frames);
+    }
+
+    /**
+     * 原先FishDrawable.draw()中的计算方式：每个点都通过calculatePoint单独计算
+     */
+    private static void referencePose(float[] out, float keyX, float keyY, float fishHeadAngle, float phase) {
+        float bodyLength = 3.2f * HEAD_RADIUS;
+        float tailBig = 0.7f * HEAD_RADIUS;
+        float tailMiddle = 0.42f * HEAD_RADIUS;
+        float tailSmall = 0.168f * HEAD_RADIUS;
+
+        float headAngle = (float) (fishHeadAngle + Math.sin(Math.toRadians(phase)) * 10);
+        float[] head = point(keyX, keyY, bodyLength / 2, headAngle);
+        put(out, FishPose.HEAD, head);
+
+        float[] rightFins = point(head[0], head[1], 0.9f * HEAD_RADIUS, headAngle - 110);
+        put(out, FishPose.RIGHT_FIN_START, rightFins);
+        put(out, FishPose.RIGHT_FIN_END, point(rightFins[0], rightFins[1], 1.3f * HEAD_RADIUS, headAngle - 180));
+        put(out, FishPose.RIGHT_FIN_CONTROL, point(rightFins[0], rightFins[1], 1.3f * HEAD_RADIUS * 1.8f, headAngle - 115));
+        float[] leftFins = point(head[0], head[1], 0.9f * HEAD_RADIUS, headAngle + 110);
+        put(out, FishPose.LEFT_FIN_START, leftFins);
+        put(out, FishPose.LEFT_FIN_END, point(leftFins[0], leftFins[1], 1.3f * HEAD_RADIUS, headAngle - 180));
+        put(out, FishPose.LEFT_FIN_CONTROL, point(leftFins[0], leftFins[1], 1.3f * HEAD_RADIUS * 1.8f, headAngle + 115));
+
+        float[] bodyBottom = point(head[0], head[1], bodyLength, headAngle - 180);
+        put(out, FishPose.BODY_BOTTOM, bodyBottom);
+        put(out, FishPose.BODY_TOP_LEFT, point(head[0], head[1], HEAD_RADIUS, headAngle + 90));
+        put(out, FishPose.BODY_TOP_RIGHT, point(head[0], head[1], HEAD_RADIUS, headAngle - 90));
+        put(out, FishPose.BODY_BOTTOM_LEFT, point(bodyBottom[0], bodyBottom[1], tailBig, headAngle + 90));
+        put(out, FishPose.BODY_BOTTOM_RIGHT, point(bodyBottom[0], bodyBottom[1], tailBig, headAngle - 90));
+        put(out, FishPose.BODY_CONTROL_LEFT, point(head[0], head[1], bodyLength * 0.56f, headAngle + 130));
+        put(out, FishPose.BODY_CONTROL_RIGHT, point(head[0], head[1], bodyLength * 0.56f, headAngle - 130));
+
+        float tailUpperAngle = (float) (headAngle + Math.cos(Math.toRadians(phase)) * 15);
+        float[] middle = point(bodyBottom[0], bodyBottom[1], tailBig * (0.6f + 1), tailUpperAngle - 180);
+        put(out, FishPose.TAIL_MIDDLE, middle);
+        put(out, FishPose.UPPER_SEGMENT_BOTTOM_LEFT, point(bodyBottom[0], bodyBottom[1], tailBig, tailUpperAngle + 90));
+        put(out, FishPose.UPPER_SEGMENT_BOTTOM_RIGHT, point(bodyBottom[0], bodyBottom[1], tailBig, tailUpperAngle - 90));
+        put(out, FishPose.UPPER_SEGMENT_UPPER_LEFT, point(middle[0], middle[1], tailMiddle, tailUpperAngle + 90));
+        put(out, FishPose.UPPER_SEGMENT_UPPER_RIGHT, point(middle[0], middle[1], tailMiddle, tailUpperAngle - 90));
+
+        float tailBottomAngle = (float) (headAngle + Math.sin(Math.toRadians(phase)) * 25);
+        float[] small = point(middle[0], middle[1], tailMiddle * (0.4f + 2.7f), tailBottomAngle - 180);
+        put(out, FishPose.TAIL_SMALL, small);
+        put(out, FishPose.LOWER_SEGMENT_BOTTOM_LEFT, point(middle[0], middle[1], tailMiddle, tailBottomAngle + 90));
+        put(out, FishPose.LOWER_SEGMENT_BOTTOM_RIGHT, point(middle[0], middle[1], tailMiddle, tailBottomAngle - 90));
+        put(out, FishPose.LOWER_SEGMENT_UPPER_LEFT, point(small[0], small[1], tailSmall, tailBottomAngle + 90));
+        put(out, FishPose.LOWER_SEGMENT_UPPER_RIGHT, point(small[0], small[1], tailSmall, tailBottomAngle - 90));
+
+        float triangleLength = (float) Math.abs(Math.sin(Math.toRadians(phase)) * tailBig);
+        float triangleAngle = (float) (headAngle + Math.sin(Math.toRadians(phase)) * 35);
+        float[] bigCenter = point(small[0], small[1], tailMiddle * 2.7f, triangleAngle - 180);
+        put(out, FishPose.BIG_TRIANGLE_LEFT, point(bigCenter[0], bigCenter[1], triangleLength, triangleAngle + 90));
+        put(out, FishPose.BIG_TRIANGLE_RIGHT, point(bigCenter[0], bigCenter[1], triangleLength, triangleAngle - 90));
+        float[] smallCenter = point(small[0], small[1], tailMiddle * 2.7f - 10, triangleAngle - 180);
+        put(out, FishPose.SMALL_TRIANGLE_LEFT, point(smallCenter[0], smallCenter[1], triangleLength - 20, triangleAngle + 90));
+        put(out, FishPose.SMALL_TRIANGLE_RIGHT, point(smallCenter[0], smallCenter[1], triangleLength - 20, triangleAngle - 90));
+    }
+
+    private static float[] point(float x, float y, float distance, float angle) {
+        float deltaX = (float) (Math.cos(Math.toRadians(angle)) * distance);
+        float deltaY = (float) (Math.sin(Math.toRadians(angle - 180)) * distance);
+        return new float[]{x + deltaX, y + deltaY};
+    }
+
+    private static void put(float[] out, int point, float[] value) {
+        out[point * 2] = value[0];
+        out[point * 2 + 1] = value[1];
+    }
+}
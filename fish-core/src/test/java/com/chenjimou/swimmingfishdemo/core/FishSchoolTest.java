@@ -0,0 +1,70 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FishSchoolTest {
+
+    @Test
+    public void step_computesSamePoseAsSingleFish() {
+        FishSchool school = new FishSchool(12, 50);
+        school.setBounds(1080, 1920);
+        school.spawnRandom(50, 1080, 1920, 80, 7);
+        for (int frame = 0; frame < 30; frame++) {
+            school.step(1 / 60f);
+        }
+
+        FishPose pose = new FishPose(12);
+        for (int i = 0; i < school.size(); i++) {
+            pose.update(school.keyX[i], school.keyY[i], school.headAngle[i], school.swing[i]);
+            for (int j = 0; j < FishPose.FLOATS_PER_POSE; j++) {
+                assertEquals(pose.points[j], school.poses[i * FishPose.FLOATS_PER_POSE + j], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void step_bouncesOffBoundsAndTurnsHead() {
+        FishSchool school = new FishSchool(12, 1);
+        school.setBounds(100, 100);
+        school.add(99, 50, 60, 0, 0, 1);
+        assertEquals(0f, school.headAngle[0], 1e-4f);
+
+        school.step(0.1f);
+        assertEquals(-60f, school.velocityX[0], 0f);
+        assertEquals(180f, Math.abs(school.headAngle[0]), 1e-4f);
+        school.step(0.1f);
+        assertTrue(school.keyX[0] < 100);
+    }
+
+    @Test
+    public void nonIntegerFrequence_phaseStaysContinuousAcrossCycles() {
+        FishSchool school = new FishSchool(12, 1);
+        school.add(500, 500, 0, 0, 0, 1.7f);
+        float step = 1 / 60f;
+        float expected = school.getSpecies().swingDelta(1.7f, step);
+        // 跨过多个周期，每一步相位的变化都与频率对应，不会在取模时跳变
+        for (int frame = 0; frame < 600; frame++) {
+            float before = school.swing[0];
+            school.step(step);
+            float delta = school.swing[0] - before;
+            if (delta < 0) {
+                delta += 360;
+            }
+            assertEquals(expected, delta, 1e-3f);
+            assertTrue(school.swing[0] >= 0 && school.swing[0] < 360);
+        }
+    }
+
+    @Test
+    public void spawnRandom_isDeterministicForSeed() {
+        FishSchool a = new FishSchool(12, 10);
+        FishSchool b = new FishSchool(12, 10);
+        a.spawnRandom(10, 500, 500, 80, 123);
+        b.spawnRandom(10, 500, 500, 80, 123);
+        assertArrayEquals(a.keyX, b.keyX, 0f);
+        assertArrayEquals(a.velocityY, b.velocityY, 0f);
+        assertArrayEquals(a.swing, b.swing, 0f);
+    }
+}
@@ -0,0 +1,66 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FixedTimestepTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void stepsPerSecond_independentOfRefreshRate() {
+        int[] refreshRates = {30, 60, 90, 120, 144};
+        for (int hz : refreshRates) {
+            FixedTimestep timestep = new FixedTimestep();
+            long steps = 0;
+            long last = 0;
+            for (int frame = 1; frame <= hz * 10; frame++) {
+                long frameTime = Math.round(frame * 1e9 / hz);
+                steps += timestep.advance(frameTime - last);
+                last = frameTime;
+                assertTrue(timestep.getAlpha() >= 0 && timestep.getAlpha() < 1);
+            }
+            // 每秒60步，10秒之后正好600步（步长取整后的误差不足一步）
+            assertEquals(hz + "Hz", 600, steps);
+            assertEquals(steps, timestep.getStepCount());
+            assertEquals(0, timestep.getDroppedNanos());
+        }
+    }
+
+    @Test
+    public void alpha_isRemainderOfStep() {
+        FixedTimestep timestep = new FixedTimestep(10, 4);
+        assertEquals(0, timestep.advance(5));
+        assertEquals(0.5f, timestep.getAlpha(), 0);
+        assertEquals(1, timestep.advance(7));
+        assertEquals(0.2f, timestep.getAlpha(), 1e-6f);
+        assertEquals(0, timestep.advance(0));
+        assertEquals(0, timestep.advance(-100));
+        assertEquals(0.2f, timestep.getAlpha(), 1e-6f);
+        timestep.reset();
+        assertEquals(0f, timestep.getAlpha(), 0);
+    }
+
+    @Test
+    public void longStall_catchUpIsCapped() {
+        FixedTimestep timestep = new FixedTimestep();
+        // 卡顿2秒：只追赶上限的步数，剩余的整步丢弃，不足一步的部分保留
+        long stall = 2 * SECOND + FixedTimestep.DEFAULT_STEP_NANOS / 2;
+        assertEquals(FixedTimestep.DEFAULT_MAX_STEPS_PER_FRAME, timestep.advance(stall));
+        assertEquals(0.5f, timestep.getAlpha(), 1e-4f);
+        long expectedDropped = (stall / FixedTimestep.DEFAULT_STEP_NANOS - FixedTimestep.DEFAULT_MAX_STEPS_PER_FRAME)
+                * FixedTimestep.DEFAULT_STEP_NANOS;
+        assertEquals(expectedDropped, timestep.getDroppedNanos());
+        // 之后恢复正常
+        assertEquals(1, timestep.advance(FixedTimestep.DEFAULT_STEP_NANOS));
+    }
+
+    @Test
+    public void lerpDegrees_takesShortestWay() {
+        assertEquals(0f, Interpolation.lerpDegrees(350, 10, 0.5f) % 360f, 1e-4f);
+        assertEquals(355f, Interpolation.lerpDegrees(5, 345, 0.5f) + 360f, 1e-4f);
+        assertEquals(45f, Interpolation.lerpDegrees(0, 90, 0.5f), 0);
+        assertEquals(25f, Interpolation.lerp(20, 30, 0.5f), 0);
+    }
+}
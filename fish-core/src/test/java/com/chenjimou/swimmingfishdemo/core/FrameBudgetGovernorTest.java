@@ -0,0 +1,83 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameBudgetGovernorTest {
+
+    private static final long BUDGET = 16_666_667L;
+    private static final int WINDOW = 10;
+
+    @Test
+    public void overBudget_degradesOneTierPerWindow() {
+        FrameBudgetGovernor governor = new FrameBudgetGovernor(BUDGET, WINDOW);
+        for (int i = 0; i < WINDOW - 1; i++) {
+            assertFalse(governor.addFrame(BUDGET * 2));
+        }
+        assertTrue(governor.addFrame(BUDGET * 2));
+        assertEquals(FishLod.REDUCED, governor.getTier());
+
+        feed(governor, BUDGET * 2, WINDOW);
+        assertEquals(FishLod.MINIMAL, governor.getTier());
+        feed(governor, BUDGET * 2, WINDOW);
+        assertEquals(FishLod.MINIMAL, governor.getTier());
+    }
+
+    @Test
+    public void betweenRatios_holdsTier() {
+        FrameBudgetGovernor governor = new FrameBudgetGovernor(BUDGET, WINDOW);
+        feed(governor, BUDGET * 2, WINDOW);
+        assertEquals(FishLod.REDUCED, governor.getTier());
+        // 耗时在恢复和降低的阈值之间时保持不变
+        feed(governor, (long) (BUDGET * 0.65f), WINDOW * 20);
+        assertEquals(FishLod.REDUCED, governor.getTier());
+    }
+
+    @Test
+    public void underBudget_upgradesSlowerThanDegrading() {
+        FrameBudgetGovernor governor = new FrameBudgetGovernor(BUDGET, WINDOW);
+        feed(governor, BUDGET * 2, WINDOW);
+        assertEquals(FishLod.REDUCED, governor.getTier());
+
+        feed(governor, BUDGET / 4, WINDOW * (FrameBudgetGovernor.UPGRADE_WINDOWS - 1));
+        assertEquals(FishLod.REDUCED, governor.getTier());
+        feed(governor, BUDGET / 4, WINDOW);
+        assertEquals(FishLod.FULL, governor.getTier());
+    }
+
+    @Test
+    public void alternatingLoad_doesNotFlicker() {
+        FrameBudgetGovernor governor = new FrameBudgetGovernor(BUDGET, WINDOW);
+        // 较低的细节刚好有余量、较高的细节刚好超出预算时，等级会稳定在较低的一级，
+        // 每UPGRADE_WINDOWS + 1个窗口最多尝试恢复一次
+        int changes = 0;
+        for (int frame = 0; frame < WINDOW * 400; frame++) {
+            long cost = governor.getTier() == FishLod.FULL ? BUDGET : BUDGET / 3;
+            if (governor.addFrame(cost)) {
+                changes++;
+            }
+        }
+        int windows = 400;
+        assertTrue("changes " + changes, changes <= 2 * windows / (FrameBudgetGovernor.UPGRADE_WINDOWS + 1) + 1);
+        assertTrue(changes > 0);
+    }
+
+    @Test
+    public void reset_restoresFullDetail() {
+        FrameBudgetGovernor governor = new FrameBudgetGovernor(BUDGET, WINDOW);
+        feed(governor, BUDGET * 2, WINDOW * 2);
+        assertEquals(FishLod.MINIMAL, governor.getTier());
+        governor.reset();
+        assertEquals(FishLod.FULL, governor.getTier());
+        // 重置后之前的样本不再计入
+        feed(governor, BUDGET * 2, WINDOW - 1);
+        assertEquals(FishLod.FULL, governor.getTier());
+    }
+
+    private static void feed(FrameBudgetGovernor governor, long frameNanos, int frames) {
+        for (int i = 0; i < frames; i++) {
+            governor.addFrame(frameNanos);
+        }
+    }
+}
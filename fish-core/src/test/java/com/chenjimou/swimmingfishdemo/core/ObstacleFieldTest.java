@@ -0,0 +1,120 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ObstacleFieldTest {
+
+    private static final float CELL = 20;
+    private static final float MAX_DISTANCE = 200;
+
+    @Test
+    public void distanceAtCellCenters_matchesExactDistance() {
+        ObstacleField field = new ObstacleField(CELL, MAX_DISTANCE);
+        field.setBounds(1000, 800);
+        field.setObstacle(0, 300, 300, 500, 400);
+        for (int row = 0; row < field.getRows(); row++) {
+            for (int column = 0; column < field.getColumns(); column++) {
+                float x = (column + 0.5f) * CELL;
+                float y = (row + 0.5f) * CELL;
+                float expected = Math.min(exactDistance(x, y, 1000, 800, 300, 300, 500, 400), MAX_DISTANCE);
+                assertEquals(expected, field.distanceAt(x, y), 1e-3f);
+            }
+        }
+    }
+
+    @Test
+    public void distanceBetweenCells_isWithinOneCell() {
+        ObstacleField field = new ObstacleField(CELL, MAX_DISTANCE);
+        field.setBounds(1000, 800);
+        field.setObstacle(0, 300, 300, 500, 400);
+        for (float y = 0; y <= 800; y += 7.3f) {
+            for (float x = 0; x <= 1000; x += 7.3f) {
+                float exact = Math.min(exactDistance(x, y, 1000, 800, 300, 300, 500, 400), MAX_DISTANCE);
+                assertEquals("(" + x + ", " + y + ")", exact, field.distanceAt(x, y), CELL);
+            }
+        }
+    }
+
+    @Test
+    public void outsideBounds_isNegative() {
+        ObstacleField field = new ObstacleField(CELL, MAX_DISTANCE);
+        field.setBounds(1000, 800);
+        assertEquals(-50, field.distanceAt(-50, 400), 1e-3f);
+        assertEquals(-30, field.distanceAt(500, 830), 1e-3f);
+        assertEquals(5, field.distanceAt(5, 400), 1e-3f);
+        assertTrue(field.distanceAt(400, 350) > 0);
+    }
+
+    @Test
+    public void movingObstacle_updatesOnlyNearbyCellsAndMatchesRebuild() {
+        ObstacleField field = new ObstacleField(CELL, MAX_DISTANCE);
+        field.setBounds(2000, 2000);
+        field.setObstacle(0, 100, 100, 200, 200);
+        field.setObstacle(1, 1500, 1500, 1700, 1600);
+        long before = field.getUpdatedCells();
+        field.setObstacle(0, 140, 120, 240, 220);
+        long updated = field.getUpdatedCells() - before;
+        // 新旧两个范围各向外扩大MAX_DISTANCE，远小于整个网格
+        assertTrue(updated + " cells", updated <= 2 * 26 * 26);
+        assertTrue(updated < field.getColumns() * field.getRows() / 4);
+
+        // 范围不变时不重新计算
+        before = field.getUpdatedCells();
+        field.setObstacle(0, 140, 120, 240, 220);
+        assertEquals(before, field.getUpdatedCells());
+
+        ObstacleField rebuilt = new ObstacleField(CELL, MAX_DISTANCE);
+        rebuilt.setBounds(2000, 2000);
+        rebuilt.setObstacle(1, 1500, 1500, 1700, 1600);
+        rebuilt.setObstacle(0, 140, 120, 240, 220);
+        for (float y = 5; y < 2000; y += 37) {
+            for (float x = 5; x < 2000; x += 37) {
+                assertEquals(rebuilt.distanceAt(x, y), field.distanceAt(x, y), 0);
+            }
+        }
+    }
+
+    @Test
+    public void removeObstacle_restoresEmptyField() {
+        ObstacleField field = new ObstacleField(CELL, MAX_DISTANCE);
+        field.setBounds(1000, 800);
+        ObstacleField empty = new ObstacleField(CELL, MAX_DISTANCE);
+        empty.setBounds(1000, 800);
+        field.setObstacle(0, 300, 300, 500, 400);
+        field.setObstacle(3, 700, 100, 800, 200);
+        field.removeObstaclesFrom(0);
+        assertFalse(field.hasObstacle(0));
+        assertFalse(field.hasObstacle(3));
+        for (float y = 5; y < 800; y += 23) {
+            for (float x = 5; x < 1000; x += 23) {
+                assertEquals(empty.distanceAt(x, y), field.distanceAt(x, y), 0);
+            }
+        }
+    }
+
+    @Test
+    public void segmentClear_detectsObstacleInBetween() {
+        ObstacleField field = new ObstacleField(CELL, MAX_DISTANCE);
+        field.setBounds(1000, 800);
+        field.setObstacle(0, 480, 0, 520, 600);
+        assertFalse(field.isSegmentClear(200, 300, 800, 300, 10));
+        assertTrue(field.isSegmentClear(200, 700, 800, 700, 10));
+        assertFalse(field.isSegmentClear(200, 700, 800, 700, 120));
+
+        float[] gradient = new float[2];
+        field.gradientAt(450, 300, gradient);
+        assertEquals(-1, gradient[0], 1e-3f);
+        assertEquals(0, gradient[1], 1e-3f);
+    }
+
+    /**
+     * 到矩形和布局边界的精确距离
+     */
+    static float exactDistance(float x, float y, float width, float height,
+                               float left, float top, float right, float bottom) {
+        float wall = Math.min(Math.min(x, width - x), Math.min(y, height - y));
+        return Math.min(wall, ObstacleField.rectDistance(x, y, left, top, right, bottom));
+    }
+}
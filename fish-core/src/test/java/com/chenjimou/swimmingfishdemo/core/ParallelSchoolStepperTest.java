@@ -0,0 +1,156 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelSchoolStepperTest {
+
+    private static final int FISH_COUNT = 3000;
+    private static final float SIDE = 3000;
+    private static final int FRAMES = 60;
+
+    private ForkJoinPool forkJoinPool;
+    private ExecutorService threadPool;
+
+    @Before
+    public void setUp() {
+        forkJoinPool = new ForkJoinPool(4);
+        threadPool = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void tearDown() {
+        forkJoinPool.shutdownNow();
+        threadPool.shutdownNow();
+    }
+
+    @Test
+    public void step_isBitIdenticalToSerialStep() {
+        FishSchool serial = newSchool();
+        Flocking serialFlocking = newFlocking();
+        FishSchool forkJoin = newSchool();
+        Flocking forkJoinFlocking = newFlocking();
+        FishSchool pooled = newSchool();
+        Flocking pooledFlocking = newFlocking();
+        // 每段只有64条鱼，保证分成多段
+        ParallelSchoolStepper forkJoinStepper = new ParallelSchoolStepper(forkJoinPool, 4, 64);
+        ParallelSchoolStepper pooledStepper = new ParallelSchoolStepper(threadPool, 3, 64);
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            if (frame == 20) {
+                serialFlocking.setTarget(SIDE / 2, SIDE / 3);
+                forkJoinFlocking.setTarget(SIDE / 2, SIDE / 3);
+                pooledFlocking.setTarget(SIDE / 2, SIDE / 3);
+            }
+            serialFlocking.step(serial, 1 / 60f);
+            forkJoinStepper.step(forkJoin, forkJoinFlocking, 1 / 60f);
+            pooledStepper.step(pooled, pooledFlocking, 1 / 60f);
+        }
+
+        assertBitIdentical(serial, forkJoin);
+        assertBitIdentical(serial, pooled);
+    }
+
+    @Test
+    public void step_writesPosesToGivenBuffer() {
+        FishSchool serial = newSchool();
+        Flocking serialFlocking = newFlocking();
+        FishSchool parallel = newSchool();
+        Flocking parallelFlocking = newFlocking();
+        ParallelSchoolStepper stepper = new ParallelSchoolStepper(forkJoinPool, 4, 64);
+        float[] out = new float[FISH_COUNT * FishPose.FLOATS_PER_POSE];
+
+        for (int frame = 0; frame < 10; frame++) {
+            serialFlocking.step(serial, 1 / 30f);
+            stepper.step(parallel, parallelFlocking, 1 / 30f, out);
+        }
+
+        assertBitIdentical(serial.poses, out);
+    }
+
+    @Test
+    public void step_singleThreadRunsOnCaller() {
+        FishSchool serial = newSchool();
+        Flocking serialFlocking = newFlocking();
+        FishSchool parallel = newSchool();
+        Flocking parallelFlocking = newFlocking();
+        ParallelSchoolStepper stepper = new ParallelSchoolStepper(new java.util.concurrent.Executor() {
+            @Override
+            public void execute(Runnable command) {
+                fail("single thread stepper must not use the executor");
+            }
+        }, 1);
+
+        for (int frame = 0; frame < 10; frame++) {
+            serialFlocking.step(serial, 1 / 60f);
+            stepper.step(parallel, parallelFlocking, 1 / 60f);
+        }
+
+        assertBitIdentical(serial, parallel);
+    }
+
+    @Test
+    public void asyncSimulation_publishesSameSnapshotAsSerialStep() throws InterruptedException {
+        FishSchool serial = newSchool();
+        Flocking serialFlocking = newFlocking();
+        ExecutorService coordinator = Executors.newSingleThreadExecutor();
+        try {
+            AsyncSchoolSimulation simulation = new AsyncSchoolSimulation(newSchool(), newFlocking(),
+                    new ParallelSchoolStepper(forkJoinPool, 4, 64), coordinator);
+            for (int frame = 0; frame < 10; frame++) {
+                assertTrue(simulation.requestStep(1 / 60f));
+                while (simulation.isStepping()) {
+                    Thread.sleep(1);
+                }
+                serialFlocking.step(serial, 1 / 60f);
+            }
+
+            float[] snapshot = simulation.acquireSnapshot();
+            assertEquals(FISH_COUNT, simulation.getSnapshotCount());
+            for (int i = 0; i < FISH_COUNT * FishPose.FLOATS_PER_POSE; i++) {
+                assertEquals(Float.floatToIntBits(serial.poses[i]), Float.floatToIntBits(snapshot[i]));
+            }
+        } finally {
+            coordinator.shutdownNow();
+        }
+    }
+
+    private static FishSchool newSchool() {
+        FishSchool school = new FishSchool(12, FISH_COUNT);
+        school.setBounds(SIDE, SIDE);
+        school.spawnRandom(FISH_COUNT, SIDE, SIDE, 80, 2021);
+        return school;
+    }
+
+    private static Flocking newFlocking() {
+        Flocking flocking = new Flocking(FISH_COUNT, 60);
+        flocking.setSpeedRange(40, 120);
+        return flocking;
+    }
+
+    private static void assertBitIdentical(FishSchool expected, FishSchool actual) {
+        assertBitIdentical(expected.keyX, actual.keyX);
+        assertBitIdentical(expected.keyY, actual.keyY);
+        assertBitIdentical(expected.velocityX, actual.velocityX);
+        assertBitIdentical(expected.velocityY, actual.velocityY);
+        assertBitIdentical(expected.headAngle, actual.headAngle);
+        assertBitIdentical(expected.swing, actual.swing);
+        assertBitIdentical(expected.poses, actual.poses);
+    }
+
+    private static void assertBitIdentical(float[] expected, float[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            if (Float.floatToIntBits(expected[i]) != Float.floatToIntBits(actual[i])) {
+                fail("differs at " + i + ": " + expected[i] + " != " + actual[i]);
+            }
+        }
+    }
+}
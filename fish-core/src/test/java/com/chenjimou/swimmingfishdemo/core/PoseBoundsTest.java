@@ -0,0 +1,85 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PoseBoundsTest {
+
+    private static final float HEAD_RADIUS = 40;
+
+    @Test
+    public void compute_containsEveryShape() {
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        float[] bounds = new float[PoseBounds.SIZE];
+        Random random = new Random(3);
+        for (int sample = 0; sample < 500; sample++) {
+            pose.update(random.nextFloat() * 1000, random.nextFloat() * 1000, random.nextFloat() * 360,
+                    random.nextFloat() * 360);
+            float[] points = pose.points;
+            PoseBounds.compute(points, 0, HEAD_RADIUS, 0, bounds);
+
+            // 鱼头圆
+            assertContains(bounds, FishPose.x(points, 0, FishPose.HEAD), FishPose.y(points, 0, FishPose.HEAD),
+                    HEAD_RADIUS);
+            // 躯干的两条曲线
+            assertQuadContained(bounds, points, FishPose.BODY_TOP_LEFT, FishPose.BODY_CONTROL_LEFT,
+                    FishPose.BODY_BOTTOM_LEFT);
+            assertQuadContained(bounds, points, FishPose.BODY_BOTTOM_RIGHT, FishPose.BODY_CONTROL_RIGHT,
+                    FishPose.BODY_TOP_RIGHT);
+            // 鱼鳍
+            assertQuadContained(bounds, points, FishPose.RIGHT_FIN_START, FishPose.RIGHT_FIN_CONTROL,
+                    FishPose.RIGHT_FIN_END);
+            assertQuadContained(bounds, points, FishPose.LEFT_FIN_START, FishPose.LEFT_FIN_CONTROL,
+                    FishPose.LEFT_FIN_END);
+            // 鱼尾的圆
+            assertContains(bounds, FishPose.x(points, 0, FishPose.BODY_BOTTOM),
+                    FishPose.y(points, 0, FishPose.BODY_BOTTOM), 0.7f * HEAD_RADIUS);
+            assertContains(bounds, FishPose.x(points, 0, FishPose.TAIL_MIDDLE),
+                    FishPose.y(points, 0, FishPose.TAIL_MIDDLE), 0.42f * HEAD_RADIUS);
+            assertContains(bounds, FishPose.x(points, 0, FishPose.TAIL_SMALL),
+                    FishPose.y(points, 0, FishPose.TAIL_SMALL), 0.168f * HEAD_RADIUS);
+        }
+    }
+
+    @Test
+    public void compute_isMuchSmallerThanDrawableBox() {
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        pose.update(213, 213, 0, 0);
+        float[] bounds = new float[PoseBounds.SIZE];
+        PoseBounds.compute(pose.points, 0, HEAD_RADIUS, 1, bounds);
+        float drawableSide = 10.648f * HEAD_RADIUS;
+        assertTrue(PoseBounds.area(bounds) < drawableSide * drawableSide / 2);
+    }
+
+    @Test
+    public void union_coversBoth() {
+        float[] a = new float[PoseBounds.SIZE];
+        float[] b = new float[PoseBounds.SIZE];
+        PoseBounds.circle(0, 0, 10, a);
+        PoseBounds.circle(100, 50, 5, b);
+        PoseBounds.union(a, b);
+        assertArrayEquals(new float[]{-10, -10, 105, 55}, a, 0f);
+    }
+
+    private static void assertQuadContained(float[] bounds, float[] points, int start, int control, int end) {
+        for (int i = 0; i <= 20; i++) {
+            float t = i / 20f;
+            float a = (1 - t) * (1 - t);
+            float b = 2 * t * (1 - t);
+            float c = t * t;
+            float x = a * FishPose.x(points, 0, start) + b * FishPose.x(points, 0, control) + c * FishPose.x(points, 0, end);
+            float y = a * FishPose.y(points, 0, start) + b * FishPose.y(points, 0, control) + c * FishPose.y(points, 0, end);
+            assertContains(bounds, x, y, 0);
+        }
+    }
+
+    private static void assertContains(float[] bounds, float x, float y, float radius) {
+        assertTrue(x - radius >= bounds[PoseBounds.LEFT] - 1e-3f);
+        assertTrue(y - radius >= bounds[PoseBounds.TOP] - 1e-3f);
+        assertTrue(x + radius <= bounds[PoseBounds.RIGHT] + 1e-3f);
+        assertTrue(y + radius <= bounds[PoseBounds.BOTTOM] + 1e-3f);
+    }
+}
@@ -0,0 +1,69 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PoseSnapshotBufferTest {
+
+    @Test
+    public void acquire_returnsLatestPublishedSnapshot() {
+        PoseSnapshotBuffer buffer = new PoseSnapshotBuffer(2);
+        assertFalse(buffer.acquire());
+
+        buffer.beginWrite()[0] = 1;
+        buffer.publish(1);
+        buffer.beginWrite()[0] = 2;
+        buffer.publish(2);
+
+        assertTrue(buffer.acquire());
+        assertEquals(2f, buffer.front()[0], 0f);
+        assertEquals(2, buffer.frontCount());
+        assertFalse(buffer.acquire());
+        assertEquals(2f, buffer.front()[0], 0f);
+    }
+
+    @Test
+    public void publish_neverWritesIntoFrontBuffer() {
+        PoseSnapshotBuffer buffer = new PoseSnapshotBuffer(1);
+        buffer.publish(0);
+        buffer.acquire();
+        float[] front = buffer.front();
+        for (int i = 0; i < 10; i++) {
+            assertNotSame(front, buffer.beginWrite());
+            buffer.publish(0);
+        }
+    }
+
+    @Test
+    public void concurrentReader_neverSeesTornSnapshot() throws InterruptedException {
+        final PoseSnapshotBuffer buffer = new PoseSnapshotBuffer(4);
+        final int snapshots = 20000;
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int n = 1; n <= snapshots; n++) {
+                    float[] back = buffer.beginWrite();
+                    for (int i = 0; i < back.length; i++) {
+                        back[i] = n;
+                    }
+                    buffer.publish(n);
+                }
+            }
+        });
+        writer.start();
+        int last = 0;
+        while (last < snapshots) {
+            if (buffer.acquire()) {
+                float[] front = buffer.front();
+                int count = buffer.frontCount();
+                assertTrue(count > last);
+                for (float value : front) {
+                    assertEquals(count, value, 0f);
+                }
+                last = count;
+            }
+        }
+        writer.join();
+    }
+}
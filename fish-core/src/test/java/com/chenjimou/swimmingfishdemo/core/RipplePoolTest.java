@@ -0,0 +1,105 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class RipplePoolTest {
+
+    @Test
+    public void ripples_growFadeAndExpireInOrder() {
+        RipplePool pool = new RipplePool(4);
+        pool.add(10, 20);
+        pool.advance(0.5f);
+        pool.add(30, 40);
+        assertEquals(2, pool.size());
+        assertEquals(10, pool.getX(0), 0);
+        assertEquals(40, pool.getY(1), 0);
+        // 与属性动画默认的插值器相同：一半时间时半径为一半
+        assertEquals(50f, pool.getRadius(0), 1e-3f);
+        assertEquals(50, pool.getAlpha(0));
+        assertEquals(0f, pool.getRadius(1), 0);
+        assertEquals(RipplePool.MAX_ALPHA, pool.getAlpha(1));
+
+        assertEquals(1, pool.advance(0.5f));
+        assertEquals(1, pool.size());
+        assertEquals(30, pool.getX(0), 0);
+        assertEquals(1, pool.advance(0.5f));
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void add_whenFull_recyclesOldest() {
+        RipplePool pool = new RipplePool(3);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(pool.add(i, i));
+            pool.advance(0.1f);
+        }
+        assertTrue(pool.add(3, 3));
+        assertEquals(3, pool.size());
+        assertEquals(1, pool.getX(0), 0);
+        assertEquals(3, pool.getX(2), 0);
+        assertEquals(0f, pool.getRadius(2), 0);
+    }
+
+    @Test
+    public void computeBounds_containsEveryRipple() {
+        RipplePool pool = new RipplePool(8);
+        float[] bounds = new float[PoseBounds.SIZE];
+        assertFalse(pool.computeBounds(4, bounds));
+        pool.add(100, 100);
+        pool.advance(0.75f);
+        pool.add(400, 300);
+        pool.advance(0.1f);
+        assertTrue(pool.computeBounds(4, bounds));
+        for (int i = 0; i < pool.size(); i++) {
+            float r = pool.getRadius(i) + 4;
+            assertTrue(bounds[PoseBounds.LEFT] <= pool.getX(i) - r);
+            assertTrue(bounds[PoseBounds.TOP] <= pool.getY(i) - r);
+            assertTrue(bounds[PoseBounds.RIGHT] >= pool.getX(i) + r);
+            assertTrue(bounds[PoseBounds.BOTTOM] >= pool.getY(i) + r);
+        }
+        assertEquals(100 - pool.getRadius(0) - 4, bounds[PoseBounds.LEFT], 1e-3f);
+        assertEquals(400 + pool.getRadius(1) + 4, bounds[PoseBounds.RIGHT], 1e-3f);
+    }
+
+    @Test
+    public void rapidTapping_allocatesNothing() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        RipplePool pool = new RipplePool(16);
+        float[] bounds = new float[PoseBounds.SIZE];
+        // 预热
+        for (int i = 0; i < 20_000; i++) {
+            tapFrame(pool, i, bounds);
+        }
+
+        int frames = 10_000;
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < frames; i++) {
+            tapFrame(pool, i, bounds);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes in " + frames + " frames", allocated < frames);
+        assertEquals(16, pool.size());
+    }
+
+    /**
+     * 每一帧点三次，再推进并遍历所有波纹
+     */
+    private static float tapFrame(RipplePool pool, int frame, float[] bounds) {
+        for (int tap = 0; tap < 3; tap++) {
+            pool.add(frame % 1000, tap * 100);
+        }
+        pool.advance(1 / 60f);
+        float sum = 0;
+        for (int i = 0; i < pool.size(); i++) {
+            sum += pool.getRadius(i) + pool.getAlpha(i);
+        }
+        pool.computeBounds(4, bounds);
+        return sum;
+    }
+}
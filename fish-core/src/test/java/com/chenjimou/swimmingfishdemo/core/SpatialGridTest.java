@@ -0,0 +1,77 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SpatialGridTest {
+
+    @Test
+    public void query_matchesBruteForceAfterIncrementalUpdates() {
+        int count = 2000;
+        float radius = 40;
+        Random random = new Random(1);
+        float[] xs = new float[count];
+        float[] ys = new float[count];
+        // 包括负坐标，验证哈希网格不受范围限制
+        for (int i = 0; i < count; i++) {
+            xs[i] = random.nextFloat() * 1200 - 100;
+            ys[i] = random.nextFloat() * 1200 - 100;
+        }
+        SpatialGrid grid = new SpatialGrid(radius, count);
+        int[] found = new int[count];
+        for (int frame = 0; frame < 5; frame++) {
+            grid.updateAll(xs, ys, 0, count);
+            for (int q = 0; q < 200; q++) {
+                int self = random.nextInt(count);
+                int n = grid.query(xs[self], ys[self], radius, xs, ys, self, found);
+                int[] actual = Arrays.copyOf(found, n);
+                Arrays.sort(actual);
+                assertArrayEquals(bruteForce(xs, ys, xs[self], ys[self], radius, self), actual);
+            }
+            for (int i = 0; i < count; i++) {
+                xs[i] += random.nextFloat() * 30 - 15;
+                ys[i] += random.nextFloat() * 30 - 15;
+            }
+        }
+    }
+
+    @Test
+    public void query_stopsAtBufferLength() {
+        float[] xs = new float[10];
+        float[] ys = new float[10];
+        SpatialGrid grid = new SpatialGrid(10, 10);
+        grid.updateAll(xs, ys, 0, 10);
+        assertEquals(4, grid.query(0, 0, 5, xs, ys, -1, new int[4]));
+    }
+
+    @Test
+    public void remove_excludesAgentFromQueries() {
+        float[] xs = {0, 1, 2};
+        float[] ys = {0, 0, 0};
+        SpatialGrid grid = new SpatialGrid(10, 3);
+        grid.updateAll(xs, ys, 0, 3);
+        grid.remove(1);
+        int[] found = new int[3];
+        int n = grid.query(0, 0, 5, xs, ys, -1, found);
+        int[] actual = Arrays.copyOf(found, n);
+        Arrays.sort(actual);
+        assertArrayEquals(new int[]{0, 2}, actual);
+    }
+
+    private static int[] bruteForce(float[] xs, float[] ys, float x, float y, float radius, int exclude) {
+        int[] result = new int[xs.length];
+        int n = 0;
+        for (int i = 0; i < xs.length; i++) {
+            float dx = xs[i] - x;
+            float dy = ys[i] - y;
+            if (i != exclude && dx * dx + dy * dy <= radius * radius) {
+                result[n++] = i;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
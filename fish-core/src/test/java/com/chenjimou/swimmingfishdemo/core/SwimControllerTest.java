@@ -0,0 +1,159 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SwimControllerTest {
+
+    private static final float HEAD_RADIUS = 40;
+    private static final float FRAME = 1 / 60f;
+
+    @Test
+    public void fromRest_matchesAccelerateDecelerate() {
+        SwimController controller = new SwimController(HEAD_RADIUS);
+        controller.swimTo(200, 200, 200, 136, 600, 900);
+        SwimPath path = new SwimPath();
+        path.set(200, 200, 200, 136, 600, 900, HEAD_RADIUS);
+        CubicTrajectory trajectory = new CubicTrajectory();
+        trajectory.set(path.points);
+        float[] pos = new float[2];
+
+        controller.advance(0.5f);
+        trajectory.getPosTan(Interpolation.accelerateDecelerate(0.25f), pos, null);
+        assertEquals(pos[0], controller.getKeyX(), 1e-3f);
+        assertEquals(pos[1], controller.getKeyY(), 1e-3f);
+        assertFalse(controller.advance(2f));
+        assertEquals(0, controller.getRetargetCount());
+    }
+
+    @Test
+    public void retarget_keepsPositionHeadingAndSpeedContinuous() {
+        // 在摆动的不同相位改变目标：40帧时相位约为0，其余帧数时鱼头偏离路线的切线最多10度
+        int[] framesBeforeRetarget = {40, 41, 43, 45, 55};
+        for (int frames : framesBeforeRetarget) {
+            SwimmingFish fish = new SwimmingFish(HEAD_RADIUS, 200, 200);
+            SwimController controller = fish.getSwimController();
+            fish.swimTo(800, 300);
+            for (int i = 0; i < frames; i++) {
+                fish.advance(FRAME);
+            }
+            float x = fish.getKeyX();
+            float y = fish.getKeyY();
+            float angle = fish.getHeadAngle();
+            float speed = controller.getSpeed();
+            assertTrue(speed > 0);
+
+            // 往回掉头，新的路线仍然沿当前的朝向出发
+            fish.swimTo(100, 900);
+            assertEquals(1, controller.getRetargetCount());
+            fish.advance(1e-3f);
+            assertEquals(x, fish.getKeyX(), speed * 2e-3f);
+            assertEquals(y, fish.getKeyY(), speed * 2e-3f);
+            assertEquals("after " + frames + " frames", 0, angleDifference(angle, fish.getHeadAngle()), 1f);
+            assertEquals(speed, controller.getSpeed(), speed * 0.02f);
+        }
+    }
+
+    @Test
+    public void retargetTwiceBeforeAdvancing_keepsHeading() {
+        SwimController controller = new SwimController(HEAD_RADIUS);
+        controller.swimTo(200, 200, 200, 136, 600, 900);
+        for (int i = 0; i < 30; i++) {
+            controller.advance(FRAME);
+        }
+        float angle = controller.getHeadAngle();
+        // 传入的鱼头圆心偏离切线20度，只使用它与重心的距离
+        float offAxis = angle + 20;
+        float headX = controller.getKeyX() + FastMath.cosDeg(offAxis) * 64;
+        float headY = controller.getKeyY() - FastMath.sinDeg(offAxis) * 64;
+        controller.swimTo(controller.getKeyX(), controller.getKeyY(), headX, headY, 100, 100);
+        assertEquals(0, angleDifference(angle, controller.getHeadAngle()), 0.1f);
+        // 同一帧内再次改变目标，仍然沿原来的切线出发
+        controller.swimTo(controller.getKeyX(), controller.getKeyY(), headX, headY, 900, 100);
+        controller.advance(1e-4f);
+        assertEquals(0, angleDifference(angle, controller.getHeadAngle()), 0.5f);
+    }
+
+    @Test
+    public void interpolationWithInitialSlope_isMonotonic() {
+        for (float slope = 0; slope <= Interpolation.MAX_INITIAL_SLOPE; slope += 0.1f) {
+            float previous = 0;
+            for (int i = 1; i <= 1000; i++) {
+                float input = i / 1000f;
+                float value = Interpolation.accelerateDecelerate(input, slope);
+                assertTrue(slope + " at " + input, value >= previous - 1e-6f);
+                previous = value;
+            }
+            assertEquals(1f, previous, 1e-6f);
+            assertEquals(slope, Interpolation.accelerateDecelerateSlope(0, slope), 1e-6f);
+        }
+    }
+
+    /**
+     * 1000个触摸事件在60帧内到达：每一帧只改变一次目标，鱼的移动始终连续
+     */
+    @Test
+    public void burstOf1000Touches_boundedWork() {
+        SwimmingFish fish = new SwimmingFish(HEAD_RADIUS, 500, 500);
+        SwimController controller = fish.getSwimController();
+        TouchCoalescer coalescer = new TouchCoalescer();
+        Random random = new Random(11);
+        int frames = 60;
+        int events = 1000;
+        int delivered = 0;
+        int retargetsBefore = controller.getRetargetCount();
+        int swimStarts = 0;
+        float lastX = fish.getKeyX();
+        float lastY = fish.getKeyY();
+        float maxStep = 0;
+        for (int frame = 0; frame < frames + 120; frame++) {
+            // 输入：平均每帧约17个事件，有的帧没有
+            int burst = frame < frames ? random.nextInt(35) : 0;
+            for (int i = 0; i < burst && delivered < events; i++, delivered++) {
+                coalescer.offer(random.nextFloat() * 1000, random.nextFloat() * 1000, i == 0);
+            }
+            if (frame == frames - 1) {
+                while (delivered < events) {
+                    coalescer.offer(random.nextFloat() * 1000, random.nextFloat() * 1000, false);
+                    delivered++;
+                }
+            }
+            // 帧回调：最多处理一次
+            if (coalescer.poll()) {
+                if (!fish.isSwimming()) {
+                    swimStarts++;
+                }
+                fish.swimTo(coalescer.getPolledX(), coalescer.getPolledY());
+            }
+            assertFalse(coalescer.hasPending());
+            fish.advance(FRAME);
+            float step = (float) Math.hypot(fish.getKeyX() - lastX, fish.getKeyY() - lastY);
+            maxStep = Math.max(maxStep, step);
+            lastX = fish.getKeyX();
+            lastY = fish.getKeyY();
+        }
+
+        assertEquals(events, coalescer.getOfferedCount());
+        assertTrue(coalescer.getPolledCount() <= frames);
+        assertEquals(coalescer.getPolledCount(), controller.getRetargetCount() - retargetsBefore + swimStarts);
+        // 鱼最终停下，同一时刻只有一段游动
+        assertFalse(fish.isSwimming());
+        // 位置没有跳变：每帧的位移不超过一段路线的最大速度对应的距离（路线最长约为画面对角线的两倍）
+        float maxSpeed = 2 * 1414f / SwimmingFish.DEFAULT_SWIM_DURATION_SECONDS
+                * (float) (Math.PI / 2 + Interpolation.MAX_INITIAL_SLOPE);
+        assertTrue("step " + maxStep, maxStep <= maxSpeed * FRAME);
+    }
+
+    private static float angleDifference(float a, float b) {
+        float d = (a - b) % 360f;
+        if (d > 180) {
+            d -= 360;
+        } else if (d < -180) {
+            d += 360;
+        }
+        return d;
+    }
+}
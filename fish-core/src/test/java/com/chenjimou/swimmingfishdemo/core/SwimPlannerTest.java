@@ -0,0 +1,186 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class SwimPlannerTest {
+
+    private static final float HEAD_RADIUS = 40;
+    private static final float CELL = 40;
+    private static final float CLEARANCE = 80;
+    private static final float WIDTH = 1080;
+    private static final float HEIGHT = 1920;
+
+    private static ObstacleField newField() {
+        ObstacleField field = new ObstacleField(CELL, CLEARANCE + 2 * CELL);
+        field.setBounds(WIDTH, HEIGHT);
+        return field;
+    }
+
+    @Test
+    public void withoutObstacles_usesOriginalSinglePath() {
+        SwimPlanner planner = new SwimPlanner(newField(), HEAD_RADIUS, CLEARANCE);
+        SplineTrajectory planned = new SplineTrajectory();
+        assertTrue(planner.plan(500, 500, 500, 436, 700, 1200, planned));
+        assertTrue(planner.usedSinglePath());
+        assertEquals(1, planned.getSegmentCount());
+
+        SwimPath path = new SwimPath();
+        path.set(500, 500, 500, 436, 700, 1200, HEAD_RADIUS);
+        CubicTrajectory expected = new CubicTrajectory();
+        expected.set(path.points);
+        float[] a = new float[2];
+        float[] b = new float[2];
+        for (int i = 0; i <= 20; i++) {
+            planned.getPosTan(i / 20f, a, null);
+            expected.getPosTan(i / 20f, b, null);
+            assertArrayEquals(b, a, 0);
+        }
+    }
+
+    @Test
+    public void wallInTheWay_pathGoesAroundWithClearance() {
+        ObstacleField field = newField();
+        // 横跨布局大部分宽度的一堵墙，只有右侧留出通道
+        float[] wall = {0, 900, 800, 1000};
+        field.setObstacle(0, wall[0], wall[1], wall[2], wall[3]);
+        SwimPlanner planner = new SwimPlanner(field, HEAD_RADIUS, CLEARANCE);
+        SplineTrajectory planned = new SplineTrajectory();
+
+        assertTrue(planner.plan(300, 500, 300, 564, 300, 1500, planned));
+        assertFalse(planner.usedSinglePath());
+        assertTrue(planned.getSegmentCount() > 1);
+        assertEquals(300, planner.getEndX(), 1e-3f);
+        assertEquals(1500, planner.getEndY(), 1e-3f);
+        assertClear(planned, wall, CLEARANCE);
+        assertEnds(planned, 300, 500, 300, 1500);
+    }
+
+    @Test
+    public void smoothPath_isTangentContinuous() {
+        ObstacleField field = newField();
+        float[] box = {400, 800, 700, 1100};
+        field.setObstacle(0, box[0], box[1], box[2], box[3]);
+        SwimPlanner planner = new SwimPlanner(field, HEAD_RADIUS, CLEARANCE);
+        SplineTrajectory planned = new SplineTrajectory();
+        assertTrue(planner.plan(550, 500, 550, 436, 550, 1400, planned));
+        assertClear(planned, box, CLEARANCE);
+
+        // 出发的方向就是鱼当前的朝向（背对目标，向上）
+        float[] tan = new float[2];
+        planned.getPosTan(0, null, tan);
+        assertEquals(0, tan[0], 1e-3f);
+        assertEquals(-1, tan[1], 1e-3f);
+
+        // 相邻两段在连接处的切线方向相同
+        float[] end = new float[2];
+        float[] start = new float[2];
+        for (int i = 0; i + 1 < planned.getSegmentCount(); i++) {
+            planned.getSegment(i).getPosTan(1, null, end);
+            planned.getSegment(i + 1).getPosTan(0, null, start);
+            assertEquals(end[0] * start[0] + end[1] * start[1], 1, 1e-3f);
+        }
+    }
+
+    @Test
+    public void targetInsideObstacleOrOffscreen_isMovedToReachablePoint() {
+        ObstacleField field = newField();
+        float[] box = {300, 800, 700, 1100};
+        field.setObstacle(0, box[0], box[1], box[2], box[3]);
+        SwimPlanner planner = new SwimPlanner(field, HEAD_RADIUS, CLEARANCE);
+        SplineTrajectory planned = new SplineTrajectory();
+
+        assertTrue(planner.plan(500, 300, 500, 236, 500, 820, planned));
+        assertTrue(field.distanceAt(planner.getEndX(), planner.getEndY()) >= CLEARANCE);
+        assertClear(planned, box, CLEARANCE);
+
+        assertTrue(planner.plan(500, 300, 500, 236, 1200, -100, planned));
+        assertTrue(planner.getEndX() <= WIDTH - CLEARANCE);
+        assertTrue(planner.getEndY() >= CLEARANCE);
+        assertClear(planned, box, CLEARANCE);
+    }
+
+    @Test
+    public void enclosedTarget_stopsAtReachablePoint() {
+        ObstacleField field = newField();
+        // 一圈围住目标的墙
+        field.setObstacle(0, 200, 1000, 900, 1040);
+        field.setObstacle(1, 200, 1500, 900, 1540);
+        field.setObstacle(2, 200, 1000, 240, 1540);
+        field.setObstacle(3, 860, 1000, 900, 1540);
+        SwimPlanner planner = new SwimPlanner(field, HEAD_RADIUS, CLEARANCE, 400);
+        SplineTrajectory planned = new SplineTrajectory();
+
+        assertFalse(planner.plan(550, 400, 550, 464, 550, 1270, planned));
+        float[] pos = new float[2];
+        for (int i = 0; i <= 200; i++) {
+            planned.getPosTan(i / 200f, pos, null);
+            assertTrue(field.distanceAt(pos[0], pos[1]) >= CLEARANCE - 1e-3f);
+            assertTrue(pos[1] < 1000);
+        }
+    }
+
+    @Test
+    public void swimController_followsPlannedPath() {
+        ObstacleField field = newField();
+        float[] wall = {0, 900, 800, 1000};
+        field.setObstacle(0, wall[0], wall[1], wall[2], wall[3]);
+        SwimController controller = new SwimController(HEAD_RADIUS);
+        controller.setPlanner(new SwimPlanner(field, HEAD_RADIUS, CLEARANCE));
+        controller.swimTo(300, 500, 300, 564, 300, 1500);
+        while (controller.advance(1 / 60f)) {
+            float distance = ObstacleFieldTest.exactDistance(controller.getKeyX(), controller.getKeyY(),
+                    WIDTH, HEIGHT, wall[0], wall[1], wall[2], wall[3]);
+            assertTrue(distance >= CLEARANCE - CELL * 0.5f);
+        }
+        assertEquals(300, controller.getKeyX(), 1e-2f);
+        assertEquals(1500, controller.getKeyY(), 1e-2f);
+    }
+
+    @Test
+    public void planning_allocatesNothing() {
+        ObstacleField field = newField();
+        field.setObstacle(0, 0, 900, 800, 1000);
+        field.setObstacle(1, 300, 300, 600, 400);
+        SwimPlanner planner = new SwimPlanner(field, HEAD_RADIUS, CLEARANCE);
+        SplineTrajectory planned = new SplineTrajectory();
+        for (int i = 0; i < 200; i++) {
+            planner.plan(300 + i, 200, 300, 264, 300 + i, 1500, planned);
+        }
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 200; i++) {
+            planner.plan(300 + i, 200, 300, 264, 300 + i, 1500, planned);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    /**
+     * 沿路线检查到障碍物和布局边界的精确距离，允许双线性插值造成的误差
+     */
+    private static void assertClear(SplineTrajectory trajectory, float[] rect, float clearance) {
+        float[] pos = new float[2];
+        for (int i = 0; i <= 400; i++) {
+            trajectory.getPosTan(i / 400f, pos, null);
+            float distance = ObstacleFieldTest.exactDistance(pos[0], pos[1], WIDTH, HEIGHT,
+                    rect[0], rect[1], rect[2], rect[3]);
+            assertTrue("(" + pos[0] + ", " + pos[1] + ") " + distance, distance >= clearance - CELL * 0.5f);
+        }
+    }
+
+    private static void assertEnds(SplineTrajectory trajectory, float startX, float startY, float endX, float endY) {
+        float[] pos = new float[2];
+        trajectory.getPosTan(0, pos, null);
+        assertEquals(startX, pos[0], 1e-3f);
+        assertEquals(startY, pos[1], 1e-3f);
+        trajectory.getPosTan(1, pos, null);
+        assertEquals(endX, pos[0], 1e-3f);
+        assertEquals(endY, pos[1], 1e-3f);
+    }
+}
@@ -0,0 +1,130 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SwimmingFishTest {
+
+    private static final float HEAD_RADIUS = 40;
+
+    @Test
+    public void swimTo_followsSwimPathAndStopsAtTouchPoint() {
+        SwimmingFish fish = new SwimmingFish(HEAD_RADIUS, 200, 200);
+        float[] pose = fish.getPose();
+        SwimPath path = new SwimPath();
+        path.set(200, 200, FishPose.x(pose, 0, FishPose.HEAD), FishPose.y(pose, 0, FishPose.HEAD),
+                600, 900, HEAD_RADIUS);
+        CubicTrajectory trajectory = new CubicTrajectory();
+        trajectory.set(path.points);
+        float[] pos = new float[2];
+
+        fish.swimTo(600, 900);
+        assertTrue(fish.isSwimming());
+        assertEquals(3f, fish.getFrequence(), 0f);
+
+        // 走到一半时间时，由于先加速后减速，正好在弧长的一半
+        fish.advance(1f);
+        trajectory.getPosTan(0.5f, pos, null);
+        assertEquals(pos[0], fish.getKeyX(), 1e-3f);
+        assertEquals(pos[1], fish.getKeyY(), 1e-3f);
+
+        fish.advance(1.5f);
+        assertFalse(fish.isSwimming());
+        assertEquals(1f, fish.getFrequence(), 0f);
+        assertEquals(600f, fish.getKeyX(), 1e-2f);
+        assertEquals(900f, fish.getKeyY(), 1e-2f);
+    }
+
+    @Test
+    public void advance_updatesPose() {
+        SwimmingFish fish = new SwimmingFish(HEAD_RADIUS, 200, 200);
+        fish.advance(0.25f);
+        FishPose expected = new FishPose(HEAD_RADIUS);
+        expected.update(200, 200, 90, 90);
+        assertArrayEquals(expected.points, fish.getPose(), 0f);
+    }
+
+    /**
+     * 同样的点击在60、90、120、144Hz下按固定步长推进，模拟的状态和插值后的姿态完全相同
+     */
+    @Test
+    public void fixedTimestep_sameResultAtEveryRefreshRate() {
+        int[] refreshRates = {60, 90, 120, 144};
+        float[] expectedPose = null;
+        float expectedKeyX = 0;
+        float expectedHeadAngle = 0;
+        for (int hz : refreshRates) {
+            SwimmingFish fish = new SwimmingFish(HEAD_RADIUS, 200, 200);
+            FixedTimestep timestep = new FixedTimestep();
+            fish.swimTo(600, 900);
+            long last = 0;
+            for (int frame = 1; frame <= hz * 3; frame++) {
+                long frameTime = Math.round(frame * 1e9 / hz);
+                for (int i = timestep.advance(frameTime - last); i > 0; i--) {
+                    fish.step(timestep.getStepSeconds());
+                }
+                fish.interpolate(timestep.getAlpha());
+                last = frameTime;
+                if (frame == hz) {
+                    // 1秒时游动途中改变目标
+                    fish.swimTo(100, 300);
+                }
+            }
+            if (expectedPose == null) {
+                expectedPose = fish.getPose().clone();
+                expectedKeyX = fish.getKeyX();
+                expectedHeadAngle = fish.getHeadAngle();
+            } else {
+                assertEquals(hz + "Hz", expectedKeyX, fish.getKeyX(), 0);
+                assertEquals(hz + "Hz", expectedHeadAngle, fish.getHeadAngle(), 0);
+                assertArrayEquals(hz + "Hz", expectedPose, fish.getPose(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void frequenceChange_keepsPhaseContinuous() {
+        SwimmingFish fish = new SwimmingFish(HEAD_RADIUS, 200, 200);
+        float step = 1 / 60f;
+        // 最大频率下一步转过的相位
+        float maxPhaseStep = 360f * 3 * step + 1e-3f;
+        fish.advance(0.3f);
+        float phase = fish.getPhase();
+        fish.swimTo(500, 500);
+        for (int i = 0; i < 180; i++) {
+            fish.step(step);
+            float difference = (fish.getPhase() - phase + 360f) % 360f;
+            assertTrue("phase jumped by " + difference, difference <= maxPhaseStep);
+            phase = fish.getPhase();
+        }
+        assertFalse(fish.isSwimming());
+        assertEquals(1f, fish.getFrequence(), 0f);
+    }
+
+    @Test
+    public void interpolate_blendsLastTwoSteps() {
+        SwimmingFish fish = new SwimmingFish(HEAD_RADIUS, 200, 200);
+        fish.swimTo(600, 900);
+        fish.step(0.5f);
+        float fromX = fish.getKeyX();
+        float fromY = fish.getKeyY();
+        float fromAngle = fish.getHeadAngle();
+        float fromPhase = fish.getPhase();
+        fish.step(0.1f);
+        fish.interpolate(0.25f);
+        FishPose expected = new FishPose(HEAD_RADIUS);
+        expected.update(Interpolation.lerp(fromX, fish.getKeyX(), 0.25f), Interpolation.lerp(fromY, fish.getKeyY(), 0.25f),
+                Interpolation.lerpDegrees(fromAngle, fish.getHeadAngle(), 0.25f),
+                Interpolation.lerpDegrees(fromPhase, fish.getPhase(), 0.25f));
+        assertArrayEquals(expected.points, fish.getPose(), 0f);
+    }
+
+    @Test
+    public void accelerateDecelerate_matchesAndroidInterpolator() {
+        assertEquals(0f, Interpolation.accelerateDecelerate(0), 1e-6f);
+        assertEquals(0.5f, Interpolation.accelerateDecelerate(0.5f), 1e-6f);
+        assertEquals(1f, Interpolation.accelerateDecelerate(1), 1e-6f);
+        assertTrue(Interpolation.accelerateDecelerate(0.1f) < 0.1f);
+    }
+}
@@ -0,0 +1,71 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TouchQueueTest {
+
+    @Test
+    public void poll_returnsEventsInOrder() {
+        TouchQueue queue = new TouchQueue(4);
+        assertFalse(queue.poll());
+        assertTrue(queue.offer(1, 2, 3));
+        assertTrue(queue.offer(4, 5, 6));
+
+        assertTrue(queue.poll());
+        assertEquals(1f, queue.getPolledX(), 0f);
+        assertEquals(2f, queue.getPolledY(), 0f);
+        assertEquals(3L, queue.getPolledTimeNanos());
+        assertTrue(queue.poll());
+        assertEquals(4f, queue.getPolledX(), 0f);
+        assertFalse(queue.poll());
+    }
+
+    @Test
+    public void offer_dropsEventsWhenFull() {
+        TouchQueue queue = new TouchQueue(3);
+        assertEquals(4, queue.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i, i, i));
+        }
+        assertFalse(queue.offer(9, 9, 9));
+        assertEquals(4, queue.size());
+
+        assertTrue(queue.poll());
+        assertEquals(0f, queue.getPolledX(), 0f);
+        assertTrue(queue.offer(9, 9, 9));
+    }
+
+    @Test
+    public void concurrentProducer_deliversEveryEventOnce() throws InterruptedException {
+        final TouchQueue queue = new TouchQueue(16);
+        final int events = 100000;
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < events; ) {
+                    if (queue.offer(i, -i, i)) {
+                        i++;
+                    } else {
+                        Thread.yield();
+                    }
+                }
+            }
+        });
+        producer.start();
+        int expected = 0;
+        while (expected < events) {
+            if (queue.poll()) {
+                assertEquals(expected, queue.getPolledX(), 0f);
+                assertEquals(-expected, queue.getPolledY(), 0f);
+                assertEquals(expected, queue.getPolledTimeNanos());
+                expected++;
+            } else {
+                Thread.yield();
+            }
+        }
+        producer.join();
+        assertFalse(queue.poll());
+    }
+}
@@ -0,0 +1,198 @@
+package com.chenjimou.swimmingfishdemo.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TraceReplayerTest {
+
+    private static final float HEAD_RADIUS = 40;
+    private static final long FRAME_NANOS = 16_666_667;
+
+    @Test
+    public void recordedTrace_roundTripsThroughChunks() throws IOException {
+        // 缓冲区很小，录制过程中多次取出，拼起来仍是一个完整的文件
+        TraceRecorder recorder = new TraceRecorder(256);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.recordSize(1080, 1920);
+        for (int frame = 0; frame < 100; frame++) {
+            long frameTime = 1_000_000_000L + frame * FRAME_NANOS;
+            recorder.recordTouch(InputTrace.TOUCH_MOVE, frameTime - 1000, frame, frame * 2);
+            recorder.recordFrame(frameTime);
+            recorder.recordDrawEnd(frameTime + 5_000_000);
+            if (recorder.needsFlush()) {
+                recorder.drainTo(out);
+            }
+        }
+        recorder.drainTo(out);
+        assertEquals(0, recorder.getDroppedCount());
+        assertEquals(301, recorder.getRecordCount());
+
+        InputTrace trace = InputTrace.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(301, trace.size());
+        assertEquals(InputTrace.SIZE, trace.getType(0));
+        assertEquals(1080, trace.getX(0), 0);
+        assertEquals(100, trace.count(InputTrace.FRAME));
+        assertEquals(InputTrace.TOUCH_MOVE, trace.getType(298));
+        assertEquals(99, trace.getX(298), 0);
+        assertEquals(198, trace.getY(298), 0);
+        assertEquals(1_000_000_000L + 99 * FRAME_NANOS, trace.getTimeNanos(299));
+        // 每条触摸记录17字节，帧记录9字节
+        assertEquals(InputTrace.HEADER_BYTES + InputTrace.SIZE_RECORD_BYTES
+                + 100 * (InputTrace.TOUCH_RECORD_BYTES + 2 * InputTrace.TIME_RECORD_BYTES), out.size());
+    }
+
+    @Test
+    public void fullBuffer_dropsInsteadOfBlocking() {
+        TraceRecorder recorder = new TraceRecorder(InputTrace.HEADER_BYTES + 2 * InputTrace.TIME_RECORD_BYTES);
+        assertTrue(recorder.recordFrame(1));
+        assertTrue(recorder.recordFrame(2));
+        assertFalse(recorder.recordFrame(3));
+        assertFalse(recorder.recordTouch(InputTrace.TOUCH_DOWN, 4, 0, 0));
+        assertEquals(2, recorder.getDroppedCount());
+        assertTrue(recorder.needsFlush());
+    }
+
+    @Test
+    public void truncatedTrace_ignoresPartialRecord() throws IOException {
+        TraceRecorder recorder = new TraceRecorder();
+        recorder.recordFrame(100);
+        recorder.recordTouch(InputTrace.TOUCH_DOWN, 200, 1, 2);
+        byte[] bytes = recorder.drain();
+        InputTrace trace = InputTrace.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 3)));
+        assertEquals(1, trace.size());
+        assertEquals(100, trace.getTimeNanos(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void wrongHeader_isRejected() throws IOException {
+        InputTrace.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 0, 0, 0, 1}));
+    }
+
+    @Test
+    public void replay_isDeterministicAndFollowsTouches() throws IOException {
+        byte[] bytes = recordEdgeTaps(new Random(5), 600);
+        InputTrace trace = InputTrace.read(new ByteArrayInputStream(bytes));
+
+        TraceReplayer replayer = new TraceReplayer(HEAD_RADIUS);
+        long first = replayer.replay(trace);
+        assertEquals(600, replayer.getFrameCount());
+        assertEquals(1080, replayer.getWidth());
+        assertTrue(replayer.getSwimCount() > 0);
+        // 记录中每一帧都耗时3~8ms
+        assertEquals(600, replayer.getRecordedFrameMicros().getCount());
+        assertTrue(replayer.getRecordedFrameMicros().getMax() >= 3000);
+
+        // 同一个实例、新的实例重放的结果都相同
+        assertEquals(first, replayer.replay(trace));
+        assertEquals(first, new TraceReplayer(HEAD_RADIUS).replay(trace));
+        // 不同的操作结果不同
+        InputTrace other = InputTrace.read(new ByteArrayInputStream(recordEdgeTaps(new Random(6), 600)));
+        assertTrue(first != replayer.replay(other));
+    }
+
+    @Test
+    public void replay_matchesDirectSimulation() {
+        InputTrace trace = new InputTrace();
+        trace.add(InputTrace.TOUCH_DOWN, 0, 600, 900);
+        for (int frame = 0; frame < 90; frame++) {
+            trace.add(InputTrace.FRAME, 1_000_000_000L + frame * FixedTimestep.DEFAULT_STEP_NANOS, 0, 0);
+        }
+        TraceReplayer replayer = new TraceReplayer(HEAD_RADIUS);
+        replayer.replay(trace);
+        assertEquals(90, replayer.getFrameCount());
+
+        float key = 5.324f * HEAD_RADIUS;
+        SwimmingFish fish = new SwimmingFish(HEAD_RADIUS, key, key);
+        fish.swimTo(600, 900);
+        for (int frame = 1; frame < 90; frame++) {
+            fish.step(FixedTimestep.DEFAULT_STEP_NANOS / 1e9f);
+        }
+        fish.interpolate(0);
+        assertEquals(1, replayer.getSwimCount());
+        // 波纹在一秒之后消失
+        assertEquals(0, replayer.getRippleCount());
+        assertEquals(fish.getKeyX(), replayer.getFish().getKeyX(), 0);
+        assertArrayEquals(fish.getPose(), replayer.getFish().getPose(), 0);
+    }
+
+    @Test
+    public void replay_plansAroundRecordedLayoutBounds() {
+        InputTrace trace = new InputTrace();
+        trace.add(InputTrace.SIZE, 0, 1080, 1920);
+        trace.add(InputTrace.TOUCH_DOWN, 0, 5, 900);
+        for (int frame = 0; frame < 180; frame++) {
+            trace.add(InputTrace.FRAME, 1_000_000_000L + frame * FixedTimestep.DEFAULT_STEP_NANOS, 0, 0);
+        }
+        TraceReplayer replayer = new TraceReplayer(HEAD_RADIUS);
+        replayer.replay(trace);
+
+        SwimmingFish fish = replayer.getFish();
+        assertSame(replayer.getPlanner(), fish.getSwimController().getPlanner());
+        assertEquals(1080, replayer.getPlanner().getField().getWidth(), 0);
+        assertFalse(fish.isSwimming());
+        // 触摸点离左边界只有5像素，鱼停在离边界至少一个间隙的地方
+        assertTrue("keyX " + fish.getKeyX(), fish.getKeyX() >= replayer.getPlanner().getClearance());
+        assertEquals(900, fish.getKeyY(), HEAD_RADIUS);
+    }
+
+    @Test
+    public void recording_allocatesNothing() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        TraceRecorder recorder = new TraceRecorder(1024 * 1024);
+        // 预热
+        for (int i = 0; i < 10_000; i++) {
+            recordFrame(recorder, i);
+        }
+        recorder.reset();
+
+        int frames = 10_000;
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < frames; i++) {
+            recordFrame(recorder, i);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes in " + frames + " frames", allocated < frames);
+        assertEquals(0, recorder.getDroppedCount());
+    }
+
+    private static void recordFrame(TraceRecorder recorder, int frame) {
+        long time = frame * FRAME_NANOS;
+        recorder.recordTouch(InputTrace.TOUCH_MOVE, time, frame, frame);
+        recorder.recordFrame(time);
+        recorder.recordDrawEnd(time + 1000);
+    }
+
+    /**
+     * 在靠近屏幕边缘的地方快速连续点击，每次点击之间有几帧拖动
+     */
+    private static byte[] recordEdgeTaps(Random random, int frames) {
+        TraceRecorder recorder = new TraceRecorder(1024 * 1024);
+        recorder.recordSize(1080, 1920);
+        long time = 5_000_000_000L;
+        for (int frame = 0; frame < frames; frame++) {
+            if (random.nextInt(6) == 0) {
+                float x = random.nextBoolean() ? random.nextFloat() * 20 : 1060 + random.nextFloat() * 20;
+                float y = random.nextFloat() * 1920;
+                recorder.recordTouch(InputTrace.TOUCH_DOWN, time - 2_000_000, x, y);
+                recorder.recordTouch(InputTrace.TOUCH_MOVE, time - 1_000_000, x + 3, y + 3);
+            } else if (random.nextInt(10) == 0) {
+                recorder.recordTouch(InputTrace.TOUCH_UP, time - 1_000_000, 0, 0);
+            }
+            recorder.recordFrame(time);
+            recorder.recordDrawEnd(time + 3_000_000 + random.nextInt(5_000_000));
+            // 偶尔丢一帧
+            time += random.nextInt(20) == 0 ? 2 * FRAME_NANOS : FRAME_NANOS;
+        }
+        return recorder.drain();
+    }
+}
@@ -0,0 +1,65 @@
+package com.chenjimou.swimmingfishdemo.headless;
+
+import com.chenjimou.swimmingfishdemo.core.FixedTimestep;
+import com.chenjimou.swimmingfishdemo.core.SwimmingFish;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * 离线批量渲染：按60Hz模拟一条鱼每隔两秒游向一个随机的点，逐帧画到BufferedImage中。
+ * 指定输出目录时把每一帧写成PNG（frame-00000.png……），否则只渲染并输出每秒渲染的帧数。
+ * 随机数的种子固定，同样的参数每次渲染的结果相同。
+ * <p>
+ * 用法：FrameBatchRenderer &lt;帧数&gt; [输出目录]
+ */
+public final class FrameBatchRenderer {
+
+    private static final int WIDTH = 720;
+    private static final int HEIGHT = 1280;
+    private static final float HEAD_RADIUS = 40;
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    // 每隔多少帧点击一次
+    private static final int TAP_INTERVAL_FRAMES = 120;
+
+    private FrameBatchRenderer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        File outDir = args.length > 1 ? new File(args[1]) : null;
+        if (outDir != null && !outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IOException("cannot create " + outDir);
+        }
+
+        HeadlessFishRenderer renderer = new HeadlessFishRenderer(WIDTH, HEIGHT, HEAD_RADIUS);
+        SwimmingFish fish = new SwimmingFish(HEAD_RADIUS, WIDTH / 2f, HEIGHT / 2f);
+        FixedTimestep timestep = new FixedTimestep();
+        Random random = new Random(1);
+        long renderNanos = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            if (frame % TAP_INTERVAL_FRAMES == 0) {
+                fish.swimTo(random.nextFloat() * WIDTH, random.nextFloat() * HEIGHT);
+            }
+            for (int i = timestep.advance(FRAME_NANOS); i > 0; i--) {
+                fish.step(timestep.getStepSeconds());
+            }
+            fish.interpolate(timestep.getAlpha());
+
+            long start = System.nanoTime();
+            renderer.render(fish.getPose(), 0);
+            renderNanos += System.nanoTime() - start;
+            if (outDir != null) {
+                ImageIO.write(renderer.getImage(), "png",
+                        new File(outDir, String.format(Locale.US, "frame-%05d.png", frame)));
+            }
+        }
+        renderer.dispose();
+        System.out.printf(Locale.US, "rendered %d frames (%dx%d) in %.1f ms, %.0f frames/s%n", frames, WIDTH, HEIGHT,
+                renderNanos / 1e6, frames / (renderNanos / 1e9));
+    }
+}
@@ -0,0 +1,124 @@
+package com.chenjimou.swimmingfishdemo.headless;
+
+import com.chenjimou.swimmingfishdemo.core.FishMeshRenderer;
+import com.chenjimou.swimmingfishdemo.core.FishRenderer;
+import com.chenjimou.swimmingfishdemo.core.FishSpecies;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * 把鱼画到固定大小的BufferedImage中：每一帧先用背景色清空整张图片，再按姿态依次画鱼。
+ * 图片、Graphics2D和后端都只创建一次，逐帧渲染时不分配内存（Java2D内部的分配除外）。
+ * <p>
+ * 不是线程安全的，多线程渲染时每个线程使用各自的实例。
+ */
+public class HeadlessFishRenderer {
+
+    // 背景色与FishSurfaceView相同
+    public static final int DEFAULT_BACKGROUND = 0xFFFFFFFF;
+
+    private final BufferedImage image;
+    private final Graphics2D graphics;
+    private final Java2DRenderBackend backend = new Java2DRenderBackend();
+    private final FishRenderer fishRenderer;
+    private final FishMeshRenderer meshRenderer;
+    private int background = DEFAULT_BACKGROUND;
+    private Color backgroundColor = new Color(DEFAULT_BACKGROUND, true);
+
+    /**
+     * @param width 图片的宽度（像素）
+     * @param height 图片的高度（像素）
+     * @param headRadius 鱼头的半径
+     */
+    public HeadlessFishRenderer(int width, int height, float headRadius) {
+        this(width, height, new FishSpecies(headRadius));
+    }
+
+    /**
+     * @param width 图片的宽度（像素）
+     * @param height 图片的高度（像素）
+     * @param species 鱼的大小和颜色
+     */
+    public HeadlessFishRenderer(int width, int height, FishSpecies species) {
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+        fishRenderer = new FishRenderer(species, backend);
+        meshRenderer = new FishMeshRenderer(species, backend);
+        backend.setGraphics(graphics);
+    }
+
+    public void setBackground(int argb) {
+        if (argb != background) {
+            background = argb;
+            backgroundColor = new Color(argb, true);
+        }
+    }
+
+    /**
+     * 用背景色清空整张图片
+     */
+    public void clear() {
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.setColor(backgroundColor);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setComposite(AlphaComposite.SrcOver);
+        // 恢复画鱼的颜色
+        backend.setColor(backend.getColor());
+    }
+
+    /**
+     * 清空之后画一条鱼
+     * @param pose 姿态数组
+     * @param offset 这条鱼的姿态在数组中的起始下标
+     * @return 渲染的结果，下一次渲染时会被覆盖
+     */
+    public BufferedImage render(float[] pose, int offset) {
+        clear();
+        fishRenderer.draw(pose, offset);
+        return image;
+    }
+
+    /**
+     * 清空之后依次画count条鱼，姿态在数组中连续存放
+     */
+    public BufferedImage render(float[] poses, int count, int floatsPerPose) {
+        clear();
+        for (int i = 0; i < count; i++) {
+            fishRenderer.draw(poses, i * floatsPerPose);
+        }
+        return image;
+    }
+
+    /**
+     * 清空之后把count条鱼合并成一个三角形网格画出，细节等级与{@link #getFishRenderer()}相同
+     */
+    public BufferedImage renderMesh(float[] poses, int count, int floatsPerPose) {
+        clear();
+        meshRenderer.setLevelOfDetail(fishRenderer.getLevelOfDetail());
+        meshRenderer.draw(poses, count, floatsPerPose);
+        return image;
+    }
+
+    public FishMeshRenderer getMeshRenderer() {
+        return meshRenderer;
+    }
+
+    public FishRenderer getFishRenderer() {
+        return fishRenderer;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * 释放Graphics2D，之后不能再渲染
+     */
+    public void dispose() {
+        backend.setGraphics(null);
+        graphics.dispose();
+    }
+}
@@ -0,0 +1,177 @@
+package com.chenjimou.swimmingfishdemo.headless;
+
+import com.chenjimou.swimmingfishdemo.core.RenderBackend;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用Java2D绘制的后端，可以画到BufferedImage中，在没有设备和显示器的服务器上运行（java.awt.headless=true）。
+ * 坐标系与Android Canvas相同（y轴朝下），Graphics2D在每次绘制前通过{@link #setGraphics}设置。
+ * <p>
+ * 抗锯齿对应KEY_ANTIALIASING，抖动对应KEY_DITHERING；画出的像素与Android不会完全相同，
+ * 用于对比同一个后端前后两次的结果，而不是与设备上的截图对比。
+ * <p>
+ * 不是线程安全的。
+ */
+public class Java2DRenderBackend implements RenderBackend {
+
+    // 逐帧生成的路径
+    private final Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO);
+    private final Ellipse2D.Float circle = new Ellipse2D.Float();
+    // 保留的路径的局部坐标系到画布的变换，以及设置Graphics2D时的变换
+    private final AffineTransform partTransform = new AffineTransform();
+    private final AffineTransform baseTransform = new AffineTransform();
+    private final List<Path2D.Float> retainedPaths = new ArrayList<>();
+    // drawTriangles逐个填充的三角形，以及当前三角形的颜色
+    private final Path2D.Float triangle = new Path2D.Float(Path2D.WIND_NON_ZERO);
+    private int triangleArgb;
+    private Color triangleColor;
+
+    private int argb;
+    // 颜色变化时才创建新的Color
+    private Color color;
+    private boolean antiAlias;
+    private boolean dither;
+    private Graphics2D graphics;
+
+    /**
+     * 设置之后绘制的目标，当前的颜色、抗锯齿和抖动会应用到graphics上
+     */
+    public void setGraphics(Graphics2D graphics) {
+        this.graphics = graphics;
+        if (graphics == null) {
+            return;
+        }
+        baseTransform.setTransform(graphics.getTransform());
+        // 与Android一样按浮点坐标绘制，不把路径对齐到像素
+        graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        applyColor();
+        applyHints();
+    }
+
+    @Override
+    public void setColor(int argb) {
+        this.argb = argb;
+        applyColor();
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        setColor((alpha & 0xFF) << 24 | (argb & 0x00FFFFFF));
+    }
+
+    public int getColor() {
+        return argb;
+    }
+
+    @Override
+    public void setAntiAlias(boolean antiAlias) {
+        this.antiAlias = antiAlias;
+        applyHints();
+    }
+
+    @Override
+    public void setDither(boolean dither) {
+        this.dither = dither;
+        applyHints();
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius) {
+        circle.setFrame(cx - radius, cy - radius, radius * 2, radius * 2);
+        graphics.fill(circle);
+    }
+
+    @Override
+    public void beginPath() {
+        path.reset();
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+        path.moveTo(x, y);
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        path.lineTo(x, y);
+    }
+
+    @Override
+    public void quadTo(float controlX, float controlY, float x, float y) {
+        path.quadTo(controlX, controlY, x, y);
+    }
+
+    @Override
+    public void fillPath() {
+        // 与Android的Path一样，填充时自动闭合
+        graphics.fill(path);
+    }
+
+    @Override
+    public int retainPath() {
+        retainedPaths.add(new Path2D.Float(path));
+        path.reset();
+        return retainedPaths.size() - 1;
+    }
+
+    @Override
+    public void fillRetainedPath(int path, float cos, float sin, float originX, float originY) {
+        // (u, v) -> (originX + u * cos + v * sin, originY - u * sin + v * cos)
+        partTransform.setTransform(cos, -sin, sin, cos, originX, originY);
+        graphics.transform(partTransform);
+        graphics.fill(retainedPaths.get(path));
+        graphics.setTransform(baseTransform);
+    }
+
+    /**
+     * 逐个填充三角形，不做抗锯齿（与Android的drawVertices相同），共享边上的像素只会被填充一次。
+     * 顶点的颜色不插值，每个三角形用第一个顶点的颜色，FishMeshRenderer中同一条鱼的顶点颜色相同
+     */
+    @Override
+    public void drawTriangles(float[] vertices, int[] colors, int vertexCount) {
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        for (int i = 0; i + 2 < vertexCount; i += 3) {
+            if (triangleColor == null || triangleArgb != colors[i]) {
+                triangleArgb = colors[i];
+                triangleColor = new Color(triangleArgb, true);
+            }
+            graphics.setColor(triangleColor);
+            triangle.reset();
+            triangle.moveTo(vertices[i * 2], vertices[i * 2 + 1]);
+            triangle.lineTo(vertices[i * 2 + 2], vertices[i * 2 + 3]);
+            triangle.lineTo(vertices[i * 2 + 4], vertices[i * 2 + 5]);
+            triangle.closePath();
+            graphics.fill(triangle);
+        }
+        // 恢复画笔的颜色和抗锯齿
+        applyColor();
+        applyHints();
+    }
+
+    private void applyColor() {
+        if (color == null || color.getRGB() != argb) {
+            color = new Color(argb, true);
+        }
+        if (graphics != null) {
+            graphics.setColor(color);
+        }
+    }
+
+    private void applyHints() {
+        if (graphics == null) {
+            return;
+        }
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                antiAlias ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+        graphics.setRenderingHint(RenderingHints.KEY_DITHERING,
+                dither ? RenderingHints.VALUE_DITHER_ENABLE : RenderingHints.VALUE_DITHER_DISABLE);
+    }
+}
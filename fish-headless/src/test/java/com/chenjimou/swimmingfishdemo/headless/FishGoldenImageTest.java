@@ -0,0 +1,120 @@
+package com.chenjimou.swimmingfishdemo.headless;
+
+import com.chenjimou.swimmingfishdemo.core.FishLod;
+import com.chenjimou.swimmingfishdemo.core.FishPose;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * 与src/test/resources/golden中的基准图片逐像素对比。不同JDK的抗锯齿结果可能有细微的差别，
+ * 每个通道相差不超过{@link #CHANNEL_TOLERANCE}的像素视为相同，不同的像素不超过{@link #MAX_DIFF_RATIO}。
+ * <p>
+ * 有意修改绘制之后，用-Dgolden.update=&lt;目录&gt;（gradle中为-Pgolden.update）重新生成基准图片；
+ * 对比失败时实际的图片写到build/golden-failures中。
+ */
+public class FishGoldenImageTest {
+
+    private static final int SIZE = 256;
+    private static final float HEAD_RADIUS = 24;
+    private static final int CHANNEL_TOLERANCE = 8;
+    private static final float MAX_DIFF_RATIO = 0.005f;
+
+    @Test
+    public void full_heading90() throws IOException {
+        assertGolden("full_heading90", FishLod.FULL, 90, 0);
+    }
+
+    @Test
+    public void full_heading210_swinging() throws IOException {
+        assertGolden("full_heading210_swinging", FishLod.FULL, 210, 135);
+    }
+
+    @Test
+    public void reduced_heading30() throws IOException {
+        assertGolden("reduced_heading30", FishLod.REDUCED, 30, 60);
+    }
+
+    @Test
+    public void minimal_heading300() throws IOException {
+        assertGolden("minimal_heading300", FishLod.MINIMAL, 300, 250);
+    }
+
+    @Test
+    public void sameFrame_rendersIdentically() {
+        HeadlessFishRenderer renderer = new HeadlessFishRenderer(SIZE, SIZE, HEAD_RADIUS);
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        pose.update(SIZE / 2f, SIZE / 2f, 45, 30);
+        int[] first = pixels(renderer.render(pose.points, 0));
+        // 中间画一帧别的姿态，背景必须被完全清空
+        pose.update(40, 40, 200, 100);
+        renderer.render(pose.points, 0);
+        pose.update(SIZE / 2f, SIZE / 2f, 45, 30);
+        assertArrayEquals(first, pixels(renderer.render(pose.points, 0)));
+        renderer.dispose();
+    }
+
+    private static void assertGolden(String name, int levelOfDetail, float headAngle, float phase) throws IOException {
+        HeadlessFishRenderer renderer = new HeadlessFishRenderer(SIZE, SIZE, HEAD_RADIUS);
+        renderer.getFishRenderer().setLevelOfDetail(levelOfDetail);
+        FishPose pose = new FishPose(HEAD_RADIUS);
+        pose.update(SIZE / 2f, SIZE / 2f, headAngle, phase);
+        BufferedImage actual = renderer.render(pose.points, 0);
+
+        String updateDir = System.getProperty("golden.update");
+        if (updateDir != null) {
+            File file = new File(updateDir, name + ".png");
+            assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+            ImageIO.write(actual, "png", file);
+            renderer.dispose();
+            return;
+        }
+
+        BufferedImage expected;
+        try (InputStream in = FishGoldenImageTest.class.getResourceAsStream("/golden/" + name + ".png")) {
+            assertNotNull("missing golden image " + name, in);
+            expected = ImageIO.read(in);
+        }
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int different = countDifferentPixels(expected, actual);
+        int allowed = (int) (SIZE * SIZE * MAX_DIFF_RATIO);
+        if (different > allowed) {
+            File failures = new File("build/golden-failures");
+            if (failures.isDirectory() || failures.mkdirs()) {
+                ImageIO.write(actual, "png", new File(failures, name + ".png"));
+            }
+        }
+        renderer.dispose();
+        assertTrue(name + ": " + different + " pixels differ, allowed " + allowed, different <= allowed);
+    }
+
+    private static int countDifferentPixels(BufferedImage expected, BufferedImage actual) {
+        int different = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int a = expected.getRGB(x, y);
+                int b = actual.getRGB(x, y);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    if (Math.abs((a >>> shift & 0xFF) - (b >>> shift & 0xFF)) > CHANNEL_TOLERANCE) {
+                        different++;
+                        break;
+                    }
+                }
+            }
+        }
+        return different;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
@@ -0,0 +1,82 @@
+package com.chenjimou.swimmingfishdemo.headless;
+
+import com.chenjimou.swimmingfishdemo.core.FishLod;
+import com.chenjimou.swimmingfishdemo.core.FishPose;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 三角形网格画出的鱼群与逐条按路径画出的结果对比。网格不做抗锯齿，对比时路径也关闭抗锯齿，
+ * 两者只在边缘（曲线展开成折线、圆画成多边形）相差不到一个像素
+ */
+public class FishMeshImageTest {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 480;
+    private static final float HEAD_RADIUS = 16;
+    private static final int FISH_COUNT = 12;
+    private static final int CHANNEL_TOLERANCE = 8;
+    // 不同的像素占鱼覆盖的像素的比例
+    private static final float MAX_DIFF_RATIO = 0.04f;
+
+    @Test
+    public void full_matchesPathRendering() {
+        assertMeshMatchesPaths(FishLod.FULL);
+    }
+
+    @Test
+    public void reduced_matchesPathRendering() {
+        assertMeshMatchesPaths(FishLod.REDUCED);
+    }
+
+    @Test
+    public void minimal_matchesPathRendering() {
+        assertMeshMatchesPaths(FishLod.MINIMAL);
+    }
+
+    private static void assertMeshMatchesPaths(int levelOfDetail) {
+        float[] poses = new float[FISH_COUNT * FishPose.FLOATS_PER_POSE];
+        FishPose fishPose = new FishPose(HEAD_RADIUS);
+        Random random = new Random(levelOfDetail);
+        for (int i = 0; i < FISH_COUNT; i++) {
+            fishPose.compute(poses, i * FishPose.FLOATS_PER_POSE, 40 + random.nextFloat() * (WIDTH - 80),
+                    40 + random.nextFloat() * (HEIGHT - 80), random.nextFloat() * 360, random.nextFloat() * 360);
+        }
+
+        HeadlessFishRenderer pathRenderer = new HeadlessFishRenderer(WIDTH, HEIGHT, HEAD_RADIUS);
+        pathRenderer.getFishRenderer().setLevelOfDetail(levelOfDetail);
+        pathRenderer.getFishRenderer().getBackend().setAntiAlias(false);
+        int[] expected = pixels(pathRenderer.render(poses, FISH_COUNT, FishPose.FLOATS_PER_POSE));
+        pathRenderer.dispose();
+
+        HeadlessFishRenderer meshRenderer = new HeadlessFishRenderer(WIDTH, HEIGHT, HEAD_RADIUS);
+        meshRenderer.getFishRenderer().setLevelOfDetail(levelOfDetail);
+        int[] actual = pixels(meshRenderer.renderMesh(poses, FISH_COUNT, FishPose.FLOATS_PER_POSE));
+        meshRenderer.dispose();
+
+        int covered = 0;
+        int different = 0;
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != HeadlessFishRenderer.DEFAULT_BACKGROUND || actual[i] != HeadlessFishRenderer.DEFAULT_BACKGROUND) {
+                covered++;
+            }
+            for (int shift = 0; shift < 32; shift += 8) {
+                if (Math.abs((expected[i] >>> shift & 0xFF) - (actual[i] >>> shift & 0xFF)) > CHANNEL_TOLERANCE) {
+                    different++;
+                    break;
+                }
+            }
+        }
+        assertTrue(covered > FISH_COUNT * HEAD_RADIUS * HEAD_RADIUS);
+        assertTrue(different + " of " + covered + " pixels differ", different <= covered * MAX_DIFF_RATIO);
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
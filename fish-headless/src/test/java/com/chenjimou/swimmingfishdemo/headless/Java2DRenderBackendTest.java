@@ -0,0 +1,168 @@
+package com.chenjimou.swimmingfishdemo.headless;
+
+import com.chenjimou.swimmingfishdemo.core.FishLod;
+import com.chenjimou.swimmingfishdemo.core.FishPose;
+import com.chenjimou.swimmingfishdemo.core.FishRenderer;
+
+import org.junit.Test;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class Java2DRenderBackendTest {
+
+    private static final int SIZE = 128;
+
+    /**
+     * 保留的路径按局部坐标系变换后，与直接用变换后的顶点生成的路径画出的像素相同
+     */
+    @Test
+    public void retainedPath_matchesTransformedVertices() {
+        float[][] local = {{-10, -20}, {30, 5}, {-5, 25}};
+        float angle = (float) Math.toRadians(35);
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+        float originX = 60;
+        float originY = 70;
+
+        BufferedImage retainedImage = newImage();
+        Graphics2D retainedGraphics = retainedImage.createGraphics();
+        Java2DRenderBackend retained = newBackend(retainedGraphics);
+        retained.beginPath();
+        retained.moveTo(local[0][0], local[0][1]);
+        retained.lineTo(local[1][0], local[1][1]);
+        retained.lineTo(local[2][0], local[2][1]);
+        int path = retained.retainPath();
+        retained.fillRetainedPath(path, cos, sin, originX, originY);
+        retainedGraphics.dispose();
+
+        BufferedImage directImage = newImage();
+        Graphics2D directGraphics = directImage.createGraphics();
+        Java2DRenderBackend direct = newBackend(directGraphics);
+        direct.beginPath();
+        for (int i = 0; i < local.length; i++) {
+            float u = local[i][0];
+            float v = local[i][1];
+            float x = originX + u * cos + v * sin;
+            float y = originY - u * sin + v * cos;
+            if (i == 0) {
+                direct.moveTo(x, y);
+            } else {
+                direct.lineTo(x, y);
+            }
+        }
+        direct.fillPath();
+        directGraphics.dispose();
+
+        assertTrue(countDifferent(retainedImage, directImage) <= 2);
+        assertTrue(retainedImage.getRGB((int) originX, (int) originY) != 0);
+    }
+
+    @Test
+    public void head_isFilledWithFishColor() {
+        HeadlessFishRenderer renderer = new HeadlessFishRenderer(SIZE, SIZE, 12);
+        FishPose pose = new FishPose(12);
+        pose.update(SIZE / 2f, SIZE / 2f, 90, 0);
+        BufferedImage image = renderer.render(pose.points, 0);
+        int headX = Math.round(FishPose.x(pose.points, 0, FishPose.HEAD));
+        int headY = Math.round(FishPose.y(pose.points, 0, FishPose.HEAD)) - 8;
+        // 鱼头的上半部分只有鱼头一层：白色背景上叠加透明度为BODY_ALPHA的鱼的颜色
+        float alpha = FishRenderer.BODY_ALPHA / 255f;
+        int expectedGreen = Math.round(255 * (1 - alpha) + (FishRenderer.DEFAULT_COLOR >> 8 & 0xFF) * alpha);
+        int pixel = image.getRGB(headX, headY);
+        assertEquals(expectedGreen, pixel >> 8 & 0xFF, 2);
+        assertEquals(0xFF, pixel >>> 24);
+        // 鱼外面仍然是背景色
+        assertEquals(HeadlessFishRenderer.DEFAULT_BACKGROUND, image.getRGB(0, 0));
+        renderer.dispose();
+    }
+
+    @Test
+    public void halfAlpha_rendersLighter() {
+        HeadlessFishRenderer renderer = new HeadlessFishRenderer(SIZE, SIZE, 12);
+        FishPose pose = new FishPose(12);
+        pose.update(SIZE / 2f, SIZE / 2f, 90, 0);
+        int headX = Math.round(FishPose.x(pose.points, 0, FishPose.HEAD));
+        int headY = Math.round(FishPose.y(pose.points, 0, FishPose.HEAD)) - 8;
+        int fullGreen = renderer.render(pose.points, 0).getRGB(headX, headY) >> 8 & 0xFF;
+        long fullInk = countInk(renderer.getImage());
+
+        renderer.getFishRenderer().setAlpha(128);
+        assertEquals(FishRenderer.BODY_ALPHA * 128 / 255, renderer.getFishRenderer().getBodyAlpha());
+        BufferedImage image = renderer.render(pose.points, 0);
+        // 鱼头的上半部分只有一层，透明度减半后更接近白色背景
+        float alpha = renderer.getFishRenderer().getBodyAlpha() / 255f;
+        int expectedGreen = Math.round(255 * (1 - alpha) + (FishRenderer.DEFAULT_COLOR >> 8 & 0xFF) * alpha);
+        int halfGreen = image.getRGB(headX, headY) >> 8 & 0xFF;
+        assertEquals(expectedGreen, halfGreen, 2);
+        assertTrue(halfGreen + " vs " + fullGreen, halfGreen > fullGreen + 20);
+        assertTrue(countInk(image) * 10 < fullInk * 7);
+        renderer.dispose();
+    }
+
+    @Test
+    public void minimal_disablesAntiAlias() {
+        HeadlessFishRenderer renderer = new HeadlessFishRenderer(SIZE, SIZE, 12);
+        FishPose pose = new FishPose(12);
+        pose.update(SIZE / 2f, SIZE / 2f, 70, 40);
+        renderer.getFishRenderer().setLevelOfDetail(FishLod.MINIMAL);
+        int minimalColors = countColors(renderer.render(pose.points, 0));
+        renderer.getFishRenderer().setLevelOfDetail(FishLod.FULL);
+        int fullColors = countColors(renderer.render(pose.points, 0));
+        // 不抗锯齿时只有背景以及几种重叠的颜色，抗锯齿的边缘会产生很多中间色
+        assertTrue(minimalColors + " vs " + fullColors, minimalColors * 4 < fullColors);
+        renderer.dispose();
+    }
+
+    /**
+     * 所有像素与白色背景的差值之和，鱼画得越淡越小
+     */
+    private static long countInk(BufferedImage image) {
+        long ink = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int pixel = image.getRGB(x, y);
+                ink += (255 - (pixel >> 16 & 0xFF)) + (255 - (pixel >> 8 & 0xFF)) + (255 - (pixel & 0xFF));
+            }
+        }
+        return ink;
+    }
+
+    private static BufferedImage newImage() {
+        return new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private static Java2DRenderBackend newBackend(Graphics2D graphics) {
+        Java2DRenderBackend backend = new Java2DRenderBackend();
+        backend.setColor(0xFF000000);
+        backend.setAntiAlias(false);
+        backend.setGraphics(graphics);
+        return backend;
+    }
+
+    private static int countDifferent(BufferedImage a, BufferedImage b) {
+        int different = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (a.getRGB(x, y) != b.getRGB(x, y)) {
+                    different++;
+                }
+            }
+        }
+        return different;
+    }
+
+    private static int countColors(BufferedImage image) {
+        Set<Integer> colors = new HashSet<>();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                colors.add(image.getRGB(x, y));
+            }
+        }
+        return colors.size();
+    }
+}